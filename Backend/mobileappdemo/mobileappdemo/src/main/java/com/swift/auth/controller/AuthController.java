@@ -4,6 +4,7 @@ import com.swift.auth.dto.LoginRequest;
 import com.swift.auth.dto.OtpRequest;
 import com.swift.auth.dto.SignupRequest;
 import com.swift.auth.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,17 +23,17 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("/signup")
-    public ResponseEntity<?> signup(@Valid @RequestBody SignupRequest request) {
+    public ResponseEntity<?> signup(@Valid @RequestBody SignupRequest request, HttpServletRequest httpRequest) {
         logger.info("Received signup request: {}", request);
-        ResponseEntity<?> response = authService.signup(request);
+        ResponseEntity<?> response = authService.signup(request, httpRequest.getRemoteAddr());
         logger.info("Signup response: {}", response.getBody());
         return response;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         logger.info("Received login request: {}", request);
-        ResponseEntity<?> response = authService.login(request);
+        ResponseEntity<?> response = authService.login(request, httpRequest.getRemoteAddr());
         logger.info("Login response: {}", response.getBody());
         return response;
     }
@@ -51,4 +52,9 @@ public class AuthController {
     public ResponseEntity<?> resendOtp(@RequestBody Map<String, String> request) {
         return authService.resendOtp(request.get("phoneNumber"), request.get("purpose"));
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authorization) {
+        return authService.logout(authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization);
+    }
 }
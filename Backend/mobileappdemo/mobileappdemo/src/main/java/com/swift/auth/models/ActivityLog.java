@@ -0,0 +1,75 @@
+package com.swift.auth.models;
+
+import com.swift.notification.enums.NotificationType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry in a user's account activity (logins, deposits, transfers, password changes),
+ * written from outbox events by {@link com.swift.auth.service.ActivityLogService}.
+ */
+@Entity
+@Table(name = "activity_logs")
+public class ActivityLog {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_log_seq")
+    @SequenceGenerator(name = "activity_log_seq", sequenceName = "activity_logs_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 30)
+    private NotificationType action;
+
+    @Column(nullable = false, length = 500)
+    private String description;
+
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    // When the activity happened, not when it was logged
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ActivityLog() {}
+
+    public ActivityLog(Long userId, NotificationType action, String description, Long referenceId, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.action = action;
+        this.description = description;
+        this.referenceId = referenceId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public NotificationType getAction() {
+        return action;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Long getReferenceId() {
+        return referenceId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
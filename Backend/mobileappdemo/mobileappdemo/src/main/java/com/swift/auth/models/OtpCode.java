@@ -0,0 +1,70 @@
+package com.swift.auth.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The current one-time code for an identifier (email or phone), as kept by
+ * {@link com.swift.auth.service.WriteBehindOtpStore}: written behind when issued, then used up
+ * and counted against directly. One row per identifier; only the code's hash is stored.
+ */
+@Entity
+@Table(name = "otp_codes")
+public class OtpCode {
+    @Id
+    @Column(length = 255)
+    private String identifier;
+
+    @Column(name = "code_hash", nullable = false, length = 64)
+    private String codeHash;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private boolean used;
+
+    // Constructors
+    public OtpCode() {}
+
+    public OtpCode(String identifier, String codeHash, LocalDateTime issuedAt, LocalDateTime expiresAt, int attempts, boolean used) {
+        this.identifier = identifier;
+        this.codeHash = codeHash;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.attempts = attempts;
+        this.used = used;
+    }
+
+    // Getters
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getCodeHash() {
+        return codeHash;
+    }
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isUsed() {
+        return used;
+    }
+}
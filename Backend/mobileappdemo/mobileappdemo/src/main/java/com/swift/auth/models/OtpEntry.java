@@ -1,31 +0,0 @@
-package com.swift.auth.models;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-public class OtpEntry {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    private String email;
-    private String otp;
-    private LocalDateTime expiresAt;
-    private LocalDateTime createdAt = LocalDateTime.now();
-    private boolean isUsed = false;
-
-    // Getters and setters...
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-    public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
-    public String getOtp() { return otp; }
-    public void setOtp(String otp) { this.otp = otp; }
-    public LocalDateTime getExpiresAt() { return expiresAt; }
-    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
-    public boolean isUsed() { return isUsed; }
-    public void setUsed(boolean used) { isUsed = used; }
-}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.swift.auth.repository;
+
+import com.swift.auth.models.ActivityLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long> {
+    List<ActivityLog> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+}
@@ -0,0 +1,58 @@
+package com.swift.auth.repository;
+
+import com.swift.auth.models.OtpCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface OtpCodeRepository extends JpaRepository<OtpCode, String> {
+
+    /**
+     * Write a newly issued code. A row for an older code is replaced; a row for the same or a
+     * newer code is left alone, so a late write can't undo a use or wrong guess counted since.
+     * Codes for one identifier are at least the resend cooldown apart, so their issue times differ.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO otp_codes (identifier, code_hash, issued_at, expires_at, attempts, used) " +
+                   "VALUES (:identifier, :codeHash, :issuedAt, :expiresAt, 0, FALSE) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "code_hash = CASE WHEN VALUES(issued_at) > issued_at THEN VALUES(code_hash) ELSE code_hash END, " +
+                   "expires_at = CASE WHEN VALUES(issued_at) > issued_at THEN VALUES(expires_at) ELSE expires_at END, " +
+                   "attempts = CASE WHEN VALUES(issued_at) > issued_at THEN 0 ELSE attempts END, " +
+                   "used = CASE WHEN VALUES(issued_at) > issued_at THEN FALSE ELSE used END, " +
+                   // Last, so the comparisons above see the stored issue time on MySQL too
+                   "issued_at = GREATEST(issued_at, VALUES(issued_at))",
+           nativeQuery = true)
+    int writeIssued(@Param("identifier") String identifier, @Param("codeHash") String codeHash,
+                    @Param("issuedAt") LocalDateTime issuedAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Use up a code. Returns 0 if it was used, locked, expired or replaced meanwhile, on any instance.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OtpCode o SET o.used = true WHERE o.identifier = :identifier AND o.codeHash = :codeHash " +
+           "AND o.used = false AND o.attempts < :maxAttempts AND o.expiresAt >= :now")
+    int markUsed(@Param("identifier") String identifier, @Param("codeHash") String codeHash,
+                 @Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now);
+
+    /**
+     * Count a wrong guess. Returns 0 if the code was used, locked or replaced meanwhile.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OtpCode o SET o.attempts = o.attempts + 1 WHERE o.identifier = :identifier AND o.codeHash = :codeHash " +
+           "AND o.used = false AND o.attempts < :maxAttempts")
+    int addAttempt(@Param("identifier") String identifier, @Param("codeHash") String codeHash,
+                   @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OtpCode o WHERE o.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
@@ -1,9 +1,11 @@
 package com.swift.auth.repository;
 
 import com.swift.auth.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -25,4 +27,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT COUNT(u) > 0 FROM User u WHERE u.emailOrPhone = :emailOrPhone")
     boolean existsByEmailOrPhone(@Param("emailOrPhone") String emailOrPhone);
-}
\ No newline at end of file
+
+    // Walking every user in id order, a page at a time
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,85 @@
+package com.swift.auth.service;
+
+import com.swift.auth.models.ActivityLog;
+import com.swift.auth.repository.ActivityLogRepository;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.models.OutboxEvent;
+import com.swift.notification.service.OutboxEventHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Account activity shown on the profile screen, built from outbox events.
+ */
+@Service
+public class ActivityLogService implements OutboxEventHandler {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        List<ActivityLog> logs = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            logs.add(new ActivityLog(event.getUserId(), event.getType(), event.getMessage(), event.getReferenceId(), event.getCreatedAt()));
+        }
+        activityLogRepository.saveAll(logs);
+    }
+
+    /**
+     * The user's most recent activity, newest first, in the shape the app renders.
+     */
+    public List<Map<String, Object>> getRecentActivity(Long userId, int limit) {
+        List<Map<String, Object>> views = new ArrayList<>();
+        for (ActivityLog log : activityLogRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, PageRequest.of(0, limit))) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", log.getId());
+            view.put("action", label(log.getAction()));
+            view.put("description", log.getDescription());
+            view.put("timestamp", log.getCreatedAt());
+            view.put("icon", icon(log.getAction()));
+            view.put("label", label(log.getAction()));
+            view.put("time", log.getCreatedAt().format(TIME_FORMAT));
+            view.put("referenceId", log.getReferenceId());
+            views.add(view);
+        }
+        return views;
+    }
+
+    private String label(NotificationType type) {
+        return switch (type) {
+            case DEPOSIT -> "Deposit";
+            case WITHDRAWAL -> "Withdrawal";
+            case TRANSFER -> "Transfer";
+            case SEND -> "Send";
+            case CURRENCY_EXCHANGE -> "Exchange";
+            case SIGNUP -> "Sign up";
+            case LOGIN -> "Login";
+            case PASSWORD_CHANGE, SECURITY_ALERT -> "Security";
+            case RATE_ALERT -> "Rate alert";
+        };
+    }
+
+    private String icon(NotificationType type) {
+        return switch (type) {
+            case DEPOSIT -> "cash-outline";
+            case WITHDRAWAL -> "arrow-down-outline";
+            case TRANSFER, CURRENCY_EXCHANGE -> "swap-horizontal-outline";
+            case SEND -> "paper-plane-outline";
+            case SIGNUP -> "person-add-outline";
+            case LOGIN -> "log-in-outline";
+            case PASSWORD_CHANGE, SECURITY_ALERT -> "settings-outline";
+            case RATE_ALERT -> "trending-up-outline";
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.swift.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Token buckets in front of password checks: one per client IP, shared by login and signup,
+ * and one per login identifier so a single account can't be guessed at from many addresses.
+ * A bucket holds up to capacity attempts and refills at a steady rate; idle buckets are
+ * dropped from memory after a while.
+ */
+@Component
+public class AuthAttemptLimiter {
+
+    private final Clock clock;
+    private final int ipCapacity;
+    private final double ipPerMilli;
+    private final int identifierCapacity;
+    private final double identifierPerMilli;
+    private final Cache<String, Bucket> buckets;
+    private final Counter ipRejected;
+    private final Counter identifierRejected;
+
+    @Autowired
+    public AuthAttemptLimiter(MeterRegistry meterRegistry,
+                              @Value("${auth.rate-limit.ip.capacity:30}") int ipCapacity,
+                              @Value("${auth.rate-limit.ip.per-minute:30}") int ipPerMinute,
+                              @Value("${auth.rate-limit.identifier.capacity:5}") int identifierCapacity,
+                              @Value("${auth.rate-limit.identifier.per-minute:5}") int identifierPerMinute,
+                              @Value("${auth.rate-limit.max-entries:100000}") long maxEntries) {
+        this(meterRegistry, ipCapacity, ipPerMinute, identifierCapacity, identifierPerMinute, maxEntries, Clock.systemUTC());
+    }
+
+    AuthAttemptLimiter(MeterRegistry meterRegistry, int ipCapacity, int ipPerMinute, int identifierCapacity,
+                       int identifierPerMinute, long maxEntries, Clock clock) {
+        this.clock = clock;
+        this.ipCapacity = ipCapacity;
+        this.ipPerMilli = ipPerMinute / 60_000.0;
+        this.identifierCapacity = identifierCapacity;
+        this.identifierPerMilli = identifierPerMinute / 60_000.0;
+        // A bucket idle this long has refilled completely, so forgetting it changes nothing
+        long fullRefillMs = (long) Math.ceil(Math.max(ipCapacity / ipPerMilli, identifierCapacity / identifierPerMilli));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofMillis(fullRefillMs))
+                .build();
+        this.ipRejected = Counter.builder("auth.attempts.rejected").tag("reason", "ip").register(meterRegistry);
+        this.identifierRejected = Counter.builder("auth.attempts.rejected").tag("reason", "identifier").register(meterRegistry);
+    }
+
+    /**
+     * Takes one login attempt from the client's and the identifier's buckets.
+     *
+     * @throws AuthThrottledException if either is empty
+     */
+    public void checkLogin(String clientIp, String identifier) {
+        checkIp(clientIp);
+        if (identifier != null) {
+            String key = "id:" + identifier.trim().toLowerCase(Locale.ROOT);
+            long waitMs = take(key, identifierCapacity, identifierPerMilli);
+            if (waitMs > 0) {
+                identifierRejected.increment();
+                throw new AuthThrottledException("Too many login attempts for this account, please try again later",
+                        toSeconds(waitMs));
+            }
+        }
+    }
+
+    /**
+     * Takes one attempt from the client's bucket.
+     *
+     * @throws AuthThrottledException if it is empty
+     */
+    public void checkSignup(String clientIp) {
+        checkIp(clientIp);
+    }
+
+    private void checkIp(String clientIp) {
+        if (clientIp == null) {
+            return;
+        }
+        long waitMs = take("ip:" + clientIp, ipCapacity, ipPerMilli);
+        if (waitMs > 0) {
+            ipRejected.increment();
+            throw new AuthThrottledException("Too many attempts from this address, please try again later", toSeconds(waitMs));
+        }
+    }
+
+    // 0 if a token was taken, otherwise how long until one is available
+    private long take(String key, int capacity, double perMilli) {
+        long now = clock.millis();
+        Bucket bucket = buckets.get(key, k -> new Bucket(capacity, now));
+        return bucket.take(now, capacity, perMilli);
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized long take(long now, int capacity, double perMilli) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * perMilli);
+                refilledAt = now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / perMilli);
+        }
+    }
+}
@@ -6,27 +6,26 @@ import com.swift.auth.dto.LoginRequest;
 import com.swift.auth.dto.OtpRequest;
 import com.swift.auth.dto.SignupRequest;
 import com.swift.auth.dto.UserResponse;
-import com.swift.auth.models.OtpEntry;
 import com.swift.auth.models.User;
-import com.swift.auth.repository.OtpRepository;
 import com.swift.auth.repository.UserRepository;
 import com.swift.mobileappdemo.security.JwtService;
+import com.swift.mobileappdemo.security.TokenRevocationList;
+import com.swift.notification.enums.MailPriority;
 import com.swift.notification.enums.NotificationType;
-import com.swift.notification.service.NotificationService;
+import com.swift.notification.service.MailDispatcher;
+import com.swift.notification.service.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.regex.Pattern;
 
 @Service
@@ -38,25 +37,33 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private OtpRepository otpRepository;
+    private OtpStore otpStore;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private MailDispatcher mailDispatcher;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AuthAttemptLimiter authAttemptLimiter;
 
     @Autowired
     private JwtService jwtService;
 
     @Autowired
-    private NotificationService notificationService;
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private OutboxService outboxService;
 
     @Transactional
-    public ResponseEntity<?> signup(SignupRequest request) {
+    public ResponseEntity<?> signup(SignupRequest request, String clientIp) {
         logger.info("Processing signup for: {}", request.getEmailOrPhone());
         
         try {
+            authAttemptLimiter.checkSignup(clientIp);
+
             // Validate request
             ResponseEntity<?> validationResponse = validateSignupRequest(request);
             if (validationResponse != null) {
@@ -80,7 +87,7 @@ public class AuthService {
             // Generate and send OTP
             sendSignupOtp(user);
 
-            notificationService.createNotification(user, NotificationType.SIGNUP, "Welcome to Swift!",
+            outboxService.publish(user, NotificationType.SIGNUP, "Welcome to Swift!",
                     "Your account has been created successfully.");
 
             UserResponse userResponse = convertToUserResponse(user);
@@ -97,6 +104,8 @@ public class AuthService {
                 "user", userResponse
             ));
 
+        } catch (AuthThrottledException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
         } catch (Exception e) {
             logger.error("Error during signup: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().body(Map.of(
@@ -169,7 +178,7 @@ public class AuthService {
         User user = new User();
         user.setEmailOrPhone(request.getEmailOrPhone());
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         
@@ -204,9 +213,8 @@ public class AuthService {
                 user.getEmail(),
                 user.getCreatedAt().toString()
             ));
-            logger.info("Sending welcome email...");
-            mailSender.send(welcomeMessage);
-            logger.info("Welcome email sent successfully!");
+            mailDispatcher.submit(welcomeMessage, MailPriority.NOTICE);
+            logger.info("Welcome email queued");
         } catch (Exception e) {
             logger.error("Failed to send welcome email: {}", e.getMessage());
         }
@@ -214,22 +222,15 @@ public class AuthService {
 
     private void sendSignupOtp(User user) {
         try {
-            String otp = String.format("%06d", new Random().nextInt(999999));
-            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
-            
-            OtpEntry entry = new OtpEntry();
-            entry.setEmail(user.getEmail());
-            entry.setOtp(otp);
-            entry.setExpiresAt(expiresAt);
-            otpRepository.save(entry);
-            logger.info("OTP generated and saved for user: {}", user.getUsername());
-            
+            String otp = otpStore.issue(user.getEmail());
+            logger.info("OTP generated for user: {}", user.getUsername());
+
             SimpleMailMessage otpMessage = new SimpleMailMessage();
             otpMessage.setTo(user.getEmail());
             otpMessage.setSubject("Your Registration OTP Code");
             otpMessage.setText("Your OTP is: " + otp + "\nIt expires in 10 minutes.");
-            mailSender.send(otpMessage);
-            logger.info("OTP sent to email: {}", user.getEmail());
+            mailDispatcher.submit(otpMessage, MailPriority.OTP);
+            logger.info("OTP queued for email: {}", user.getEmail());
         } catch (Exception e) {
             logger.error("Failed to send OTP email: {}", e.getMessage());
         }
@@ -257,12 +258,18 @@ public class AuthService {
         return EMAIL_PATTERN.matcher(email).matches();
     }
 
-    public ResponseEntity<?> login(LoginRequest request) {
+    public ResponseEntity<?> login(LoginRequest request, String clientIp) {
         logger.info("Processing login for: {}", request.getEmailOrPhone());
         if (request.getPassword() == null || request.getPassword().isEmpty()) {
             logger.warn("Login attempt with null or empty password for: {}", request.getEmailOrPhone());
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Password is required"));
         }
+        try {
+            authAttemptLimiter.checkLogin(clientIp, request.getEmailOrPhone());
+        } catch (AuthThrottledException e) {
+            logger.warn("Login throttled for: {} from {}", request.getEmailOrPhone(), clientIp);
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+        }
         // Find user by email/phone
         Optional<User> userOpt = userRepository.findByEmailOrPhone(request.getEmailOrPhone());
         if (userOpt.isEmpty()) {
@@ -273,10 +280,31 @@ public class AuthService {
         User user = userOpt.get();
         
         // Check password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        PasswordHasher.Match match;
+        try {
+            match = passwordHasher.matches(request.getPassword(), user.getPassword());
+        } catch (AuthThrottledException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+        }
+        if (!match.matched()) {
             logger.warn("Invalid credentials for user: {}", request.getEmailOrPhone());
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid credentials"));
         }
+        if (match.upgradedHash() != null) {
+            // Stored with a lower BCrypt cost than we now use; replace it while we have the password
+            user.setPassword(match.upgradedHash());
+            user = userRepository.save(user);
+            logger.info("Upgraded password hash cost for user: {}", user.getUsername());
+        }
+
+        // Issue the OTP first, so a login inside the resend cooldown sends nothing at all
+        String otp;
+        try {
+            otp = otpStore.issue(user.getEmailOrPhone());
+        } catch (OtpCooldownException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+        }
+        logger.info("OTP generated for user: {}", user.getUsername());
 
         // Send login notification email
         try {
@@ -298,31 +326,20 @@ public class AuthService {
                 user.getEmailOrPhone(),
                 java.time.LocalDateTime.now().toString()
             ));
-            mailSender.send(loginMessage);
-            logger.info("Login notification email sent to: {}", user.getEmail());
+            mailDispatcher.submit(loginMessage, MailPriority.NOTICE);
+            logger.info("Login notification email queued for: {}", user.getEmail());
         } catch (Exception e) {
             logger.error("Failed to send login notification email: {}", e.getMessage());
         }
 
-        // Generate and send OTP
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
-        
-        OtpEntry entry = new OtpEntry();
-        entry.setEmail(user.getEmailOrPhone()); // Use email/phone as email for OTP
-        entry.setOtp(otp);
-        entry.setExpiresAt(expiresAt);
-        otpRepository.save(entry);
-        logger.info("OTP generated and saved for user: {}", user.getUsername());
-
         // Send OTP via email (assuming emailOrPhone is an email for now)
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(user.getEmail());
             message.setSubject("Your Login OTP Code");
             message.setText("Your OTP is: " + otp + "\nIt expires in 10 minutes.");
-            mailSender.send(message);
-            logger.info("OTP sent to email: {}", user.getEmail());
+            mailDispatcher.submit(message, MailPriority.OTP);
+            logger.info("OTP queued for email: {}", user.getEmail());
         } catch (Exception e) {
             logger.error("Failed to send login OTP email: {}", e.getMessage());
         }
@@ -330,28 +347,25 @@ public class AuthService {
         return ResponseEntity.ok(Map.of("success", true, "message", "OTP sent successfully to your email"));
     }
 
-    public ResponseEntity<?> verifyOtp(OtpRequest request) {
-        Optional<OtpEntry> entryOpt = otpRepository.findTopByEmailOrderByExpiresAtDesc(request.getEmail());
-        if (entryOpt.isEmpty()) {
-            logger.warn("No OTP found for email: {}", request.getEmail());
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "No OTP found"));
-        }
+    private ResponseEntity<?> tooManyRequests(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of("success", false, "message", message));
+    }
 
-        OtpEntry entry = entryOpt.get();
-        if (entry.isUsed()) {
-            logger.warn("OTP already used for email: {}", request.getEmail());
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "OTP already used"));
-        }
-        if (!entry.getOtp().equals(request.getOtp())) {
-            logger.warn("Invalid OTP for email: {}", request.getEmail());
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid OTP"));
-        }
-        if (entry.getExpiresAt().isBefore(LocalDateTime.now())) {
-            logger.warn("OTP expired for email: {}", request.getEmail());
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "OTP expired"));
+    public ResponseEntity<?> verifyOtp(OtpRequest request) {
+        OtpStore.VerifyResult result = otpStore.verify(request.getEmail(), request.getOtp());
+        if (result != OtpStore.VerifyResult.VALID) {
+            logger.warn("OTP verification failed for email: {} ({})", request.getEmail(), result);
+            String message = switch (result) {
+                case NOT_FOUND -> "No OTP found";
+                case ALREADY_USED -> "OTP already used";
+                case EXPIRED -> "OTP expired";
+                case TOO_MANY_ATTEMPTS -> "Too many incorrect attempts, please request a new OTP";
+                default -> "Invalid OTP";
+            };
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", message));
         }
-        entry.setUsed(true);
-        otpRepository.save(entry);
 
         // Find user by email/phone
         Optional<User> userOpt = userRepository.findByEmailOrPhone(request.getEmail());
@@ -363,7 +377,7 @@ public class AuthService {
         User user = userOpt.get();
         logger.info("OTP verified successfully for user: {}", user.getUsername());
         String token = jwtService.generateToken(user);
-        notificationService.createNotification(user, NotificationType.LOGIN, "New login",
+        outboxService.publish(user, NotificationType.LOGIN, "New login",
                 "Your account was just signed into. If this wasn't you, please change your password.");
         AuthResponse authResponse = new AuthResponse(
             true,
@@ -388,25 +402,22 @@ public class AuthService {
             logger.info("User found for OTP: {}", user.getUsername());
 
             // Generate and send OTP
-            String otp = String.format("%06d", new Random().nextInt(999999));
-            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
-            
-            OtpEntry entry = new OtpEntry();
-            entry.setEmail(user.getEmailOrPhone());
-            entry.setOtp(otp);
-            entry.setExpiresAt(expiresAt);
-            otpRepository.save(entry);
-            logger.info("OTP generated and saved for user: {}", user.getUsername());
+            String otp = otpStore.issue(user.getEmailOrPhone());
+            logger.info("OTP generated for user: {}", user.getUsername());
 
             // Send OTP via email
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(user.getEmail());
             message.setSubject("Your OTP Code");
             message.setText("Your OTP is: " + otp + "\nIt expires in 10 minutes.");
-            mailSender.send(message);
-            logger.info("OTP sent to email: {}", user.getEmail());
+            if (!mailDispatcher.submit(message, MailPriority.OTP)) {
+                throw new RuntimeException("email queue is full, try again shortly");
+            }
+            logger.info("OTP queued for email: {}", user.getEmail());
 
             return ResponseEntity.ok(Map.of("success", true, "message", "OTP sent successfully to your email"));
+        } catch (OtpCooldownException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
         } catch (Exception e) {
             logger.error("Failed to send OTP: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to send OTP: " + e.getMessage()));
@@ -427,31 +438,41 @@ public class AuthService {
             logger.info("User found for resend OTP: {}", user.getUsername());
 
             // Generate and send new OTP
-            String otp = String.format("%06d", new Random().nextInt(999999));
-            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
-            
-            OtpEntry entry = new OtpEntry();
-            entry.setEmail(user.getEmailOrPhone());
-            entry.setOtp(otp);
-            entry.setExpiresAt(expiresAt);
-            otpRepository.save(entry);
-            logger.info("New OTP generated and saved for user: {}", user.getUsername());
+            String otp = otpStore.issue(user.getEmailOrPhone());
+            logger.info("New OTP generated for user: {}", user.getUsername());
 
             // Send OTP via email
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(user.getEmail());
             message.setSubject("Your New OTP Code");
             message.setText("Your new OTP is: " + otp + "\nIt expires in 10 minutes.");
-            mailSender.send(message);
-            logger.info("New OTP sent to email: {}", user.getEmail());
+            if (!mailDispatcher.submit(message, MailPriority.OTP)) {
+                throw new RuntimeException("email queue is full, try again shortly");
+            }
+            logger.info("New OTP queued for email: {}", user.getEmail());
 
             return ResponseEntity.ok(Map.of("success", true, "message", "New OTP sent successfully to your email"));
+        } catch (OtpCooldownException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
         } catch (Exception e) {
             logger.error("Failed to resend OTP: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Failed to resend OTP: " + e.getMessage()));
         }
     }
 
+    /**
+     * Revokes the token the request was made with.
+     */
+    public ResponseEntity<?> logout(String token) {
+        Optional<JwtService.VerifiedToken> verified = jwtService.verify(token);
+        if (verified.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Invalid or expired token"));
+        }
+        tokenRevocationList.revoke(verified.get());
+        logger.info("User {} logged out", verified.get().userId());
+        return ResponseEntity.ok(Map.of("success", true, "message", "Logged out successfully"));
+    }
+
     @Transactional
     public ResponseEntity<?> changePassword(Long userId, ChangePasswordRequest request) {
         Optional<User> userOpt = userRepository.findById(userId);
@@ -464,15 +485,20 @@ public class AuthService {
         }
 
         User user = userOpt.get();
-        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Current password is incorrect"));
+        try {
+            if (!passwordHasher.matches(request.getCurrentPassword(), user.getPassword()).matched()) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Current password is incorrect"));
+            }
+            user.setPassword(passwordHasher.encode(request.getNewPassword()));
+        } catch (AuthThrottledException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
         }
-
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        // Sign out every session, including the one that made the change
+        tokenRevocationList.revokeAllFor(user.getId());
         logger.info("Password changed for user: {}", user.getUsername());
 
-        notificationService.createNotification(user, NotificationType.SECURITY_ALERT, "Password changed",
+        outboxService.publish(user, NotificationType.SECURITY_ALERT, "Password changed",
                 "Your account password was just changed. If this wasn't you, contact support immediately.");
 
         return ResponseEntity.ok(Map.of("success", true, "message", "Password changed successfully"));
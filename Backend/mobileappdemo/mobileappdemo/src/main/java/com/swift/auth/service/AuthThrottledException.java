@@ -0,0 +1,18 @@
+package com.swift.auth.service;
+
+/**
+ * A login, signup or password change was refused before any password was checked, because
+ * the caller is over its attempt rate or password hashing is saturated.
+ */
+public class AuthThrottledException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public AuthThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,178 @@
+package com.swift.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * OTPs held in a size-bounded Caffeine map keyed by identifier. Entries drop out on their own
+ * once the code expires, so nothing has to be cleaned up. Issuing and verifying are single
+ * atomic map updates, which makes concurrent guesses count correctly against the limit.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    /**
+     * What is kept per identifier. Never holds the code itself, only its hash.
+     */
+    protected record CodeState(String codeHash, LocalDateTime issuedAt, LocalDateTime expiresAt, int attempts, boolean used) {
+        CodeState withAttempts(int attempts) {
+            return new CodeState(codeHash, issuedAt, expiresAt, attempts, used);
+        }
+
+        CodeState usedUp() {
+            return new CodeState(codeHash, issuedAt, expiresAt, attempts, true);
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration resendCooldown;
+    private final int maxAttempts;
+    private final ConcurrentMap<String, CodeState> codes;
+
+    @Autowired
+    public InMemoryOtpStore(@Value("${otp.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${otp.resend-cooldown-seconds:30}") long resendCooldownSeconds,
+                            @Value("${otp.max-attempts:5}") int maxAttempts,
+                            @Value("${otp.max-entries:100000}") long maxEntries) {
+        this(Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(resendCooldownSeconds), maxAttempts, maxEntries, Clock.systemDefaultZone());
+    }
+
+    InMemoryOtpStore(Duration ttl, Duration resendCooldown, int maxAttempts, long maxEntries, Clock clock) {
+        this.ttl = ttl;
+        this.resendCooldown = resendCooldown;
+        this.maxAttempts = maxAttempts;
+        this.clock = clock;
+        Cache<String, CodeState> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.compareTo(resendCooldown) > 0 ? ttl : resendCooldown)
+                .maximumSize(maxEntries)
+                .build();
+        this.codes = cache.asMap();
+    }
+
+    @Override
+    public String issue(String identifier) {
+        loadIfMissing(identifier);
+        String code = String.format("%06d", random.nextInt(1_000_000));
+        LocalDateTime now = LocalDateTime.now(clock);
+        CodeState issued = codes.compute(identifier, (key, current) -> {
+            if (current != null && current.issuedAt().plus(resendCooldown).isAfter(now)) {
+                throw new OtpCooldownException(Math.max(1, Duration.between(now, current.issuedAt().plus(resendCooldown)).toSeconds()));
+            }
+            return new CodeState(hash(key, code), now, now.plus(ttl), 0, false);
+        });
+        changed(identifier, issued);
+        return code;
+    }
+
+    @Override
+    public VerifyResult verify(String identifier, String code) {
+        loadForVerify(identifier);
+        LocalDateTime now = LocalDateTime.now(clock);
+        VerifyResult[] result = {VerifyResult.NOT_FOUND};
+        boolean[] modified = {false};
+        CodeState[] before = {null};
+        CodeState updated = codes.computeIfPresent(identifier, (key, state) -> {
+            before[0] = state;
+            if (state.used()) {
+                result[0] = VerifyResult.ALREADY_USED;
+                return state;
+            }
+            if (state.expiresAt().isBefore(now)) {
+                result[0] = VerifyResult.EXPIRED;
+                return state;
+            }
+            if (state.attempts() >= maxAttempts) {
+                result[0] = VerifyResult.TOO_MANY_ATTEMPTS;
+                return state;
+            }
+            if (code == null || !MessageDigest.isEqual(state.codeHash().getBytes(StandardCharsets.US_ASCII),
+                    hash(key, code).getBytes(StandardCharsets.US_ASCII))) {
+                result[0] = state.attempts() + 1 >= maxAttempts ? VerifyResult.TOO_MANY_ATTEMPTS : VerifyResult.INVALID;
+                modified[0] = true;
+                return state.withAttempts(state.attempts() + 1);
+            }
+            result[0] = VerifyResult.VALID;
+            modified[0] = true;
+            return state.usedUp();
+        });
+        if (modified[0]) {
+            return verified(identifier, before[0], updated, result[0]);
+        }
+        return result[0];
+    }
+
+    private void loadIfMissing(String identifier) {
+        if (!codes.containsKey(identifier)) {
+            load(identifier).ifPresent(state -> codes.putIfAbsent(identifier, state));
+        }
+    }
+
+    /**
+     * Make sure the identifier's state is in memory before a code is checked against it.
+     * Loads it only if this instance doesn't have it, by default.
+     */
+    protected void loadForVerify(String identifier) {
+        loadIfMissing(identifier);
+    }
+
+    /**
+     * Called after a verify used up a code or counted a wrong guess, with the state before and
+     * after; returns the result to give the caller. Records the change by default.
+     */
+    protected VerifyResult verified(String identifier, CodeState before, CodeState after, VerifyResult result) {
+        changed(identifier, after);
+        return result;
+    }
+
+    /**
+     * Overwrite this instance's copy of an identifier's state, or drop it if there is none.
+     */
+    protected void replace(String identifier, Optional<CodeState> state) {
+        if (state.isPresent()) {
+            codes.put(identifier, state.get());
+        } else {
+            codes.remove(identifier);
+        }
+    }
+
+    /**
+     * State for an identifier this instance doesn't have in memory. Nothing, by default.
+     */
+    protected Optional<CodeState> load(String identifier) {
+        return Optional.empty();
+    }
+
+    /**
+     * Called after every change to an identifier's state. Nothing to do by default.
+     */
+    protected void changed(String identifier, CodeState state) {
+    }
+
+    // The identifier is mixed in so equal codes for different users don't hash the same
+    private static String hash(String identifier, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((identifier + ":" + code).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
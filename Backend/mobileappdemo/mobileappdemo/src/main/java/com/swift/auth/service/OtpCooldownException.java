@@ -0,0 +1,17 @@
+package com.swift.auth.service;
+
+/**
+ * A new code was requested before the resend cooldown of the previous one ran out.
+ */
+public class OtpCooldownException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public OtpCooldownException(long retryAfterSeconds) {
+        super("Please wait " + retryAfterSeconds + " seconds before requesting a new code");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,29 @@
+package com.swift.auth.service;
+
+/**
+ * Where one-time login codes live between being sent and being verified. Implementations keep
+ * only a hash of each code, allow one live code per identifier (email or phone), and lock a code
+ * after too many wrong guesses. Pick one with otp.store=memory (default) or database.
+ */
+public interface OtpStore {
+
+    enum VerifyResult {
+        VALID,
+        INVALID,
+        EXPIRED,
+        NOT_FOUND,
+        ALREADY_USED,
+        TOO_MANY_ATTEMPTS
+    }
+
+    /**
+     * Generate a new code for the identifier, replacing any earlier one, and return it in plain
+     * text for sending. Throws {@link OtpCooldownException} if the last code was issued too recently.
+     */
+    String issue(String identifier);
+
+    /**
+     * Check a code. A VALID code is used up; a wrong one counts against the attempt limit.
+     */
+    VerifyResult verify(String identifier, String code);
+}
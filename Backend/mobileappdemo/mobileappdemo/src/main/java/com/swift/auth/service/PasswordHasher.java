@@ -0,0 +1,121 @@
+package com.swift.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and checking on a small dedicated pool instead of request threads, so
+ * a burst of logins or signups can use at most that many cores. Requests beyond what the pool
+ * and its short queue hold are refused straight away rather than piling up.
+ */
+@Component
+public class PasswordHasher {
+
+    /**
+     * Result of a password check. When the stored hash was made with a lower cost than the
+     * encoder now uses, {@code upgradedHash} is a fresh hash of the same password to store.
+     */
+    public record Match(boolean matched, String upgradedHash) {}
+
+    private final PasswordEncoder passwordEncoder;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeLatency;
+    private final Timer matchLatency;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${auth.password-hash.threads:0}") int threads,
+                          @Value("${auth.password-hash.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.password-hash.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashes and checks waiting for a thread")
+                .register(meterRegistry);
+        this.encodeLatency = Timer.builder("auth.password.hash.latency").tag("operation", "encode")
+                .description("Time to hash or check one password, excluding the wait for a thread")
+                .register(meterRegistry);
+        this.matchLatency = Timer.builder("auth.password.hash.latency").tag("operation", "matches")
+                .description("Time to hash or check one password, excluding the wait for a thread")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("auth.password.hash.queue.wait").register(meterRegistry);
+        this.rejected = Counter.builder("auth.attempts.rejected").tag("reason", "saturated").register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> encodeLatency.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public Match matches(String rawPassword, String encodedPassword) {
+        return run(() -> matchLatency.record(() -> {
+            if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Match(false, null);
+            }
+            String upgraded = passwordEncoder.upgradeEncoding(encodedPassword) ? passwordEncoder.encode(rawPassword) : null;
+            return new Match(true, upgraded);
+        }));
+    }
+
+    private <T> T run(Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AuthThrottledException("The service is busy, please try again shortly", 1);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new AuthThrottledException("The service is busy, please try again shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RuntimeException("Interrupted while checking password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
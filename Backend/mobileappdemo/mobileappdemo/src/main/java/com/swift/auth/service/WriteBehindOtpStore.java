@@ -0,0 +1,140 @@
+package com.swift.auth.service;
+
+import com.swift.auth.repository.OtpCodeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * OTP store for running several instances. Codes are issued in memory exactly like
+ * {@link InMemoryOtpStore} and written to otp_codes in the background. Checking a code goes to
+ * the table: the row is re-read, and a use or wrong guess is a conditional update on it, so a
+ * code can be used once across all instances, a code issued on another instance is seen, and
+ * the attempt limit holds in total rather than per instance. A code issued here and not yet
+ * written is written before it is checked.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "database")
+public class WriteBehindOtpStore extends InMemoryOtpStore {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindOtpStore.class);
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    private final int maxAttempts;
+
+    // Latest unwritten code per identifier; codes issued again between flushes collapse into one row write
+    private final ConcurrentMap<String, CodeState> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WriteBehindOtpStore(@Value("${otp.ttl-seconds:600}") long ttlSeconds,
+                               @Value("${otp.resend-cooldown-seconds:30}") long resendCooldownSeconds,
+                               @Value("${otp.max-attempts:5}") int maxAttempts,
+                               @Value("${otp.max-entries:100000}") long maxEntries) {
+        super(ttlSeconds, resendCooldownSeconds, maxAttempts, maxEntries);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    protected Optional<CodeState> load(String identifier) {
+        CodeState unwritten = pending.get(identifier);
+        if (unwritten != null) {
+            return Optional.of(unwritten);
+        }
+        return stored(identifier);
+    }
+
+    @Override
+    protected void loadForVerify(String identifier) {
+        CodeState unwritten = pending.get(identifier);
+        if (unwritten != null) {
+            write(identifier, unwritten);
+            pending.remove(identifier, unwritten);
+        }
+        replace(identifier, stored(identifier));
+    }
+
+    @Override
+    protected VerifyResult verified(String identifier, CodeState before, CodeState after, VerifyResult result) {
+        int updated = after.used()
+                ? otpCodeRepository.markUsed(identifier, before.codeHash(), maxAttempts, LocalDateTime.now())
+                : otpCodeRepository.addAttempt(identifier, before.codeHash(), maxAttempts);
+        if (updated == 1) {
+            return result;
+        }
+        // Another instance used, locked or replaced the code between our read and update
+        Optional<CodeState> current = stored(identifier);
+        replace(identifier, current);
+        if (current.isEmpty()) {
+            return VerifyResult.NOT_FOUND;
+        }
+        CodeState state = current.get();
+        if (state.used()) {
+            return VerifyResult.ALREADY_USED;
+        }
+        if (state.attempts() >= maxAttempts) {
+            return VerifyResult.TOO_MANY_ATTEMPTS;
+        }
+        return state.expiresAt().isBefore(LocalDateTime.now()) ? VerifyResult.EXPIRED : VerifyResult.INVALID;
+    }
+
+    @Override
+    protected void changed(String identifier, CodeState state) {
+        pending.put(identifier, state);
+    }
+
+    @Scheduled(fixedDelayString = "${otp.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, CodeState> batch = new HashMap<>(pending);
+        int written = 0;
+        for (Map.Entry<String, CodeState> entry : batch.entrySet()) {
+            try {
+                write(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                logger.error("Failed to write {} of {} OTP codes, will retry: {}", batch.size() - written, batch.size(), e.getMessage());
+                return;
+            }
+            // Keep it if it was issued again while being written
+            pending.remove(entry.getKey(), entry.getValue());
+            written++;
+        }
+    }
+
+    private void write(String identifier, CodeState state) {
+        otpCodeRepository.writeIssued(identifier, state.codeHash(), state.issuedAt(), state.expiresAt());
+    }
+
+    private Optional<CodeState> stored(String identifier) {
+        return otpCodeRepository.findById(identifier)
+                .map(row -> new CodeState(row.getCodeHash(), row.getIssuedAt(), row.getExpiresAt(), row.getAttempts(), row.isUsed()));
+    }
+
+    @Scheduled(fixedDelayString = "${otp.write-behind.cleanup-interval-ms:3600000}",
+               initialDelayString = "${otp.write-behind.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = otpCodeRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Purged {} expired OTP codes", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
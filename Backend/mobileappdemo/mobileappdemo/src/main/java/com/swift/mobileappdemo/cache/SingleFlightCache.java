@@ -0,0 +1,131 @@
+package com.swift.mobileappdemo.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A loading cache in front of a slow or rate-limited remote lookup. Concurrent misses for a key
+ * share one load. After refreshAfter a value is reloaded in the background while the old one is
+ * still served; if that reload fails the old value stays until it expires. A failed load is
+ * remembered for failureTtl, so callers get the same error without calling out again.
+ * Created through {@link SingleFlightCaches}.
+ */
+public final class SingleFlightCache<K, V> {
+
+    // A loaded value or the failure loading it, with the ticker time of the load
+    private record Entry<V>(V value, RuntimeException failure, long loadedAt) {}
+
+    private final LoadingCache<K, Entry<V>> cache;
+    private final Ticker ticker;
+    private final Counter failures;
+
+    SingleFlightCache(String name, Function<K, V> loader, Duration refreshAfter, Duration expireAfter,
+                      Duration failureTtl, long maxSize, MeterRegistry meterRegistry, Ticker ticker, Executor executor) {
+        this.ticker = ticker;
+        this.failures = Counter.builder("cache.load.failures")
+                .description("Remote lookups that failed and were cached as failures")
+                .tag("cache", name)
+                .register(meterRegistry);
+
+        long expireNanos = expireAfter.toNanos();
+        long failureNanos = failureTtl.toNanos();
+        Caffeine<K, Entry<V>> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .ticker(ticker)
+                .executor(executor)
+                .expireAfter(new Expiry<K, Entry<V>>() {
+                    @Override
+                    public long expireAfterCreate(K key, Entry<V> entry, long currentTime) {
+                        return remaining(entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(K key, Entry<V> entry, long currentTime, long currentDuration) {
+                        return remaining(entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(K key, Entry<V> entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    // Measured from the load, so a stale entry kept after a failed refresh still expires on time
+                    private long remaining(Entry<V> entry, long currentTime) {
+                        long ttl = entry.failure() != null ? failureNanos : expireNanos;
+                        return Math.max(0, ttl - (currentTime - entry.loadedAt()));
+                    }
+                });
+        if (refreshAfter != null) {
+            builder.refreshAfterWrite(refreshAfter);
+        }
+        this.cache = builder.build(new CacheLoader<>() {
+            @Override
+            public Entry<V> load(K key) {
+                return fetch(key, loader);
+            }
+
+            @Override
+            public Entry<V> reload(K key, Entry<V> oldEntry) {
+                Entry<V> fresh = fetch(key, loader);
+                return fresh.failure() != null && oldEntry.failure() == null ? oldEntry : fresh;
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    /**
+     * The cached value, loading it if needed. Throws the load's exception if it failed,
+     * including a failure cached from an earlier call.
+     */
+    public V get(K key) {
+        Entry<V> entry = cache.get(key);
+        if (entry.failure() != null) {
+            throw entry.failure();
+        }
+        return entry.value();
+    }
+
+    /**
+     * Loads the key again now and waits for it. Callers keep getting the old value meanwhile.
+     */
+    public void refreshNow(K key) {
+        cache.refresh(key).join();
+    }
+
+    public void put(K key, V value) {
+        cache.put(key, new Entry<>(value, null, ticker.read()));
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private Entry<V> fetch(K key, Function<K, V> loader) {
+        try {
+            return new Entry<>(loader.apply(key), null, ticker.read());
+        } catch (RuntimeException e) {
+            failures.increment();
+            return new Entry<>(null, e, ticker.read());
+        }
+    }
+}
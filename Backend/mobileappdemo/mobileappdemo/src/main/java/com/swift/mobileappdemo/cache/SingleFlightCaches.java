@@ -0,0 +1,34 @@
+package com.swift.mobileappdemo.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Creates {@link SingleFlightCache}s with their hit, miss, load and failure counts registered
+ * as metrics under the given name.
+ */
+@Component
+public class SingleFlightCaches {
+
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightCaches(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param refreshAfter reload in the background once a value is this old; null to never refresh
+     * @param expireAfter  drop a value this long after it was loaded
+     * @param failureTtl   how long a failed load is remembered
+     */
+    public <K, V> SingleFlightCache<K, V> create(String name, Duration refreshAfter, Duration expireAfter,
+                                                 Duration failureTtl, long maxSize, Function<K, V> loader) {
+        return new SingleFlightCache<>(name, loader, refreshAfter, expireAfter, failureTtl, maxSize, meterRegistry,
+                Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+}
@@ -1,6 +1,7 @@
 package com.swift.mobileappdemo.config;
 
 import com.swift.mobileappdemo.security.JwtAuthFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -24,9 +25,10 @@ public class WebSecurityConfig {
         this.jwtAuthFilter = jwtAuthFilter;
     }
 
+    // Raising the strength rehashes each user's password at their next successful login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -0,0 +1,43 @@
+package com.swift.mobileappdemo.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * A position in a newest-first feed ordered by (createdAt, id): the row a page is read from, and
+ * whether the page reads on to older rows or back to newer ones. Handed to clients as an opaque
+ * token; the row itself is never part of the page it starts.
+ */
+public record Cursor(LocalDateTime createdAt, long id, boolean older) {
+
+    public static Cursor olderThan(LocalDateTime createdAt, long id) {
+        return new Cursor(createdAt, id, true);
+    }
+
+    public static Cursor newerThan(LocalDateTime createdAt, long id) {
+        return new Cursor(createdAt, id, false);
+    }
+
+    public String encode() {
+        String raw = (older ? "o" : "n") + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The cursor a token was encoded from; a token that was not produced by {@link #encode()} is
+     * rejected with an IllegalArgumentException.
+     */
+    public static Cursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !(parts[0].equals("o") || parts[0].equals("n"))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]), parts[0].equals("o"));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.swift.mobileappdemo.paging;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a newest-first feed, with the tokens for the pages either side of it (null when
+ * there is nothing that way). No total is worked out; callers that want one count separately.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, String previousCursor) {
+
+    /**
+     * The page read from {@code cursor} (null for the first page). {@code rows} are what the
+     * query returned for it: up to size + 1 rows in the order they were read, newest first going
+     * older and oldest first going newer. The extra row only says whether there is more that way.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Cursor cursor,
+                                       Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        boolean more = rows.size() > size;
+        List<T> items = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        boolean older = cursor == null || cursor.older();
+        if (!older) {
+            Collections.reverse(items);
+        }
+        if (items.isEmpty()) {
+            return new CursorPage<>(items, null, null);
+        }
+        T first = items.get(0);
+        T last = items.get(items.size() - 1);
+        // Going older, the rows before the page are at least the cursor row; going newer, the rows after it are
+        String next = !older || more ? Cursor.olderThan(createdAt.apply(last), id.apply(last)).encode() : null;
+        String previous = cursor != null && (older || more) ? Cursor.newerThan(createdAt.apply(first), id.apply(first)).encode() : null;
+        return new CursorPage<>(items, next, previous);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+}
@@ -17,9 +17,17 @@ import java.util.List;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final TokenRevocationList revocationList;
 
-    public JwtAuthFilter(JwtService jwtService) {
+    public JwtAuthFilter(JwtService jwtService, TokenRevocationList revocationList) {
         this.jwtService = jwtService;
+        this.revocationList = revocationList;
+    }
+
+    // Streamed responses finish on an async dispatch, which is authorized again
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
     }
 
     @Override
@@ -29,11 +37,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String header = request.getHeader("Authorization");
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            if (jwtService.validateToken(token)) {
-                Long userId = jwtService.getUserIdFromToken(token);
-                var authentication = new UsernamePasswordAuthenticationToken(userId, null, List.of());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            jwtService.verify(token)
+                    .filter(verified -> !revocationList.isRevoked(verified))
+                    .ifPresent(verified -> {
+                        var authentication = new UsernamePasswordAuthenticationToken(verified.userId(), null, List.of());
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    });
         }
         filterChain.doFilter(request, response);
     }
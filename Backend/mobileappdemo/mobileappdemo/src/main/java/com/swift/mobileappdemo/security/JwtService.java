@@ -1,57 +1,142 @@
 package com.swift.mobileappdemo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.swift.auth.models.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
+    /**
+     * What a successfully verified token says. {@code tokenHash} is the SHA-256 of the token and
+     * is what revocations are keyed by.
+     */
+    public record VerifiedToken(String tokenHash, Long userId, Instant issuedAt, Instant expiresAt) {}
+
+    // Issue time in milliseconds; iat has whole seconds, too coarse to compare with a revocation cutoff
+    private static final String ISSUED_AT_MS = "iat_ms";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration-ms:604800000}")
     private long expirationMs;
 
-    private SecretKey signingKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Value("${jwt.cache.max-entries:100000}")
+    private long cacheMaxEntries;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Verified tokens by hash, each kept until the token itself expires
+    private Cache<String, VerifiedToken> verified;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long millisLeft = token.expiresAt().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(User user) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMs);
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(user.getId().toString())
                 .claim("username", user.getUsername())
+                .claim(ISSUED_AT_MS, now.getTime())
                 .issuedAt(now)
                 .expiration(expiry)
-                .signWith(signingKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Checks the signature and expiry of a token, parsing it only the first time it is seen.
+     * Does not check revocation; see {@link TokenRevocationList}.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        String tokenHash = hash(token);
+        VerifiedToken cached = verified.getIfPresent(tokenHash);
+        if (cached != null) {
+            // The cache evicts on expiry lazily, so an entry can outlive its token by a moment
+            return cached.expiresAt().isAfter(Instant.now()) ? Optional.of(cached) : Optional.empty();
+        }
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() == null || claims.getIssuedAt() == null) {
+                return Optional.empty();
+            }
+            // Tokens issued before iat_ms was added fall back to iat
+            Long issuedAtMs = claims.get(ISSUED_AT_MS, Long.class);
+            Instant issuedAt = issuedAtMs != null ? Instant.ofEpochMilli(issuedAtMs) : claims.getIssuedAt().toInstant();
+            VerifiedToken result = new VerifiedToken(tokenHash, Long.parseLong(claims.getSubject()),
+                    issuedAt, claims.getExpiration().toInstant());
+            verified.put(tokenHash, result);
+            return Optional.of(result);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(signingKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return Long.parseLong(claims.getSubject());
+        return verify(token).map(VerifiedToken::userId)
+                .orElseThrow(() -> new JwtException("Invalid or expired token"));
     }
 
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    static String hash(String token) {
         try {
-            Jwts.parser().verifyWith(signingKey()).build().parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
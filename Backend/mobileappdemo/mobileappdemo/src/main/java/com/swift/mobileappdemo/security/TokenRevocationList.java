@@ -0,0 +1,160 @@
+package com.swift.mobileappdemo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swift.auth.models.RevokedToken;
+import com.swift.auth.repository.RevokedTokenRepository;
+import com.swift.mobileappdemo.security.JwtService.VerifiedToken;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Revoked login tokens, checked on every authenticated request without touching the database.
+ * Logged-out tokens go into a Bloom filter; only the rare token that hits the filter is looked
+ * up in revoked_tokens, and the answer is remembered. Password changes revoke all of a user's
+ * earlier tokens through a per-user cutoff held in memory. Revocations made on other instances
+ * are pulled in every sync interval, and the filter is rebuilt periodically so revocations of
+ * tokens that have since expired drop out.
+ */
+@Component
+public class TokenRevocationList {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    // Re-read revocations this far back on each sync, to cover commits that landed late
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(60);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.expiration-ms:604800000}")
+    private long expirationMs;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    // Tokens of a user issued up to their cutoff are revoked; both are in milliseconds
+    private volatile ConcurrentMap<Long, Instant> userCutoffs = new ConcurrentHashMap<>();
+
+    // Token hash -> revoked, for tokens that hit the filter
+    private Cache<String, Boolean> lookups;
+
+    private LocalDateTime lastSync;
+
+    @PostConstruct
+    void init() {
+        lookups = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(expirationMs))
+                .build();
+        rebuild();
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Instant cutoff = userCutoffs.get(token.userId());
+        if (cutoff != null && !token.issuedAt().isAfter(cutoff)) {
+            return true;
+        }
+        if (!filter.mightContain(token.tokenHash())) {
+            return false;
+        }
+        return lookups.get(token.tokenHash(), revokedTokenRepository::existsByTokenHash);
+    }
+
+    /**
+     * Revokes a single token, e.g. on logout.
+     */
+    public void revoke(VerifiedToken token) {
+        revokedTokenRepository.save(new RevokedToken(token.tokenHash(), token.userId(), LocalDateTime.now(),
+                LocalDateTime.ofInstant(token.expiresAt(), ZoneId.systemDefault())));
+        filter.add(token.tokenHash());
+        lookups.put(token.tokenHash(), true);
+    }
+
+    /**
+     * Revokes every token issued to the user up to now, e.g. after a password change.
+     */
+    public void revokeAllFor(Long userId) {
+        // Millisecond precision, as kept in revoked_at and in the tokens' issue time
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        revokedTokenRepository.save(new RevokedToken(null, userId, now, now.plus(Duration.ofMillis(expirationMs))));
+        userCutoffs.merge(userId, toInstant(now), (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}",
+               initialDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        List<RevokedToken> rows = revokedTokenRepository.findByRevokedAtAfter(lastSync.minus(SYNC_OVERLAP));
+        for (RevokedToken row : rows) {
+            apply(row, filter, userCutoffs);
+        }
+        lastSync = started;
+    }
+
+    /**
+     * Rebuilds the filter and cutoffs from the unexpired rows, deleting the expired ones.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval-ms:3600000}",
+               initialDelayString = "${jwt.revocation.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        LocalDateTime started = LocalDateTime.now();
+        int purged = revokedTokenRepository.deleteExpiredBefore(started);
+        List<RevokedToken> rows = revokedTokenRepository.findByExpiresAtAfter(started);
+
+        BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, rows.size() * 2L), falsePositiveRate);
+        ConcurrentMap<Long, Instant> cutoffs = new ConcurrentHashMap<>();
+        for (RevokedToken row : rows) {
+            apply(row, fresh, cutoffs);
+        }
+        // Keep revocations made on this instance while the rows were being read
+        lookups.asMap().forEach((tokenHash, revoked) -> {
+            if (revoked) {
+                fresh.add(tokenHash);
+            }
+        });
+        Instant oldestLive = toInstant(started).minusMillis(expirationMs);
+        userCutoffs.forEach((userId, cutoff) -> {
+            if (cutoff.isAfter(oldestLive)) {
+                cutoffs.merge(userId, cutoff, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        });
+
+        filter = fresh;
+        userCutoffs = cutoffs;
+        lastSync = started;
+        logger.info("Token revocation list rebuilt: {} revocations, {} user cutoffs, {} KB filter, {} expired rows purged",
+                rows.size(), cutoffs.size(), fresh.sizeInBytes() / 1024, purged);
+    }
+
+    private void apply(RevokedToken row, BloomFilter target, ConcurrentMap<Long, Instant> cutoffs) {
+        if (row.getTokenHash() != null) {
+            target.add(row.getTokenHash());
+            lookups.put(row.getTokenHash(), true);
+        } else {
+            cutoffs.merge(row.getUserId(), toInstant(row.getRevokedAt()), (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -1,5 +1,6 @@
 package com.swift.notification.controller;
 
+import com.swift.mobileappdemo.paging.CursorPage;
 import com.swift.notification.dto.NotificationDto;
 import com.swift.notification.models.Notification;
 import com.swift.notification.service.NotificationService;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,10 +21,37 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    /**
+     * All of the user's notifications, or with a size or cursor, one page of them by cursor:
+     * newest first, with nextCursor/previousCursor to pass back as cursor, and totalItems only
+     * if includeTotal is set.
+     */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getNotifications(@AuthenticationPrincipal Long userId) {
-        List<NotificationDto> notifications = notificationService.getUserNotifications(userId);
-        return ResponseEntity.ok(Map.of("success", true, "notifications", notifications));
+    public ResponseEntity<Map<String, Object>> getNotifications(@RequestParam(required = false) Integer size,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "false") boolean includeTotal,
+                                                                @AuthenticationPrincipal Long userId) {
+        if (size == null && cursor == null) {
+            List<NotificationDto> notifications = notificationService.getUserNotifications(userId);
+            return ResponseEntity.ok(Map.of("success", true, "notifications", notifications));
+        }
+        CursorPage<NotificationDto> feed;
+        try {
+            feed = notificationService.getUserNotificationFeed(userId, cursor, Math.min(Math.max(size != null ? size : 20, 1), 100));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("notifications", feed.items());
+        response.put("nextCursor", feed.nextCursor());
+        response.put("previousCursor", feed.previousCursor());
+        response.put("hasNext", feed.hasNext());
+        response.put("hasPrevious", feed.hasPrevious());
+        if (includeTotal) {
+            response.put("totalItems", notificationService.countUserNotifications(userId));
+        }
+        return ResponseEntity.ok(response);
     }
 
     @PutMapping("/{id}/read")
@@ -0,0 +1,11 @@
+package com.swift.notification.enums;
+
+/**
+ * Order in which queued emails go out. Declaration order is priority order: OTPs first, since a
+ * user is waiting on them to log in.
+ */
+public enum MailPriority {
+    OTP,
+    SECURITY,
+    NOTICE
+}
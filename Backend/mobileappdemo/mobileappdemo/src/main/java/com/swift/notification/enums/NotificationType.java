@@ -9,5 +9,6 @@ public enum NotificationType {
     SIGNUP,
     LOGIN,
     PASSWORD_CHANGE,
-    SECURITY_ALERT
+    SECURITY_ALERT,
+    RATE_ALERT
 }
@@ -2,10 +2,32 @@ package com.swift.notification.repository;
 
 import com.swift.notification.models.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
     long countByUserIdAndIsReadFalse(Long userId);
+    long countByUserId(Long userId);
+
+    // Keyset feed, newest first on (created_at, id), off idx_notifications_user_created; see
+    // the transaction feeds in TransactionRepository
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "ORDER BY n.user.id DESC, n.createdAt DESC, n.id DESC LIMIT :limit")
+    List<Notification> findFeed(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+           "ORDER BY n.user.id DESC, n.createdAt DESC, n.id DESC LIMIT :limit")
+    List<Notification> findFeedOlder(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, @Param("limit") int limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND n.createdAt >= :createdAt AND (n.createdAt > :createdAt OR n.id > :id) " +
+           "ORDER BY n.user.id ASC, n.createdAt ASC, n.id ASC LIMIT :limit")
+    List<Notification> findFeedNewer(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, @Param("limit") int limit);
 }
@@ -0,0 +1,201 @@
+package com.swift.notification.service;
+
+import com.swift.notification.enums.MailPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends email off the request thread. Messages wait in a bounded priority queue (OTPs ahead of
+ * security alerts ahead of notices); a small pool of workers takes up to batch-size messages at
+ * a time and sends them over one SMTP connection. Messages the server refuses, or that never
+ * got a connection, are retried with exponential backoff.
+ */
+@Component
+public class MailDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private final JavaMailSender mailSender;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    private final PriorityBlockingQueue<QueuedMail> queue = new PriorityBlockingQueue<>(64,
+            Comparator.comparing(QueuedMail::priority).thenComparingLong(QueuedMail::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    // Messages accepted and not yet sent or given up on, including those waiting out a retry backoff
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Timer sendLatency;
+    private final Map<MailPriority, Timer> deliveryLatency = new EnumMap<>(MailPriority.class);
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public MailDispatcher(JavaMailSender mailSender, MeterRegistry meterRegistry,
+                          @Value("${mail.dispatch.threads:4}") int threads,
+                          @Value("${mail.dispatch.queue-capacity:10000}") int capacity,
+                          @Value("${mail.dispatch.batch-size:20}") int batchSize,
+                          @Value("${mail.dispatch.max-attempts:5}") int maxAttempts,
+                          @Value("${mail.dispatch.backoff-ms:1000}") long backoffMs) {
+        this.mailSender = mailSender;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+
+        Gauge.builder("mail.dispatch.queue.depth", depth, AtomicInteger::get)
+                .description("Emails accepted but not yet sent, including those waiting to be retried")
+                .register(meterRegistry);
+        this.sendLatency = Timer.builder("mail.dispatch.send.latency")
+                .description("Time to send one batch over an SMTP connection")
+                .register(meterRegistry);
+        for (MailPriority priority : MailPriority.values()) {
+            deliveryLatency.put(priority, Timer.builder("mail.dispatch.delivery.latency")
+                    .description("Time from enqueue until the SMTP server accepted the email")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry));
+        }
+        this.retried = Counter.builder("mail.dispatch.retried").register(meterRegistry);
+        this.failed = Counter.builder("mail.dispatch.failed").register(meterRegistry);
+        this.rejected = Counter.builder("mail.dispatch.rejected").register(meterRegistry);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "mail-dispatch-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::work);
+        }
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mail-dispatch-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a message. Returns false, without queueing it, if the queue is full.
+     */
+    public boolean submit(SimpleMailMessage message, MailPriority priority) {
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            rejected.increment();
+            logger.warn("Mail queue full, dropping {} email to {}", priority, Arrays.toString(message.getTo()));
+            return false;
+        }
+        queue.offer(new QueuedMail(message, priority, sequence.getAndIncrement(), System.nanoTime(), 0));
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    private void work() {
+        List<QueuedMail> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // drainTo takes in priority order, so a batch never skips a more urgent message
+            queue.drainTo(batch, batchSize - 1);
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<QueuedMail> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(QueuedMail::message).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        long started = System.nanoTime();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Keyed by the SimpleMailMessage that failed; an empty map means everything was sent
+            failures.putAll(e.getFailedMessages());
+        } catch (Exception e) {
+            for (SimpleMailMessage message : messages) {
+                failures.put(message, e);
+            }
+        }
+        long finished = System.nanoTime();
+        sendLatency.record(finished - started, TimeUnit.NANOSECONDS);
+
+        for (QueuedMail mail : batch) {
+            Exception failure = failures.get(mail.message());
+            if (failure == null) {
+                depth.decrementAndGet();
+                deliveryLatency.get(mail.priority()).record(finished - mail.enqueuedAt(), TimeUnit.NANOSECONDS);
+            } else {
+                retryLater(mail, failure);
+            }
+        }
+    }
+
+    private void retryLater(QueuedMail mail, Exception failure) {
+        int attempt = mail.attempt() + 1;
+        if (attempt >= maxAttempts) {
+            depth.decrementAndGet();
+            failed.increment();
+            logger.error("Giving up on {} email to {} after {} attempts: {}", mail.priority(),
+                    Arrays.toString(mail.message().getTo()), attempt, failure.getMessage());
+            return;
+        }
+        retried.increment();
+        long delay = backoffMs << Math.min(attempt - 1, 10);
+        try {
+            retryScheduler.schedule(() -> queue.offer(mail.retry(attempt)), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            depth.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        retryScheduler.shutdownNow();
+        if (depth.get() > 0) {
+            logger.warn("Mail dispatcher stopped with {} emails unsent", depth.get());
+        }
+    }
+
+    private record QueuedMail(SimpleMailMessage message, MailPriority priority, long sequence, long enqueuedAt, int attempt) {
+        QueuedMail retry(int nextAttempt) {
+            return new QueuedMail(message, priority, sequence, enqueuedAt, nextAttempt);
+        }
+    }
+}
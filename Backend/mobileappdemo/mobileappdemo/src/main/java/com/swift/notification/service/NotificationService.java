@@ -1,22 +1,30 @@
 package com.swift.notification.service;
 
 import com.swift.auth.models.User;
+import com.swift.auth.repository.UserRepository;
+import com.swift.mobileappdemo.paging.Cursor;
+import com.swift.mobileappdemo.paging.CursorPage;
 import com.swift.notification.dto.NotificationDto;
 import com.swift.notification.enums.NotificationType;
 import com.swift.notification.models.Notification;
+import com.swift.notification.models.OutboxEvent;
 import com.swift.notification.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
-public class NotificationService {
+public class NotificationService implements OutboxEventHandler {
 
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     public Notification createNotification(User user, NotificationType type, String title, String message, Long referenceId) {
         Notification notification = new Notification();
         notification.setUser(user);
@@ -31,12 +39,53 @@ public class NotificationService {
         return createNotification(user, type, title, message, null);
     }
 
+    /**
+     * One notification per outbox event, saved together so they go out as a single batch.
+     */
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        List<Notification> notifications = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Notification notification = new Notification();
+            notification.setUser(userRepository.getReferenceById(event.getUserId()));
+            notification.setType(event.getType());
+            notification.setTitle(event.getTitle());
+            notification.setMessage(event.getMessage());
+            notification.setReferenceId(event.getReferenceId());
+            notification.setCreatedAt(event.getCreatedAt());
+            notifications.add(notification);
+        }
+        notificationRepository.saveAll(notifications);
+    }
+
     public List<NotificationDto> getUserNotifications(Long userId) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
                 .map(NotificationDto::new)
                 .toList();
     }
 
+    /**
+     * A page of the user's notifications, newest first, read from an opaque cursor (null for the
+     * newest page).
+     */
+    public CursorPage<NotificationDto> getUserNotificationFeed(Long userId, String cursor, int size) {
+        Cursor position = cursor != null ? Cursor.decode(cursor) : null;
+        List<Notification> rows;
+        if (position == null) {
+            rows = notificationRepository.findFeed(userId, size + 1);
+        } else if (position.older()) {
+            rows = notificationRepository.findFeedOlder(userId, position.createdAt(), position.id(), size + 1);
+        } else {
+            rows = notificationRepository.findFeedNewer(userId, position.createdAt(), position.id(), size + 1);
+        }
+        return CursorPage.of(rows.stream().map(NotificationDto::new).toList(), size, position,
+                NotificationDto::getCreatedAt, NotificationDto::getId);
+    }
+
+    public long countUserNotifications(Long userId) {
+        return notificationRepository.countByUserId(userId);
+    }
+
     public Optional<Notification> markAsRead(Long notificationId, Long userId) {
         Optional<Notification> notificationOpt = notificationRepository.findById(notificationId);
         if (notificationOpt.isEmpty() || !notificationOpt.get().getUser().getId().equals(userId)) {
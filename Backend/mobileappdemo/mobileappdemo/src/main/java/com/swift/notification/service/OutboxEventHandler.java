@@ -0,0 +1,15 @@
+package com.swift.notification.service;
+
+import com.swift.notification.models.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * A consumer of outbox events. Called by the relay inside the transaction that marks the batch
+ * published, so database writes made here commit or roll back with it. Delivery is
+ * at-least-once: a batch that fails is handed over again, one event at a time.
+ */
+public interface OutboxEventHandler {
+
+    void handle(List<OutboxEvent> events);
+}
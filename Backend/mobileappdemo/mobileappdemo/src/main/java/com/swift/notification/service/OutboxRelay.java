@@ -0,0 +1,122 @@
+package com.swift.notification.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves outbox events to their consumers on a single background thread. A commit that
+ * published events wakes the relay; a slow poll picks up anything a wake-up missed (events
+ * from an instance that died, or batches that failed). Each batch is delivered in one
+ * transaction, so the consumers' inserts go out as multi-row JDBC batches.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.retention-hours:24}")
+    private int retentionHours;
+
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @TransactionalEventListener
+    public void onEventPublished(OutboxService.EventPublished published) {
+        wakeUp();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:5000}",
+               initialDelayString = "${outbox.relay.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Queue a drain unless one is already waiting to run. Wake-ups arriving while a drain is in
+     * progress queue exactly one more, so nothing committed in the meantime is left behind.
+     */
+    public void wakeUp() {
+        if (!drainQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drainQueued.set(false);
+        }
+    }
+
+    /**
+     * Deliver batches until the outbox is empty. Returns how many events were delivered.
+     */
+    public int drain() {
+        drainQueued.set(false);
+        int total = 0;
+        int delivered;
+        do {
+            delivered = relayBatch();
+            total += delivered;
+        } while (delivered == batchSize);
+        return total;
+    }
+
+    private int relayBatch() {
+        try {
+            return outboxService.deliverPending(batchSize);
+        } catch (RuntimeException batchFailure) {
+            logger.warn("Outbox batch failed, delivering events one at a time: {}", batchFailure.getMessage());
+        }
+
+        // One bad event shouldn't hold back the rest of its batch
+        List<Long> pending = outboxService.findPendingIds(batchSize);
+        int delivered = 0;
+        for (Long eventId : pending) {
+            try {
+                outboxService.deliverOne(eventId);
+                delivered++;
+            } catch (RuntimeException e) {
+                logger.error("Outbox event {} could not be delivered", eventId, e);
+                outboxService.recordFailure(eventId, e.getMessage());
+            }
+        }
+        // Stop here if anything failed; the poll tries again later
+        return delivered == pending.size() ? delivered : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}",
+               initialDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void purgePublished() {
+        int deleted = outboxService.purgePublishedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            logger.info("Purged {} published outbox events", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,109 @@
+package com.swift.notification.service;
+
+import com.swift.auth.models.User;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.models.OutboxEvent;
+import com.swift.notification.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox for side effects of money movements and account events. publish() is a
+ * single insert in the caller's transaction; notifications, activity logs and emails are
+ * produced later by {@link OutboxRelay}, off the request path.
+ */
+@Service
+@Transactional
+public class OutboxService {
+
+    /**
+     * Raised on publish; the relay listens for it after commit so new events go out right away
+     * instead of waiting for the next poll.
+     */
+    public record EventPublished(Long eventId) {}
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private List<OutboxEventHandler> handlers;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    public OutboxEvent publish(User user, NotificationType type, String title, String message, Long referenceId) {
+        OutboxEvent event = outboxEventRepository.save(new OutboxEvent(type, user.getId(), title, message, referenceId));
+        applicationEventPublisher.publishEvent(new EventPublished(event.getId()));
+        return event;
+    }
+
+    public OutboxEvent publish(User user, NotificationType type, String title, String message) {
+        return publish(user, type, title, message, null);
+    }
+
+    /**
+     * Hand up to limit pending events to every handler and mark them published, all in one
+     * transaction. Returns how many were delivered; throws if any handler failed, in which case
+     * nothing is marked.
+     */
+    public int deliverPending(int limit) {
+        List<OutboxEvent> events = outboxEventRepository.lockPending(maxAttempts, PageRequest.of(0, limit));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        deliver(events);
+        return events.size();
+    }
+
+    /**
+     * Deliver a single event, used to isolate the one that made a batch fail.
+     */
+    public void deliverOne(Long eventId) {
+        outboxEventRepository.findById(eventId)
+                .filter(event -> event.getPublishedAt() == null)
+                .ifPresent(event -> deliver(List.of(event)));
+    }
+
+    private void deliver(List<OutboxEvent> events) {
+        // Stamp first: the row locks this takes make a concurrent relay wait, then skip the events
+        int claimed = outboxEventRepository.markPublished(events.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now());
+        if (claimed == 0) {
+            return;
+        }
+        if (claimed != events.size()) {
+            throw new RuntimeException("Outbox batch was partly delivered by another relay");
+        }
+        for (OutboxEventHandler handler : handlers) {
+            handler.handle(events);
+        }
+    }
+
+    public List<Long> findPendingIds(int limit) {
+        return outboxEventRepository.lockPending(maxAttempts, PageRequest.of(0, limit)).stream()
+                .map(OutboxEvent::getId)
+                .toList();
+    }
+
+    /**
+     * Count a failed delivery. Events that fail maxAttempts times are no longer picked up and
+     * stay in the table with their last error for inspection.
+     */
+    public void recordFailure(Long eventId, String error) {
+        String truncated = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        outboxEventRepository.recordFailure(eventId, truncated);
+    }
+
+    public int purgePublishedBefore(LocalDateTime before) {
+        return outboxEventRepository.deletePublishedBefore(before);
+    }
+}
@@ -0,0 +1,74 @@
+package com.swift.notification.service;
+
+import com.swift.auth.models.User;
+import com.swift.auth.repository.UserRepository;
+import com.swift.notification.enums.MailPriority;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.models.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Emails the user about security events (password changed). Mail is queued only after the
+ * delivery transaction commits, so a batch that is rolled back and retried doesn't send twice.
+ */
+@Component
+public class SecurityAlertEmailHandler implements OutboxEventHandler {
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        List<OutboxEvent> alerts = events.stream()
+                .filter(event -> event.getType() == NotificationType.SECURITY_ALERT)
+                .toList();
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        Map<Long, User> users = userRepository.findAllById(alerts.stream().map(OutboxEvent::getUserId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<SimpleMailMessage> messages = new ArrayList<>();
+        for (OutboxEvent alert : alerts) {
+            User user = users.get(alert.getUserId());
+            if (user == null || user.getEmail() == null) {
+                continue;
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(user.getEmail());
+            message.setSubject("Swift - " + alert.getTitle());
+            message.setText(String.format("Dear %s,\n\n%s\n\nBest regards,\nThe Swift Team", user.getFullName(), alert.getMessage()));
+            messages.add(message);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(messages);
+                }
+            });
+        } else {
+            send(messages);
+        }
+    }
+
+    private void send(List<SimpleMailMessage> messages) {
+        for (SimpleMailMessage message : messages) {
+            mailDispatcher.submit(message, MailPriority.SECURITY);
+        }
+    }
+}
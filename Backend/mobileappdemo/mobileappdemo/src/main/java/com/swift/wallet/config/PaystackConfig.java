@@ -3,6 +3,7 @@ package com.swift.wallet.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -14,9 +15,19 @@ public class PaystackConfig {
     @Value("${paystack.public.key}")
     private String publicKey;
 
+    // Well under payout.dispatch.verify-after-ms, so a transfer call is over before it gets verified
+    @Value("${paystack.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${paystack.http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
     }
 
     public String getSecretKey() {
@@ -0,0 +1,139 @@
+package com.swift.wallet.controller;
+
+import com.swift.wallet.enums.ExportFormat;
+import com.swift.wallet.enums.ExportJobStatus;
+import com.swift.wallet.models.ExportJob;
+import com.swift.wallet.service.ExportJobDispatcher;
+import com.swift.wallet.service.ExportJobService;
+import com.swift.wallet.service.ExportSpool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/transactions/exports")
+public class ExportJobController {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private ExportJobDispatcher exportJobDispatcher;
+
+    @Autowired
+    private ExportSpool exportSpool;
+
+    /**
+     * Start a background export of the caller's transaction history (CSV or NDJSON, gzipped).
+     * Asking again for the same export returns the job already under way; poll
+     * GET /api/transactions/exports/{jobId} until it is READY, then download it.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> requestExport(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @AuthenticationPrincipal Long currentUserId) {
+        try {
+            ExportJobService.Requested requested = exportJobService.request(currentUserId,
+                    ExportFormat.valueOf(format.toUpperCase()), startDate, endDate);
+            if (requested.created()) {
+                exportJobDispatcher.dispatch(List.of(requested.job().getId()));
+            }
+
+            Map<String, Object> response = new HashMap<>(exportJobService.toView(requested.job()));
+            response.put("success", true);
+            response.put("deduplicated", !requested.created());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getExport(@PathVariable Long jobId,
+            @AuthenticationPrincipal Long currentUserId) {
+        return exportJobService.findJob(currentUserId, jobId)
+                .map(job -> ResponseEntity.ok(exportJobService.toView(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Download a READY export. Supports a single byte range (Range: bytes=start-end) so an
+     * interrupted download picks up where it stopped; send the ETag back as If-Range to get the
+     * whole file instead if it is no longer the same one.
+     */
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadExport(@PathVariable Long jobId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @AuthenticationPrincipal Long currentUserId) throws IOException {
+        Optional<ExportJob> found = exportJobService.findJob(currentUserId, jobId);
+        if (found.isEmpty() || found.get().getStatus() != ExportJobStatus.READY) {
+            return ResponseEntity.notFound().build();
+        }
+        ExportJob job = found.get();
+        long size = exportSpool.size(jobId);
+        if (size < 0) {
+            // Spooled on an instance that is gone, or without shared storage; a repeat request starts over
+            exportJobService.releaseDedupKey(jobId);
+            return ResponseEntity.notFound().build();
+        }
+
+        // A spool file never changes under its job id, so the id and size identify its content
+        String etag = "\"export-" + jobId + "-" + size + "\"";
+        String filename = "transactions_" + currentUserId + "_" + jobId + "." + job.getFormat().getExtension() + ".gz";
+        HttpStatus status = HttpStatus.OK;
+        long start = 0;
+        long length = size;
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    if (start >= size) {
+                        throw new IllegalArgumentException("Range starts past the end of the file");
+                    }
+                    length = ranges.get(0).getRangeEnd(size) - start + 1;
+                    status = HttpStatus.PARTIAL_CONTENT;
+                }
+                // Several ranges at once: the whole file is an allowed answer
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+        }
+
+        long from = start;
+        long count = length;
+        StreamingResponseBody body = out -> exportSpool.transfer(jobId, from, count, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .header(HttpHeaders.CONTENT_TYPE, "application/gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(etag)
+                .contentLength(length);
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + size);
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,90 @@
+package com.swift.wallet.controller;
+
+import com.swift.wallet.dto.BulkPayoutRequest;
+import com.swift.wallet.enums.PayoutStatus;
+import com.swift.wallet.models.PayoutBatch;
+import com.swift.wallet.models.PayoutItem;
+import com.swift.wallet.service.BalanceUpdateRetrier;
+import com.swift.wallet.service.IdempotencyService;
+import com.swift.wallet.service.PayoutDispatcher;
+import com.swift.wallet.service.PayoutService;
+import com.swift.wallet.service.WalletCommandSequencer;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/wallets/payouts")
+public class PayoutController {
+
+    @Autowired
+    private PayoutService payoutService;
+
+    @Autowired
+    private PayoutDispatcher payoutDispatcher;
+
+    @Autowired
+    private WalletCommandSequencer walletCommandSequencer;
+
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /**
+     * Pay many recipients from one wallet. The total is reserved up front; the transfers run in
+     * the background, so poll GET /api/wallets/payouts/{batchId} for per-item status.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createPayout(@Valid @RequestBody BulkPayoutRequest request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Long currentUserId) {
+        return idempotencyService.execute(currentUserId, idempotencyKey, "payout", request,
+                () -> doCreatePayout(request, currentUserId));
+    }
+
+    private ResponseEntity<Map<String, Object>> doCreatePayout(BulkPayoutRequest request, Long currentUserId) {
+        try {
+            // Reserving runs in the user's mailbox like any other debit; the payouts themselves don't
+            PayoutBatch batch = walletCommandSequencer.execute(currentUserId,
+                    () -> balanceUpdateRetrier.run(() -> payoutService.createBatch(currentUserId, request)));
+            idempotencyService.markIrreversible();
+            List<Long> itemIds = batch.getItems().stream().map(PayoutItem::getId).toList();
+            payoutDispatcher.dispatch(itemIds);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("batchId", batch.getId());
+            response.put("reference", batch.getReference());
+            response.put("totalAmount", batch.getTotalAmount());
+            response.put("itemCount", batch.getItemCount());
+            response.put("status", "PROCESSING");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Batch progress and per-item status. Pass status=FAILED to list only failed items.
+     */
+    @GetMapping("/{batchId}")
+    public ResponseEntity<Map<String, Object>> getPayout(@PathVariable Long batchId,
+            @RequestParam(required = false) PayoutStatus status,
+            @AuthenticationPrincipal Long currentUserId) {
+        return payoutService.getBatchStatus(currentUserId, batchId, status)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
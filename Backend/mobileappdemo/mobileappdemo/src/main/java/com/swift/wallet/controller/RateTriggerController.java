@@ -0,0 +1,106 @@
+package com.swift.wallet.controller;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerAction;
+import com.swift.wallet.enums.RateTriggerDirection;
+import com.swift.wallet.models.RateTrigger;
+import com.swift.wallet.service.RateTriggerEngine;
+import com.swift.wallet.service.RateTriggerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/wallets/triggers")
+public class RateTriggerController {
+
+    @Autowired
+    private RateTriggerService rateTriggerService;
+
+    @Autowired
+    private RateTriggerEngine rateTriggerEngine;
+
+    /**
+     * Alert, or convert, once a rate crosses a threshold. Body: fromCurrency, toCurrency,
+     * direction (ABOVE or BELOW), threshold, action (ALERT or CONVERT), and for CONVERT the
+     * amount of fromCurrency to convert.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> create(@RequestBody Map<String, Object> request,
+                                                      @AuthenticationPrincipal Long currentUserId) {
+        try {
+            CurrencyType fromCurrency = CurrencyType.valueOf(((String) request.get("fromCurrency")).toUpperCase());
+            CurrencyType toCurrency = CurrencyType.valueOf(((String) request.get("toCurrency")).toUpperCase());
+            RateTriggerDirection direction = RateTriggerDirection.valueOf(((String) request.get("direction")).toUpperCase());
+            BigDecimal threshold = new BigDecimal(request.get("threshold").toString());
+            RateTriggerAction action = RateTriggerAction.valueOf(((String) request.getOrDefault("action", "ALERT")).toUpperCase());
+            BigDecimal amount = request.get("amount") != null ? new BigDecimal(request.get("amount").toString()) : null;
+
+            RateTrigger trigger = rateTriggerService.create(currentUserId, fromCurrency, toCurrency, direction, threshold, action, amount);
+            rateTriggerEngine.arm(trigger);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("trigger", toMap(trigger));
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to create rate trigger: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * The user's triggers, newest first, whatever their status.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> list(@RequestParam(defaultValue = "50") int limit,
+                                                    @AuthenticationPrincipal Long currentUserId) {
+        List<Map<String, Object>> triggers = rateTriggerService.list(currentUserId, Math.min(Math.max(limit, 1), 100))
+                .stream().map(this::toMap).toList();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("triggers", triggers);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/{triggerId}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable Long triggerId,
+                                                      @AuthenticationPrincipal Long currentUserId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!rateTriggerService.cancel(currentUserId, triggerId)) {
+            response.put("success", false);
+            response.put("message", "No active rate trigger " + triggerId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        rateTriggerEngine.disarm(triggerId);
+        response.put("success", true);
+        response.put("message", "Rate trigger cancelled");
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> toMap(RateTrigger trigger) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", trigger.getId());
+        map.put("fromCurrency", trigger.getFromCurrency());
+        map.put("toCurrency", trigger.getToCurrency());
+        map.put("direction", trigger.getDirection());
+        map.put("threshold", trigger.getThreshold());
+        map.put("action", trigger.getAction());
+        map.put("amount", trigger.getAmount());
+        map.put("status", trigger.getStatus());
+        map.put("firedRate", trigger.getFiredRate());
+        map.put("failureReason", trigger.getFailureReason());
+        map.put("createdAt", trigger.getCreatedAt());
+        map.put("firedAt", trigger.getFiredAt());
+        return map;
+    }
+}
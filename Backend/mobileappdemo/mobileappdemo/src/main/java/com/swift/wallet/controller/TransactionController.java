@@ -1,7 +1,9 @@
 package com.swift.wallet.controller;
 
+import com.swift.mobileappdemo.paging.CursorPage;
 import com.swift.wallet.dto.TransactionHistoryDto;
 import com.swift.wallet.dto.WalletDto;
+import com.swift.wallet.enums.ExportFormat;
 import com.swift.wallet.models.Transaction;
 import com.swift.wallet.service.TransactionService;
 import com.swift.wallet.service.WalletService;
@@ -15,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -33,12 +36,17 @@ public class TransactionController {
     private WalletService walletService;
 
     /**
-     * Get transactions for a specific wallet with pagination and enhanced display
+     * Get transactions for a specific wallet with pagination and enhanced display.
+     * Without a page number the transactions are paged by cursor instead: newest first, with
+     * nextCursor/previousCursor to pass back as cursor, and totalItems only if includeTotal is set.
+     * sortBy/sortDir apply to numbered pages only.
      */
     @GetMapping("/wallet/{walletId}")
     public ResponseEntity<Map<String, Object>> getWalletTransactions(
             @PathVariable Long walletId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
@@ -52,30 +60,33 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        if (page == null) {
+            try {
+                CursorPage<TransactionHistoryDto> feed = transactionService.getWalletTransactionFeed(walletId, cursor, feedSize(size));
+                return ResponseEntity.ok(feedResponse(feed, includeTotal ? transactionService.countWalletTransactions(walletId) : null));
+            } catch (IllegalArgumentException e) {
+                return badRequest(e.getMessage());
+            }
+        }
+
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
         Page<TransactionHistoryDto> transactions = transactionService.getWalletTransactionsPaginated(walletId, pageable);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("transactions", transactions.getContent());
-        response.put("currentPage", transactions.getNumber());
-        response.put("totalItems", transactions.getTotalElements());
-        response.put("totalPages", transactions.getTotalPages());
-        response.put("hasNext", transactions.hasNext());
-        response.put("hasPrevious", transactions.hasPrevious());
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(pageResponse(transactions));
     }
 
     /**
-     * Get all transactions for a user with pagination and enhanced display
+     * Get all transactions for a user with pagination and enhanced display; paged by cursor
+     * without a page number, as for a wallet
      */
     @GetMapping("/user/{userId}")
     public ResponseEntity<Map<String, Object>> getUserTransactions(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
@@ -85,25 +96,27 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        if (page == null) {
+            try {
+                CursorPage<TransactionHistoryDto> feed = transactionService.getUserTransactionFeed(userId, cursor, feedSize(size));
+                return ResponseEntity.ok(feedResponse(feed, includeTotal ? transactionService.countTransactionHistory(
+                        userId, null, null, null, null, null) : null));
+            } catch (IllegalArgumentException e) {
+                return badRequest(e.getMessage());
+            }
+        }
+
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
         Page<TransactionHistoryDto> transactions = transactionService.getUserTransactionsPaginated(userId, pageable);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("transactions", transactions.getContent());
-        response.put("currentPage", transactions.getNumber());
-        response.put("totalItems", transactions.getTotalElements());
-        response.put("totalPages", transactions.getTotalPages());
-        response.put("hasNext", transactions.hasNext());
-        response.put("hasPrevious", transactions.hasPrevious());
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(pageResponse(transactions));
     }
 
     /**
-     * Get transaction history with advanced filtering and enhanced display
+     * Get transaction history with advanced filtering and enhanced display; paged by cursor
+     * without a page number, as for a wallet. Every page of a cursor feed takes the same filters.
      */
     @GetMapping("/history")
     public ResponseEntity<Map<String, Object>> getTransactionHistory(
@@ -113,7 +126,9 @@ public class TransactionController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
@@ -123,20 +138,24 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        Sort sort = sortDir.equalsIgnoreCase("desc") ?
-            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
-
-        Page<TransactionHistoryDto> transactions = transactionService.getTransactionHistory(
-            userId, walletId, type, status, startDate, endDate, pageable);
+        Map<String, Object> response;
+        if (page == null) {
+            try {
+                CursorPage<TransactionHistoryDto> feed = transactionService.getTransactionHistoryFeed(
+                    userId, walletId, type, status, startDate, endDate, cursor, feedSize(size));
+                response = feedResponse(feed, includeTotal ? transactionService.countTransactionHistory(
+                    userId, walletId, type, status, startDate, endDate) : null);
+            } catch (IllegalArgumentException e) {
+                return badRequest(e.getMessage());
+            }
+        } else {
+            Sort sort = sortDir.equalsIgnoreCase("desc") ?
+                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+            Pageable pageable = PageRequest.of(page, size, sort);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("transactions", transactions.getContent());
-        response.put("currentPage", transactions.getNumber());
-        response.put("totalItems", transactions.getTotalElements());
-        response.put("totalPages", transactions.getTotalPages());
-        response.put("hasNext", transactions.hasNext());
-        response.put("hasPrevious", transactions.hasPrevious());
+            response = pageResponse(transactionService.getTransactionHistory(
+                userId, walletId, type, status, startDate, endDate, pageable));
+        }
         Map<String, Object> filters = new HashMap<>();
         filters.put("userId", userId);
         filters.put("walletId", walletId);
@@ -246,23 +265,71 @@ public class TransactionController {
     }
 
     /**
-     * Export transaction history (CSV format) with enhanced information
+     * Export transaction history as CSV (default) or NDJSON, optionally gzipped. Rows are written
+     * to the response as they are read from the database, so exports of any size take the same
+     * memory.
      */
     @GetMapping("/export/{userId}")
-    public ResponseEntity<String> exportTransactionHistory(
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
             @PathVariable Long userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
             @AuthenticationPrincipal Long currentUserId) {
 
         if (!userId.equals(currentUserId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        String csvData = transactionService.exportTransactionHistory(userId, startDate, endDate);
+        String filename = "transactions_" + userId + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> transactionService.exportTransactionHistory(
+                userId, startDate, endDate, exportFormat, gzip, out);
         return ResponseEntity.ok()
-                .header("Content-Type", "text/csv")
-                .header("Content-Disposition", "attachment; filename=\"transactions_" + userId + ".csv\"")
-                .body(csvData);
+                .header("Content-Type", gzip ? "application/gzip" : exportFormat.getContentType())
+                .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // Keyset pages are at most 100 rows
+    private int feedSize(int size) {
+        return Math.min(Math.max(size, 1), 100);
+    }
+
+    private Map<String, Object> feedResponse(CursorPage<TransactionHistoryDto> feed, Long total) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", feed.items());
+        response.put("nextCursor", feed.nextCursor());
+        response.put("previousCursor", feed.previousCursor());
+        response.put("hasNext", feed.hasNext());
+        response.put("hasPrevious", feed.hasPrevious());
+        if (total != null) {
+            response.put("totalItems", total);
+        }
+        return response;
+    }
+
+    private Map<String, Object> pageResponse(Page<TransactionHistoryDto> transactions) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", transactions.getContent());
+        response.put("currentPage", transactions.getNumber());
+        response.put("totalItems", transactions.getTotalElements());
+        response.put("totalPages", transactions.getTotalPages());
+        response.put("hasNext", transactions.hasNext());
+        response.put("hasPrevious", transactions.hasPrevious());
+        return response;
+    }
+
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.badRequest().body(response);
     }
-} 
\ No newline at end of file
+}
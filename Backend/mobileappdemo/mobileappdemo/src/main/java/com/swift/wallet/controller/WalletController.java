@@ -5,19 +5,39 @@ import com.swift.auth.repository.UserRepository;
 import com.swift.wallet.dto.PaystackTransferRecipientRequest;
 import com.swift.wallet.dto.TransferRequest;
 import com.swift.wallet.dto.WalletDto;
+import com.swift.wallet.enums.CandleResolution;
 import com.swift.wallet.enums.CurrencyType;
 import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.Transaction;
+import com.swift.wallet.models.WalletHold;
+import com.swift.wallet.service.BalanceUpdateRetrier;
+import com.swift.wallet.service.FxQuoteService;
+import com.swift.wallet.service.IdempotencyService;
+import com.swift.wallet.service.PaystackRejectedException;
+import com.swift.wallet.service.ReferenceGenerator;
+import com.swift.wallet.service.TransactionService;
+import com.swift.wallet.service.WalletCommandSequencer;
 import com.swift.wallet.service.WalletService;
 import com.swift.wallet.service.PaystackService;
+import com.swift.wallet.service.RateHistory;
 import com.swift.wallet.service.ExchangeRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,10 +46,26 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/wallets")
 public class WalletController {
+    private static final Logger logger = LoggerFactory.getLogger(WalletController.class);
 
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Autowired
+    private WalletCommandSequencer walletCommandSequencer;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ReferenceGenerator referenceGenerator;
+
+    @Autowired
+    private TransactionService transactionService;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -39,6 +75,12 @@ public class WalletController {
     @Autowired
     private ExchangeRateService exchangeRateService;
 
+    @Autowired
+    private FxQuoteService fxQuoteService;
+
+    @Autowired
+    private RateHistory rateHistory;
+
     /**
      * Get all wallets for the current user
      */
@@ -106,10 +148,52 @@ public class WalletController {
     }
 
     /**
-     * Interwallet transfer: move money between user's own wallets (no Paystack)
+     * Quote an exchange rate for an interwallet transfer. The rate is fixed for a short time;
+     * pass the quoteId with the transfer to convert at it.
+     */
+    @PostMapping("/quotes")
+    public ResponseEntity<Map<String, Object>> quote(@RequestBody Map<String, Object> request,
+                                                     @AuthenticationPrincipal Long currentUserId) {
+        try {
+            CurrencyType fromCurrency = CurrencyType.valueOf(((String) request.get("fromCurrency")).toUpperCase());
+            CurrencyType toCurrency = CurrencyType.valueOf(((String) request.get("toCurrency")).toUpperCase());
+            FxQuoteService.FxQuote quote = fxQuoteService.quote(currentUserId, fromCurrency, toCurrency);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("quoteId", quote.id());
+            response.put("fromCurrency", quote.fromCurrency());
+            response.put("toCurrency", quote.toCurrency());
+            response.put("rate", quote.rate());
+            response.put("expiresAt", quote.expiresAt().toString());
+            if (request.get("amount") != null) {
+                BigDecimal amount = new BigDecimal(request.get("amount").toString());
+                response.put("amount", amount);
+                response.put("convertedAmount", quote.convert(amount));
+            }
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to quote rate: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Interwallet transfer: move money between user's own wallets (no Paystack).
+     * Cross-currency transfers convert at the rate of the given quoteId; without one, a quote is
+     * taken here, before the transfer's transaction starts.
      */
     @PostMapping("/interwallet")
-    public ResponseEntity<Map<String, Object>> interwalletTransfer(@Valid @RequestBody TransferRequest request, @AuthenticationPrincipal Long currentUserId) {
+    public ResponseEntity<Map<String, Object>> interwalletTransfer(@Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Long currentUserId) {
+        return idempotencyService.execute(currentUserId, idempotencyKey, "interwallet", request,
+                () -> doInterwalletTransfer(request, currentUserId));
+    }
+
+    private ResponseEntity<Map<String, Object>> doInterwalletTransfer(TransferRequest request, Long currentUserId) {
         if (request.getUserId() != null && !request.getUserId().equals(currentUserId)) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -118,7 +202,12 @@ public class WalletController {
         }
         request.setUserId(currentUserId);
         try {
-            boolean success = walletService.transferMoney(request);
+            if (request.getFromCurrency() != request.getToCurrency() && request.getQuoteId() == null) {
+                request.setQuoteId(fxQuoteService.quote(currentUserId, request.getFromCurrency(), request.getToCurrency()).id());
+            }
+            boolean success = walletCommandSequencer.execute(currentUserId,
+                    () -> balanceUpdateRetrier.run(() -> walletService.transferMoney(request)));
+            idempotencyService.markIrreversible();
             Map<String, Object> response = new HashMap<>();
             response.put("success", success);
             response.put("message", success ? "Interwallet transfer successful" : "Transfer failed");
@@ -133,28 +222,23 @@ public class WalletController {
 
     /**
      * Send money to a third party's bank/mobile money account via Paystack.
-     * Balance is checked before calling Paystack, and only debited after Paystack confirms.
+     * The amount is held before calling Paystack, and only debited after Paystack confirms.
      */
     @PostMapping("/send")
-    public ResponseEntity<Map<String, Object>> send(@RequestBody Map<String, Object> request, @AuthenticationPrincipal Long currentUserId) {
+    public ResponseEntity<Map<String, Object>> send(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Long currentUserId) {
+        return idempotencyService.execute(currentUserId, idempotencyKey, "send", request,
+                () -> doSend(request, currentUserId));
+    }
+
+    private ResponseEntity<Map<String, Object>> doSend(Map<String, Object> request, Long currentUserId) {
         try {
             CurrencyType currency = CurrencyType.valueOf(((String) request.getOrDefault("currency", "GHS")).toUpperCase());
             BigDecimal amount = new BigDecimal(request.get("amount").toString());
             String reason = (String) request.getOrDefault("reason", "Send");
 
-            // Fail fast if funds aren't there, before ever calling Paystack
-            walletService.ensureSufficientBalance(currentUserId, currency, amount);
-
-            String recipientCode = resolveRecipientCode(request, currency);
-            Map<String, Object> paystackResponse = paystackService.initiateTransfer(recipientCode, amount, reason);
-            String reference = referenceFrom(paystackResponse, "SEND_");
-
-            walletService.debitWallet(currentUserId, currency, amount, TransactionType.TRANSFER, reason, reference);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("paystackResponse", paystackResponse);
-            return ResponseEntity.ok(response);
+            return payOut(currentUserId, request, currency, amount, reason, TransactionType.TRANSFER, "SEND");
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -165,27 +249,23 @@ public class WalletController {
 
     /**
      * Withdraw funds to the user's own bank/mobile money account using Paystack.
-     * Balance is checked before calling Paystack, and only debited after Paystack confirms.
+     * The amount is held before calling Paystack, and only debited after Paystack confirms.
      */
     @PostMapping("/withdraw")
-    public ResponseEntity<Map<String, Object>> withdraw(@RequestBody Map<String, Object> request, @AuthenticationPrincipal Long currentUserId) {
+    public ResponseEntity<Map<String, Object>> withdraw(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Long currentUserId) {
+        return idempotencyService.execute(currentUserId, idempotencyKey, "withdraw", request,
+                () -> doWithdraw(request, currentUserId));
+    }
+
+    private ResponseEntity<Map<String, Object>> doWithdraw(Map<String, Object> request, Long currentUserId) {
         try {
             CurrencyType currency = CurrencyType.valueOf(((String) request.getOrDefault("currency", "GHS")).toUpperCase());
             BigDecimal amount = new BigDecimal(request.get("amount").toString());
             String reason = (String) request.getOrDefault("reason", "Withdrawal");
 
-            walletService.ensureSufficientBalance(currentUserId, currency, amount);
-
-            String recipientCode = resolveRecipientCode(request, currency);
-            Map<String, Object> paystackResponse = paystackService.initiateTransfer(recipientCode, amount, reason);
-            String reference = referenceFrom(paystackResponse, "WITHDRAW_");
-
-            walletService.debitWallet(currentUserId, currency, amount, TransactionType.WITHDRAWAL, reason, reference);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("paystackResponse", paystackResponse);
-            return ResponseEntity.ok(response);
+            return payOut(currentUserId, request, currency, amount, reason, TransactionType.WITHDRAWAL, "WITHDRAW");
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -194,6 +274,72 @@ public class WalletController {
         }
     }
 
+    /**
+     * Hold the amount, make the Paystack transfer under our own reference, then capture the hold
+     * - or release it if Paystack turned the transfer down. The hold is what stops two concurrent
+     * payouts from spending the same funds, so only the short hold/capture/release steps go
+     * through the user's mailbox; the slow Paystack round trip doesn't block it.
+     *
+     * Throws only while nothing has been paid. Once the transfer may have gone out the response
+     * is a 2xx, so the Idempotency-Key keeps a retry from paying again: 200 when Paystack
+     * accepted it, 202 when the outcome is unknown and the hold is left for the reaper, which
+     * verifies the reference with Paystack before capturing or releasing it.
+     */
+    private ResponseEntity<Map<String, Object>> payOut(Long userId, Map<String, Object> request, CurrencyType currency,
+                                                       BigDecimal amount, String reason, TransactionType type,
+                                                       String referencePrefix) {
+        String reference = referenceGenerator.next(referencePrefix);
+        WalletHold hold = walletCommandSequencer.execute(userId,
+                () -> balanceUpdateRetrier.run(() -> walletService.placeHold(userId, currency, amount, reason, type, reference)));
+
+        String recipientCode;
+        try {
+            recipientCode = resolveRecipientCode(request, currency);
+        } catch (RuntimeException e) {
+            // No transfer was attempted
+            releaseHold(userId, hold);
+            throw e;
+        }
+
+        Map<String, Object> transfer;
+        try {
+            // Paystack references must be lowercase
+            transfer = paystackService.initiateTransfer(recipientCode, amount, reason, reference.toLowerCase());
+        } catch (PaystackRejectedException e) {
+            releaseHold(userId, hold);
+            throw e;
+        } catch (RuntimeException e) {
+            idempotencyService.markIrreversible();
+            logger.warn("Outcome of Paystack transfer {} unknown, hold {} left for verification: {}",
+                    reference, hold.getId(), e.getMessage());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("status", "PENDING");
+            response.put("reference", reference);
+            response.put("message", "Transfer submitted and waiting for confirmation from Paystack");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+        idempotencyService.markIrreversible();
+
+        try {
+            walletCommandSequencer.execute(userId,
+                    () -> balanceUpdateRetrier.run(() -> walletService.captureHold(hold.getId(), type, reason, reference)));
+        } catch (RuntimeException e) {
+            // The money went out; the hold stays ACTIVE and the reaper captures it once verified
+            logger.error("Paystack accepted transfer {} but hold {} could not be captured", reference, hold.getId(), e);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("status", "COMPLETED");
+        response.put("reference", reference);
+        response.put("paystackResponse", transfer);
+        return ResponseEntity.ok(response);
+    }
+
+    private void releaseHold(Long userId, WalletHold hold) {
+        walletCommandSequencer.execute(userId, () -> balanceUpdateRetrier.run(() -> walletService.releaseHold(hold.getId())));
+    }
+
     /**
      * Use a client-supplied Paystack recipient code if present, otherwise create one from
      * bank/mobile money details.
@@ -211,11 +357,6 @@ public class WalletController {
         return paystackService.createTransferRecipient(recipientRequest);
     }
 
-    private String referenceFrom(Map<String, Object> paystackResponse, String prefix) {
-        Object reference = paystackResponse != null ? paystackResponse.get("reference") : null;
-        return reference != null ? reference.toString() : prefix + System.currentTimeMillis();
-    }
-
     /**
      * Initialize a Paystack checkout for a deposit. Balance is not touched here - only
      * /deposit/verify credits the wallet, and only after Paystack confirms payment.
@@ -225,7 +366,7 @@ public class WalletController {
         try {
             String email = (String) request.get("email");
             BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            String reference = (String) request.getOrDefault("reference", "DEP_" + System.currentTimeMillis());
+            String reference = request.get("reference") != null ? (String) request.get("reference") : referenceGenerator.next("DEP");
 
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("user_id", currentUserId);
@@ -249,7 +390,14 @@ public class WalletController {
      * Verify a Paystack payment and credit the wallet only if verification actually succeeds.
      */
     @PostMapping("/deposit/verify")
-    public ResponseEntity<Map<String, Object>> verifyDeposit(@RequestBody Map<String, Object> request, @AuthenticationPrincipal Long currentUserId) {
+    public ResponseEntity<Map<String, Object>> verifyDeposit(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Long currentUserId) {
+        return idempotencyService.execute(currentUserId, idempotencyKey, "deposit-verify", request,
+                () -> doVerifyDeposit(request, currentUserId));
+    }
+
+    private ResponseEntity<Map<String, Object>> doVerifyDeposit(Map<String, Object> request, Long currentUserId) {
         try {
             String reference = (String) request.get("reference");
             BigDecimal amount = new BigDecimal(request.get("amount").toString());
@@ -264,7 +412,21 @@ public class WalletController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            walletService.allocateFundsToWallet(currentUserId, currency, amount, "Deposit via Paystack - " + reference, reference);
+            // The webhook usually credits the reference first
+            Optional<Transaction> credited = transactionService.findUserTransactionByReference(reference, currentUserId);
+            if (credited.isPresent()) {
+                return depositAlreadyCredited(credited.get(), currentUserId, currency);
+            }
+
+            Transaction transaction;
+            try {
+                transaction = walletCommandSequencer.execute(currentUserId, () -> balanceUpdateRetrier.run(() ->
+                        walletService.allocateFundsToWallet(currentUserId, currency, amount, "Deposit via Paystack - " + reference, reference)));
+            } catch (DataIntegrityViolationException e) {
+                // Credited by the webhook between our lookup and insert (uk_transactions_reference)
+                return depositAlreadyCredited(transactionService.findUserTransactionByReference(reference, currentUserId)
+                        .orElseThrow(() -> e), currentUserId, currency);
+            }
             WalletDto wallet = walletService.getUserWalletByCurrency(currentUserId, currency)
                     .orElseThrow(() -> new RuntimeException("Wallet not found after deposit"));
 
@@ -272,6 +434,7 @@ public class WalletController {
             response.put("message", "Deposit verified and wallet credited");
             response.put("newBalance", wallet.getBalance());
             response.put("amount", amount);
+            response.put("transactionId", transaction.getId());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
@@ -281,32 +444,84 @@ public class WalletController {
         }
     }
 
+    private ResponseEntity<Map<String, Object>> depositAlreadyCredited(Transaction transaction, Long currentUserId, CurrencyType currency) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Deposit already credited");
+        response.put("newBalance", walletService.getUserWalletByCurrency(currentUserId, currency)
+                .map(WalletDto::getBalance).orElse(null));
+        response.put("amount", transaction.getAmount());
+        response.put("transactionId", transaction.getId());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Current exchange rates for the supported currency pairs.
      */
     @GetMapping("/rates")
-    public ResponseEntity<Map<String, Object>> getRates() {
+    public ResponseEntity<?> getRates() {
         try {
-            List<Map<String, Object>> rates = new java.util.ArrayList<>();
-            CurrencyType[] currencies = CurrencyType.values();
-            for (CurrencyType from : currencies) {
-                for (CurrencyType to : currencies) {
-                    if (from == to) continue;
-                    rates.add(Map.of(
-                        "fromCurrency", from.name(),
-                        "toCurrency", to.name(),
-                        "rate", exchangeRateService.getExchangeRate(from, to)
-                    ));
-                }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(exchangeRateService.getRatesJson());
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to fetch rates: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * The rate that applied to a pair at a past moment, e.g. for a disputed statement line.
+     */
+    @GetMapping("/rates/at")
+    public ResponseEntity<Map<String, Object>> getRateAt(@RequestParam CurrencyType from, @RequestParam CurrencyType to,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        try {
+            Optional<RateHistory.RatePoint> point = rateHistory.rateAt(from, to, time.atZone(ZoneId.systemDefault()).toInstant());
+            if (point.isEmpty()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "No recorded rate at or before " + time);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("rates", rates);
+            response.put("fromCurrency", from);
+            response.put("toCurrency", to);
+            response.put("rate", point.get().rate());
+            response.put("observedAt", point.get().observedAt().toString());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Failed to fetch rates: " + e.getMessage());
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Open/high/low/close candles for a pair at 1m, 1h or 1d resolution. Defaults to the last day.
+     */
+    @GetMapping("/rates/candles")
+    public ResponseEntity<Map<String, Object>> getRateCandles(@RequestParam CurrencyType from, @RequestParam CurrencyType to,
+            @RequestParam(defaultValue = "1h") String resolution,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        try {
+            Instant end = endDate != null ? endDate.atZone(ZoneId.systemDefault()).toInstant() : Instant.now();
+            Instant start = startDate != null ? startDate.atZone(ZoneId.systemDefault()).toInstant() : end.minus(Duration.ofDays(1));
+            CandleResolution candleResolution = CandleResolution.fromCode(resolution);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("fromCurrency", from);
+            response.put("toCurrency", to);
+            response.put("resolution", candleResolution.getCode());
+            response.put("candles", rateHistory.candles(from, to, candleResolution, start, end));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
             return ResponseEntity.badRequest().body(response);
         }
     }
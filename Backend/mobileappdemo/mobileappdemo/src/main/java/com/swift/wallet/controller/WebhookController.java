@@ -1,16 +1,19 @@
 package com.swift.wallet.controller;
 
-import com.swift.wallet.service.WalletService;
+import com.swift.wallet.service.BalanceUpdateRetrier;
 import com.swift.wallet.service.TransactionService;
+import com.swift.wallet.service.WalletCommandSequencer;
+import com.swift.wallet.service.WalletService;
 import com.swift.wallet.repository.WalletRepository;
 import com.swift.auth.repository.UserRepository;
 import com.swift.wallet.enums.CurrencyType;
-import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.dto.WalletDto;
 import com.swift.auth.models.User;
 import com.swift.wallet.models.Wallet;
 import com.swift.wallet.models.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,6 +35,12 @@ public class WebhookController {
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Autowired
+    private WalletCommandSequencer walletCommandSequencer;
+
     @Autowired
     private TransactionService transactionService;
 
@@ -151,7 +160,6 @@ public class WebhookController {
             
             // Find or create user's primary wallet (GHS)
             Optional<Wallet> primaryWalletOpt = walletRepository.findUserWalletByCurrency(user.getId(), CurrencyType.GHS);
-            Wallet primaryWallet;
             
             if (primaryWalletOpt.isEmpty()) {
                 // Create primary wallet if it doesn't exist
@@ -163,22 +171,30 @@ public class WebhookController {
                 }
             }
             
-            primaryWallet = primaryWalletOpt.get();
-            
-            // Update wallet balance
-            BigDecimal newBalance = primaryWallet.getBalance().add(depositAmount);
-            primaryWallet.setBalance(newBalance);
-            walletRepository.save(primaryWallet);
-            
-            // Create transaction record
-            Transaction transaction = transactionService.createTransaction(
-                primaryWallet,
-                TransactionType.DEPOSIT,
-                depositAmount,
-                CurrencyType.GHS,
-                "Deposit via Paystack - " + reference,
-                reference
-            );
+            // /deposit/verify usually credits the reference first; answer 200 so Paystack stops retrying
+            Optional<Transaction> credited = transactionService.findUserTransactionByReference(reference, user.getId());
+            if (credited.isPresent()) {
+                return alreadyProcessed(user, credited.get());
+            }
+
+            // Credit the wallet through the ledger - appends a balanced journal entry
+            Transaction transaction;
+            try {
+                transaction = walletCommandSequencer.execute(user.getId(), () -> balanceUpdateRetrier.run(() -> walletService.allocateFundsToWallet(
+                    user.getId(),
+                    CurrencyType.GHS,
+                    depositAmount,
+                    "Deposit via Paystack - " + reference,
+                    reference
+                )));
+            } catch (DataIntegrityViolationException e) {
+                // Credited by /deposit/verify between our lookup and insert (uk_transactions_reference)
+                return alreadyProcessed(user, transactionService.findUserTransactionByReference(reference, user.getId())
+                        .orElseThrow(() -> e));
+            }
+            BigDecimal newBalance = walletService.getUserWalletByCurrency(user.getId(), CurrencyType.GHS)
+                    .map(WalletDto::getBalance)
+                    .orElse(depositAmount);
             
             System.out.println("Successfully processed deposit - User: " + user.getId() + 
                              ", Amount: " + depositAmount + 
@@ -202,6 +218,19 @@ public class WebhookController {
         }
     }
 
+    private ResponseEntity<?> alreadyProcessed(User user, Transaction transaction) {
+        System.out.println("Deposit already processed - Reference: " + transaction.getReference() +
+                         ", Transaction ID: " + transaction.getId());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Deposit already processed");
+        response.put("user_id", user.getId());
+        response.put("amount", transaction.getAmount());
+        response.put("transaction_id", transaction.getId());
+        return ResponseEntity.ok(response);
+    }
+
     private User findUserFromWebhook(String customerEmail, Map<String, Object> metadata) {
         try {
             // First try to find user by metadata user_id
@@ -0,0 +1,118 @@
+package com.swift.wallet.dto;
+
+import com.swift.wallet.enums.CurrencyType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkPayoutRequest {
+    private CurrencyType currency = CurrencyType.GHS;
+
+    private String description;
+
+    @NotEmpty(message = "At least one payout item is required")
+    @Valid
+    private List<Item> items = new ArrayList<>();
+
+    // Getters and Setters
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(CurrencyType currency) {
+        this.currency = currency;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    /**
+     * One recipient: either an existing Paystack recipient code, or bank/mobile money details
+     * to create one from.
+     */
+    public static class Item {
+        private String recipientCode;
+        private String accountNumber;
+        private String bankCode;
+        private String name;
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+        private BigDecimal amount;
+
+        private String reason;
+
+        public Item() {}
+
+        public Item(String recipientCode, BigDecimal amount, String reason) {
+            this.recipientCode = recipientCode;
+            this.amount = amount;
+            this.reason = reason;
+        }
+
+        public String getRecipientCode() {
+            return recipientCode;
+        }
+
+        public void setRecipientCode(String recipientCode) {
+            this.recipientCode = recipientCode;
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public void setAccountNumber(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        public String getBankCode() {
+            return bankCode;
+        }
+
+        public void setBankCode(String bankCode) {
+            this.bankCode = bankCode;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
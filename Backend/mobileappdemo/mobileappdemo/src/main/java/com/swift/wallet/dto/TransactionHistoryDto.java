@@ -1,14 +1,26 @@
 package com.swift.wallet.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.swift.wallet.enums.CurrencyType;
 import com.swift.wallet.enums.TransactionType;
 import com.swift.wallet.models.Transaction;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * One row of transaction history. Built from the handful of columns it needs (see the history
+ * queries in TransactionRepository); the display fields derived from them - formatted date and
+ * time, direction, sender/recipient - are only worked out when first read, i.e. when the row
+ * is serialized.
+ */
 public class TransactionHistoryDto {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private Long id;
+    private TransactionType type;
     private String transactionType;
     private String displayType; // "Sent", "Received", "Deposit", "Withdrawal"
     private BigDecimal amount;
@@ -17,45 +29,67 @@ public class TransactionHistoryDto {
     private String description;
     private String reference;
     private String status;
+    private LocalDateTime createdAt;
     private String formattedDate;
     private String formattedTime;
     private String recipientName;
     private String senderName;
+    private CurrencyType walletCurrency;
+    private Long walletId;
     private String walletName;
     private boolean isIncoming; // true if money came in, false if money went out
+    private boolean displayResolved;
+
+    public TransactionHistoryDto() {
+        this.displayResolved = true;
+    }
+
+    /**
+     * Used by the history queries' constructor expressions; argument order is part of them.
+     * A transaction is always in its wallet's currency, which names the wallet.
+     */
+    public TransactionHistoryDto(Long id, TransactionType type, BigDecimal amount, CurrencyType currency, String description,
+                                 String reference, String status, LocalDateTime createdAt) {
+        this.id = id;
+        this.type = type;
+        this.amount = amount;
+        this.currency = currency;
+        this.description = description;
+        this.reference = reference;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.walletCurrency = currency;
+    }
 
-    public TransactionHistoryDto() {}
+    /**
+     * Used by the export query, which also needs the wallet each row belongs to.
+     */
+    public TransactionHistoryDto(Long id, Long walletId, TransactionType type, BigDecimal amount, CurrencyType currency,
+                                 String description, String reference, String status, LocalDateTime createdAt) {
+        this(id, type, amount, currency, description, reference, status, createdAt);
+        this.walletId = walletId;
+    }
 
     public TransactionHistoryDto(Transaction transaction) {
-        this.id = transaction.getId();
-        this.transactionType = transaction.getType().name();
-        this.amount = transaction.getAmount();
-        this.currency = transaction.getCurrency();
-        this.description = transaction.getDescription();
-        this.reference = transaction.getReference();
-        this.status = transaction.getStatus();
-        
-        // Format date and time
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMM dd, yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        this.formattedDate = transaction.getCreatedAt().format(dateFormatter);
-        this.formattedTime = transaction.getCreatedAt().format(timeFormatter);
-        
-        // Set currency symbol
-        this.currencySymbol = getCurrencySymbol(transaction.getCurrency());
-        
-        // Determine display type and incoming/outgoing
-        setDisplayTypeAndDirection(transaction);
-        
-        // Set recipient/sender information based on transaction type
-        setRecipientSenderInfo(transaction);
-        
-        // Set wallet name
-        this.walletName = transaction.getWallet().getCurrency().name() + " Wallet";
+        this(transaction.getId(), transaction.getType(), transaction.getAmount(), transaction.getCurrency(),
+                transaction.getDescription(), transaction.getReference(), transaction.getStatus(),
+                transaction.getCreatedAt());
+        this.walletCurrency = transaction.getWallet().getCurrency();
+        this.walletId = transaction.getWallet().getId();
+    }
+
+    // Direction and counterparty, from the type and then the description
+    private void resolveDisplay() {
+        if (displayResolved) {
+            return;
+        }
+        displayResolved = true;
+        setDisplayTypeAndDirection();
+        setRecipientSenderInfo();
     }
 
-    private void setDisplayTypeAndDirection(Transaction transaction) {
-        switch (transaction.getType()) {
+    private void setDisplayTypeAndDirection() {
+        switch (type) {
             case DEPOSIT:
                 this.displayType = "Deposit";
                 this.isIncoming = true;
@@ -77,14 +111,12 @@ public class TransactionHistoryDto {
                 this.isIncoming = false;
                 break;
             default:
-                this.displayType = transaction.getType().getDisplayName();
+                this.displayType = type.getDisplayName();
                 this.isIncoming = false;
         }
     }
 
-    private void setRecipientSenderInfo(Transaction transaction) {
-        String description = transaction.getDescription();
-        
+    private void setRecipientSenderInfo() {
         if (description != null && !description.isEmpty()) {
             if (description.contains("to") || description.contains("sent to")) {
                 String[] parts = description.split("to");
@@ -132,11 +164,19 @@ public class TransactionHistoryDto {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
-    public String getTransactionType() { return transactionType; }
+    public String getTransactionType() {
+        if (transactionType == null && type != null) {
+            transactionType = type.name();
+        }
+        return transactionType;
+    }
     public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
 
-    public String getDisplayType() { return displayType; }
-    public void setDisplayType(String displayType) { this.displayType = displayType; }
+    public String getDisplayType() {
+        resolveDisplay();
+        return displayType;
+    }
+    public void setDisplayType(String displayType) { resolveDisplay(); this.displayType = displayType; }
 
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
@@ -144,7 +184,12 @@ public class TransactionHistoryDto {
     public CurrencyType getCurrency() { return currency; }
     public void setCurrency(CurrencyType currency) { this.currency = currency; }
 
-    public String getCurrencySymbol() { return currencySymbol; }
+    public String getCurrencySymbol() {
+        if (currencySymbol == null && currency != null) {
+            currencySymbol = getCurrencySymbol(currency);
+        }
+        return currencySymbol;
+    }
     public void setCurrencySymbol(String currencySymbol) { this.currencySymbol = currencySymbol; }
 
     public String getDescription() { return description; }
@@ -156,21 +201,56 @@ public class TransactionHistoryDto {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
-    public String getFormattedDate() { return formattedDate; }
+    // Position of the row in a cursor feed; clients get the formatted date and time instead
+    @JsonIgnore
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    // Set for exports only
+    @JsonIgnore
+    public Long getWalletId() { return walletId; }
+
+    public String getFormattedDate() {
+        if (formattedDate == null && createdAt != null) {
+            formattedDate = createdAt.format(DATE_FORMAT);
+        }
+        return formattedDate;
+    }
     public void setFormattedDate(String formattedDate) { this.formattedDate = formattedDate; }
 
-    public String getFormattedTime() { return formattedTime; }
+    public String getFormattedTime() {
+        if (formattedTime == null && createdAt != null) {
+            formattedTime = createdAt.format(TIME_FORMAT);
+        }
+        return formattedTime;
+    }
     public void setFormattedTime(String formattedTime) { this.formattedTime = formattedTime; }
 
-    public String getRecipientName() { return recipientName; }
-    public void setRecipientName(String recipientName) { this.recipientName = recipientName; }
+    public String getRecipientName() {
+        resolveDisplay();
+        return recipientName;
+    }
+    public void setRecipientName(String recipientName) { resolveDisplay(); this.recipientName = recipientName; }
 
-    public String getSenderName() { return senderName; }
-    public void setSenderName(String senderName) { this.senderName = senderName; }
+    public String getSenderName() {
+        resolveDisplay();
+        return senderName;
+    }
+    public void setSenderName(String senderName) { resolveDisplay(); this.senderName = senderName; }
 
-    public String getWalletName() { return walletName; }
+    public String getWalletName() {
+        if (walletName == null && walletCurrency != null) {
+            walletName = walletCurrency.name() + " Wallet";
+        }
+        return walletName;
+    }
     public void setWalletName(String walletName) { this.walletName = walletName; }
 
-    public boolean isIncoming() { return isIncoming; }
-    public void setIncoming(boolean incoming) { isIncoming = incoming; }
+    public boolean isIncoming() {
+        resolveDisplay();
+        return isIncoming;
+    }
+    public void setIncoming(boolean incoming) {
+        resolveDisplay();
+        isIncoming = incoming;
+    }
 } 
\ No newline at end of file
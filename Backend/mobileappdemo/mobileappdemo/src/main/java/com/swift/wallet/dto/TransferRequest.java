@@ -21,6 +21,9 @@ public class TransferRequest {
 
     private String description;
 
+    // From POST /api/wallets/quotes; required when the currencies differ
+    private String quoteId;
+
     // Constructors
     public TransferRequest() {}
 
@@ -70,4 +73,12 @@ public class TransferRequest {
     public void setDescription(String description) {
         this.description = description;
     }
-} 
\ No newline at end of file
+
+    public String getQuoteId() {
+        return quoteId;
+    }
+
+    public void setQuoteId(String quoteId) {
+        this.quoteId = quoteId;
+    }
+}
@@ -9,6 +9,8 @@ public class WalletDto {
     private Long userId;
     private CurrencyType currency;
     private BigDecimal balance;
+    private BigDecimal heldAmount = BigDecimal.ZERO;
+    private BigDecimal availableBalance;
     private boolean isPrimary;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -22,6 +24,7 @@ public class WalletDto {
         this.userId = userId;
         this.currency = currency;
         this.balance = balance;
+        this.availableBalance = balance;
         this.isPrimary = isPrimary;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
@@ -60,6 +63,23 @@ public class WalletDto {
         this.balance = balance;
     }
 
+    public BigDecimal getHeldAmount() {
+        return heldAmount;
+    }
+
+    public void setHeldAmount(BigDecimal heldAmount) {
+        this.heldAmount = heldAmount;
+    }
+
+    // Balance minus money held for in-flight sends and withdrawals
+    public BigDecimal getAvailableBalance() {
+        return availableBalance;
+    }
+
+    public void setAvailableBalance(BigDecimal availableBalance) {
+        this.availableBalance = availableBalance;
+    }
+
     public boolean isPrimary() {
         return isPrimary;
     }
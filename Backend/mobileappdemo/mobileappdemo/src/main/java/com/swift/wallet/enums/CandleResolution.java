@@ -0,0 +1,50 @@
+package com.swift.wallet.enums;
+
+import java.time.Duration;
+
+/**
+ * Bucket width of an exchange rate candle, and how many days of candles are kept in memory.
+ */
+public enum CandleResolution {
+    ONE_MINUTE("1m", Duration.ofMinutes(1), Duration.ofDays(2)),
+    ONE_HOUR("1h", Duration.ofHours(1), Duration.ofDays(90)),
+    ONE_DAY("1d", Duration.ofDays(1), Duration.ofDays(5 * 365));
+
+    private final String code;
+    private final long millis;
+    private final long retentionMillis;
+
+    CandleResolution(String code, Duration width, Duration retention) {
+        this.code = code;
+        this.millis = width.toMillis();
+        this.retentionMillis = retention.toMillis();
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    /**
+     * Start of the bucket containing {@code epochMillis}.
+     */
+    public long bucketStart(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, millis);
+    }
+
+    public static CandleResolution fromCode(String code) {
+        for (CandleResolution resolution : values()) {
+            if (resolution.code.equalsIgnoreCase(code)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resolution: " + code + " (use 1m, 1h or 1d)");
+    }
+}
@@ -0,0 +1,26 @@
+package com.swift.wallet.enums;
+
+/**
+ * File formats transaction history can be exported in: CSV for spreadsheets, NDJSON (one JSON
+ * object per line) for anything that reads it back in.
+ */
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
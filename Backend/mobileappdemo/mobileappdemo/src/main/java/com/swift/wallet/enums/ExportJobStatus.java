@@ -0,0 +1,12 @@
+package com.swift.wallet.enums;
+
+/**
+ * Lifecycle of a background transaction export. PENDING jobs are waiting for a worker thread;
+ * READY jobs have a spool file that can be downloaded until the job expires.
+ */
+public enum ExportJobStatus {
+    PENDING,
+    RUNNING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,12 @@
+package com.swift.wallet.enums;
+
+/**
+ * A hold is ACTIVE until it is captured (turned into a debit), released by the caller, or
+ * released by the reaper once it has expired.
+ */
+public enum HoldStatus {
+    ACTIVE,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
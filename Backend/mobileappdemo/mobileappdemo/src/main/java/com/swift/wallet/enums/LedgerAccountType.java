@@ -0,0 +1,24 @@
+package com.swift.wallet.enums;
+
+/**
+ * Kinds of ledger accounts a journal posting can hit. Only WALLET postings carry a wallet;
+ * the others are system-side counter accounts that keep every entry balanced.
+ */
+public enum LedgerAccountType {
+    WALLET("User Wallet"),
+    PAYMENT_PROVIDER("Payment Provider Settlement"),
+    FX_CLEARING("FX Clearing"),
+    FUNDING("Internal Funding"),
+    // Money reserved by a bulk payout that hasn't been paid out or refunded yet
+    PAYOUT_CLEARING("Payout Clearing");
+
+    private final String displayName;
+
+    LedgerAccountType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,16 @@
+package com.swift.wallet.enums;
+
+/**
+ * Lifecycle of one bulk payout item. PENDING items are waiting for a dispatcher thread;
+ * PROCESSING means the Paystack call has been claimed and may already have been made.
+ */
+public enum PayoutStatus {
+    PENDING,
+    PROCESSING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinal() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,10 @@
+package com.swift.wallet.enums;
+
+/**
+ * What a rate trigger does when it fires: ALERT only notifies the user, CONVERT also moves
+ * the trigger's amount from its fromCurrency wallet to its toCurrency wallet.
+ */
+public enum RateTriggerAction {
+    ALERT,
+    CONVERT
+}
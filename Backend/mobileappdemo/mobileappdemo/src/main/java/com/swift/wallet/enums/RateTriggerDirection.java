@@ -0,0 +1,10 @@
+package com.swift.wallet.enums;
+
+/**
+ * Which way the rate has to cross a trigger's threshold: ABOVE fires once the rate is at or
+ * above it, BELOW once it is at or below it.
+ */
+public enum RateTriggerDirection {
+    ABOVE,
+    BELOW
+}
@@ -0,0 +1,12 @@
+package com.swift.wallet.enums;
+
+/**
+ * A trigger is ACTIVE until it fires (FIRED), its conversion fails (FAILED), or the user
+ * cancels it (CANCELLED). Every trigger fires at most once.
+ */
+public enum RateTriggerStatus {
+    ACTIVE,
+    FIRED,
+    FAILED,
+    CANCELLED
+}
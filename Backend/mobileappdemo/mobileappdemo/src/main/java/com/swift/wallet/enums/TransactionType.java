@@ -5,7 +5,8 @@ public enum TransactionType {
     WITHDRAWAL("Withdrawal"),
     TRANSFER("Transfer"),
     CURRENCY_EXCHANGE("Currency Exchange"),
-    PAYMENT("Payment");
+    PAYMENT("Payment"),
+    PAYOUT("Payout");
 
     private final String displayName;
 
@@ -0,0 +1,12 @@
+package com.swift.wallet.enums;
+
+/**
+ * What Paystack says became of a transfer we sent with our own reference. NOT_FOUND means the
+ * request never reached Paystack, so sending it again with the same reference is safe.
+ */
+public enum TransferOutcome {
+    PAID,
+    FAILED,
+    PENDING,
+    NOT_FOUND
+}
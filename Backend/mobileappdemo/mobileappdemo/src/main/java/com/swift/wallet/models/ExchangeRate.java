@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "exchange_rates")
+@Table(name = "exchange_rates",
+       uniqueConstraints = @UniqueConstraint(name = "uk_exchange_rates_pair", columnNames = {"from_currency", "to_currency"}))
 public class ExchangeRate {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,8 +36,12 @@ public class ExchangeRate {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        expiresAt = LocalDateTime.now().plusMinutes(30); // Cache for 30 minutes
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (expiresAt == null) {
+            expiresAt = createdAt.plusMinutes(30); // Cache for 30 minutes
+        }
     }
 
     // Constructors
@@ -0,0 +1,139 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.ExportFormat;
+import com.swift.wallet.enums.ExportJobStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+
+/**
+ * A transaction history export run in the background and written, gzipped, to a spool file.
+ * While a job is live its dedup key holds the user and export parameters, so the same request
+ * made again gets this job instead of a new one. The key is cleared once the job fails or is
+ * no longer handed out.
+ */
+@Entity
+@Table(name = "export_jobs")
+public class ExportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "export_job_seq")
+    @SequenceGenerator(name = "export_job_seq", sequenceName = "export_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 10)
+    private ExportFormat format;
+
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+
+    @Column(name = "dedup_key", length = 120, unique = true)
+    private String dedupKey;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private ExportJobStatus status = ExportJobStatus.PENDING;
+
+    @Column(name = "row_count")
+    private Long rowCount;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "failure_reason", length = 255)
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public ExportJob() {}
+
+    public ExportJob(Long userId, ExportFormat format, LocalDateTime startDate, LocalDateTime endDate, String dedupKey) {
+        this.userId = userId;
+        this.format = format;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.dedupKey = dedupKey;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public String getDedupKey() {
+        return dedupKey;
+    }
+
+    public ExportJobStatus getStatus() {
+        return status;
+    }
+
+    public Long getRowCount() {
+        return rowCount;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
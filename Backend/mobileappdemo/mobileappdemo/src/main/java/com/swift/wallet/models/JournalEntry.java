@@ -0,0 +1,103 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.LedgerAccountType;
+import com.swift.wallet.enums.TransactionType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One immutable, balanced money movement. Entries are only ever inserted - corrections are
+ * made by posting a new entry, never by editing an old one.
+ */
+@Entity
+@Table(name = "journal_entries")
+public class JournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, updatable = false)
+    private TransactionType type;
+
+    @Column(nullable = false, length = 100, updatable = false)
+    private String reference;
+
+    @Column(length = 500, updatable = false)
+    private String description;
+
+    // Only set for currency exchanges
+    @Column(precision = 19, scale = 6, updatable = false)
+    private BigDecimal exchangeRate;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @OneToMany(mappedBy = "entry", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
+    @OrderBy("id")
+    private List<JournalPosting> postings = new ArrayList<>();
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public JournalEntry() {}
+
+    public JournalEntry(TransactionType type, String reference, String description) {
+        this.type = type;
+        this.reference = reference;
+        this.description = description;
+    }
+
+    /**
+     * Add a posting to this entry. Positive amounts increase the account's balance,
+     * negative amounts decrease it.
+     */
+    public JournalEntry addPosting(LedgerAccountType accountType, Wallet wallet, CurrencyType currency,
+                                   BigDecimal amount, String memo) {
+        postings.add(new JournalPosting(this, accountType, wallet, currency, amount, memo));
+        return this;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getExchangeRate() {
+        return exchangeRate;
+    }
+
+    public void setExchangeRate(BigDecimal exchangeRate) {
+        this.exchangeRate = exchangeRate;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<JournalPosting> getPostings() {
+        return postings;
+    }
+}
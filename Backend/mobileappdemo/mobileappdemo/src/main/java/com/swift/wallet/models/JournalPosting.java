@@ -0,0 +1,100 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.LedgerAccountType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A single debit or credit line of a {@link JournalEntry}. Signed from the account's point of
+ * view: a positive amount credits the account, a negative amount debits it.
+ */
+@Entity
+@Table(name = "journal_postings")
+public class JournalPosting {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "entry_id", nullable = false, updatable = false)
+    private JournalEntry entry;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "account_type", nullable = false, length = 30, updatable = false)
+    private LedgerAccountType accountType;
+
+    // Null for system accounts
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "wallet_id", updatable = false)
+    private Wallet wallet;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, updatable = false)
+    private CurrencyType currency;
+
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal amount;
+
+    @Column(length = 500, updatable = false)
+    private String memo;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public JournalPosting() {}
+
+    public JournalPosting(JournalEntry entry, LedgerAccountType accountType, Wallet wallet,
+                          CurrencyType currency, BigDecimal amount, String memo) {
+        this.entry = entry;
+        this.accountType = accountType;
+        this.wallet = wallet;
+        this.currency = currency;
+        this.amount = amount;
+        this.memo = memo;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public JournalEntry getEntry() {
+        return entry;
+    }
+
+    public LedgerAccountType getAccountType() {
+        return accountType;
+    }
+
+    public Wallet getWallet() {
+        return wallet;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getMemo() {
+        return memo;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
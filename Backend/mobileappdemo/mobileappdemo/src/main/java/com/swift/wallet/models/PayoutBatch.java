@@ -0,0 +1,110 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.CurrencyType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bulk payout request. The total is reserved from the wallet once, under the batch
+ * reference; each item is then paid out (or refunded) on its own.
+ */
+@Entity
+@Table(name = "payout_batches")
+public class PayoutBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payout_batch_seq")
+    @SequenceGenerator(name = "payout_batch_seq", sequenceName = "payout_batches_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false)
+    private CurrencyType currency;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    @Column(nullable = false, length = 100, unique = true)
+    private String reference;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @OneToMany(mappedBy = "batch", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
+    @OrderBy("id")
+    private List<PayoutItem> items = new ArrayList<>();
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public PayoutBatch() {}
+
+    public PayoutBatch(Long userId, CurrencyType currency, String reference, String description) {
+        this.userId = userId;
+        this.currency = currency;
+        this.reference = reference;
+        this.description = description;
+        this.totalAmount = BigDecimal.ZERO;
+    }
+
+    public void addItem(PayoutItem item) {
+        item.setBatch(this);
+        items.add(item);
+        totalAmount = totalAmount.add(item.getAmount());
+        itemCount = items.size();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<PayoutItem> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,156 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.PayoutStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One recipient of a bulk payout. Status only moves forward, through the conditional updates
+ * in PayoutItemRepository, so a sweep and a dispatcher thread can never both pay the same item.
+ */
+@Entity
+@Table(name = "payout_items")
+public class PayoutItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payout_item_seq")
+    @SequenceGenerator(name = "payout_item_seq", sequenceName = "payout_items_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id", nullable = false)
+    private PayoutBatch batch;
+
+    // Sent to Paystack as the transfer reference, so a retried call can't pay twice
+    @Column(nullable = false, length = 100, unique = true)
+    private String reference;
+
+    @Column(name = "recipient_code", length = 100)
+    private String recipientCode;
+
+    @Column(name = "account_number", length = 50)
+    private String accountNumber;
+
+    @Column(name = "bank_code", length = 50)
+    private String bankCode;
+
+    @Column(length = 255)
+    private String name;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 255)
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private PayoutStatus status = PayoutStatus.PENDING;
+
+    @Column(name = "transfer_code", length = 100)
+    private String transferCode;
+
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public PayoutItem() {}
+
+    public PayoutItem(String reference, BigDecimal amount, String reason) {
+        this.reference = reference;
+        this.amount = amount;
+        this.reason = reason;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public PayoutBatch getBatch() {
+        return batch;
+    }
+
+    void setBatch(PayoutBatch batch) {
+        this.batch = batch;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getRecipientCode() {
+        return recipientCode;
+    }
+
+    public void setRecipientCode(String recipientCode) {
+        this.recipientCode = recipientCode;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    public void setBankCode(String bankCode) {
+        this.bankCode = bankCode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public PayoutStatus getStatus() {
+        return status;
+    }
+
+    public String getTransferCode() {
+        return transferCode;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,144 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerAction;
+import com.swift.wallet.enums.RateTriggerDirection;
+import com.swift.wallet.enums.RateTriggerStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user's standing order on an exchange rate: once the fromCurrency to toCurrency rate crosses
+ * threshold in the given direction, notify them, and for CONVERT also move amount of
+ * fromCurrency into their toCurrency wallet. Fires at most once.
+ */
+@Entity
+@Table(name = "rate_triggers")
+public class RateTrigger {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rate_trigger_seq")
+    @SequenceGenerator(name = "rate_trigger_seq", sequenceName = "rate_triggers_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "from_currency", nullable = false)
+    private CurrencyType fromCurrency;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "to_currency", nullable = false)
+    private CurrencyType toCurrency;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 10)
+    private RateTriggerDirection direction;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal threshold;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 10)
+    private RateTriggerAction action;
+
+    // Only set for CONVERT, in fromCurrency
+    @Column(precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private RateTriggerStatus status = RateTriggerStatus.ACTIVE;
+
+    @Column(name = "fired_rate", precision = 19, scale = 6)
+    private BigDecimal firedRate;
+
+    @Column(name = "failure_reason", length = 255)
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "fired_at")
+    private LocalDateTime firedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public RateTrigger() {}
+
+    public RateTrigger(Long userId, CurrencyType fromCurrency, CurrencyType toCurrency, RateTriggerDirection direction,
+                       BigDecimal threshold, RateTriggerAction action, BigDecimal amount) {
+        this.userId = userId;
+        this.fromCurrency = fromCurrency;
+        this.toCurrency = toCurrency;
+        this.direction = direction;
+        this.threshold = threshold;
+        this.action = action;
+        this.amount = amount;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public CurrencyType getFromCurrency() {
+        return fromCurrency;
+    }
+
+    public CurrencyType getToCurrency() {
+        return toCurrency;
+    }
+
+    public RateTriggerDirection getDirection() {
+        return direction;
+    }
+
+    public BigDecimal getThreshold() {
+        return threshold;
+    }
+
+    public RateTriggerAction getAction() {
+        return action;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public RateTriggerStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getFiredRate() {
+        return firedRate;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getFiredAt() {
+        return firedAt;
+    }
+}
@@ -12,13 +12,20 @@ import java.time.LocalDateTime;
 @Table(name = "transactions")
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: ids are handed out from 50-wide blocks in memory, so inserts can be
+    // JDBC-batched (IDENTITY forces one round trip per insert to read the generated key)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "wallet_id", nullable = false)
     private Wallet wallet;
 
+    // Copy of the wallet's owner, so a user's history is one index range without a join
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
     @Enumerated(EnumType.STRING)
     @JdbcTypeCode(SqlTypes.VARCHAR)
     @Column(nullable = false)
@@ -32,7 +39,7 @@ public class Transaction {
     @Column(nullable = false)
     private CurrencyType currency;
 
-    @Column(precision = 19, scale = 2)
+    @Column(precision = 19, scale = 6)
     private BigDecimal exchangeRate;
 
     @Column(precision = 19, scale = 2)
@@ -45,12 +52,16 @@ public class Transaction {
     @Column(length = 500)
     private String description;
 
-    @Column(length = 100)
+    @Column(length = 100, unique = true)
     private String reference;
 
     @Column(length = 50)
     private String status = "PENDING";
 
+    // Journal posting this history row was projected from
+    @Column(name = "journal_posting_id", unique = true)
+    private Long journalPostingId;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -59,6 +70,9 @@ public class Transaction {
 
     @PrePersist
     protected void onCreate() {
+        if (userId == null && wallet != null) {
+            userId = wallet.getUser().getId();
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
@@ -93,6 +107,10 @@ public class Transaction {
         return wallet;
     }
 
+    public Long getUserId() {
+        return userId;
+    }
+
     public void setWallet(Wallet wallet) {
         this.wallet = wallet;
     }
@@ -169,6 +187,14 @@ public class Transaction {
         this.status = status;
     }
 
+    public Long getJournalPostingId() {
+        return journalPostingId;
+    }
+
+    public void setJournalPostingId(Long journalPostingId) {
+        this.journalPostingId = journalPostingId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,143 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.TransactionType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * How many of a user's transactions have one type, status and currency, and what their amounts
+ * add up to. Kept current in the same database transaction as every transaction insert and
+ * status change, so a user's summary is read from these rows alone.
+ */
+@Entity
+@Table(name = "transaction_rollups")
+@IdClass(TransactionRollup.Key.class)
+public class TransactionRollup {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
+    private TransactionType type;
+
+    @Id
+    @Column(length = 50)
+    private String status;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 10)
+    private CurrencyType currency;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(name = "amount_sum", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountSum = BigDecimal.ZERO;
+
+    // Constructors
+    public TransactionRollup() {}
+
+    public TransactionRollup(Key key, long txCount, BigDecimal amountSum) {
+        this.userId = key.userId;
+        this.type = key.type;
+        this.status = key.status;
+        this.currency = key.currency;
+        this.txCount = txCount;
+        this.amountSum = amountSum;
+    }
+
+    // Getters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public BigDecimal getAmountSum() {
+        return amountSum;
+    }
+
+    /**
+     * Primary key. Ordered the way rows are locked when a transaction's changes are written.
+     */
+    public static class Key implements Serializable, Comparable<Key> {
+        private static final Comparator<Key> ORDER = Comparator.comparing((Key k) -> k.userId)
+                .thenComparing(k -> k.type)
+                .thenComparing(k -> k.status)
+                .thenComparing(k -> k.currency);
+
+        private Long userId;
+        private TransactionType type;
+        private String status;
+        private CurrencyType currency;
+
+        public Key() {}
+
+        public Key(Long userId, TransactionType type, String status, CurrencyType currency) {
+            this.userId = userId;
+            this.type = type;
+            this.status = status != null ? status : "";
+            this.currency = currency;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public TransactionType getType() {
+            return type;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public CurrencyType getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && type == key.type
+                    && Objects.equals(status, key.status) && currency == key.currency;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, type, status, currency);
+        }
+    }
+}
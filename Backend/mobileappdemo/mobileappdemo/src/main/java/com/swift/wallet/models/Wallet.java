@@ -14,7 +14,8 @@ import java.util.List;
 @Table(name = "wallets")
 public class Wallet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_seq")
+    @SequenceGenerator(name = "wallet_seq", sequenceName = "wallets_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -26,19 +27,34 @@ public class Wallet {
     @Column(nullable = false)
     private CurrencyType currency;
 
+    // Running balance, only ever changed through the set-based debit/credit statements in
+    // WalletRepository, in the same transaction as the matching journal entry
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Sum of this wallet's ACTIVE holds, kept in step with wallet_holds by the same statements
+    // that place, capture and release them. Spendable balance is balance - heldAmount.
+    @Column(name = "held_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal heldAmount = BigDecimal.ZERO;
+
     @Column(nullable = false)
     private boolean isPrimary = false;
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Bumped by every balance update, so a stale entity can never overwrite a newer balance
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "wallet", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // No REFRESH: WalletService refreshes the wallet after every balance update, and cascading
+    // that would load the wallet's entire transaction history
+    @OneToMany(mappedBy = "wallet", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE, CascadeType.DETACH},
+               fetch = FetchType.LAZY)
     private List<Transaction> transactions = new ArrayList<>();
 
     @PrePersist
@@ -94,6 +110,14 @@ public class Wallet {
         this.balance = balance;
     }
 
+    public BigDecimal getHeldAmount() {
+        return heldAmount;
+    }
+
+    public BigDecimal getAvailableBalance() {
+        return balance.subtract(heldAmount);
+    }
+
     public boolean isPrimary() {
         return isPrimary;
     }
@@ -102,6 +126,10 @@ public class Wallet {
         isPrimary = primary;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,72 @@
+package com.swift.wallet.models;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Compacted wallet balance: the sum of every journal posting for the wallet up to and
+ * including lastPostingId. The live balance is this plus the postings after it.
+ */
+@Entity
+@Table(name = "wallet_balance_snapshots")
+public class WalletBalanceSnapshot {
+    @Id
+    @Column(name = "wallet_id")
+    private Long walletId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    @Column(name = "last_posting_id", nullable = false)
+    private Long lastPostingId = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Guards against two compactors folding the same tail twice
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public WalletBalanceSnapshot() {}
+
+    public WalletBalanceSnapshot(Long walletId) {
+        this.walletId = walletId;
+    }
+
+    // Getters and Setters
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public Long getLastPostingId() {
+        return lastPostingId;
+    }
+
+    public void setLastPostingId(Long lastPostingId) {
+        this.lastPostingId = lastPostingId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,130 @@
+package com.swift.wallet.models;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.HoldStatus;
+import com.swift.wallet.enums.TransactionType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Money set aside on a wallet while an external call (a Paystack transfer) is in flight.
+ * While ACTIVE its amount is counted in the wallet's heldAmount and can't be spent elsewhere.
+ * A hold with a reference is only released on expiry once Paystack says that transfer didn't pay.
+ */
+@Entity
+@Table(name = "wallet_holds")
+public class WalletHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_hold_seq")
+    @SequenceGenerator(name = "wallet_hold_seq", sequenceName = "wallet_holds_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false)
+    private CurrencyType currency;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 255)
+    private String reason;
+
+    // Sent to Paystack as the transfer reference, so an expired hold can be checked before release
+    @Column(length = 100, unique = true)
+    private String reference;
+
+    // What the capture records the payout as
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "transaction_type", length = 20)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private HoldStatus status = HoldStatus.ACTIVE;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public WalletHold() {}
+
+    public WalletHold(Long walletId, CurrencyType currency, BigDecimal amount, String reason, LocalDateTime expiresAt) {
+        this.walletId = walletId;
+        this.currency = currency;
+        this.amount = amount;
+        this.reason = reason;
+        this.expiresAt = expiresAt;
+    }
+
+    public WalletHold(Long walletId, CurrencyType currency, BigDecimal amount, String reason, LocalDateTime expiresAt,
+                      TransactionType transactionType, String reference) {
+        this(walletId, currency, amount, reason, expiresAt);
+        this.transactionType = transactionType;
+        this.reference = reference;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getResolvedAt() {
+        return resolvedAt;
+    }
+}
@@ -15,6 +15,8 @@ import java.util.Optional;
 public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
     
     Optional<ExchangeRate> findByFromCurrencyAndToCurrency(CurrencyType fromCurrency, CurrencyType toCurrency);
+
+    Optional<ExchangeRate> findTopByOrderByCreatedAtDesc();
     
     @Query("SELECT er FROM ExchangeRate er WHERE er.fromCurrency = :fromCurrency AND er.toCurrency = :toCurrency AND er.expiresAt > :now")
     Optional<ExchangeRate> findValidExchangeRate(@Param("fromCurrency") CurrencyType fromCurrency, 
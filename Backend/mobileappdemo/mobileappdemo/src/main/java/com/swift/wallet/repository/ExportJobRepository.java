@@ -0,0 +1,69 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.enums.ExportJobStatus;
+import com.swift.wallet.models.ExportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    Optional<ExportJob> findByDedupKey(String dedupKey);
+
+    Optional<ExportJob> findByIdAndUserId(Long id, Long userId);
+
+    long countByUserIdAndStatusIn(Long userId, Collection<ExportJobStatus> statuses);
+
+    // Jobs the dispatcher never got to (queue full, node restarted)
+    @Query("SELECT j.id FROM ExportJob j WHERE j.status = com.swift.wallet.enums.ExportJobStatus.PENDING " +
+           "AND j.createdAt < :before ORDER BY j.id")
+    List<Long> findPendingIdsCreatedBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Query("SELECT j.id FROM ExportJob j WHERE j.status = com.swift.wallet.enums.ExportJobStatus.RUNNING " +
+           "AND j.startedAt < :before")
+    List<Long> findRunningIdsStartedBefore(@Param("before") LocalDateTime before);
+
+    // READY jobs past their expiry and FAILED ones kept as long as a download would have been
+    @Query("SELECT j.id FROM ExportJob j WHERE (j.status = com.swift.wallet.enums.ExportJobStatus.READY AND j.expiresAt < :now) " +
+           "OR (j.status = com.swift.wallet.enums.ExportJobStatus.FAILED AND j.completedAt < :failedBefore)")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, @Param("failedBefore") LocalDateTime failedBefore);
+
+    /**
+     * Claim a PENDING job for a worker. Returns 0 if another worker got there first.
+     */
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.status = com.swift.wallet.enums.ExportJobStatus.RUNNING, j.startedAt = CURRENT_TIMESTAMP " +
+           "WHERE j.id = :id AND j.status = com.swift.wallet.enums.ExportJobStatus.PENDING")
+    int claim(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.status = com.swift.wallet.enums.ExportJobStatus.READY, j.rowCount = :rowCount, " +
+           "j.sizeBytes = :sizeBytes, j.completedAt = :completedAt, j.expiresAt = :expiresAt " +
+           "WHERE j.id = :id AND j.status = com.swift.wallet.enums.ExportJobStatus.RUNNING")
+    int markReady(@Param("id") Long id, @Param("rowCount") long rowCount, @Param("sizeBytes") long sizeBytes,
+                  @Param("completedAt") LocalDateTime completedAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.status = com.swift.wallet.enums.ExportJobStatus.FAILED, j.dedupKey = NULL, " +
+           "j.failureReason = :reason, j.completedAt = CURRENT_TIMESTAMP " +
+           "WHERE j.id = :id AND j.status IN (com.swift.wallet.enums.ExportJobStatus.PENDING, com.swift.wallet.enums.ExportJobStatus.RUNNING)")
+    int markFailed(@Param("id") Long id, @Param("reason") String reason);
+
+    /**
+     * Stop handing this job out to repeat requests. It stays downloadable by id until it expires.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.dedupKey = NULL WHERE j.id = :id")
+    int releaseDedupKey(@Param("id") Long id);
+}
@@ -0,0 +1,34 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Take over an incomplete claim whose holder hasn't finished within the lease. Returns 0 if
+     * it completed, was released or was taken over by someone else meanwhile.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.version = r.version + 1, r.claimedAt = :now " +
+           "WHERE r.id = :id AND r.version = :version AND r.statusCode IS NULL AND r.claimedAt < :staleBefore")
+    int takeOver(@Param("id") Long id, @Param("version") long version, @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
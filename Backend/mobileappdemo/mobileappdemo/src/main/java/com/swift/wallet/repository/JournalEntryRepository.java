@@ -0,0 +1,13 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.models.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    List<JournalEntry> findByReference(String reference);
+}
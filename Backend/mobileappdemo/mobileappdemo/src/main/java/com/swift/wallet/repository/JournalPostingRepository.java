@@ -0,0 +1,55 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.models.JournalPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JournalPostingRepository extends JpaRepository<JournalPosting, Long> {
+
+    List<JournalPosting> findByEntryIdOrderByIdAsc(Long entryId);
+
+    /**
+     * Live balance per wallet: compacted snapshot (if any) plus every posting after it.
+     * Returns [walletId, balance] rows.
+     */
+    @Query("SELECT w.id, COALESCE(s.balance, 0) + COALESCE((SELECT SUM(p.amount) FROM JournalPosting p " +
+           "WHERE p.wallet.id = w.id AND p.id > COALESCE(s.lastPostingId, 0)), 0) " +
+           "FROM Wallet w LEFT JOIN WalletBalanceSnapshot s ON s.walletId = w.id " +
+           "WHERE w.id IN :walletIds")
+    List<Object[]> findLiveBalances(@Param("walletIds") Collection<Long> walletIds);
+
+    /**
+     * Wallets whose running balance column disagrees with the journal (snapshot plus tail).
+     * Both are written in the same transaction, so any row returned here is a real defect.
+     * Returns [walletId, walletBalance, journalBalance] rows.
+     */
+    @Query("SELECT w.id, w.balance, COALESCE(s.balance, 0) + COALESCE((SELECT SUM(p.amount) FROM JournalPosting p " +
+           "WHERE p.wallet.id = w.id AND p.id > COALESCE(s.lastPostingId, 0)), 0) " +
+           "FROM Wallet w LEFT JOIN WalletBalanceSnapshot s ON s.walletId = w.id " +
+           "WHERE w.id IN :walletIds AND w.balance <> COALESCE(s.balance, 0) + COALESCE((SELECT SUM(p2.amount) " +
+           "FROM JournalPosting p2 WHERE p2.wallet.id = w.id AND p2.id > COALESCE(s.lastPostingId, 0)), 0)")
+    List<Object[]> findBalanceDrift(@Param("walletIds") Collection<Long> walletIds);
+
+    /**
+     * Highest posting id created before the cutoff - the compaction high-water mark.
+     */
+    @Query("SELECT MAX(p.id) FROM JournalPosting p WHERE p.createdAt < :cutoff")
+    Long findMaxIdCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Uncompacted wallet postings up to the given id, summed per wallet.
+     * Returns [walletId, sum, maxPostingId] rows.
+     */
+    @Query("SELECT p.wallet.id, SUM(p.amount), MAX(p.id) FROM JournalPosting p " +
+           "LEFT JOIN WalletBalanceSnapshot s ON s.walletId = p.wallet.id " +
+           "WHERE p.wallet IS NOT NULL AND p.id > COALESCE(s.lastPostingId, 0) AND p.id <= :upTo " +
+           "GROUP BY p.wallet.id")
+    List<Object[]> sumUncompactedTails(@Param("upTo") Long upTo);
+}
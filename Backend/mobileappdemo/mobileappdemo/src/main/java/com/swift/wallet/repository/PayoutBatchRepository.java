@@ -0,0 +1,13 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.models.PayoutBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PayoutBatchRepository extends JpaRepository<PayoutBatch, Long> {
+
+    Optional<PayoutBatch> findByIdAndUserId(Long id, Long userId);
+}
@@ -0,0 +1,45 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.enums.PayoutStatus;
+import com.swift.wallet.models.PayoutItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PayoutItemRepository extends JpaRepository<PayoutItem, Long> {
+
+    @Query("SELECT i FROM PayoutItem i JOIN FETCH i.batch WHERE i.id = :id")
+    Optional<PayoutItem> findWithBatchById(@Param("id") Long id);
+
+    List<PayoutItem> findByBatchIdOrderById(Long batchId);
+
+    List<PayoutItem> findByBatchIdAndStatusOrderById(Long batchId, PayoutStatus status);
+
+    @Query("SELECT i.status, COUNT(i) FROM PayoutItem i WHERE i.batch.id = :batchId GROUP BY i.status")
+    List<Object[]> countByStatus(@Param("batchId") Long batchId);
+
+    // Items the dispatcher never got to (queue full, node restarted)
+    @Query("SELECT i.id FROM PayoutItem i WHERE i.status = :status AND i.updatedAt < :before ORDER BY i.id")
+    List<Long> findIdsByStatusUpdatedBefore(@Param("status") PayoutStatus status, @Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * Move an item from one status to the next. Returns 0 if another thread got there first.
+     */
+    @Modifying
+    @Query("UPDATE PayoutItem i SET i.status = :to, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id AND i.status = :from")
+    int transition(@Param("id") Long id, @Param("from") PayoutStatus from, @Param("to") PayoutStatus to);
+
+    @Modifying
+    @Query("UPDATE PayoutItem i SET i.status = :to, i.transferCode = :transferCode, i.failureReason = :failureReason, " +
+           "i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id AND i.status = :from")
+    int complete(@Param("id") Long id, @Param("from") PayoutStatus from, @Param("to") PayoutStatus to,
+                 @Param("transferCode") String transferCode, @Param("failureReason") String failureReason);
+}
@@ -0,0 +1,63 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerDirection;
+import com.swift.wallet.enums.RateTriggerStatus;
+import com.swift.wallet.models.RateTrigger;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RateTriggerRepository extends JpaRepository<RateTrigger, Long> {
+
+    /**
+     * The columns the in-memory trigger index needs.
+     */
+    interface ArmedTrigger {
+        Long getId();
+        CurrencyType getFromCurrency();
+        CurrencyType getToCurrency();
+        RateTriggerDirection getDirection();
+        BigDecimal getThreshold();
+    }
+
+    @Query("SELECT t.id AS id, t.fromCurrency AS fromCurrency, t.toCurrency AS toCurrency, t.direction AS direction, " +
+           "t.threshold AS threshold FROM RateTrigger t WHERE t.status = :status AND t.id > :afterId ORDER BY t.id")
+    List<ArmedTrigger> findArmedAfter(@Param("status") RateTriggerStatus status, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT t.id AS id, t.fromCurrency AS fromCurrency, t.toCurrency AS toCurrency, t.direction AS direction, " +
+           "t.threshold AS threshold FROM RateTrigger t WHERE t.status = :status AND t.createdAt > :since")
+    List<ArmedTrigger> findArmedCreatedAfter(@Param("status") RateTriggerStatus status, @Param("since") LocalDateTime since);
+
+    List<RateTrigger> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+
+    long countByUserIdAndStatus(Long userId, RateTriggerStatus status);
+
+    /**
+     * Mark an ACTIVE trigger FIRED. Returns 0 if it already fired, failed or was cancelled,
+     * e.g. on another instance.
+     */
+    @Modifying
+    @Query("UPDATE RateTrigger t SET t.status = com.swift.wallet.enums.RateTriggerStatus.FIRED, t.firedRate = :rate, " +
+           "t.firedAt = CURRENT_TIMESTAMP WHERE t.id = :id AND t.status = com.swift.wallet.enums.RateTriggerStatus.ACTIVE")
+    int claim(@Param("id") Long id, @Param("rate") BigDecimal rate);
+
+    @Modifying
+    @Query("UPDATE RateTrigger t SET t.status = com.swift.wallet.enums.RateTriggerStatus.FAILED, t.firedRate = :rate, " +
+           "t.failureReason = :reason, t.firedAt = CURRENT_TIMESTAMP " +
+           "WHERE t.id = :id AND t.status = com.swift.wallet.enums.RateTriggerStatus.ACTIVE")
+    int markFailed(@Param("id") Long id, @Param("rate") BigDecimal rate, @Param("reason") String reason);
+
+    @Modifying
+    @Query("UPDATE RateTrigger t SET t.status = com.swift.wallet.enums.RateTriggerStatus.CANCELLED " +
+           "WHERE t.id = :id AND t.userId = :userId AND t.status = com.swift.wallet.enums.RateTriggerStatus.ACTIVE")
+    int cancel(@Param("id") Long id, @Param("userId") Long userId);
+}
@@ -1,18 +1,25 @@
 package com.swift.wallet.repository;
 
+import com.swift.wallet.dto.TransactionHistoryDto;
 import com.swift.wallet.enums.TransactionType;
 import com.swift.wallet.models.Transaction;
 import com.swift.wallet.models.Wallet;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -52,6 +59,10 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
                                            Pageable pageable);
     
     List<Transaction> findByReference(String reference);
+
+    // Seeks uk_transactions_reference and filters by owner in the same query
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.wallet w WHERE t.reference = :reference AND w.user.id = :userId")
+    List<Transaction> findByReferenceAndUserId(@Param("reference") String reference, @Param("userId") Long userId);
     
     List<Transaction> findByStatus(String status);
     
@@ -60,32 +71,174 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT t FROM Transaction t WHERE t.wallet.user.id = :userId ORDER BY t.createdAt DESC LIMIT :limit")
     List<Transaction> findRecentTransactionsByUserId(@Param("userId") Long userId, @Param("limit") int limit);
     
+    // History read model: only the columns TransactionHistoryDto needs, from transactions alone.
+    // User history reads idx_transactions_user_created, wallet history idx_transactions_wallet_created
+    // (InnoDB appends id to both, so they are ordered on the whole (created_at, id) cursor key).
+    // Ordering by the (constant) owner column first lets every database walk the index in order
+    // rather than sort the whole history; pages get that order from TransactionService
+    String HISTORY_ROW = "SELECT new com.swift.wallet.dto.TransactionHistoryDto(t.id, t.type, t.amount, t.currency, " +
+            "t.description, t.reference, t.status, t.createdAt) FROM Transaction t ";
+
+    @Query(value = HISTORY_ROW + "WHERE t.wallet.id = :walletId",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.wallet.id = :walletId")
+    Page<TransactionHistoryDto> findWalletHistory(@Param("walletId") Long walletId, Pageable pageable);
+
+    @Query(HISTORY_ROW + "WHERE t.wallet.id = :walletId ORDER BY t.wallet.id DESC, t.createdAt DESC")
+    List<TransactionHistoryDto> findWalletHistory(@Param("walletId") Long walletId);
+
+    @Query(value = HISTORY_ROW + "WHERE t.userId = :userId",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId")
+    Page<TransactionHistoryDto> findUserHistory(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId ORDER BY t.userId DESC, t.createdAt DESC")
+    List<TransactionHistoryDto> findUserHistory(@Param("userId") Long userId);
+
+    String HISTORY_FILTERS = "(:walletId IS NULL OR t.wallet.id = :walletId) AND " +
+            "(:type IS NULL OR t.type = :type) AND " +
+            "(:status IS NULL OR t.status = :status) AND " +
+            "(:startDate IS NULL OR t.createdAt >= :startDate) AND " +
+            "(:endDate IS NULL OR t.createdAt <= :endDate) ";
+
+    @Query(value = HISTORY_ROW + "WHERE t.userId = :userId AND " + HISTORY_FILTERS,
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND " + HISTORY_FILTERS)
+    Page<TransactionHistoryDto> findHistory(@Param("userId") Long userId,
+                                            @Param("walletId") Long walletId,
+                                            @Param("type") TransactionType type,
+                                            @Param("status") String status,
+                                            @Param("startDate") LocalDateTime startDate,
+                                            @Param("endDate") LocalDateTime endDate,
+                                            Pageable pageable);
+
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND " + HISTORY_FILTERS)
+    long countHistory(@Param("userId") Long userId,
+                      @Param("walletId") Long walletId,
+                      @Param("type") TransactionType type,
+                      @Param("status") String status,
+                      @Param("startDate") LocalDateTime startDate,
+                      @Param("endDate") LocalDateTime endDate);
+
+    // Keyset feeds, newest first on (created_at, id), off the same indexes. A page past a cursor
+    // bounds created_at as well as comparing the pair, so the index range starts at the cursor
+    // however deep it is. Pages going newer are read oldest first; CursorPage puts them back in order
+    String OLDER_THAN = "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) ";
+    String NEWER_THAN = "AND t.createdAt >= :createdAt AND (t.createdAt > :createdAt OR t.id > :id) ";
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId AND " + HISTORY_FILTERS +
+           "ORDER BY t.userId DESC, t.createdAt DESC, t.id DESC LIMIT :limit")
+    List<TransactionHistoryDto> findHistoryFeed(@Param("userId") Long userId,
+                                                @Param("walletId") Long walletId,
+                                                @Param("type") TransactionType type,
+                                                @Param("status") String status,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate,
+                                                @Param("limit") int limit);
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId AND " + HISTORY_FILTERS + OLDER_THAN +
+           "ORDER BY t.userId DESC, t.createdAt DESC, t.id DESC LIMIT :limit")
+    List<TransactionHistoryDto> findHistoryFeedOlder(@Param("userId") Long userId,
+                                                     @Param("walletId") Long walletId,
+                                                     @Param("type") TransactionType type,
+                                                     @Param("status") String status,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id,
+                                                     @Param("limit") int limit);
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId AND " + HISTORY_FILTERS + NEWER_THAN +
+           "ORDER BY t.userId ASC, t.createdAt ASC, t.id ASC LIMIT :limit")
+    List<TransactionHistoryDto> findHistoryFeedNewer(@Param("userId") Long userId,
+                                                     @Param("walletId") Long walletId,
+                                                     @Param("type") TransactionType type,
+                                                     @Param("status") String status,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id,
+                                                     @Param("limit") int limit);
+
+    @Query(HISTORY_ROW + "WHERE t.wallet.id = :walletId " +
+           "ORDER BY t.wallet.id DESC, t.createdAt DESC, t.id DESC LIMIT :limit")
+    List<TransactionHistoryDto> findWalletFeed(@Param("walletId") Long walletId, @Param("limit") int limit);
+
+    @Query(HISTORY_ROW + "WHERE t.wallet.id = :walletId " + OLDER_THAN +
+           "ORDER BY t.wallet.id DESC, t.createdAt DESC, t.id DESC LIMIT :limit")
+    List<TransactionHistoryDto> findWalletFeedOlder(@Param("walletId") Long walletId, @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(HISTORY_ROW + "WHERE t.wallet.id = :walletId " + NEWER_THAN +
+           "ORDER BY t.wallet.id ASC, t.createdAt ASC, t.id ASC LIMIT :limit")
+    List<TransactionHistoryDto> findWalletFeedNewer(@Param("walletId") Long walletId, @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id, @Param("limit") int limit);
+
+    long countByWalletId(Long walletId);
+
+    // Export: the history row plus its wallet, newest first off idx_transactions_user_created,
+    // read through a forward-only cursor 1000 rows at a time (MySQL needs useCursorFetch=true for
+    // that, see application.properties). The caller must be in a transaction and close the stream
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.swift.wallet.dto.TransactionHistoryDto(t.id, t.wallet.id, t.type, t.amount, t.currency, " +
+           "t.description, t.reference, t.status, t.createdAt) FROM Transaction t WHERE t.userId = :userId AND " +
+           "(:startDate IS NULL OR t.createdAt >= :startDate) AND (:endDate IS NULL OR t.createdAt <= :endDate) " +
+           "ORDER BY t.userId DESC, t.createdAt DESC, t.id DESC")
+    Stream<TransactionHistoryDto> streamExport(@Param("userId") Long userId,
+                                               @Param("startDate") LocalDateTime startDate,
+                                               @Param("endDate") LocalDateTime endDate);
+
+    @Query(HISTORY_ROW + "WHERE t.reference = :reference AND t.userId = :userId")
+    List<TransactionHistoryDto> findHistoryByReference(@Param("reference") String reference, @Param("userId") Long userId);
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId AND t.status = :status ORDER BY t.userId DESC, t.createdAt DESC")
+    List<TransactionHistoryDto> findHistoryByStatus(@Param("status") String status, @Param("userId") Long userId);
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId AND t.type = :type ORDER BY t.userId DESC, t.createdAt DESC")
+    List<TransactionHistoryDto> findHistoryByType(@Param("type") TransactionType type, @Param("userId") Long userId);
+
+    @Query(HISTORY_ROW + "WHERE t.userId = :userId ORDER BY t.userId DESC, t.createdAt DESC LIMIT :limit")
+    List<TransactionHistoryDto> findRecentHistory(@Param("userId") Long userId, @Param("limit") int limit);
+
     // Statistics queries
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.wallet.user.id = :userId")
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId")
     long countByUserId(@Param("userId") Long userId);
     
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.wallet.user.id = :userId AND t.status = :status")
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = :status")
     long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") String status);
     
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.wallet.user.id = :userId AND t.createdAt >= :startDate")
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.createdAt >= :startDate")
     long countByUserIdAndCreatedAtAfter(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate);
     
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.wallet.user.id = :userId AND t.type = :type")
+    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.userId = :userId AND t.type = :type")
     BigDecimal sumAmountByUserIdAndType(@Param("userId") Long userId, @Param("type") TransactionType type);
     
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.wallet.user.id = :userId AND t.type = :type")
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.type = :type")
     long countByUserIdAndType(@Param("userId") Long userId, @Param("type") TransactionType type);
+
+    // Counts and sums per (type, status, currency), for rebuilding a user's rollups
+    @Query("SELECT t.type, t.status, t.currency, COUNT(t), SUM(t.amount) FROM Transaction t WHERE t.userId = :userId " +
+           "GROUP BY t.type, t.status, t.currency")
+    List<Object[]> aggregateByUserId(@Param("userId") Long userId);
+
+    /**
+     * The transaction, locked for the rest of the database transaction so two status changes
+     * can't both move it out of the same status.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
     
     // Currency-specific statistics
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.wallet.user.id = :userId AND t.currency = :currency")
+    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.userId = :userId AND t.currency = :currency")
     BigDecimal sumAmountByUserIdAndCurrency(@Param("userId") Long userId, @Param("currency") String currency);
     
-    @Query("SELECT t.currency, SUM(t.amount) FROM Transaction t WHERE t.wallet.user.id = :userId GROUP BY t.currency")
+    @Query("SELECT t.currency, SUM(t.amount) FROM Transaction t WHERE t.userId = :userId GROUP BY t.currency")
     List<Object[]> sumAmountByCurrencyForUser(@Param("userId") Long userId);
     
     // Monthly statistics
     @Query("SELECT YEAR(t.createdAt) as year, MONTH(t.createdAt) as month, COUNT(t) as count, SUM(t.amount) as total " +
-           "FROM Transaction t WHERE t.wallet.user.id = :userId " +
+           "FROM Transaction t WHERE t.userId = :userId " +
            "GROUP BY YEAR(t.createdAt), MONTH(t.createdAt) " +
            "ORDER BY year DESC, month DESC")
     List<Object[]> getMonthlyStatistics(@Param("userId") Long userId);
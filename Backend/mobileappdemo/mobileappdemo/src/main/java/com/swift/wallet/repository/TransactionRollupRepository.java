@@ -0,0 +1,32 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.models.TransactionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, TransactionRollup.Key> {
+
+    List<TransactionRollup> findByUserId(Long userId);
+
+    /**
+     * Add to one rollup row, creating it if it doesn't exist yet, in a single statement.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transaction_rollups (user_id, type, status, currency, tx_count, amount_sum) " +
+                   "VALUES (:userId, :type, :status, :currency, :count, :amount) " +
+                   "ON DUPLICATE KEY UPDATE tx_count = tx_count + VALUES(tx_count), amount_sum = amount_sum + VALUES(amount_sum)",
+           nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("type") String type, @Param("status") String status,
+            @Param("currency") String currency, @Param("count") long count, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.userId = :userId")
+    int deleteAllOfUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,36 @@
+package com.swift.wallet.repository;
+
+import com.swift.wallet.enums.HoldStatus;
+import com.swift.wallet.models.WalletHold;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WalletHoldRepository extends JpaRepository<WalletHold, Long> {
+
+    /**
+     * Resolve an ACTIVE hold. Returns 0 if it was already captured, released or expired.
+     */
+    @Modifying
+    @Query("UPDATE WalletHold h SET h.status = :to, h.resolvedAt = CURRENT_TIMESTAMP WHERE h.id = :id AND h.status = :from")
+    int transition(@Param("id") Long id, @Param("from") HoldStatus from, @Param("to") HoldStatus to);
+
+    // Holds no Paystack call was ever made for; safe to release once expired
+    @Query("SELECT h FROM WalletHold h WHERE h.status = :status AND h.expiresAt < :now AND h.reference IS NULL ORDER BY h.expiresAt")
+    List<WalletHold> findByStatusExpiredBefore(@Param("status") HoldStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Holds whose Paystack transfer has to be verified before they are captured or released
+    @Query("SELECT h FROM WalletHold h WHERE h.status = :status AND h.expiresAt < :now AND h.reference IS NOT NULL ORDER BY h.expiresAt")
+    List<WalletHold> findReferencedByStatusExpiredBefore(@Param("status") HoldStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE WalletHold h SET h.expiresAt = :expiresAt WHERE h.id = :id AND h.status = :status")
+    int extend(@Param("id") Long id, @Param("status") HoldStatus status, @Param("expiresAt") LocalDateTime expiresAt);
+}
@@ -4,10 +4,12 @@ import com.swift.auth.models.User;
 import com.swift.wallet.enums.CurrencyType;
 import com.swift.wallet.models.Wallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +34,50 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
     @Query("SELECT w FROM Wallet w WHERE w.user.id = :userId ORDER BY w.isPrimary DESC, w.currency")
     List<Wallet> findUserWalletsOrdered(@Param("userId") Long userId);
     
+    /**
+     * Debit the wallet only if its available (unheld) balance covers the amount, in a single
+     * statement. Returns the number of rows updated - 0 means insufficient funds or no such wallet.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance - :amount, w.version = w.version + 1, w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.id = :walletId AND w.balance - w.heldAmount >= :amount")
+    int debitIfSufficient(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Credit the wallet unconditionally. Returns the number of rows updated.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :amount, w.version = w.version + 1, w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.id = :walletId")
+    int credit(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Set the amount aside if the available balance covers it. Returns 0 if it doesn't.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Wallet w SET w.heldAmount = w.heldAmount + :amount, w.version = w.version + 1, w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.id = :walletId AND w.balance - w.heldAmount >= :amount")
+    int holdIfAvailable(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Turn held money into a debit: both balance and heldAmount go down by the amount.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance - :amount, w.heldAmount = w.heldAmount - :amount, " +
+           "w.version = w.version + 1, w.updatedAt = CURRENT_TIMESTAMP WHERE w.id = :walletId AND w.heldAmount >= :amount")
+    int captureHeld(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Wallet w SET w.heldAmount = w.heldAmount - :amount, w.version = w.version + 1, w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.id = :walletId AND w.heldAmount >= :amount")
+    int releaseHeld(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT w.balance FROM Wallet w WHERE w.id = :walletId")
+    Optional<BigDecimal> findBalanceById(@Param("walletId") Long walletId);
+
+    @Query("SELECT w.balance - w.heldAmount FROM Wallet w WHERE w.id = :walletId")
+    Optional<BigDecimal> findAvailableBalanceById(@Param("walletId") Long walletId);
+
     boolean existsByUserAndCurrency(User user, CurrencyType currency);
     
     boolean existsByUserIdAndCurrency(Long userId, CurrencyType currency);
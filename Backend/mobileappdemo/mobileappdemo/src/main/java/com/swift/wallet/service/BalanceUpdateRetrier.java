@@ -0,0 +1,58 @@
+package com.swift.wallet.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a whole wallet transaction when it loses a concurrency race - a stale wallet version
+ * (optimistic lock), a deadlock or a lock wait timeout. Must wrap the call into WalletService
+ * from outside, so every attempt gets a fresh transaction.
+ */
+@Component
+public class BalanceUpdateRetrier {
+    private static final Logger logger = LoggerFactory.getLogger(BalanceUpdateRetrier.class);
+
+    @Value("${wallet.balance-update.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${wallet.balance-update.backoff-ms:20}")
+    private long backoffMs;
+
+    public <T> T run(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.warn("Wallet update lost a concurrency race (attempt {}/{}): {}", attempt, maxAttempts, e.getMessage());
+                sleep(attempt);
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        run(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void sleep(int attempt) {
+        // Jittered linear backoff so retrying writers don't collide again in lockstep
+        long delay = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying wallet update", e);
+        }
+    }
+}
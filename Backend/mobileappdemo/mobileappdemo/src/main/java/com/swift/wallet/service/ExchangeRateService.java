@@ -1,92 +1,241 @@
 package com.swift.wallet.service;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.swift.mobileappdemo.cache.SingleFlightCache;
+import com.swift.mobileappdemo.cache.SingleFlightCaches;
 import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.models.ExchangeRate;
+import com.swift.wallet.repository.ExchangeRateRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Exchange rates for every pair of supported currencies. A scheduled refresh fetches one rate
+ * table for the base currency through {@link RateAggregator} and derives all pairs from it,
+ * then stores them in exchange_rates so other instances, and this one after a restart, can
+ * serve them without calling the API.
+ */
 @Service
 public class ExchangeRateService {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
+
+    // Scale of exchange_rates.rate
+    private static final int RATE_SCALE = 6;
+
+    private static final int PAIRS = CurrencyType.values().length * (CurrencyType.values().length - 1);
+
+    /**
+     * Raised after each successful refresh, once the new rates are being served.
+     */
+    public record RatesRefreshed(Instant refreshedAt) {}
+
+    @Autowired
+    private RateAggregator rateAggregator;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Value("${exchange.rate.base:USD}")
+    private CurrencyType baseCurrency;
+
+    @Value("${exchange.rate.refresh-interval-ms:600000}")
+    private long refreshIntervalMs;
+
+    @Value("${exchange.rate.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${exchange.rate.failure-ttl-seconds:30}")
+    private long failureTtlSeconds;
+
+    @Autowired
+    private SingleFlightCaches singleFlightCaches;
+
+    @Autowired
+    private RateHistory rateHistory;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private ApplicationEventPublisher applicationEventPublisher;
 
-    @Value("${exchange.rate.api.key}")
-    private String apiKey;
+    // Current rates; replaced as a whole, never modified, so reads need no locking
+    private final AtomicReference<RateMatrix> rates = new AtomicReference<>(RateMatrix.EMPTY);
 
-    @Value("${exchange.rate.api.url:https://v6.exchangerate-api.com/v6/}")
-    private String apiUrl;
+    // Loads of the base currency's full rate set; concurrent misses share one load
+    private SingleFlightCache<CurrencyType, RateMatrix> snapshots;
 
-    // Caffeine cache for exchange rates
-    private final Cache<String, BigDecimal> exchangeRateCache = Caffeine.newBuilder()
-            .expireAfterWrite(30, TimeUnit.MINUTES) // Cache for 30 minutes
-            .maximumSize(100) // Maximum 100 entries
-            .build();
+    @PostConstruct
+    void init() {
+        // A snapshot is at most one refresh interval old when loaded, so it stays valid this long
+        Duration ttl = Duration.ofMinutes(ttlMinutes).minusMillis(refreshIntervalMs);
+        snapshots = singleFlightCaches.create("exchange.rates", Duration.ofMillis(refreshIntervalMs), ttl,
+                Duration.ofSeconds(failureTtlSeconds), 10, base -> loadLatest());
+    }
 
     /**
      * Get exchange rate between two currencies
      */
     public BigDecimal getExchangeRate(CurrencyType fromCurrency, CurrencyType toCurrency) {
-        // Check cache first
-        String cacheKey = fromCurrency.name() + "_TO_" + toCurrency.name();
-        BigDecimal cachedRate = exchangeRateCache.getIfPresent(cacheKey);
+        if (fromCurrency == toCurrency) {
+            return BigDecimal.ONE;
+        }
 
+        // Check the in-memory rates first
+        BigDecimal cachedRate = rates.get().rate(fromCurrency, toCurrency, System.currentTimeMillis());
         if (cachedRate != null) {
             return cachedRate;
         }
 
-        // Fetch from API
-        BigDecimal rate = fetchExchangeRateFromAPI(fromCurrency, toCurrency);
+        // Then a full set, from the database or the API; concurrent misses wait on the same load
+        try {
+            cachedRate = snapshots.get(baseCurrency).rate(fromCurrency, toCurrency, System.currentTimeMillis());
+            if (cachedRate != null) {
+                return cachedRate;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Exchange rates unavailable: {}", e.getMessage());
+        }
 
-        // Save to cache
-        exchangeRateCache.put(cacheKey, rate);
+        // Every source is down: the last rate recorded beats the built-in table
+        Optional<RateHistory.RatePoint> lastKnown = rateHistory.rateAt(fromCurrency, toCurrency, Instant.now());
+        if (lastKnown.isPresent()) {
+            logger.warn("Using last recorded rate from {}: {} to {} = {}", lastKnown.get().observedAt(),
+                    fromCurrency, toCurrency, lastKnown.get().rate());
+            return lastKnown.get().rate();
+        }
+        BigDecimal fallbackRate = getFallbackRate(fromCurrency, toCurrency);
+        logger.warn("Using fallback rate: {} to {} = {}", fromCurrency, toCurrency, fallbackRate);
+        return fallbackRate;
+    }
 
-        return rate;
+    /**
+     * Serve the stored snapshot as soon as the application is up, before the first refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        int loaded = loadSnapshot();
+        logger.info("Loaded {} exchange rates from the database", loaded);
     }
 
     /**
-     * Fetch exchange rate from external API
+     * Refresh ahead of expiry, also when no requests are coming in. Lookups keep being served
+     * from the current rates meanwhile.
      */
-    private BigDecimal fetchExchangeRateFromAPI(CurrencyType fromCurrency, CurrencyType toCurrency) {
-        try {
-            // Construct proper API URL with key
-            String url = apiUrl + apiKey + "/latest/" + fromCurrency.name();
-            System.out.println("Fetching exchange rate from: " + url);
-            
-            ExchangeRateResponse response = restTemplate.getForObject(url, ExchangeRateResponse.class);
-
-            if (response != null && response.getRates() != null) {
-                BigDecimal rate = response.getRates().get(toCurrency.name());
-                if (rate != null) {
-                    System.out.println("Exchange rate found: " + fromCurrency + " to " + toCurrency + " = " + rate);
-                    return rate;
-                }
-            }
+    @Scheduled(fixedDelayString = "${exchange.rate.refresh-interval-ms:600000}",
+               initialDelayString = "${exchange.rate.refresh-initial-delay-ms:0}")
+    public void scheduledRefresh() {
+        snapshots.refreshNow(baseCurrency);
+    }
 
-            // Fallback: return 1.0 for same currency
-            if (fromCurrency == toCurrency) {
-                return BigDecimal.ONE;
-            }
+    /**
+     * The full rate set: the stored snapshot if another instance wrote it within the last
+     * interval, otherwise a fresh one from the API.
+     */
+    private RateMatrix loadLatest() {
+        Optional<ExchangeRate> latest = exchangeRateRepository.findTopByOrderByCreatedAtDesc();
+        if (latest.isPresent() && latest.get().getCreatedAt().isAfter(LocalDateTime.now().minus(Duration.ofMillis(refreshIntervalMs)))
+                && loadSnapshot() == PAIRS) {
+            return rates.get();
+        }
+        if (!refreshRates()) {
+            throw new RuntimeException("Could not fetch exchange rates for " + baseCurrency);
+        }
+        return rates.get();
+    }
 
-            // Fallback: use realistic default rates based on currency pairs
-            BigDecimal fallbackRate = getFallbackRate(fromCurrency, toCurrency);
-            System.out.println("Using fallback rate: " + fromCurrency + " to " + toCurrency + " = " + fallbackRate);
-            return fallbackRate;
+    /**
+     * Fetch the base currency's rate table and store every pair derived from it.
+     * Returns false, changing nothing, if the table couldn't be fetched.
+     */
+    public synchronized boolean refreshRates() {
+        Map<CurrencyType, BigDecimal> table = fetchBaseTable();
+        if (table == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ExchangeRate> rows = new ArrayList<>();
+        for (CurrencyType from : CurrencyType.values()) {
+            for (CurrencyType to : CurrencyType.values()) {
+                if (from == to) {
+                    continue;
+                }
+                // 1 base = table[from] from = table[to] to, so 1 from = table[to] / table[from] to
+                BigDecimal rate = table.get(to).divide(table.get(from), RATE_SCALE, RoundingMode.HALF_EVEN);
+                ExchangeRate row = exchangeRateRepository.findByFromCurrencyAndToCurrency(from, to)
+                        .orElseGet(() -> new ExchangeRate(from, to, rate));
+                row.setRate(rate);
+                row.setCreatedAt(now);
+                row.setExpiresAt(now.plusMinutes(ttlMinutes));
+                rows.add(row);
+            }
+        }
+        exchangeRateRepository.saveAll(rows);
+        RateMatrix.Builder matrix = RateMatrix.builder();
+        rows.forEach(row -> matrix.put(row.getFromCurrency(), row.getToCurrency(), row.getRate(), toMillis(row.getExpiresAt())));
+        RateMatrix refreshed = matrix.build();
+        rates.set(refreshed);
+        try {
+            rateHistory.append(toMillis(now), refreshed);
+        } catch (RuntimeException e) {
+            logger.error("Could not record exchange rate history: {}", e.getMessage());
+        }
+        logger.info("Refreshed {} exchange rates from the {} table", rows.size(), baseCurrency);
+        applicationEventPublisher.publishEvent(new RatesRefreshed(Instant.ofEpochMilli(toMillis(now))));
+        return true;
+    }
 
+    // Rates of every supported currency against the base from the configured sources, or null if none answered
+    private Map<CurrencyType, BigDecimal> fetchBaseTable() {
+        try {
+            return rateAggregator.fetchTable(baseCurrency);
         } catch (Exception e) {
-            // Log the error and return a fallback rate
-            System.err.println("Error fetching exchange rate: " + e.getMessage());
-            BigDecimal fallbackRate = getFallbackRate(fromCurrency, toCurrency);
-            System.out.println("Using fallback rate due to error: " + fromCurrency + " to " + toCurrency + " = " + fallbackRate);
-            return fallbackRate;
+            logger.error("Error fetching exchange rates: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int loadSnapshot() {
+        LocalDateTime now = LocalDateTime.now();
+        RateMatrix.Builder matrix = RateMatrix.builder();
+        int loaded = 0;
+        for (CurrencyType from : CurrencyType.values()) {
+            for (CurrencyType to : CurrencyType.values()) {
+                if (from == to) {
+                    continue;
+                }
+                Optional<ExchangeRate> stored = exchangeRateRepository.findValidExchangeRate(from, to, now);
+                if (stored.isPresent()) {
+                    matrix.put(from, to, stored.get().getRate(), toMillis(stored.get().getExpiresAt()));
+                    loaded++;
+                }
+            }
+        }
+        if (loaded > 0) {
+            rates.set(matrix.build());
         }
+        return loaded;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     /**
@@ -149,18 +298,40 @@ public class ExchangeRateService {
         return amount.multiply(rate);
     }
 
+    /**
+     * The /api/wallets/rates response body for every pair. Served as stored while all rates
+     * are current; otherwise the missing ones are looked up first.
+     */
+    public byte[] getRatesJson() {
+        byte[] json = rates.get().ratesJson(System.currentTimeMillis());
+        if (json != null) {
+            return json;
+        }
+        RateMatrix.Builder matrix = RateMatrix.builder();
+        long validUntil = System.currentTimeMillis() + Duration.ofMinutes(ttlMinutes).toMillis();
+        for (CurrencyType from : CurrencyType.values()) {
+            for (CurrencyType to : CurrencyType.values()) {
+                if (from != to) {
+                    matrix.put(from, to, getExchangeRate(from, to), validUntil);
+                }
+            }
+        }
+        return matrix.build().ratesJson(0);
+    }
+
     /**
      * Clear all cached exchange rates
      */
     public void clearCache() {
-        exchangeRateCache.invalidateAll();
+        rates.set(RateMatrix.EMPTY);
+        snapshots.invalidateAll();
     }
 
     /**
      * Get cache statistics (for monitoring)
      */
     public String getCacheStats() {
-        return exchangeRateCache.stats().toString();
+        return "rates=" + rates.get().size() + " " + snapshots.stats() + " sources=" + rateAggregator.scoreboard();
     }
 
     // Inner class for API response
@@ -174,6 +345,8 @@ public class ExchangeRateService {
         public String getDate() { return date; }
         public void setDate(String date) { this.date = date; }
         public java.util.Map<String, BigDecimal> getRates() { return rates; }
+        // The v6 API calls the table conversion_rates
+        @JsonAlias("conversion_rates")
         public void setRates(java.util.Map<String, BigDecimal> rates) { this.rates = rates; }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.models.ExportJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs export jobs on a small pool, each streaming the user's history through
+ * {@link TransactionService#exportTransactionHistory} into a gzipped spool file. The pool size
+ * caps how many long export queries run at once. Jobs the pool can't take right away stay
+ * PENDING for the sweep, which also gives up on jobs that ran too long and removes expired files.
+ */
+@Component
+public class ExportJobDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobDispatcher.class);
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ExportSpool exportSpool;
+
+    @Value("${export.jobs.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    @Value("${export.jobs.max-run-minutes:60}")
+    private long maxRunMinutes;
+
+    @Value("${export.jobs.ttl-hours:24}")
+    private long ttlHours;
+
+    private final ThreadPoolExecutor executor;
+
+    public ExportJobDispatcher(@Value("${export.jobs.threads:2}") int threads,
+                               @Value("${export.jobs.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "export-job-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue jobs to run. Must be called after they have committed.
+     */
+    public void dispatch(List<Long> jobIds) {
+        int deferred = 0;
+        for (Long jobId : jobIds) {
+            try {
+                executor.execute(() -> run(jobId));
+            } catch (RejectedExecutionException e) {
+                deferred++;
+            }
+        }
+        if (deferred > 0) {
+            logger.warn("Export queue full, {} jobs left for the sweep", deferred);
+        }
+    }
+
+    void run(Long jobId) {
+        Optional<ExportJob> claimed = exportJobService.claim(jobId);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        ExportJob job = claimed.get();
+
+        ExportSpool.Spooled spooled;
+        try {
+            spooled = exportSpool.write(jobId, out -> transactionService.exportTransactionHistory(
+                    job.getUserId(), job.getStartDate(), job.getEndDate(), job.getFormat(), true, out));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Export job {} failed: {}", jobId, e.getMessage());
+            exportJobService.markFailed(jobId, "Export failed: " + e.getMessage());
+            return;
+        }
+        if (!exportJobService.markReady(jobId, spooled.rows(), spooled.bytes())) {
+            exportSpool.delete(jobId);
+            return;
+        }
+        logger.info("Export job {} ready: {} rows, {} bytes", jobId, spooled.rows(), spooled.bytes());
+    }
+
+    /**
+     * Re-queue jobs that have sat PENDING for a full sweep interval, fail jobs that have been
+     * RUNNING longer than max-run-minutes (their worker died or hung), and delete expired jobs
+     * along with their files. Files on this instance whose job another instance swept are
+     * removed once they are older than the TTL plus a sweep interval.
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.sweep-interval-ms:60000}",
+               initialDelayString = "${export.jobs.sweep-interval-ms:60000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long jobId : exportJobService.findOverrunIds(now.minusMinutes(maxRunMinutes))) {
+            logger.warn("Export job {} ran for over {} minutes, giving up on it", jobId, maxRunMinutes);
+            exportJobService.markFailed(jobId, "Export did not finish in time");
+        }
+        exportSpool.deleteStalePartials(Instant.now().minus(maxRunMinutes, ChronoUnit.MINUTES));
+        // A file is written just before its job is marked READY and its expiry set from then
+        exportSpool.deleteExpiredFiles(Instant.now().minus(ttlHours, ChronoUnit.HOURS).minusMillis(sweepIntervalMs));
+
+        List<Long> expired = exportJobService.findExpiredIds();
+        for (Long jobId : expired) {
+            exportJobService.delete(jobId);
+            exportSpool.delete(jobId);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Removed {} expired export jobs", expired.size());
+        }
+
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Long> stalled = exportJobService.findStalledIds(now.minus(sweepIntervalMs, ChronoUnit.MILLIS), capacity);
+        if (!stalled.isEmpty()) {
+            logger.info("Re-dispatching {} stalled export jobs", stalled.size());
+            dispatch(stalled);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,169 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.ExportFormat;
+import com.swift.wallet.enums.ExportJobStatus;
+import com.swift.wallet.models.ExportJob;
+import com.swift.wallet.repository.ExportJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Background transaction exports. A request for the same export as a live job gets that job
+ * back rather than a new one; new jobs are run by {@link ExportJobDispatcher}, which writes
+ * them to the {@link ExportSpool} for download.
+ */
+@Service
+public class ExportJobService {
+
+    private static final List<ExportJobStatus> ACTIVE = List.of(ExportJobStatus.PENDING, ExportJobStatus.RUNNING);
+
+    /**
+     * The job a request was given, and whether it was just created (and so needs dispatching).
+     */
+    public record Requested(ExportJob job, boolean created) {}
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Value("${export.jobs.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${export.jobs.open-ended-reuse-seconds:300}")
+    private long openEndedReuseSeconds;
+
+    @Value("${export.jobs.max-active-per-user:3}")
+    private int maxActivePerUser;
+
+    /**
+     * The live job for this user and these parameters, or a new PENDING one. An export without
+     * an end date runs up to when it is generated, so a finished one is only handed out again
+     * for a short while.
+     */
+    public Requested request(Long userId, ExportFormat format, LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        String dedupKey = userId + ":" + format + ":" + startDate + ":" + (endDate != null ? endDate : "open");
+
+        Optional<ExportJob> existing = exportJobRepository.findByDedupKey(dedupKey);
+        if (existing.isPresent()) {
+            if (isReusable(existing.get())) {
+                return new Requested(existing.get(), false);
+            }
+            exportJobRepository.releaseDedupKey(existing.get().getId());
+        }
+
+        if (exportJobRepository.countByUserIdAndStatusIn(userId, ACTIVE) >= maxActivePerUser) {
+            throw new RuntimeException("At most " + maxActivePerUser + " exports can be in progress at once");
+        }
+        try {
+            return new Requested(exportJobRepository.saveAndFlush(new ExportJob(userId, format, startDate, endDate, dedupKey)), true);
+        } catch (DataIntegrityViolationException e) {
+            // The same request on another thread or instance created it between our lookup and insert
+            return exportJobRepository.findByDedupKey(dedupKey)
+                    .map(job -> new Requested(job, false))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private boolean isReusable(ExportJob job) {
+        if (job.getStatus() != ExportJobStatus.READY) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (job.getExpiresAt().isBefore(now)) {
+            return false;
+        }
+        return job.getEndDate() != null || job.getCompletedAt().plusSeconds(openEndedReuseSeconds).isAfter(now);
+    }
+
+    /**
+     * Claim a PENDING job for a worker. Empty if it was already claimed elsewhere.
+     */
+    @Transactional
+    public Optional<ExportJob> claim(Long jobId) {
+        if (exportJobRepository.claim(jobId) == 0) {
+            return Optional.empty();
+        }
+        return exportJobRepository.findById(jobId);
+    }
+
+    /**
+     * Record a finished file. False if the job was failed in the meantime, e.g. by the sweep
+     * giving up on it, in which case the file should be removed.
+     */
+    @Transactional
+    public boolean markReady(Long jobId, long rows, long bytes) {
+        LocalDateTime now = LocalDateTime.now();
+        return exportJobRepository.markReady(jobId, rows, bytes, now, now.plusHours(ttlHours)) > 0;
+    }
+
+    @Transactional
+    public void markFailed(Long jobId, String failureReason) {
+        String reason = failureReason != null && failureReason.length() > 255 ? failureReason.substring(0, 255) : failureReason;
+        exportJobRepository.markFailed(jobId, reason);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ExportJob> findJob(Long userId, Long jobId) {
+        return exportJobRepository.findByIdAndUserId(jobId, userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findStalledIds(LocalDateTime before, int limit) {
+        return exportJobRepository.findPendingIdsCreatedBefore(before, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findOverrunIds(LocalDateTime startedBefore) {
+        return exportJobRepository.findRunningIdsStartedBefore(startedBefore);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findExpiredIds() {
+        LocalDateTime now = LocalDateTime.now();
+        return exportJobRepository.findExpiredIds(now, now.minusHours(ttlHours));
+    }
+
+    /**
+     * Stop handing the job out to repeat requests, e.g. because its file is missing here.
+     */
+    @Transactional
+    public void releaseDedupKey(Long jobId) {
+        exportJobRepository.releaseDedupKey(jobId);
+    }
+
+    @Transactional
+    public void delete(Long jobId) {
+        exportJobRepository.deleteById(jobId);
+    }
+
+    public Map<String, Object> toView(ExportJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", job.getId());
+        view.put("status", job.getStatus());
+        view.put("format", job.getFormat());
+        view.put("startDate", job.getStartDate());
+        view.put("endDate", job.getEndDate());
+        view.put("rowCount", job.getRowCount());
+        view.put("sizeBytes", job.getSizeBytes());
+        view.put("failureReason", job.getFailureReason());
+        view.put("createdAt", job.getCreatedAt());
+        view.put("completedAt", job.getCompletedAt());
+        view.put("expiresAt", job.getExpiresAt());
+        if (job.getStatus() == ExportJobStatus.READY) {
+            view.put("downloadUrl", "/api/transactions/exports/" + job.getId() + "/download");
+        }
+        return view;
+    }
+}
@@ -0,0 +1,145 @@
+package com.swift.wallet.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Export job files on local disk. A job is written to {@code <id>.part} and renamed to
+ * {@code <id>.gz} only once complete and synced, so a file under its final name is always
+ * whole and never changes; downloads read byte ranges of it straight from the file channel.
+ */
+@Component
+public class ExportSpool {
+    private static final Logger logger = LoggerFactory.getLogger(ExportSpool.class);
+
+    /**
+     * Writes an export to the stream it is given and returns the rows written.
+     */
+    @FunctionalInterface
+    public interface Content {
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    public record Spooled(long rows, long bytes) {}
+
+    @Value("${export.jobs.spool-dir:data/export-spool}")
+    private String directory;
+
+    private Path dir;
+
+    @PostConstruct
+    void init() throws IOException {
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Write the job's file. Whatever was left of an earlier attempt is replaced.
+     */
+    public Spooled write(Long jobId, Content content) throws IOException {
+        Path part = dir.resolve(jobId + ".part");
+        long rows;
+        long bytes;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The export buffers into 64 KiB chunks, so the channel sees few, large writes
+            rows = content.writeTo(Channels.newOutputStream(channel));
+            channel.force(false);
+            bytes = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        Files.move(part, file(jobId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new Spooled(rows, bytes);
+    }
+
+    /**
+     * Size of the job's finished file, or -1 if there is none on this instance.
+     */
+    public long size(Long jobId) throws IOException {
+        try {
+            return Files.size(file(jobId));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Copy {@code count} bytes of the job's file from {@code position} to the stream.
+     */
+    public void transfer(Long jobId, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(jobId), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long end = position + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    throw new IOException("Export file " + jobId + " ended at " + position + " of " + end);
+                }
+                position += sent;
+            }
+        }
+        out.flush();
+    }
+
+    public void delete(Long jobId) {
+        try {
+            Files.deleteIfExists(file(jobId));
+            Files.deleteIfExists(dir.resolve(jobId + ".part"));
+        } catch (IOException e) {
+            logger.warn("Could not delete export file {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove partial files not written to since the given time - left by a worker that died.
+     */
+    public int deleteStalePartials(Instant before) {
+        return deleteOlderThan(".part", before);
+    }
+
+    /**
+     * Remove finished files written before the given time. Jobs are swept by whichever instance
+     * gets there first, so this is what removes expired files kept on other instances.
+     */
+    public int deleteExpiredFiles(Instant before) {
+        return deleteOlderThan(".gz", before);
+    }
+
+    private int deleteOlderThan(String suffix, Instant before) {
+        int deleted = 0;
+        try (Stream<Path> listing = Files.list(dir)) {
+            for (Path file : listing.filter(p -> p.getFileName().toString().endsWith(suffix)).toList()) {
+                if (Files.getLastModifiedTime(file).compareTo(FileTime.from(before)) < 0 && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not clean export spool {}: {}", dir, e.getMessage());
+        }
+        return deleted;
+    }
+
+    private Path file(Long jobId) {
+        return dir.resolve(jobId + ".gz");
+    }
+}
@@ -0,0 +1,110 @@
+package com.swift.wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swift.wallet.enums.CurrencyType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Exchange rate quotes for cross-currency transfers. A quote fixes the rate for one user and
+ * currency pair for a short time and lives only in memory on this instance; the transfer then
+ * runs against the quote id, so nothing inside the wallet transaction waits on the rates API.
+ * A quote can be used until it expires.
+ */
+@Service
+public class FxQuoteService {
+
+    /**
+     * A rate fixed for {@code fromCurrency} to {@code toCurrency} until {@code expiresAt}.
+     */
+    public record FxQuote(String id, Long userId, CurrencyType fromCurrency, CurrencyType toCurrency,
+                          BigDecimal rate, Instant expiresAt) {
+
+        /**
+         * The amount received for {@code amount} of fromCurrency at this rate.
+         */
+        public BigDecimal convert(BigDecimal amount) {
+            return amount.multiply(rate).setScale(2, RoundingMode.HALF_EVEN);
+        }
+    }
+
+    private final ExchangeRateService exchangeRateService;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Cache<String, FxQuote> quotes;
+    private final Counter issued;
+    private final Counter redeemed;
+    private final Counter expired;
+    private final Counter missing;
+
+    @Autowired
+    public FxQuoteService(ExchangeRateService exchangeRateService, MeterRegistry meterRegistry,
+                          @Value("${fx.quote.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${fx.quote.max-entries:100000}") long maxEntries) {
+        this(exchangeRateService, meterRegistry, ttlSeconds, maxEntries, Clock.systemUTC());
+    }
+
+    FxQuoteService(ExchangeRateService exchangeRateService, MeterRegistry meterRegistry, long ttlSeconds,
+                   long maxEntries, Clock clock) {
+        this.exchangeRateService = exchangeRateService;
+        this.clock = clock;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        // Kept a little past expiry so a late transfer is counted as expired rather than unknown
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl.multipliedBy(2))
+                .build();
+        Gauge.builder("fx.quotes.active", quotes, Cache::estimatedSize)
+                .description("Quotes held in memory, including recently expired ones")
+                .register(meterRegistry);
+        this.issued = Counter.builder("fx.quotes.issued").register(meterRegistry);
+        this.redeemed = Counter.builder("fx.quotes.redeemed").tag("result", "hit").register(meterRegistry);
+        this.expired = Counter.builder("fx.quotes.redeemed").tag("result", "expired").register(meterRegistry);
+        this.missing = Counter.builder("fx.quotes.redeemed").tag("result", "missing").register(meterRegistry);
+    }
+
+    /**
+     * Looks up the current rate and fixes it for this user for the quote lifetime.
+     * May call the rates API; never call it inside a wallet transaction.
+     */
+    public FxQuote quote(Long userId, CurrencyType fromCurrency, CurrencyType toCurrency) {
+        BigDecimal rate = exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        FxQuote quote = new FxQuote(UUID.randomUUID().toString(), userId, fromCurrency, toCurrency, rate,
+                clock.instant().plus(ttl));
+        quotes.put(quote.id(), quote);
+        issued.increment();
+        return quote;
+    }
+
+    /**
+     * The quote for a transfer, from memory only.
+     *
+     * @throws RuntimeException if the quote is unknown, expired, or for another user or pair
+     */
+    public FxQuote redeem(String quoteId, Long userId, CurrencyType fromCurrency, CurrencyType toCurrency) {
+        FxQuote quote = quoteId == null ? null : quotes.getIfPresent(quoteId);
+        if (quote == null || !quote.userId().equals(userId)
+                || quote.fromCurrency() != fromCurrency || quote.toCurrency() != toCurrency) {
+            missing.increment();
+            throw new RuntimeException("Exchange rate quote not found, please request a new quote");
+        }
+        if (!clock.instant().isBefore(quote.expiresAt())) {
+            expired.increment();
+            throw new RuntimeException("Exchange rate quote has expired, please request a new quote");
+        }
+        redeemed.increment();
+        return quote;
+    }
+}
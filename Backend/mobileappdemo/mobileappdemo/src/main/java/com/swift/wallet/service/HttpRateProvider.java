@@ -0,0 +1,48 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A rates API answering GET {url with {base} replaced} with a JSON table of rates against the
+ * base currency, like exchangerate-api.com's /latest endpoint.
+ */
+class HttpRateProvider implements RateProvider {
+
+    private final String name;
+    private final RestTemplate restTemplate;
+    private final String urlTemplate;
+
+    HttpRateProvider(String name, RestTemplate restTemplate, String urlTemplate) {
+        this.name = name;
+        this.restTemplate = restTemplate;
+        this.urlTemplate = urlTemplate;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Map<CurrencyType, BigDecimal> fetchTable(CurrencyType base) {
+        String url = urlTemplate.replace("{base}", base.name());
+        ExchangeRateService.ExchangeRateResponse response = restTemplate.getForObject(url, ExchangeRateService.ExchangeRateResponse.class);
+        if (response == null || response.getRates() == null) {
+            throw new RuntimeException(name + " returned no rates for " + base);
+        }
+        Map<CurrencyType, BigDecimal> table = new EnumMap<>(CurrencyType.class);
+        for (CurrencyType currency : CurrencyType.values()) {
+            BigDecimal rate = currency == base ? BigDecimal.ONE : response.getRates().get(currency.name());
+            if (rate == null || rate.signum() <= 0) {
+                throw new RuntimeException(name + " has no usable " + currency + " rate for " + base);
+            }
+            table.put(currency, rate);
+        }
+        return table;
+    }
+}
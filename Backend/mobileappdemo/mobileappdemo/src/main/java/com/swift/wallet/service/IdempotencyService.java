@@ -0,0 +1,336 @@
+package com.swift.wallet.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swift.wallet.models.IdempotencyRecord;
+import com.swift.wallet.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Honors the Idempotency-Key header on money-moving endpoints. Two tiers: an in-process
+ * Caffeine map of in-flight/completed executions, so duplicates on this instance wait for the
+ * first one and then replay its response, and the idempotency_keys table, whose unique
+ * (user_id, idempotency_key) index stops a duplicate on another instance from running at all.
+ * Successful responses are kept, and so is any response from an action that marked itself
+ * irreversible (money may have moved); other failures release the key so it can be retried.
+ * A claim whose instance died mid-request is taken over once idempotency.claim-lease-seconds
+ * has passed, instead of answering 409 until it is purged.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_BODY_LENGTH = 8000;
+    private static final int MAX_SUMMARY_FIELD_LENGTH = 500;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${idempotency.claim-lease-seconds:300}")
+    private long claimLeaseSeconds;
+
+    // Set while an action runs on this thread, so it can mark itself irreversible
+    private final ThreadLocal<AtomicBoolean> currentExecution = new ThreadLocal<>();
+
+    private Cache<String, CompletableFuture<StoredResponse>> executions;
+    private ObjectWriter canonicalWriter;
+
+    @PostConstruct
+    void init() {
+        executions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(retentionHours))
+                .maximumSize(100_000)
+                .build();
+        // Sorted map keys, so the same request body always hashes the same
+        canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    /**
+     * Run the action at most once per (user, key). Without a key the action just runs.
+     */
+    public ResponseEntity<Map<String, Object>> execute(Long userId, String key, String endpoint, Object request,
+                                                       Supplier<ResponseEntity<Map<String, Object>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String requestHash = hash(endpoint, request);
+        String cacheKey = userId + ":" + key;
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> earlier = executions.asMap().putIfAbsent(cacheKey, execution);
+        if (earlier != null) {
+            // Duplicate on this instance: wait for the first execution instead of racing it
+            return replay(await(earlier), requestHash);
+        }
+
+        StoredResponse result;
+        try {
+            result = runOnce(userId, key, endpoint, requestHash, action);
+        } catch (RuntimeException e) {
+            executions.invalidate(cacheKey);
+            execution.completeExceptionally(e);
+            throw e;
+        }
+        execution.complete(result);
+        if (!result.retained()) {
+            // Waiters already holding the future still see this response; later retries run again
+            executions.asMap().remove(cacheKey, execution);
+        }
+        return result.replayed() ? replay(result, requestHash) : result.toResponse(false);
+    }
+
+    private StoredResponse runOnce(Long userId, String key, String endpoint, String requestHash,
+                                   Supplier<ResponseEntity<Map<String, Object>>> action) {
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, key);
+        IdempotencyRecord claim;
+        if (existing.isPresent()) {
+            Optional<IdempotencyRecord> takenOver = takeOverIfStale(existing.get(), requestHash);
+            if (takenOver.isEmpty()) {
+                return toStored(existing.get());
+            }
+            claim = takenOver.get();
+        } else {
+            try {
+                claim = idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(userId, key, endpoint, requestHash));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance claimed the key between our lookup and insert
+                return idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, key)
+                        .map(this::toStored)
+                        .orElseThrow(() -> e);
+            }
+        }
+
+        AtomicBoolean irreversible = new AtomicBoolean();
+        currentExecution.set(irreversible);
+        ResponseEntity<Map<String, Object>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            if (irreversible.get()) {
+                Map<String, Object> body = new HashMap<>();
+                body.put("success", false);
+                body.put("message", "The request failed after it may already have moved money, so it won't be run again with this "
+                        + IDEMPOTENCY_KEY_HEADER);
+                complete(claim, HttpStatus.INTERNAL_SERVER_ERROR.value(), body);
+            } else {
+                release(claim);
+            }
+            throw e;
+        } finally {
+            currentExecution.remove();
+        }
+
+        Map<String, Object> body = response.getBody() != null ? response.getBody() : Map.of();
+        if (!response.getStatusCode().is2xxSuccessful() && !irreversible.get()) {
+            release(claim);
+            return new StoredResponse(response.getStatusCode().value(), body, requestHash, false, false);
+        }
+        complete(claim, response.getStatusCode().value(), body);
+        return new StoredResponse(response.getStatusCode().value(), body, requestHash, true, false);
+    }
+
+    /**
+     * Called by an action once its effect can't be undone - money may have left - so its key
+     * stays claimed whatever it goes on to return or throw. A no-op outside {@link #execute}.
+     */
+    public void markIrreversible() {
+        AtomicBoolean irreversible = currentExecution.get();
+        if (irreversible != null) {
+            irreversible.set(true);
+        }
+    }
+
+    /**
+     * Take over a claim for the same request that has been incomplete for longer than the lease:
+     * the instance holding it died mid-request. Empty if the claim is complete, still within its
+     * lease, for a different request, or was taken over by someone else first.
+     */
+    private Optional<IdempotencyRecord> takeOverIfStale(IdempotencyRecord record, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(claimLeaseSeconds);
+        if (record.isCompleted() || !record.getRequestHash().equals(requestHash) || !record.getClaimedAt().isBefore(staleBefore)) {
+            return Optional.empty();
+        }
+        if (idempotencyRecordRepository.takeOver(record.getId(), record.getVersion(), now, staleBefore) == 0) {
+            return Optional.empty();
+        }
+        logger.warn("Took over {} {} of user {}, claimed at {} and never completed", IDEMPOTENCY_KEY_HEADER,
+                record.getIdempotencyKey(), record.getUserId(), record.getClaimedAt());
+        return idempotencyRecordRepository.findById(record.getId());
+    }
+
+    private void complete(IdempotencyRecord claim, int statusCode, Map<String, Object> body) {
+        claim.complete(statusCode, toStoredJson(body));
+        try {
+            idempotencyRecordRepository.save(claim);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("{} {} of user {} was taken over before its response could be stored", IDEMPOTENCY_KEY_HEADER,
+                    claim.getIdempotencyKey(), claim.getUserId());
+        }
+    }
+
+    private void release(IdempotencyRecord claim) {
+        try {
+            idempotencyRecordRepository.delete(claim);
+        } catch (OptimisticLockingFailureException e) {
+            // Taken over: the key belongs to the new holder now
+        }
+    }
+
+    /**
+     * The response as stored for replay. One too big for the column is cut down to its
+     * top-level scalar fields (success, message, status, reference, ...) rather than dropped,
+     * so a duplicate still gets the outcome instead of running again.
+     */
+    private String toStoredJson(Map<String, Object> body) {
+        String json = toJson(body);
+        if (json.length() <= MAX_BODY_LENGTH) {
+            return json;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        body.forEach((field, value) -> {
+            if (value == null || value instanceof Number || value instanceof Boolean
+                    || (value instanceof CharSequence text && text.length() <= MAX_SUMMARY_FIELD_LENGTH)) {
+                summary.put(field, value);
+            }
+        });
+        summary.put("truncated", true);
+        json = toJson(summary);
+        if (json.length() <= MAX_BODY_LENGTH) {
+            return json;
+        }
+        Map<String, Object> minimal = new LinkedHashMap<>();
+        minimal.put("success", body.get("success"));
+        minimal.put("truncated", true);
+        return toJson(minimal);
+    }
+
+    private ResponseEntity<Map<String, Object>> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+        }
+        return stored.toResponse(stored.retained());
+    }
+
+    private StoredResponse toStored(IdempotencyRecord record) {
+        if (!record.isCompleted()) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("success", false);
+            body.put("message", "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+            return new StoredResponse(HttpStatus.CONFLICT.value(), body, record.getRequestHash(), false, true);
+        }
+        return new StoredResponse(record.getStatusCode(), fromJson(record.getResponseBody()), record.getRequestHash(), true, true);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> execution) {
+        try {
+            return execution.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}",
+               initialDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private String hash(String endpoint, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            digest.update(canonicalWriter.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new RuntimeException("Failed to hash request", e);
+        }
+    }
+
+    private String toJson(Map<String, Object> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read stored response", e);
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * A finished (or, for another instance's claim, still running) execution. Retained
+     * responses are replayed to duplicates; the rest are only shared with concurrent waiters.
+     */
+    private record StoredResponse(int status, Map<String, Object> body, String requestHash,
+                                  boolean retained, boolean replayed) {
+
+        ResponseEntity<Map<String, Object>> toResponse(boolean markReplayed) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+            if (markReplayed) {
+                builder.header(REPLAYED_HEADER, "true");
+            }
+            return builder.body(new LinkedHashMap<>(body));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.models.WalletBalanceSnapshot;
+import com.swift.wallet.repository.JournalPostingRepository;
+import com.swift.wallet.repository.WalletBalanceSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically folds the journal tail into per-wallet balance snapshots so balance reads
+ * only ever sum a short tail, and reconciles the result against the wallets' running balances.
+ */
+@Service
+public class LedgerCompactionService {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerCompactionService.class);
+
+    @Autowired
+    private JournalPostingRepository journalPostingRepository;
+
+    @Autowired
+    private WalletBalanceSnapshotRepository snapshotRepository;
+
+    // Postings younger than this are left in the tail. Posting ids are assigned at insert but
+    // become visible at commit, so folding right up to the newest id could skip a posting whose
+    // transaction is still open. Keep this well above the longest wallet transaction.
+    @Value("${ledger.compaction.settle-seconds:60}")
+    private long settleSeconds;
+
+    @Scheduled(fixedDelayString = "${ledger.compaction.interval-ms:60000}",
+               initialDelayString = "${ledger.compaction.interval-ms:60000}")
+    @Transactional
+    public void compact() {
+        Long upTo = journalPostingRepository.findMaxIdCreatedBefore(LocalDateTime.now().minusSeconds(settleSeconds));
+        if (upTo == null) {
+            return;
+        }
+
+        List<Object[]> tails = journalPostingRepository.sumUncompactedTails(upTo);
+        if (tails.isEmpty()) {
+            return;
+        }
+
+        List<Long> walletIds = tails.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, WalletBalanceSnapshot> snapshots = snapshotRepository.findAllById(walletIds).stream()
+                .collect(Collectors.toMap(WalletBalanceSnapshot::getWalletId, Function.identity()));
+
+        List<WalletBalanceSnapshot> updated = new ArrayList<>(tails.size());
+        for (Object[] row : tails) {
+            Long walletId = (Long) row[0];
+            WalletBalanceSnapshot snapshot = snapshots.getOrDefault(walletId, new WalletBalanceSnapshot(walletId));
+            snapshot.setBalance(snapshot.getBalance().add((BigDecimal) row[1]));
+            snapshot.setLastPostingId((Long) row[2]);
+            updated.add(snapshot);
+        }
+        snapshotRepository.saveAll(updated);
+        logger.info("Compacted journal up to posting {} into {} wallet snapshots", upTo, updated.size());
+
+        // The wallets.balance column is the live guard, the journal is the audit trail - reconcile them
+        for (Object[] drift : journalPostingRepository.findBalanceDrift(walletIds)) {
+            logger.error("Wallet {} balance {} disagrees with journal balance {}", drift[0], drift[1], drift[2]);
+        }
+    }
+}
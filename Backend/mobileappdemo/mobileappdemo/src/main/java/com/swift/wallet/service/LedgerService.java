@@ -0,0 +1,131 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.LedgerAccountType;
+import com.swift.wallet.models.JournalEntry;
+import com.swift.wallet.models.JournalPosting;
+import com.swift.wallet.models.Transaction;
+import com.swift.wallet.repository.JournalEntryRepository;
+import com.swift.wallet.repository.JournalPostingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Double-entry journal behind every wallet money movement. Posting only ever inserts rows. The
+ * live balance is {@link com.swift.wallet.models.Wallet#getBalance()}, kept by conditional
+ * UPDATEs in {@link WalletService}; the journal is the audit trail it can be re-derived from
+ * (compacted snapshots plus the journal tail, see {@link LedgerCompactionService}) and checked
+ * against.
+ */
+@Service
+@Transactional
+public class LedgerService {
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private JournalPostingRepository journalPostingRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    /**
+     * Append a balanced journal entry and project its wallet postings into the transaction
+     * history. Returns the projected transactions in posting order.
+     */
+    public List<Transaction> post(JournalEntry entry) {
+        validateBalanced(entry);
+        journalEntryRepository.save(entry);
+
+        List<JournalPosting> walletPostings = entry.getPostings().stream()
+                .filter(p -> p.getAccountType() == LedgerAccountType.WALLET)
+                .toList();
+
+        List<Transaction> transactions = new ArrayList<>(walletPostings.size());
+        for (JournalPosting posting : walletPostings) {
+            transactions.add(transactionService.recordPosting(posting,
+                    referenceFor(entry, posting, walletPostings.size()),
+                    counterpartOf(posting, walletPostings)));
+        }
+        return transactions;
+    }
+
+    /**
+     * A wallet's balance as derived from the journal, for checking it against Wallet.balance.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(Long walletId) {
+        return getBalances(List.of(walletId)).getOrDefault(walletId, BigDecimal.ZERO);
+    }
+
+    /**
+     * Journal-derived balances for several wallets in one query, keyed by wallet id.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getBalances(Collection<Long> walletIds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        if (walletIds.isEmpty()) {
+            return balances;
+        }
+        for (Object[] row : journalPostingRepository.findLiveBalances(walletIds)) {
+            balances.put((Long) row[0], toBigDecimal(row[1]));
+        }
+        return balances;
+    }
+
+    private void validateBalanced(JournalEntry entry) {
+        if (entry.getPostings().size() < 2) {
+            throw new RuntimeException("Journal entry " + entry.getReference() + " needs at least two postings");
+        }
+        Map<CurrencyType, BigDecimal> totals = new EnumMap<>(CurrencyType.class);
+        for (JournalPosting posting : entry.getPostings()) {
+            if (posting.getAmount() == null || posting.getAmount().signum() == 0) {
+                throw new RuntimeException("Journal entry " + entry.getReference() + " has a zero posting");
+            }
+            if ((posting.getAccountType() == LedgerAccountType.WALLET) != (posting.getWallet() != null)) {
+                throw new RuntimeException("Only wallet postings may reference a wallet");
+            }
+            totals.merge(posting.getCurrency(), posting.getAmount(), BigDecimal::add);
+        }
+        totals.forEach((currency, total) -> {
+            if (total.signum() != 0) {
+                throw new RuntimeException("Journal entry " + entry.getReference() + " is unbalanced by " + total + " " + currency);
+            }
+        });
+    }
+
+    /**
+     * Single-wallet entries keep the entry reference (e.g. the Paystack reference of a deposit);
+     * wallet-to-wallet entries get _OUT/_IN legs as before.
+     */
+    private String referenceFor(JournalEntry entry, JournalPosting posting, int walletPostingCount) {
+        if (walletPostingCount == 1) {
+            return entry.getReference();
+        }
+        return entry.getReference() + (posting.getAmount().signum() < 0 ? "_OUT" : "_IN");
+    }
+
+    private JournalPosting counterpartOf(JournalPosting posting, List<JournalPosting> walletPostings) {
+        if (walletPostings.size() != 2) {
+            return null;
+        }
+        return walletPostings.get(0) == posting ? walletPostings.get(1) : walletPostings.get(0);
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+}
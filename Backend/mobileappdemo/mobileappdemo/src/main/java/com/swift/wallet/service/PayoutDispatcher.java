@@ -0,0 +1,220 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.dto.PaystackTransferRecipientRequest;
+import com.swift.wallet.models.PayoutItem;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pays out bulk payout items against Paystack on a bounded pool. Each item is one
+ * recipient lookup (unless a recipient code was given) plus one transfer call; the pool size
+ * caps how many of those are in flight against Paystack at once. Items the pool can't take
+ * right away stay PENDING and are picked up by the sweep. A transfer call that fails without
+ * Paystack saying no (a timeout, a 5xx) may still have paid, so its item stays PROCESSING until
+ * the sweep has asked Paystack about its reference.
+ */
+@Component
+public class PayoutDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PayoutDispatcher.class);
+
+    @Autowired
+    private PayoutService payoutService;
+
+    @Autowired
+    private PaystackService paystackService;
+
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Value("${payout.dispatch.sweep-interval-ms:30000}")
+    private long sweepIntervalMs;
+
+    @Value("${payout.dispatch.verify-after-ms:120000}")
+    private long verifyAfterMs;
+
+    private final ThreadPoolExecutor executor;
+
+    public PayoutDispatcher(@Value("${payout.dispatch.threads:32}") int threads,
+                            @Value("${payout.dispatch.queue-capacity:20000}") int queueCapacity) {
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "payout-dispatch-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue items for payment. Must be called after the batch has committed.
+     */
+    public void dispatch(List<Long> itemIds) {
+        int deferred = 0;
+        for (Long itemId : itemIds) {
+            try {
+                executor.execute(() -> pay(itemId));
+            } catch (RejectedExecutionException e) {
+                deferred++;
+            }
+        }
+        if (deferred > 0) {
+            logger.warn("Payout queue full, {} items left for the sweep", deferred);
+        }
+    }
+
+    void pay(Long itemId) {
+        Optional<PayoutItem> claimed = payoutService.claim(itemId);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        transfer(claimed.get());
+    }
+
+    /**
+     * Make the Paystack call for a PROCESSING item. Only a definite rejection refunds the
+     * sender; when the outcome is unknown the item stays PROCESSING for the sweep to verify.
+     */
+    private void transfer(PayoutItem item) {
+        String recipientCode;
+        try {
+            recipientCode = item.getRecipientCode() != null ? item.getRecipientCode() : createRecipient(item);
+        } catch (RuntimeException e) {
+            // No transfer was attempted, so nothing can have been paid
+            logger.warn("Payout {} failed: {}", item.getReference(), e.getMessage());
+            complete(item, () -> payoutService.markFailed(item, e.getMessage()));
+            return;
+        }
+
+        String transferCode;
+        try {
+            // Paystack references must be lowercase
+            Map<String, Object> transfer = paystackService.initiateTransfer(recipientCode, item.getAmount(), item.getReason(),
+                    item.getReference().toLowerCase());
+            transferCode = transferCodeFrom(transfer);
+        } catch (PaystackRejectedException e) {
+            logger.warn("Payout {} failed: {}", item.getReference(), e.getMessage());
+            complete(item, () -> payoutService.markFailed(item, e.getMessage()));
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Payout {} outcome unknown, left for verification: {}", item.getReference(), e.getMessage());
+            complete(item, () -> payoutService.verifyLater(item));
+            return;
+        }
+        complete(item, () -> payoutService.markSucceeded(item, transferCode));
+    }
+
+    /**
+     * Settle, refund or resend a PROCESSING item from what Paystack says about its reference.
+     */
+    void verify(Long itemId) {
+        Optional<PayoutItem> found = payoutService.findProcessing(itemId);
+        if (found.isEmpty()) {
+            return;
+        }
+        PayoutItem item = found.get();
+
+        PaystackService.TransferCheck check;
+        try {
+            check = paystackService.verifyTransfer(item.getReference().toLowerCase());
+        } catch (RuntimeException e) {
+            logger.warn("Could not verify payout {}: {}", item.getReference(), e.getMessage());
+            complete(item, () -> payoutService.verifyLater(item));
+            return;
+        }
+        switch (check.outcome()) {
+            case PAID -> complete(item, () -> payoutService.markSucceeded(item, check.transferCode()));
+            case FAILED -> complete(item, () -> payoutService.markFailed(item, "Paystack reported the transfer as failed"));
+            // Never reached Paystack; if it did after all, the resend is refused as a duplicate
+            // reference and the item is verified again later
+            case NOT_FOUND -> transfer(item);
+            case PENDING -> complete(item, () -> payoutService.verifyLater(item));
+        }
+    }
+
+    private void complete(PayoutItem item, Runnable update) {
+        try {
+            balanceUpdateRetrier.run(update);
+        } catch (RuntimeException e) {
+            // Left PROCESSING: the sweep asks Paystack again and records the outcome then
+            logger.error("Could not record outcome of payout {}", item.getReference(), e);
+        }
+    }
+
+    private String createRecipient(PayoutItem item) {
+        PaystackTransferRecipientRequest recipientRequest = new PaystackTransferRecipientRequest();
+        if (item.getName() != null) recipientRequest.setName(item.getName());
+        recipientRequest.setAccount_number(item.getAccountNumber());
+        recipientRequest.setBank_code(item.getBankCode());
+        recipientRequest.setCurrency(item.getBatch().getCurrency().name());
+        return paystackService.createTransferRecipient(recipientRequest);
+    }
+
+    private String transferCodeFrom(Map<String, Object> transfer) {
+        if (transfer == null) {
+            throw new RuntimeException("Empty response from Paystack");
+        }
+        Object data = transfer.get("data");
+        if (data instanceof Map<?, ?> map && map.get("transfer_code") != null) {
+            return map.get("transfer_code").toString();
+        }
+        return null;
+    }
+
+    /**
+     * Re-queue items that have sat PENDING for a full sweep interval - rejected by a full queue,
+     * or queued on a node that went down before getting to them - and verify items left
+     * PROCESSING by a Paystack call whose outcome wasn't known.
+     */
+    @Scheduled(fixedDelayString = "${payout.dispatch.sweep-interval-ms:30000}",
+               initialDelayString = "${payout.dispatch.sweep-interval-ms:30000}")
+    public void sweep() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> stalled = payoutService.findStalledItemIds(now.minus(sweepIntervalMs, ChronoUnit.MILLIS), capacity);
+        if (!stalled.isEmpty()) {
+            logger.info("Re-dispatching {} stalled payout items", stalled.size());
+            dispatch(stalled);
+        }
+
+        capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Long> unconfirmed = payoutService.findUnconfirmedItemIds(now.minus(verifyAfterMs, ChronoUnit.MILLIS), capacity);
+        if (!unconfirmed.isEmpty()) {
+            logger.info("Verifying {} unconfirmed payout items with Paystack", unconfirmed.size());
+            for (Long itemId : unconfirmed) {
+                try {
+                    executor.execute(() -> verify(itemId));
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,203 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.dto.BulkPayoutRequest;
+import com.swift.wallet.enums.PayoutStatus;
+import com.swift.wallet.models.PayoutBatch;
+import com.swift.wallet.models.PayoutItem;
+import com.swift.wallet.repository.PayoutBatchRepository;
+import com.swift.wallet.repository.PayoutItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk payouts. Creating a batch reserves its total from the wallet in one debit; each item is
+ * then paid out by {@link PayoutDispatcher} and settled to Paystack, or refunded if it fails.
+ */
+@Service
+@Transactional
+public class PayoutService {
+
+    @Autowired
+    private PayoutBatchRepository payoutBatchRepository;
+
+    @Autowired
+    private PayoutItemRepository payoutItemRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ReferenceGenerator referenceGenerator;
+
+    @Value("${payout.max-items:1000}")
+    private int maxItems;
+
+    /**
+     * Reserve the batch total and store the batch with all its items PENDING. Throws if the
+     * wallet can't cover the total, in which case nothing is stored.
+     */
+    public PayoutBatch createBatch(Long userId, BulkPayoutRequest request) {
+        if (request.getItems().isEmpty()) {
+            throw new RuntimeException("At least one payout item is required");
+        }
+        if (request.getItems().size() > maxItems) {
+            throw new RuntimeException("A payout batch can have at most " + maxItems + " items");
+        }
+
+        PayoutBatch batch = new PayoutBatch(userId, request.getCurrency(), referenceGenerator.next("PAYOUT"), request.getDescription());
+        for (BulkPayoutRequest.Item requested : request.getItems()) {
+            if (requested.getRecipientCode() == null && (requested.getAccountNumber() == null || requested.getBankCode() == null)) {
+                throw new RuntimeException("Each payout item needs a recipientCode or an accountNumber and bankCode");
+            }
+            PayoutItem item = new PayoutItem(referenceGenerator.next("PAYOUT"), requested.getAmount(),
+                    requested.getReason() != null ? requested.getReason() : "Payout");
+            item.setRecipientCode(requested.getRecipientCode());
+            item.setAccountNumber(requested.getAccountNumber());
+            item.setBankCode(requested.getBankCode());
+            item.setName(requested.getName());
+            batch.addItem(item);
+        }
+
+        walletService.reservePayout(userId, batch.getCurrency(), batch.getTotalAmount(), batch.getItemCount(), batch.getReference());
+        return payoutBatchRepository.save(batch);
+    }
+
+    /**
+     * Claim a PENDING item for payment. Empty if it was already claimed elsewhere.
+     */
+    public Optional<PayoutItem> claim(Long itemId) {
+        if (payoutItemRepository.transition(itemId, PayoutStatus.PENDING, PayoutStatus.PROCESSING) == 0) {
+            return Optional.empty();
+        }
+        return payoutItemRepository.findWithBatchById(itemId);
+    }
+
+    /**
+     * Paystack accepted the transfer: settle the item's share of the reservation.
+     */
+    public void markSucceeded(PayoutItem item, String transferCode) {
+        if (payoutItemRepository.complete(item.getId(), PayoutStatus.PROCESSING, PayoutStatus.SUCCEEDED, transferCode, null) == 0) {
+            return;
+        }
+        walletService.settlePayout(item.getBatch().getCurrency(), item.getAmount(), item.getReference(),
+                "Payout " + item.getReference());
+    }
+
+    /**
+     * Paystack definitely didn't pay: refund the item's share of the reservation to the wallet.
+     */
+    public void markFailed(PayoutItem item, String failureReason) {
+        String reason = failureReason != null && failureReason.length() > 500 ? failureReason.substring(0, 500) : failureReason;
+        if (payoutItemRepository.complete(item.getId(), PayoutStatus.PROCESSING, PayoutStatus.FAILED, null, reason) == 0) {
+            return;
+        }
+        walletService.refundPayout(item.getBatch().getUserId(), item.getBatch().getCurrency(), item.getAmount(),
+                item.getReference(), "Refund of failed payout " + item.getReference());
+    }
+
+    /**
+     * Ids of items still PENDING since before the given time, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findStalledItemIds(LocalDateTime before, int limit) {
+        return payoutItemRepository.findIdsByStatusUpdatedBefore(PayoutStatus.PENDING, before, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Ids of items PROCESSING since before the given time - a transfer call whose outcome
+     * wasn't known, or one cut short by a restart - oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findUnconfirmedItemIds(LocalDateTime before, int limit) {
+        return payoutItemRepository.findIdsByStatusUpdatedBefore(PayoutStatus.PROCESSING, before, PageRequest.of(0, limit));
+    }
+
+    /**
+     * A PROCESSING item with its batch, or empty if it has been settled or refunded meanwhile.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PayoutItem> findProcessing(Long itemId) {
+        return payoutItemRepository.findWithBatchById(itemId).filter(item -> item.getStatus() == PayoutStatus.PROCESSING);
+    }
+
+    /**
+     * Paystack doesn't know the outcome yet: leave the item PROCESSING and check it again a
+     * full verification interval from now.
+     */
+    public void verifyLater(PayoutItem item) {
+        payoutItemRepository.transition(item.getId(), PayoutStatus.PROCESSING, PayoutStatus.PROCESSING);
+    }
+
+    /**
+     * Batch summary plus per-item status, optionally only items in one status. Empty if the
+     * batch doesn't exist or belongs to another user.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getBatchStatus(Long userId, Long batchId, PayoutStatus statusFilter) {
+        Optional<PayoutBatch> found = payoutBatchRepository.findByIdAndUserId(batchId, userId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        PayoutBatch batch = found.get();
+
+        Map<PayoutStatus, Long> counts = new EnumMap<>(PayoutStatus.class);
+        for (PayoutStatus status : PayoutStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : payoutItemRepository.countByStatus(batchId)) {
+            counts.put((PayoutStatus) row[0], (Long) row[1]);
+        }
+
+        List<PayoutItem> items = statusFilter != null
+                ? payoutItemRepository.findByBatchIdAndStatusOrderById(batchId, statusFilter)
+                : payoutItemRepository.findByBatchIdOrderById(batchId);
+        List<Map<String, Object>> itemViews = new ArrayList<>(items.size());
+        for (PayoutItem item : items) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", item.getId());
+            view.put("reference", item.getReference());
+            view.put("recipientCode", item.getRecipientCode());
+            view.put("accountNumber", item.getAccountNumber());
+            view.put("amount", item.getAmount());
+            view.put("status", item.getStatus());
+            view.put("transferCode", item.getTransferCode());
+            view.put("failureReason", item.getFailureReason());
+            view.put("updatedAt", item.getUpdatedAt());
+            itemViews.add(view);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("batchId", batch.getId());
+        result.put("reference", batch.getReference());
+        result.put("currency", batch.getCurrency());
+        result.put("totalAmount", batch.getTotalAmount());
+        result.put("itemCount", batch.getItemCount());
+        result.put("status", batchStatus(counts, batch.getItemCount()));
+        result.put("counts", counts);
+        result.put("createdAt", batch.getCreatedAt());
+        result.put("items", itemViews);
+        return Optional.of(result);
+    }
+
+    private String batchStatus(Map<PayoutStatus, Long> counts, int itemCount) {
+        if (counts.get(PayoutStatus.PENDING) + counts.get(PayoutStatus.PROCESSING) > 0) {
+            return "PROCESSING";
+        }
+        if (counts.get(PayoutStatus.SUCCEEDED) == itemCount) {
+            return "COMPLETED";
+        }
+        return counts.get(PayoutStatus.FAILED) == itemCount ? "FAILED" : "PARTIALLY_FAILED";
+    }
+}
@@ -0,0 +1,12 @@
+package com.swift.wallet.service;
+
+/**
+ * Paystack looked at a transfer request and turned it down, so no money left our balance.
+ * Any other failure of a transfer call (timeouts, 5xx) leaves it unknown whether Paystack paid.
+ */
+public class PaystackRejectedException extends RuntimeException {
+
+    public PaystackRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,14 +1,20 @@
 package com.swift.wallet.service;
 
+import com.swift.mobileappdemo.cache.SingleFlightCache;
+import com.swift.mobileappdemo.cache.SingleFlightCaches;
 import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.TransferOutcome;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +37,45 @@ public class PaystackService {
     @Value("${paystack.api.url:https://api.paystack.co}")
     private String apiUrl;
 
+    @Autowired
+    private SingleFlightCaches singleFlightCaches;
+
+    @Value("${paystack.banks.refresh-minutes:60}")
+    private long banksRefreshMinutes;
+
+    @Value("${paystack.recipients.ttl-hours:24}")
+    private long recipientsTtlHours;
+
+    @Value("${paystack.lookup.failure-ttl-seconds:30}")
+    private long failureTtlSeconds;
+
+    // Bank lists by type ("" for regular banks)
+    private SingleFlightCache<String, List<Map<String, Object>>> banks;
+
+    // Recipient codes by recipient details; Paystack returns the same code for the same details
+    private SingleFlightCache<RecipientKey, String> recipientCodes;
+
+    private record RecipientKey(String type, String name, String accountNumber, String bankCode, String currency) {
+        PaystackTransferRecipientRequest toRequest() {
+            PaystackTransferRecipientRequest request = new PaystackTransferRecipientRequest();
+            request.setType(type);
+            request.setName(name);
+            request.setAccount_number(accountNumber);
+            request.setBank_code(bankCode);
+            request.setCurrency(currency);
+            return request;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        Duration failureTtl = Duration.ofSeconds(failureTtlSeconds);
+        banks = singleFlightCaches.create("paystack.banks", Duration.ofMinutes(banksRefreshMinutes),
+                Duration.ofMinutes(banksRefreshMinutes * 24), failureTtl, 10, this::fetchBanks);
+        recipientCodes = singleFlightCaches.create("paystack.recipients", null,
+                Duration.ofHours(recipientsTtlHours), failureTtl, 10_000, key -> registerTransferRecipient(key.toRequest()));
+    }
+
     /**
      * Initialize payment
      */
@@ -119,6 +164,18 @@ public class PaystackService {
      * Initiate a transfer (withdrawal) to a recipient's bank account using Paystack
      */
     public Map<String, Object> initiateTransfer(String recipientCode, BigDecimal amount, String reason) {
+        return initiateTransfer(recipientCode, amount, reason, null);
+    }
+
+    /**
+     * Initiate a transfer with our own reference. Paystack refuses a reference it has already
+     * seen, so retrying a call that timed out can't pay the recipient twice. Throws
+     * {@link PaystackRejectedException} only when Paystack definitely didn't pay; any other
+     * exception - including that duplicate-reference refusal - means the transfer may or may
+     * not have gone out.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> initiateTransfer(String recipientCode, BigDecimal amount, String reason, String reference) {
         String url = apiUrl + "/transfer";
 
         HttpHeaders headers = new HttpHeaders();
@@ -130,6 +187,9 @@ public class PaystackService {
         requestBody.put("amount", amount.multiply(BigDecimal.valueOf(100)).longValue()); // Paystack expects amount in kobo
         requestBody.put("recipient", recipientCode);
         requestBody.put("reason", reason);
+        if (reference != null) {
+            requestBody.put("reference", reference);
+        }
 
         System.out.println("Paystack transfer request - URL: " + url);
         System.out.println("Paystack transfer request - Headers: " + headers);
@@ -137,21 +197,100 @@ public class PaystackService {
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
 
+        Map<String, Object> body;
         try {
             ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
             System.out.println("Paystack transfer response: " + response.getBody());
-            return response.getBody();
+            body = response.getBody();
+        } catch (HttpClientErrorException e) {
+            // A 4xx with status=false is Paystack refusing the transfer; a 429 was never looked at,
+            // and a refused duplicate reference means an earlier transfer under it exists
+            Map<String, Object> error = errorBody(e);
+            if (e.getStatusCode().value() != 429 && error != null && Boolean.FALSE.equals(error.get("status"))
+                    && !(reference != null && isDuplicateReference(error))) {
+                throw new PaystackRejectedException("Paystack rejected the transfer: " + error.get("message"));
+            }
+            System.err.println("Paystack transfer error: " + e.getMessage());
+            throw new RuntimeException("Failed to initiate Paystack transfer: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Paystack transfer error: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Failed to initiate Paystack transfer: " + e.getMessage());
         }
+        if (body != null && Boolean.FALSE.equals(body.get("status"))) {
+            if (reference != null && isDuplicateReference(body)) {
+                throw new RuntimeException("Paystack already has a transfer with reference " + reference);
+            }
+            throw new PaystackRejectedException("Paystack rejected the transfer: " + body.get("message"));
+        }
+        return body;
+    }
+
+    /**
+     * Ask Paystack what became of a transfer sent with our own reference. Throws if Paystack
+     * can't be reached, in which case nothing is known yet.
+     */
+    @SuppressWarnings("unchecked")
+    public TransferCheck verifyTransfer(String reference) {
+        String url = apiUrl + "/transfer/verify/" + reference;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + secretKey);
+        HttpEntity<String> request = new HttpEntity<>(headers);
+
+        Map<String, Object> body;
+        try {
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(url, HttpMethod.GET, request, (Class<Map<String, Object>>) (Class<?>) Map.class);
+            body = response.getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return new TransferCheck(TransferOutcome.NOT_FOUND, null);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to verify Paystack transfer: " + e.getMessage());
+        }
+        if (body == null || !Boolean.TRUE.equals(body.get("status")) || !(body.get("data") instanceof Map<?, ?> data)) {
+            throw new RuntimeException("Unexpected Paystack transfer verification response: " + body);
+        }
+        Object transferCode = data.get("transfer_code");
+        return new TransferCheck(outcomeOf(String.valueOf(data.get("status"))), transferCode != null ? transferCode.toString() : null);
     }
 
     /**
-     * Create a Paystack transfer recipient for Ghana mobile money
+     * Outcome of {@link #verifyTransfer}, with Paystack's transfer code when it has one.
+     */
+    public record TransferCheck(TransferOutcome outcome, String transferCode) {}
+
+    private static TransferOutcome outcomeOf(String status) {
+        return switch (status) {
+            case "success" -> TransferOutcome.PAID;
+            case "failed", "reversed", "abandoned", "rejected", "blocked" -> TransferOutcome.FAILED;
+            default -> TransferOutcome.PENDING;
+        };
+    }
+
+    private static boolean isDuplicateReference(Map<String, Object> error) {
+        String text = (error.get("code") + " " + error.get("message")).toLowerCase();
+        return text.contains("duplicate") || (text.contains("reference") && (text.contains("already") || text.contains("exist")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> errorBody(HttpClientErrorException e) {
+        try {
+            return e.getResponseBodyAs(Map.class);
+        } catch (RuntimeException unreadable) {
+            return null;
+        }
+    }
+
+    /**
+     * Create a Paystack transfer recipient for Ghana mobile money. Repeat calls with the same
+     * details reuse the recipient code from the first one.
      */
     public String createTransferRecipient(PaystackTransferRecipientRequest requestDto) {
+        return recipientCodes.get(new RecipientKey(requestDto.getType(), requestDto.getName(),
+                requestDto.getAccount_number(), requestDto.getBank_code(), requestDto.getCurrency()));
+    }
+
+    private String registerTransferRecipient(PaystackTransferRecipientRequest requestDto) {
         String url = apiUrl + "/transferrecipient";
 
         HttpHeaders headers = new HttpHeaders();
@@ -184,13 +323,23 @@ public class PaystackService {
     /**
      * List valid Paystack recipient banks/mobile-money providers for Ghana.
      * type: "mobile_money" for mobile money providers, null/omitted for regular banks.
+     * Empty if the list can't be fetched.
      */
-    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> listBanks(String type) {
+        try {
+            return banks.get(type == null || type.isBlank() ? "" : type);
+        } catch (Exception e) {
+            System.err.println("Failed to fetch Paystack bank list: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> fetchBanks(String type) {
         UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(apiUrl + "/bank")
                 .queryParam("country", "ghana")
                 .queryParam("currency", "GHS");
-        if (type != null && !type.isBlank()) {
+        if (!type.isEmpty()) {
             builder.queryParam("type", type);
         }
         String url = builder.toUriString();
@@ -199,17 +348,12 @@ public class PaystackService {
         headers.set("Authorization", "Bearer " + secretKey);
         HttpEntity<String> request = new HttpEntity<>(headers);
 
-        try {
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(url, HttpMethod.GET, request, (Class<Map<String, Object>>) (Class<?>) Map.class);
-            Map<String, Object> body = response.getBody();
-            if (body != null && body.get("data") instanceof List) {
-                return (List<Map<String, Object>>) body.get("data");
-            }
-            return new ArrayList<>();
-        } catch (Exception e) {
-            System.err.println("Failed to fetch Paystack bank list: " + e.getMessage());
-            return new ArrayList<>();
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(url, HttpMethod.GET, request, (Class<Map<String, Object>>) (Class<?>) Map.class);
+        Map<String, Object> body = response.getBody();
+        if (body != null && body.get("data") instanceof List) {
+            return List.copyOf((List<Map<String, Object>>) body.get("data"));
         }
+        throw new RuntimeException("Paystack returned no bank list");
     }
 
     /**
@@ -0,0 +1,349 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the base currency's rate table from several {@link RateProvider}s. The best-scoring
+ * sources, as many as the quorum, are asked first. Another source is asked when one fails,
+ * or when none has answered within the hedge delay: the configured percentile of the last
+ * source's recent latency. Once the quorum has answered, or the timeout has passed with at
+ * least one answer, each rate is the median of the answers. With three or more answers, rates
+ * further than max-deviation-percent from the median are dropped first. Every call feeds a
+ * per-source scoreboard of latency, errors and outliers, which also decides the order sources
+ * are asked in.
+ */
+@Component
+public class RateAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(RateAggregator.class);
+
+    /**
+     * One source's recent record, for monitoring.
+     */
+    public record SourceStats(String source, long requests, long errors, long outliers, long p50Millis, long p90Millis) {}
+
+    private record Answer(Source source, Map<CurrencyType, BigDecimal> table) {}
+
+    private final List<Source> sources;
+    private final int quorum;
+    private final BigDecimal maxDeviation;
+    private final long timeoutNanos;
+    private final int hedgePercentile;
+    private final long initialHedgeDelayNanos;
+    private final long minHedgeDelayNanos;
+    private final ThreadPoolExecutor executor;
+    private final Counter hedges;
+
+    @Autowired
+    public RateAggregator(RestTemplate restTemplate, Environment environment, MeterRegistry meterRegistry,
+                          @Value("${exchange.rate.api.url:https://v6.exchangerate-api.com/v6/}") String apiUrl,
+                          @Value("${exchange.rate.api.key}") String apiKey,
+                          @Value("${exchange.rate.sources:primary}") List<String> sourceNames,
+                          @Value("${exchange.rate.aggregation.quorum:2}") int quorum,
+                          @Value("${exchange.rate.aggregation.max-deviation-percent:2}") double maxDeviationPercent,
+                          @Value("${exchange.rate.aggregation.timeout-ms:5000}") long timeoutMs,
+                          @Value("${exchange.rate.hedge.percentile:90}") int hedgePercentile,
+                          @Value("${exchange.rate.hedge.initial-delay-ms:500}") long initialHedgeDelayMs,
+                          @Value("${exchange.rate.hedge.min-delay-ms:50}") long minHedgeDelayMs) {
+        this(sourceNames.stream().map(String::trim).<RateProvider>map(name -> new HttpRateProvider(name, restTemplate,
+                        "primary".equals(name) ? apiUrl + apiKey + "/latest/{base}"
+                                : environment.getRequiredProperty("exchange.rate.source." + name + ".url"))).toList(),
+                meterRegistry, quorum, maxDeviationPercent, timeoutMs, hedgePercentile, initialHedgeDelayMs, minHedgeDelayMs);
+    }
+
+    RateAggregator(List<RateProvider> providers, MeterRegistry meterRegistry, int quorum, double maxDeviationPercent,
+                   long timeoutMs, int hedgePercentile, long initialHedgeDelayMs, long minHedgeDelayMs) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one exchange rate source is required");
+        }
+        this.sources = providers.stream().map(p -> new Source(p, meterRegistry)).toList();
+        this.quorum = Math.max(1, Math.min(quorum, providers.size()));
+        this.maxDeviation = BigDecimal.valueOf(maxDeviationPercent).movePointLeft(2);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.hedgePercentile = hedgePercentile;
+        this.initialHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialHedgeDelayMs);
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+
+        // Room for every source to be asked twice over, e.g. while earlier calls are still hanging
+        int threads = providers.size() * 2;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads), r -> {
+                    Thread thread = new Thread(r, "rate-source-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.hedges = Counter.builder("exchange.rate.hedges")
+                .description("Extra rate sources asked because the earlier ones were slow")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The aggregated rate table for {@code base}.
+     *
+     * @throws RuntimeException if no source answered in time
+     */
+    public Map<CurrencyType, BigDecimal> fetchTable(CurrencyType base) {
+        List<Source> ranked = new ArrayList<>(sources);
+        ranked.sort(Comparator.comparingDouble(source -> source.score(initialHedgeDelayNanos)));
+
+        ExecutorCompletionService<Answer> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Answer>> launched = new ArrayList<>();
+        List<Answer> answers = new ArrayList<>();
+        long deadline = System.nanoTime() + timeoutNanos;
+        int next = 0;
+        int pending = 0;
+        long hedgeAt = 0;
+        try {
+            while (answers.size() < quorum) {
+                long now = System.nanoTime();
+                if (now >= deadline) {
+                    break;
+                }
+                boolean more = next < ranked.size();
+                if (more && (pending + answers.size() < quorum || pending == 0 || now >= hedgeAt)) {
+                    Source source = ranked.get(next++);
+                    if (pending + answers.size() >= quorum) {
+                        hedges.increment();
+                    }
+                    if (launch(completion, launched, source, base)) {
+                        pending++;
+                        hedgeAt = now + hedgeDelayNanos(source);
+                    }
+                    continue;
+                }
+                if (pending == 0) {
+                    break;
+                }
+                Future<Answer> done = completion.poll((more ? Math.min(hedgeAt, deadline) : deadline) - now, TimeUnit.NANOSECONDS);
+                if (done != null) {
+                    pending--;
+                    Answer answer = done.get();
+                    if (answer.table() != null) {
+                        answers.add(answer);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching exchange rates", e);
+        } catch (ExecutionException e) {
+            // Tasks catch their own failures
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            launched.forEach(f -> f.cancel(true));
+        }
+
+        if (answers.isEmpty()) {
+            throw new RuntimeException("No exchange rate source answered for " + base);
+        }
+        if (answers.size() < quorum) {
+            logger.warn("Only {} of {} exchange rate sources answered in time for {}", answers.size(), quorum, base);
+        }
+        return aggregate(answers);
+    }
+
+    /**
+     * Latency, error and outlier counts per source over its recent calls.
+     */
+    public List<SourceStats> scoreboard() {
+        return sources.stream().map(Source::stats).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean launch(ExecutorCompletionService<Answer> completion, List<Future<Answer>> launched,
+                           Source source, CurrencyType base) {
+        try {
+            launched.add(completion.submit(() -> source.fetch(base)));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("No thread free to ask exchange rate source {}", source.provider.name());
+            return false;
+        }
+    }
+
+    private long hedgeDelayNanos(Source source) {
+        long percentile = source.latencyPercentileNanos(hedgePercentile);
+        return Math.max(minHedgeDelayNanos, percentile < 0 ? initialHedgeDelayNanos : percentile);
+    }
+
+    private Map<CurrencyType, BigDecimal> aggregate(List<Answer> answers) {
+        Map<CurrencyType, BigDecimal> table = new EnumMap<>(CurrencyType.class);
+        Set<Source> outliers = new HashSet<>();
+        for (CurrencyType currency : CurrencyType.values()) {
+            List<BigDecimal> values = new ArrayList<>(answers.size());
+            answers.forEach(a -> values.add(a.table().get(currency)));
+            BigDecimal median = median(values);
+            // With two answers there is no telling which one is off
+            if (answers.size() >= 3) {
+                BigDecimal tolerance = median.multiply(maxDeviation);
+                List<BigDecimal> kept = new ArrayList<>(values.size());
+                for (Answer answer : answers) {
+                    BigDecimal value = answer.table().get(currency);
+                    if (value.subtract(median).abs().compareTo(tolerance) <= 0) {
+                        kept.add(value);
+                    } else {
+                        outliers.add(answer.source());
+                    }
+                }
+                median = median(kept);
+            }
+            table.put(currency, median);
+        }
+        for (Source source : outliers) {
+            logger.warn("Exchange rate source {} disagreed with the others; its outlying rates were dropped", source.provider.name());
+            source.recordOutlier();
+        }
+        return table;
+    }
+
+    private static BigDecimal median(List<BigDecimal> values) {
+        List<BigDecimal> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        int mid = sorted.size() / 2;
+        if (sorted.size() % 2 == 1) {
+            return sorted.get(mid);
+        }
+        return sorted.get(mid - 1).add(sorted.get(mid)).divide(BigDecimal.valueOf(2), MathContext.DECIMAL64);
+    }
+
+    /**
+     * A provider and its last {@link #WINDOW} calls.
+     */
+    private static final class Source {
+        private static final int WINDOW = 64;
+
+        private final RateProvider provider;
+        private final Timer successLatency;
+        private final Timer errorLatency;
+        private final Counter outlierCount;
+        private final long[] latencies = new long[WINDOW];
+        private final boolean[] succeeded = new boolean[WINDOW];
+        private int calls;
+        private long requests;
+        private long errors;
+        private long outliers;
+
+        Source(RateProvider provider, MeterRegistry meterRegistry) {
+            this.provider = provider;
+            this.successLatency = Timer.builder("exchange.rate.source.latency")
+                    .tag("source", provider.name()).tag("outcome", "success").register(meterRegistry);
+            this.errorLatency = Timer.builder("exchange.rate.source.latency")
+                    .tag("source", provider.name()).tag("outcome", "error").register(meterRegistry);
+            this.outlierCount = Counter.builder("exchange.rate.source.outliers")
+                    .tag("source", provider.name()).register(meterRegistry);
+        }
+
+        Answer fetch(CurrencyType base) {
+            long start = System.nanoTime();
+            try {
+                Map<CurrencyType, BigDecimal> table = provider.fetchTable(base);
+                record(System.nanoTime() - start, true);
+                return new Answer(this, table);
+            } catch (RuntimeException e) {
+                // Cancelled because enough other sources answered; not the source's fault
+                if (!Thread.currentThread().isInterrupted()) {
+                    record(System.nanoTime() - start, false);
+                    logger.warn("Exchange rate source {} failed: {}", provider.name(), e.getMessage());
+                }
+                return new Answer(this, null);
+            }
+        }
+
+        synchronized void record(long latencyNanos, boolean success) {
+            latencies[calls % WINDOW] = latencyNanos;
+            succeeded[calls % WINDOW] = success;
+            calls++;
+            requests++;
+            if (success) {
+                successLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            } else {
+                errors++;
+                errorLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        synchronized void recordOutlier() {
+            outliers++;
+            outlierCount.increment();
+            // Counts against the source like an error when ranking
+            succeeded[(calls - 1) % WINDOW] = false;
+        }
+
+        // Percentile of recent successful calls, or -1 with too few to go by
+        synchronized long latencyPercentileNanos(int percentile) {
+            int n = Math.min(calls, WINDOW);
+            long[] ok = new long[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (succeeded[i]) {
+                    ok[count++] = latencies[i];
+                }
+            }
+            if (count < 5) {
+                return -1;
+            }
+            Arrays.sort(ok, 0, count);
+            return ok[Math.max(0, Math.min(count - 1, (int) Math.ceil(percentile / 100.0 * count) - 1))];
+        }
+
+        // Lower is better: typical latency of recent successful calls (the default until there are
+        // enough), divided by the share of recent calls that succeeded. Sources not called yet
+        // score 0, so they get tried.
+        synchronized double score(long defaultLatencyNanos) {
+            int n = Math.min(calls, WINDOW);
+            if (n == 0) {
+                return 0;
+            }
+            int ok = 0;
+            for (int i = 0; i < n; i++) {
+                if (succeeded[i]) {
+                    ok++;
+                }
+            }
+            long latency = latencyPercentileNanos(50);
+            return (latency < 0 ? defaultLatencyNanos : latency) / Math.max(0.05, (double) ok / n);
+        }
+
+        synchronized SourceStats stats() {
+            long p50 = latencyPercentileNanos(50);
+            long p90 = latencyPercentileNanos(90);
+            return new SourceStats(provider.name(), requests, errors, outliers,
+                    p50 < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(p50), p90 < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(p90));
+        }
+    }
+}
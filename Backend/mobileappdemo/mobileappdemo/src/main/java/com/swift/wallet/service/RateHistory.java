@@ -0,0 +1,228 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CandleResolution;
+import com.swift.wallet.enums.CurrencyType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Every rate snapshot the refresh pulled, appended to memory-mapped segment files so the rate
+ * in force at any past moment can be looked up: a binary search over segment start times, then
+ * over the segment's records. Each append also folds the rates into open/high/low/close
+ * candles per pair at every {@link CandleResolution}; candles are kept in memory and rebuilt
+ * from the segments at startup.
+ */
+@Component
+public class RateHistory {
+    private static final Logger logger = LoggerFactory.getLogger(RateHistory.class);
+
+    /**
+     * The rate for a pair in the last snapshot taken at or before the requested time.
+     */
+    public record RatePoint(CurrencyType fromCurrency, CurrencyType toCurrency, BigDecimal rate, Instant observedAt) {}
+
+    public record Candle(Instant start, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close, int samples) {
+
+        Candle merge(Candle later) {
+            return new Candle(start, open, high.max(later.high), low.min(later.low), later.close, samples + later.samples);
+        }
+    }
+
+    private static final CurrencyType[] CURRENCIES = CurrencyType.values();
+    private static final int PAIRS = CURRENCIES.length * (CURRENCIES.length - 1);
+    private static final int RATE_SCALE = 6;
+
+    @Value("${exchange.rate.history.dir:data/rate-history}")
+    private String directory;
+
+    @Value("${exchange.rate.history.segment-records:65536}")
+    private int segmentRecords;
+
+    // Oldest first; each segment starts after the previous one ends
+    private final List<RateSegment> segments = new CopyOnWriteArrayList<>();
+    private final Map<CandleResolution, List<ConcurrentSkipListMap<Long, Candle>>> candles = new EnumMap<>(CandleResolution.class);
+
+    @PostConstruct
+    void init() throws IOException {
+        for (CandleResolution resolution : CandleResolution.values()) {
+            List<ConcurrentSkipListMap<Long, Candle>> perPair = new ArrayList<>(PAIRS);
+            for (int i = 0; i < PAIRS; i++) {
+                perPair.add(new ConcurrentSkipListMap<>());
+            }
+            candles.put(resolution, perPair);
+        }
+
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            // Zero-padded start times, so name order is time order
+            files = listing.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+        int records = 0;
+        for (Path file : files) {
+            RateSegment segment = RateSegment.open(file, PAIRS);
+            if (segment == null) {
+                logger.warn("Skipping rate history segment {} written with another layout", file);
+                continue;
+            }
+            if (segment.count() == 0) {
+                continue;
+            }
+            segments.add(segment);
+            for (int record = 0; record < segment.count(); record++) {
+                long[] micros = new long[PAIRS];
+                for (int pair = 0; pair < PAIRS; pair++) {
+                    micros[pair] = segment.microsAt(record, pair);
+                }
+                addToCandles(segment.timestampAt(record), micros);
+            }
+            records += segment.count();
+        }
+        trimCandles(System.currentTimeMillis());
+        logger.info("Loaded {} rate snapshots from {} history segments", records, segments.size());
+    }
+
+    /**
+     * Record the rates of a refresh taken at {@code epochMillis}. Snapshots not after the last
+     * recorded one are ignored.
+     */
+    synchronized void append(long epochMillis, RateMatrix matrix) {
+        RateSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last != null && last.timestampAt(last.count() - 1) >= epochMillis) {
+            logger.warn("Ignoring rate snapshot at {}, not after the last one recorded", Instant.ofEpochMilli(epochMillis));
+            return;
+        }
+        long[] micros = new long[PAIRS];
+        for (CurrencyType from : CURRENCIES) {
+            for (CurrencyType to : CURRENCIES) {
+                if (from != to) {
+                    BigDecimal rate = matrix.rate(from, to, epochMillis);
+                    micros[pairIndex(from, to)] = rate == null ? 0
+                            : rate.setScale(RATE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+                }
+            }
+        }
+        if (last == null || last.isFull()) {
+            if (last != null) {
+                last.flush();
+            }
+            try {
+                Path file = Paths.get(directory, String.format("rates-%013d.seg", epochMillis));
+                last = RateSegment.create(file, PAIRS, segmentRecords);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create rate history segment", e);
+            }
+            // Readers only see a segment once it has a record
+            last.append(epochMillis, micros);
+            segments.add(last);
+        } else {
+            last.append(epochMillis, micros);
+        }
+        addToCandles(epochMillis, micros);
+        trimCandles(epochMillis);
+    }
+
+    /**
+     * The rate that applied at {@code time}: the pair's rate in the last snapshot at or before it.
+     */
+    public Optional<RatePoint> rateAt(CurrencyType fromCurrency, CurrencyType toCurrency, Instant time) {
+        if (fromCurrency == toCurrency) {
+            throw new IllegalArgumentException("Currencies must differ");
+        }
+        long epochMillis = time.toEpochMilli();
+        // Last segment starting at or before the time
+        int low = 0;
+        int high = segments.size() - 1;
+        RateSegment segment = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            RateSegment candidate = segments.get(mid);
+            if (candidate.timestampAt(0) <= epochMillis) {
+                segment = candidate;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (segment == null) {
+            return Optional.empty();
+        }
+        int record = segment.floor(epochMillis);
+        long micros = segment.microsAt(record, pairIndex(fromCurrency, toCurrency));
+        if (micros == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new RatePoint(fromCurrency, toCurrency, BigDecimal.valueOf(micros, RATE_SCALE),
+                Instant.ofEpochMilli(segment.timestampAt(record))));
+    }
+
+    /**
+     * Candles for a pair whose buckets start in [start, end), oldest first.
+     */
+    public List<Candle> candles(CurrencyType fromCurrency, CurrencyType toCurrency, CandleResolution resolution,
+                                Instant start, Instant end) {
+        if (fromCurrency == toCurrency) {
+            throw new IllegalArgumentException("Currencies must differ");
+        }
+        return new ArrayList<>(candles.get(resolution).get(pairIndex(fromCurrency, toCurrency))
+                .subMap(resolution.bucketStart(start.toEpochMilli()), end.toEpochMilli()).values());
+    }
+
+    @PreDestroy
+    public void flush() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).flush();
+        }
+    }
+
+    private void addToCandles(long epochMillis, long[] micros) {
+        for (Map.Entry<CandleResolution, List<ConcurrentSkipListMap<Long, Candle>>> entry : candles.entrySet()) {
+            long bucket = entry.getKey().bucketStart(epochMillis);
+            Instant bucketStart = Instant.ofEpochMilli(bucket);
+            for (int pair = 0; pair < PAIRS; pair++) {
+                if (micros[pair] == 0) {
+                    continue;
+                }
+                BigDecimal rate = BigDecimal.valueOf(micros[pair], RATE_SCALE);
+                entry.getValue().get(pair).merge(bucket, new Candle(bucketStart, rate, rate, rate, rate, 1), Candle::merge);
+            }
+        }
+    }
+
+    private void trimCandles(long nowMillis) {
+        for (Map.Entry<CandleResolution, List<ConcurrentSkipListMap<Long, Candle>>> entry : candles.entrySet()) {
+            long oldest = nowMillis - entry.getKey().getRetentionMillis();
+            for (ConcurrentSkipListMap<Long, Candle> pairCandles : entry.getValue()) {
+                pairCandles.headMap(oldest).clear();
+            }
+        }
+    }
+
+    // Pairs in from-then-to ordinal order, skipping same-currency pairs
+    private static int pairIndex(CurrencyType from, CurrencyType to) {
+        int toIndex = to.ordinal() < from.ordinal() ? to.ordinal() : to.ordinal() - 1;
+        return from.ordinal() * (CURRENCIES.length - 1) + toIndex;
+    }
+}
@@ -0,0 +1,129 @@
+package com.swift.wallet.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swift.wallet.enums.CurrencyType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable table of exchange rates indexed by {@link CurrencyType} ordinal, each rate with
+ * its own expiry. Never changed once built; {@link ExchangeRateService} swaps in a new one, so
+ * a reader holding a matrix always sees one consistent set. When every pair is present the
+ * /api/wallets/rates response body is serialized once, up front.
+ */
+final class RateMatrix {
+
+    private static final CurrencyType[] CURRENCIES = CurrencyType.values();
+    private static final int SIZE = CURRENCIES.length;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    static final RateMatrix EMPTY = new RateMatrix(new BigDecimal[SIZE * SIZE], new long[SIZE * SIZE]);
+
+    private final BigDecimal[] rates;
+    private final long[] expiresAtMillis;
+    // Earliest expiry of all pairs, or 0 if any pair is missing
+    private final long completeUntilMillis;
+    private final byte[] ratesJson;
+
+    private RateMatrix(BigDecimal[] rates, long[] expiresAtMillis) {
+        this.rates = rates;
+        this.expiresAtMillis = expiresAtMillis;
+        long until = Long.MAX_VALUE;
+        for (int i = 0; i < rates.length && until > 0; i++) {
+            if (i / SIZE != i % SIZE) {
+                until = rates[i] == null ? 0 : Math.min(until, expiresAtMillis[i]);
+            }
+        }
+        this.completeUntilMillis = until;
+        this.ratesJson = until > 0 ? toJson() : null;
+    }
+
+    /**
+     * Collects rates for a new matrix.
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The rate, or null if this matrix has none for the pair or it expired by {@code nowMillis}.
+     */
+    BigDecimal rate(CurrencyType from, CurrencyType to, long nowMillis) {
+        int i = from.ordinal() * SIZE + to.ordinal();
+        return expiresAtMillis[i] > nowMillis ? rates[i] : null;
+    }
+
+    /**
+     * A copy of this matrix with one rate replaced.
+     */
+    RateMatrix with(CurrencyType from, CurrencyType to, BigDecimal rate, long expiresAtMillis) {
+        BigDecimal[] newRates = Arrays.copyOf(rates, rates.length);
+        long[] newExpiries = Arrays.copyOf(this.expiresAtMillis, this.expiresAtMillis.length);
+        int i = from.ordinal() * SIZE + to.ordinal();
+        newRates[i] = rate;
+        newExpiries[i] = expiresAtMillis;
+        return new RateMatrix(newRates, newExpiries);
+    }
+
+    /**
+     * The serialized rates response, or null unless every pair is present and unexpired.
+     */
+    byte[] ratesJson(long nowMillis) {
+        return completeUntilMillis > nowMillis ? ratesJson : null;
+    }
+
+    int size() {
+        int count = 0;
+        for (BigDecimal rate : rates) {
+            if (rate != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private byte[] toJson() {
+        List<Map<String, Object>> list = new ArrayList<>(SIZE * (SIZE - 1));
+        for (CurrencyType from : CURRENCIES) {
+            for (CurrencyType to : CURRENCIES) {
+                if (from != to) {
+                    Map<String, Object> pair = new LinkedHashMap<>();
+                    pair.put("fromCurrency", from.name());
+                    pair.put("toCurrency", to.name());
+                    pair.put("rate", rates[from.ordinal() * SIZE + to.ordinal()]);
+                    list.add(pair);
+                }
+            }
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", true);
+        body.put("rates", list);
+        try {
+            return JSON.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Builder {
+        private final BigDecimal[] rates = new BigDecimal[SIZE * SIZE];
+        private final long[] expiresAtMillis = new long[SIZE * SIZE];
+
+        Builder put(CurrencyType from, CurrencyType to, BigDecimal rate, long expiresAtMillis) {
+            int i = from.ordinal() * SIZE + to.ordinal();
+            rates[i] = rate;
+            this.expiresAtMillis[i] = expiresAtMillis;
+            return this;
+        }
+
+        RateMatrix build() {
+            return new RateMatrix(rates.clone(), expiresAtMillis.clone());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * One source of exchange rates, queried by {@link RateAggregator}.
+ */
+public interface RateProvider {
+
+    /**
+     * Short name used in logs and metrics.
+     */
+    String name();
+
+    /**
+     * How many units of each supported currency one unit of {@code base} buys, including base
+     * itself at 1.
+     *
+     * @throws RuntimeException if the source is unavailable or any currency is missing
+     */
+    Map<CurrencyType, BigDecimal> fetchTable(CurrencyType base);
+}
@@ -0,0 +1,148 @@
+package com.swift.wallet.service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped file of rate snapshots. After a 16-byte header (magic, version, pairs per
+ * record, capacity) come fixed-width records in time order: the snapshot's epoch millis, then
+ * each pair's rate as a long in millionths. The file is sized for its full capacity up front;
+ * unwritten records are zero. A record's timestamp is written last, so a record with a
+ * timestamp is complete and the count after a restart is the first zero timestamp.
+ * One writer appends; any number of threads read.
+ */
+final class RateSegment {
+
+    static final int MAGIC = 0x52415445; // "RATE"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final Path path;
+    private final int pairs;
+    private final int capacity;
+    private final int recordBytes;
+    private final MappedByteBuffer buffer;
+    private volatile int count;
+
+    private RateSegment(Path path, int pairs, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.pairs = pairs;
+        this.capacity = capacity;
+        this.recordBytes = Long.BYTES * (1 + pairs);
+        this.buffer = buffer;
+    }
+
+    static RateSegment create(Path path, int pairs, int capacity) throws IOException {
+        RateSegment segment = new RateSegment(path, pairs, capacity, map(path, pairs, capacity, StandardOpenOption.CREATE_NEW));
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putInt(8, pairs);
+        segment.buffer.putInt(12, capacity);
+        return segment;
+    }
+
+    /**
+     * Maps an existing segment, or returns null if it was written with another layout.
+     */
+    static RateSegment open(Path path, int pairs) throws IOException {
+        int capacity;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != pairs) {
+                return null;
+            }
+            capacity = header.getInt(12);
+        }
+        RateSegment segment = new RateSegment(path, pairs, capacity, map(path, pairs, capacity));
+        // Records are written in order, so the written ones are a prefix
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segment.timestampAt(mid) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        segment.count = low;
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, int pairs, int capacity, StandardOpenOption... extra) throws IOException {
+        long size = HEADER_BYTES + (long) capacity * Long.BYTES * (1 + pairs);
+        StandardOpenOption[] options = new StandardOpenOption[extra.length + 2];
+        options[0] = StandardOpenOption.READ;
+        options[1] = StandardOpenOption.WRITE;
+        System.arraycopy(extra, 0, options, 2, extra.length);
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Writes one record. The caller checks {@link #isFull()} and keeps timestamps increasing.
+     */
+    void append(long epochMillis, long[] micros) {
+        int offset = offset(count);
+        for (int i = 0; i < pairs; i++) {
+            buffer.putLong(offset + Long.BYTES * (1 + i), micros[i]);
+        }
+        buffer.putLong(offset, epochMillis);
+        count++;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long timestampAt(int record) {
+        return buffer.getLong(offset(record));
+    }
+
+    long microsAt(int record, int pair) {
+        return buffer.getLong(offset(record) + Long.BYTES * (1 + pair));
+    }
+
+    /**
+     * Index of the last record at or before {@code epochMillis}, or -1 if all are later.
+     */
+    int floor(long epochMillis) {
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) <= epochMillis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    private int offset(int record) {
+        return HEADER_BYTES + record * recordBytes;
+    }
+}
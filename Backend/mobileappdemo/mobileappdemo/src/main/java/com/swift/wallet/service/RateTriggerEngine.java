@@ -0,0 +1,220 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerAction;
+import com.swift.wallet.enums.RateTriggerStatus;
+import com.swift.wallet.models.RateTrigger;
+import com.swift.wallet.repository.RateTriggerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires rate triggers when a refresh crosses their threshold. Every ACTIVE trigger is armed in a
+ * {@link RateTriggerIndex} - loaded at startup, added on create, and picked up from other
+ * instances by a periodic sync - so a refresh costs one lookup per currency pair plus the
+ * triggers it fires. Fired triggers run on a bounded pool: alerts notify, conversions take a
+ * quote and convert through the user's wallet mailbox like any other interwallet transfer.
+ * Triggers the pool can't take are re-armed and fire on a later refresh.
+ */
+@Component
+public class RateTriggerEngine {
+    private static final Logger logger = LoggerFactory.getLogger(RateTriggerEngine.class);
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    @Autowired
+    private RateTriggerRepository rateTriggerRepository;
+
+    @Autowired
+    private RateTriggerService rateTriggerService;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private FxQuoteService fxQuoteService;
+
+    @Autowired
+    private WalletCommandSequencer walletCommandSequencer;
+
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Value("${rate.triggers.sync-interval-ms:30000}")
+    private long syncIntervalMs;
+
+    private final RateTriggerIndex index = new RateTriggerIndex();
+    private final ThreadPoolExecutor executor;
+    private final Counter alertsFired;
+    private final Counter conversionsFired;
+    private final Counter failed;
+    private final Counter rejected;
+    private volatile LocalDateTime lastSync;
+
+    public RateTriggerEngine(MeterRegistry meterRegistry,
+                             @Value("${rate.triggers.threads:8}") int threads,
+                             @Value("${rate.triggers.queue-capacity:10000}") int queueCapacity) {
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "rate-trigger-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("rate.triggers.armed", index, RateTriggerIndex::size).register(meterRegistry);
+        this.alertsFired = Counter.builder("rate.triggers.fired").tag("action", "alert").register(meterRegistry);
+        this.conversionsFired = Counter.builder("rate.triggers.fired").tag("action", "convert").register(meterRegistry);
+        this.failed = Counter.builder("rate.triggers.failed").register(meterRegistry);
+        this.rejected = Counter.builder("rate.triggers.rejected").register(meterRegistry);
+    }
+
+    /**
+     * Arm every ACTIVE trigger, in id order a page at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lastSync = LocalDateTime.now();
+        long afterId = 0;
+        List<RateTriggerRepository.ArmedTrigger> page;
+        do {
+            page = rateTriggerRepository.findArmedAfter(RateTriggerStatus.ACTIVE, afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            page.forEach(this::arm);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        logger.info("Armed {} rate triggers", index.size());
+    }
+
+    /**
+     * Pick up triggers created on other instances since the last sync. The window overlaps the
+     * previous one so a trigger committed late isn't missed; arming twice is harmless.
+     */
+    @Scheduled(fixedDelayString = "${rate.triggers.sync-interval-ms:30000}",
+               initialDelayString = "${rate.triggers.sync-interval-ms:30000}")
+    public void sync() {
+        LocalDateTime since = lastSync;
+        if (since == null) {
+            return;
+        }
+        lastSync = LocalDateTime.now();
+        rateTriggerRepository.findArmedCreatedAfter(RateTriggerStatus.ACTIVE, since.minus(syncIntervalMs, ChronoUnit.MILLIS))
+                .forEach(this::arm);
+    }
+
+    public void arm(RateTrigger trigger) {
+        index.add(trigger.getId(), trigger.getFromCurrency(), trigger.getToCurrency(), trigger.getDirection(), trigger.getThreshold());
+    }
+
+    public void disarm(Long triggerId) {
+        index.remove(triggerId);
+    }
+
+    private void arm(RateTriggerRepository.ArmedTrigger trigger) {
+        index.add(trigger.getId(), trigger.getFromCurrency(), trigger.getToCurrency(), trigger.getDirection(), trigger.getThreshold());
+    }
+
+    /**
+     * Check every pair against the rates just refreshed and queue the crossed triggers.
+     */
+    @EventListener
+    public void onRatesRefreshed(ExchangeRateService.RatesRefreshed event) {
+        int queued = 0;
+        int deferred = 0;
+        for (CurrencyType from : CurrencyType.values()) {
+            for (CurrencyType to : CurrencyType.values()) {
+                if (from == to) {
+                    continue;
+                }
+                BigDecimal rate = exchangeRateService.getExchangeRate(from, to);
+                for (RateTriggerIndex.Armed armed : index.takeCrossed(from, to, rate)) {
+                    try {
+                        executor.execute(() -> fire(armed, rate));
+                        queued++;
+                    } catch (RejectedExecutionException e) {
+                        index.add(armed);
+                        deferred++;
+                    }
+                }
+            }
+        }
+        if (deferred > 0) {
+            rejected.increment(deferred);
+            logger.warn("Rate trigger queue full, {} triggers left armed for the next refresh", deferred);
+        }
+        if (queued > 0) {
+            logger.info("Firing {} rate triggers after the refresh at {}", queued, event.refreshedAt());
+        }
+    }
+
+    void fire(RateTriggerIndex.Armed armed, BigDecimal rate) {
+        Optional<RateTrigger> found = rateTriggerRepository.findById(armed.id());
+        if (found.isEmpty() || found.get().getStatus() != RateTriggerStatus.ACTIVE) {
+            return;
+        }
+        RateTrigger trigger = found.get();
+        if (trigger.getAction() == RateTriggerAction.ALERT) {
+            try {
+                if (rateTriggerService.fireAlert(trigger, rate)) {
+                    alertsFired.increment();
+                }
+            } catch (RuntimeException e) {
+                // Still ACTIVE: try again on the next refresh
+                logger.error("Could not fire rate alert {}", trigger.getId(), e);
+                index.add(armed);
+            }
+            return;
+        }
+
+        FxQuoteService.FxQuote quote = null;
+        try {
+            quote = fxQuoteService.quote(trigger.getUserId(), trigger.getFromCurrency(), trigger.getToCurrency());
+            FxQuoteService.FxQuote fixed = quote;
+            boolean converted = walletCommandSequencer.execute(trigger.getUserId(),
+                    () -> balanceUpdateRetrier.run(() -> rateTriggerService.fireConversion(trigger, fixed)));
+            if (converted) {
+                conversionsFired.increment();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Rate trigger {} conversion failed: {}", trigger.getId(), e.getMessage());
+            failed.increment();
+            try {
+                rateTriggerService.markFailed(trigger, quote != null ? quote.rate() : rate, e.getMessage());
+            } catch (RuntimeException markError) {
+                logger.error("Could not record failure of rate trigger {}", trigger.getId(), markError);
+            }
+        }
+    }
+
+    int armedCount() {
+        return index.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
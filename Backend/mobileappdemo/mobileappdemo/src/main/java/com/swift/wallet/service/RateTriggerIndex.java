@@ -0,0 +1,126 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerDirection;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Armed rate triggers, one sorted set per currency pair and direction, ordered by threshold.
+ * A refresh takes only the triggers its rate has crossed - ABOVE triggers with a threshold at
+ * or below the rate, BELOW triggers with a threshold at or above it - which are a head or tail
+ * of the set: O(log n + k) for k fired, however many are armed. Thresholds are held as longs in
+ * millionths, the scale of the stored rates, to keep each entry small.
+ */
+final class RateTriggerIndex {
+
+    /**
+     * An armed trigger. Equal thresholds are kept apart by id.
+     */
+    record Armed(long id, CurrencyType fromCurrency, CurrencyType toCurrency, RateTriggerDirection direction,
+                 long thresholdMicros) implements Comparable<Armed> {
+
+        BigDecimal threshold() {
+            return BigDecimal.valueOf(thresholdMicros, RATE_SCALE);
+        }
+
+        @Override
+        public int compareTo(Armed other) {
+            int byThreshold = Long.compare(thresholdMicros, other.thresholdMicros);
+            return byThreshold != 0 ? byThreshold : Long.compare(id, other.id);
+        }
+    }
+
+    static final int RATE_SCALE = 6;
+    // Largest rate whose micros fit in a long; DECIMAL(19,6) would store more
+    static final BigDecimal MAX_RATE = BigDecimal.valueOf(Long.MAX_VALUE, RATE_SCALE);
+    private static final CurrencyType[] CURRENCIES = CurrencyType.values();
+    private static final RateTriggerDirection[] DIRECTIONS = RateTriggerDirection.values();
+
+    private final List<NavigableSet<Armed>> books;
+    private final Map<Long, Armed> byId = new ConcurrentHashMap<>();
+
+    RateTriggerIndex() {
+        int count = CURRENCIES.length * (CURRENCIES.length - 1) * DIRECTIONS.length;
+        books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new ConcurrentSkipListSet<>());
+        }
+    }
+
+    static long toMicros(BigDecimal rate) {
+        return rate.setScale(RATE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Arm a trigger; re-arming one already armed replaces it.
+     */
+    void add(long id, CurrencyType fromCurrency, CurrencyType toCurrency, RateTriggerDirection direction, BigDecimal threshold) {
+        add(new Armed(id, fromCurrency, toCurrency, direction, toMicros(threshold)));
+    }
+
+    void add(Armed armed) {
+        Armed previous = byId.put(armed.id(), armed);
+        if (previous != null) {
+            book(previous).remove(previous);
+        }
+        book(armed).add(armed);
+    }
+
+    boolean remove(long id) {
+        Armed armed = byId.remove(id);
+        return armed != null && book(armed).remove(armed);
+    }
+
+    boolean contains(long id) {
+        return byId.containsKey(id);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    /**
+     * Disarm and return the pair's triggers that {@code rate} has crossed. A trigger is only
+     * returned to one caller, even if two refreshes race.
+     */
+    List<Armed> takeCrossed(CurrencyType fromCurrency, CurrencyType toCurrency, BigDecimal rate) {
+        long rateMicros = toMicros(rate);
+        List<Armed> crossed = new ArrayList<>();
+        takeAll(books.get(bookIndex(fromCurrency, toCurrency, RateTriggerDirection.ABOVE))
+                .headSet(new Armed(Long.MAX_VALUE, fromCurrency, toCurrency, RateTriggerDirection.ABOVE, rateMicros), true), crossed);
+        takeAll(books.get(bookIndex(fromCurrency, toCurrency, RateTriggerDirection.BELOW))
+                .tailSet(new Armed(Long.MIN_VALUE, fromCurrency, toCurrency, RateTriggerDirection.BELOW, rateMicros), true), crossed);
+        return crossed;
+    }
+
+    private void takeAll(NavigableSet<Armed> range, List<Armed> crossed) {
+        for (Armed armed : range) {
+            // Whoever removes it from the book owns it
+            if (range.remove(armed)) {
+                byId.remove(armed.id(), armed);
+                crossed.add(armed);
+            }
+        }
+    }
+
+    private NavigableSet<Armed> book(Armed armed) {
+        return books.get(bookIndex(armed.fromCurrency(), armed.toCurrency(), armed.direction()));
+    }
+
+    // Pairs in from-then-to ordinal order, skipping same-currency pairs, then direction
+    private static int bookIndex(CurrencyType from, CurrencyType to, RateTriggerDirection direction) {
+        if (from == to) {
+            throw new IllegalArgumentException("Currencies must differ");
+        }
+        int toIndex = to.ordinal() < from.ordinal() ? to.ordinal() : to.ordinal() - 1;
+        return (from.ordinal() * (CURRENCIES.length - 1) + toIndex) * DIRECTIONS.length + direction.ordinal();
+    }
+}
@@ -0,0 +1,130 @@
+package com.swift.wallet.service;
+
+import com.swift.auth.repository.UserRepository;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.service.OutboxService;
+import com.swift.wallet.dto.TransferRequest;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerAction;
+import com.swift.wallet.enums.RateTriggerDirection;
+import com.swift.wallet.enums.RateTriggerStatus;
+import com.swift.wallet.models.RateTrigger;
+import com.swift.wallet.repository.RateTriggerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Rate triggers: storing them, and recording them fired. Which triggers to fire is decided by
+ * {@link RateTriggerEngine}; every outcome here starts by moving the row out of ACTIVE, so a
+ * trigger fires once even when more than one instance sees it cross.
+ */
+@Service
+@Transactional
+public class RateTriggerService {
+
+    @Autowired
+    private RateTriggerRepository rateTriggerRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${rate.triggers.max-per-user:20}")
+    private int maxPerUser;
+
+    public RateTrigger create(Long userId, CurrencyType fromCurrency, CurrencyType toCurrency, RateTriggerDirection direction,
+                              BigDecimal threshold, RateTriggerAction action, BigDecimal amount) {
+        if (fromCurrency == toCurrency) {
+            throw new RuntimeException("From and to currency must differ");
+        }
+        if (threshold == null || threshold.signum() <= 0) {
+            throw new RuntimeException("Threshold must be greater than 0");
+        }
+        // Checked before saving: a row the index can't arm would also fail every startup
+        if (threshold.stripTrailingZeros().scale() > RateTriggerIndex.RATE_SCALE) {
+            throw new RuntimeException("Threshold can have at most " + RateTriggerIndex.RATE_SCALE + " decimal places");
+        }
+        if (threshold.compareTo(RateTriggerIndex.MAX_RATE) > 0) {
+            throw new RuntimeException("Threshold must be at most " + RateTriggerIndex.MAX_RATE);
+        }
+        if (action == RateTriggerAction.CONVERT && (amount == null || amount.signum() <= 0)) {
+            throw new RuntimeException("A conversion trigger needs an amount greater than 0");
+        }
+        if (rateTriggerRepository.countByUserIdAndStatus(userId, RateTriggerStatus.ACTIVE) >= maxPerUser) {
+            throw new RuntimeException("You can have at most " + maxPerUser + " active rate triggers");
+        }
+        return rateTriggerRepository.save(new RateTrigger(userId, fromCurrency, toCurrency, direction, threshold, action,
+                action == RateTriggerAction.CONVERT ? amount : null));
+    }
+
+    @Transactional(readOnly = true)
+    public List<RateTrigger> list(Long userId, int limit) {
+        return rateTriggerRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Cancel one of the user's ACTIVE triggers. False if it isn't theirs or has already fired.
+     */
+    public boolean cancel(Long userId, Long triggerId) {
+        return rateTriggerRepository.cancel(triggerId, userId) == 1;
+    }
+
+    /**
+     * Fire an ALERT trigger. False if it was no longer ACTIVE.
+     */
+    public boolean fireAlert(RateTrigger trigger, BigDecimal rate) {
+        if (rateTriggerRepository.claim(trigger.getId(), rate) == 0) {
+            return false;
+        }
+        outboxService.publish(userRepository.getReferenceById(trigger.getUserId()), NotificationType.RATE_ALERT,
+                "Rate alert", describe(trigger) + " - now " + rate, trigger.getId());
+        return true;
+    }
+
+    /**
+     * Fire a CONVERT trigger: mark it FIRED and convert its amount at the quote, in one
+     * transaction, so a failed conversion leaves the trigger ACTIVE for {@link #markFailed}.
+     * The conversion sends its own currency exchange notification. False if it was no longer ACTIVE.
+     */
+    public boolean fireConversion(RateTrigger trigger, FxQuoteService.FxQuote quote) {
+        if (rateTriggerRepository.claim(trigger.getId(), quote.rate()) == 0) {
+            return false;
+        }
+        TransferRequest request = new TransferRequest(trigger.getFromCurrency(), trigger.getToCurrency(), trigger.getAmount(),
+                "Rate trigger " + trigger.getId());
+        request.setUserId(trigger.getUserId());
+        request.setQuoteId(quote.id());
+        return walletService.transferMoney(request);
+    }
+
+    /**
+     * Give up on a trigger whose conversion failed, e.g. for lack of funds, and tell the user.
+     */
+    public void markFailed(RateTrigger trigger, BigDecimal rate, String reason) {
+        String trimmed = reason == null ? "Unknown error" : reason.length() > 255 ? reason.substring(0, 255) : reason;
+        if (rateTriggerRepository.markFailed(trigger.getId(), rate, trimmed) == 0) {
+            return;
+        }
+        outboxService.publish(userRepository.getReferenceById(trigger.getUserId()), NotificationType.RATE_ALERT,
+                "Rate trigger failed", "Could not convert " + trigger.getAmount() + " " + trigger.getFromCurrency() + " to "
+                        + trigger.getToCurrency() + " at " + rate + ": " + trimmed,
+                trigger.getId());
+    }
+
+    private String describe(RateTrigger trigger) {
+        return trigger.getFromCurrency() + "/" + trigger.getToCurrency() + " "
+                + (trigger.getDirection() == RateTriggerDirection.ABOVE ? "rose to " : "fell to ")
+                + trigger.getThreshold().stripTrailingZeros().toPlainString();
+    }
+}
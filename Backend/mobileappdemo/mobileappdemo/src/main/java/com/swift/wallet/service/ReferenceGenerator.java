@@ -0,0 +1,95 @@
+package com.swift.wallet.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transaction references like TRANSFER_0J5Q3Z8K2M40R. The suffix is a 63-bit id - 41 bits of
+ * milliseconds since 2024-01-01, a 10-bit node id and a 12-bit per-millisecond sequence - written
+ * as 13 Crockford base32 digits, so references from one node sort in the order they were issued
+ * and two nodes with different node ids can never produce the same one.
+ */
+@Component
+public class ReferenceGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceGenerator.class);
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final int DIGITS = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final Clock clock;
+    private final long nodeBits;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public ReferenceGenerator(@Value("${wallet.reference.node-id:-1}") int nodeId) {
+        this(nodeId < 0 ? derivedNodeId() : nodeId, Clock.systemUTC());
+    }
+
+    ReferenceGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Reference node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.clock = clock;
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        logger.info("Transaction references use node id {}", nodeId);
+    }
+
+    /**
+     * A new reference with the given type prefix, e.g. next("SEND") -> SEND_0J5Q3Z8K2M40R.
+     */
+    public String next(String prefix) {
+        long id = nextId();
+        int prefixLength = prefix.length();
+        char[] chars = new char[prefixLength + 1 + DIGITS];
+        prefix.getChars(0, prefixLength, chars, 0);
+        chars[prefixLength] = '_';
+        for (int i = chars.length - 1; i > prefixLength; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Lock-free: one CAS per id. Past 4096 ids in a millisecond, or if the clock steps back, the
+     * sequence simply carries into the next millisecond, so ids never repeat or go backwards.
+     */
+    long nextId() {
+        long now = clock.millis() - EPOCH_MILLIS;
+        while (true) {
+            long previous = last.get();
+            long candidate = (previous >>> SEQUENCE_BITS) < now ? now << SEQUENCE_BITS : previous + 1;
+            if (last.compareAndSet(previous, candidate)) {
+                long millis = candidate >>> SEQUENCE_BITS;
+                long sequence = candidate & ((1L << SEQUENCE_BITS) - 1);
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+            }
+        }
+    }
+
+    // Fallback when wallet.reference.node-id isn't set; fine for a single instance, but each
+    // instance of a multi-instance deployment should be given its own id
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return (host + ":" + ProcessHandle.current().pid()).hashCode() & MAX_NODE_ID;
+    }
+}
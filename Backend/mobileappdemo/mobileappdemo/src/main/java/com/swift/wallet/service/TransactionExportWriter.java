@@ -0,0 +1,351 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.dto.TransactionHistoryDto;
+import com.swift.wallet.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Encodes transaction history rows as CSV or NDJSON into a fixed buffer that goes to the output
+ * stream whenever it fills, so an export of any length holds one buffer and the row being
+ * written. Numbers, dates and escaped text are written byte by byte rather than through
+ * String.format or a StringBuilder per row.
+ */
+final class TransactionExportWriter {
+
+    static final String CSV_HEADER =
+            "Transaction ID,Wallet ID,Type,Display Type,Amount,Currency,Description,Reference,Status,Recipient,Sender,Date,Time\n";
+
+    private static final byte[] CSV_HEADER_BYTES = CSV_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] MONTHS = ascii("Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec");
+    private static final byte[] HEX = ascii("0123456789abcdef")[0];
+    private static final byte[] NULL = ascii("null")[0];
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Room for the longest run written without checking: a long with its sign, or a formatted date
+    private static final int MAX_TOKEN = 24;
+
+    private final OutputStream out;
+    private final ExportFormat format;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long rows;
+
+    TransactionExportWriter(OutputStream out, ExportFormat format) {
+        this.out = out;
+        this.format = format;
+        if (format == ExportFormat.CSV) {
+            System.arraycopy(CSV_HEADER_BYTES, 0, buffer, 0, CSV_HEADER_BYTES.length);
+            position = CSV_HEADER_BYTES.length;
+        }
+    }
+
+    void write(TransactionHistoryDto row) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsv(row);
+        } else {
+            writeJson(row);
+        }
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * Writes out whatever is buffered. The stream itself is the caller's to finish and close.
+     */
+    void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private void writeCsv(TransactionHistoryDto row) throws IOException {
+        writeLong(row.getId());
+        writeByte(',');
+        writeLong(row.getWalletId());
+        writeByte(',');
+        writeAscii(row.getTransactionType());
+        writeByte(',');
+        writeCsvText(row.getDisplayType(), false);
+        writeByte(',');
+        writeAmount(row.getAmount());
+        writeByte(',');
+        writeAscii(row.getCurrency() != null ? row.getCurrency().name() : null);
+        writeByte(',');
+        writeCsvText(row.getDescription(), true);
+        writeByte(',');
+        writeCsvText(row.getReference(), false);
+        writeByte(',');
+        writeCsvText(row.getStatus(), false);
+        writeByte(',');
+        writeCsvText(row.getRecipientName(), false);
+        writeByte(',');
+        writeCsvText(row.getSenderName(), false);
+        writeByte(',');
+        LocalDateTime createdAt = row.getCreatedAt();
+        if (createdAt != null) {
+            // "MMM dd, yyyy" then "HH:mm", as the history screen shows them
+            ensure(MAX_TOKEN);
+            byte[] month = MONTHS[createdAt.getMonthValue() - 1];
+            System.arraycopy(month, 0, buffer, position, month.length);
+            position += month.length;
+            buffer[position++] = ' ';
+            writeDigits(createdAt.getDayOfMonth(), 2);
+            buffer[position++] = ',';
+            buffer[position++] = ' ';
+            writeDigits(createdAt.getYear(), 4);
+            buffer[position++] = ',';
+            writeDigits(createdAt.getHour(), 2);
+            buffer[position++] = ':';
+            writeDigits(createdAt.getMinute(), 2);
+        } else {
+            writeByte(',');
+        }
+        writeByte('\n');
+    }
+
+    private void writeJson(TransactionHistoryDto row) throws IOException {
+        writeAscii("{\"id\":");
+        writeLong(row.getId());
+        writeAscii(",\"walletId\":");
+        writeLong(row.getWalletId());
+        writeAscii(",\"transactionType\":");
+        writeJsonText(row.getTransactionType());
+        writeAscii(",\"displayType\":");
+        writeJsonText(row.getDisplayType());
+        writeAscii(",\"amount\":");
+        if (row.getAmount() != null) {
+            writeAmount(row.getAmount());
+        } else {
+            writeBytes(NULL);
+        }
+        writeAscii(",\"currency\":");
+        writeJsonText(row.getCurrency() != null ? row.getCurrency().name() : null);
+        writeAscii(",\"description\":");
+        writeJsonText(row.getDescription());
+        writeAscii(",\"reference\":");
+        writeJsonText(row.getReference());
+        writeAscii(",\"status\":");
+        writeJsonText(row.getStatus());
+        writeAscii(",\"recipientName\":");
+        writeJsonText(row.getRecipientName());
+        writeAscii(",\"senderName\":");
+        writeJsonText(row.getSenderName());
+        writeAscii(",\"createdAt\":");
+        LocalDateTime createdAt = row.getCreatedAt();
+        if (createdAt != null) {
+            // ISO-8601 local date-time, as LocalDateTime.toString writes it
+            ensure(MAX_TOKEN + 8);
+            buffer[position++] = '"';
+            writeDigits(createdAt.getYear(), 4);
+            buffer[position++] = '-';
+            writeDigits(createdAt.getMonthValue(), 2);
+            buffer[position++] = '-';
+            writeDigits(createdAt.getDayOfMonth(), 2);
+            buffer[position++] = 'T';
+            writeDigits(createdAt.getHour(), 2);
+            buffer[position++] = ':';
+            writeDigits(createdAt.getMinute(), 2);
+            buffer[position++] = ':';
+            writeDigits(createdAt.getSecond(), 2);
+            int nano = createdAt.getNano();
+            if (nano != 0) {
+                buffer[position++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    writeDigits(nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    writeDigits(nano / 1_000, 6);
+                } else {
+                    writeDigits(nano, 9);
+                }
+            }
+            buffer[position++] = '"';
+        } else {
+            writeBytes(NULL);
+        }
+        writeAscii("}\n");
+    }
+
+    // Quoted when asked to be (the description always is) or when the value needs it
+    private void writeCsvText(String value, boolean quote) throws IOException {
+        if (value == null) {
+            if (quote) {
+                writeAscii("\"\"");
+            }
+            return;
+        }
+        boolean quoted = quote || needsQuotes(value);
+        if (quoted) {
+            writeByte('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writeByte('"');
+                writeByte('"');
+            } else {
+                i = writeChar(value, i);
+            }
+        }
+        if (quoted) {
+            writeByte('"');
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeJsonText(String value) throws IOException {
+        if (value == null) {
+            writeBytes(NULL);
+            return;
+        }
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeByte('\\');
+                writeByte(c);
+            } else if (c == '\n') {
+                writeAscii("\\n");
+            } else if (c == '\r') {
+                writeAscii("\\r");
+            } else if (c == '\t') {
+                writeAscii("\\t");
+            } else if (c < 0x20) {
+                ensure(6);
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xF];
+            } else {
+                i = writeChar(value, i);
+            }
+        }
+        writeByte('"');
+    }
+
+    // UTF-8 encodes the char at i (and its low surrogate); returns the index of the last char used
+    private int writeChar(String value, int i) throws IOException {
+        char c = value.charAt(i);
+        ensure(4);
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void writeAmount(BigDecimal amount) throws IOException {
+        if (amount != null) {
+            writeAscii(amount.toPlainString());
+        }
+    }
+
+    private void writeLong(Long boxed) throws IOException {
+        if (boxed == null) {
+            return;
+        }
+        ensure(MAX_TOKEN);
+        long value = boxed;
+        if (value < 0) {
+            buffer[position++] = '-';
+            if (value == Long.MIN_VALUE) {
+                writeAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    // Zero-padded to width; callers have ensured the room
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void writeAscii(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static byte[][] ascii(String... values) {
+        byte[][] bytes = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = values[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.swift.wallet.service;
+
+import com.swift.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recomputes every user's transaction rollups from the transactions table, a page of users at
+ * a time with the page's users spread over a pool. Each user is rebuilt in their own short
+ * database transaction, so live updates only ever wait on the user being rebuilt. Runs on the
+ * configured cron (off by default) or when called, e.g. after rows were changed by hand.
+ */
+@Component
+public class TransactionRollupRebuilder {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRollupRebuilder.class);
+
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${transaction.rollups.rebuild.threads:4}")
+    private int threads;
+
+    @Value("${transaction.rollups.rebuild.page-size:1000}")
+    private int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${transaction.rollups.rebuild.cron:-}")
+    public void scheduledRebuild() {
+        rebuildAll();
+    }
+
+    /**
+     * Rebuild every user's rollups. Returns how many users were rebuilt, or -1 if a rebuild
+     * was already running on this instance.
+     */
+    public int rebuildAll() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Transaction rollup rebuild already running, not starting another");
+            return -1;
+        }
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "rollup-rebuild-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long started = System.nanoTime();
+        int rebuilt = 0;
+        int failed = 0;
+        try {
+            long afterId = 0;
+            List<Long> userIds;
+            while (!(userIds = userRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize))).isEmpty()) {
+                List<Callable<Integer>> tasks = new ArrayList<>(userIds.size());
+                for (Long userId : userIds) {
+                    tasks.add(() -> transactionRollupService.rebuild(userId));
+                }
+                for (Future<Integer> result : executor.invokeAll(tasks)) {
+                    try {
+                        result.get();
+                        rebuilt++;
+                    } catch (ExecutionException e) {
+                        failed++;
+                        logger.warn("Could not rebuild transaction rollups: {}", e.getCause().getMessage());
+                    }
+                }
+                afterId = userIds.get(userIds.size() - 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Transaction rollup rebuild interrupted after {} users", rebuilt);
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+        logger.info("Rebuilt transaction rollups of {} users in {} ms ({} failed)", rebuilt,
+                (System.nanoTime() - started) / 1_000_000, failed);
+        return rebuilt;
+    }
+}
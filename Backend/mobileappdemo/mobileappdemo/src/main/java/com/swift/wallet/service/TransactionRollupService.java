@@ -0,0 +1,135 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.Transaction;
+import com.swift.wallet.models.TransactionRollup;
+import com.swift.wallet.repository.TransactionRepository;
+import com.swift.wallet.repository.TransactionRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@link TransactionRollup} rows in step with the transactions table. Changes made
+ * during a database transaction are collected and written just before it commits, one upsert
+ * per rollup row in key order: a transaction touching the same row twice writes it once, and
+ * two transfers between the same users in opposite directions lock their rows in the same
+ * order instead of deadlocking.
+ */
+@Service
+public class TransactionRollupService {
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * Count a newly saved transaction. Must be called inside the transaction that saved it.
+     */
+    public void added(Transaction transaction) {
+        record(keyOf(transaction, transaction.getStatus()), 1, transaction.getAmount());
+    }
+
+    /**
+     * Move a transaction from its previous status to its current one.
+     */
+    public void statusChanged(Transaction transaction, String previousStatus) {
+        record(keyOf(transaction, previousStatus), -1, transaction.getAmount().negate());
+        record(keyOf(transaction, transaction.getStatus()), 1, transaction.getAmount());
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionRollup> getRollups(Long userId) {
+        return transactionRollupRepository.findByUserId(userId);
+    }
+
+    /**
+     * Recompute a user's rollups from their transactions. The user's rows are deleted first:
+     * with MySQL's default isolation that locks the user's key range, so a transaction
+     * committing meanwhile waits and then adds its change on top of the rebuilt rows instead of
+     * being counted twice or lost.
+     */
+    @Transactional
+    public int rebuild(Long userId) {
+        transactionRollupRepository.deleteAllOfUser(userId);
+        List<Object[]> rows = transactionRepository.aggregateByUserId(userId);
+        for (Object[] row : rows) {
+            // A NULL status lands on the same "" row the live updates use
+            TransactionRollup.Key key = new TransactionRollup.Key(userId, (TransactionType) row[0], (String) row[1],
+                    (CurrencyType) row[2]);
+            transactionRollupRepository.add(userId, key.getType().name(), key.getStatus(), key.getCurrency().name(),
+                    (Long) row[3], (BigDecimal) row[4]);
+        }
+        return rows.size();
+    }
+
+    private static TransactionRollup.Key keyOf(Transaction transaction, String status) {
+        return new TransactionRollup.Key(transaction.getUserId(), transaction.getType(), status, transaction.getCurrency());
+    }
+
+    private void record(TransactionRollup.Key key, long count, BigDecimal amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Transaction rollups can only change inside a database transaction");
+        }
+        PendingChanges pending = null;
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges changes && changes.owner == this) {
+                pending = changes;
+                break;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingChanges(this);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(key, count, amount);
+    }
+
+    private void write(TreeMap<TransactionRollup.Key, Change> changes) {
+        for (Map.Entry<TransactionRollup.Key, Change> entry : changes.entrySet()) {
+            Change change = entry.getValue();
+            if (change.count == 0 && change.amount.signum() == 0) {
+                continue;
+            }
+            TransactionRollup.Key key = entry.getKey();
+            transactionRollupRepository.add(key.getUserId(), key.getType().name(), key.getStatus(), key.getCurrency().name(),
+                    change.count, change.amount);
+        }
+    }
+
+    private static final class Change {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+    }
+
+    // One per database transaction; synchronizations of a suspended outer transaction aren't visible
+    private static final class PendingChanges implements TransactionSynchronization {
+        private final TransactionRollupService owner;
+        private final TreeMap<TransactionRollup.Key, Change> changes = new TreeMap<>();
+
+        PendingChanges(TransactionRollupService owner) {
+            this.owner = owner;
+        }
+
+        void add(TransactionRollup.Key key, long count, BigDecimal amount) {
+            Change change = changes.computeIfAbsent(key, k -> new Change());
+            change.count += count;
+            change.amount = change.amount.add(amount);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            owner.write(changes);
+        }
+    }
+}
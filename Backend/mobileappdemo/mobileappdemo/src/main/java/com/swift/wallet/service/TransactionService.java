@@ -1,24 +1,35 @@
 package com.swift.wallet.service;
 
+import com.swift.mobileappdemo.paging.Cursor;
+import com.swift.mobileappdemo.paging.CursorPage;
 import com.swift.wallet.dto.TransactionHistoryDto;
 import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.ExportFormat;
 import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.JournalPosting;
 import com.swift.wallet.models.Transaction;
+import com.swift.wallet.models.TransactionRollup;
 import com.swift.wallet.models.Wallet;
 import com.swift.wallet.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class TransactionService {
@@ -26,9 +37,13 @@ public class TransactionService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+
     /**
      * Create a new transaction with enhanced description
      */
+    @Transactional
     public Transaction createTransaction(Wallet wallet, TransactionType type, BigDecimal amount, 
                                        CurrencyType currency, String description, String reference) {
         Transaction transaction = new Transaction();
@@ -42,12 +57,43 @@ public class TransactionService {
         transaction.setCreatedAt(LocalDateTime.now());
         transaction.setUpdatedAt(LocalDateTime.now());
         
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionRollupService.added(saved);
+        return saved;
+    }
+
+    /**
+     * Project a wallet journal posting into the transaction history. For wallet-to-wallet
+     * entries the counterpart posting supplies the converted amount/currency.
+     */
+    @Transactional
+    public Transaction recordPosting(JournalPosting posting, String reference, JournalPosting counterpart) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(posting.getWallet());
+        transaction.setType(posting.getEntry().getType());
+        transaction.setAmount(posting.getAmount());
+        transaction.setCurrency(posting.getCurrency());
+        transaction.setDescription(posting.getMemo());
+        transaction.setReference(reference);
+        transaction.setStatus("COMPLETED");
+        transaction.setJournalPostingId(posting.getId());
+        if (posting.getEntry().getExchangeRate() != null && counterpart != null) {
+            transaction.setExchangeRate(posting.getEntry().getExchangeRate());
+            transaction.setConvertedAmount(counterpart.getAmount().abs());
+            transaction.setConvertedCurrency(counterpart.getCurrency());
+        }
+        transaction.setCreatedAt(LocalDateTime.now());
+        transaction.setUpdatedAt(LocalDateTime.now());
+
+        Transaction saved = transactionRepository.save(transaction);
+        transactionRollupService.added(saved);
+        return saved;
     }
 
     /**
      * Create transfer transactions with recipient/sender information
      */
+    @Transactional
     public void createTransferTransactions(Wallet fromWallet, Wallet toWallet, BigDecimal amount, 
                                          CurrencyType currency, String description, String reference) {
         // Create debit transaction for sender
@@ -63,36 +109,28 @@ public class TransactionService {
      * Get transactions for a wallet with enhanced DTO
      */
     public List<TransactionHistoryDto> getWalletTransactions(Long walletId) {
-        List<Transaction> transactions = transactionRepository.findByWalletIdOrderByCreatedAtDesc(walletId);
-        return transactions.stream()
-                .map(TransactionHistoryDto::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findWalletHistory(walletId);
     }
 
     /**
      * Get transactions for a wallet with pagination and enhanced DTO
      */
     public Page<TransactionHistoryDto> getWalletTransactionsPaginated(Long walletId, Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findByWalletId(walletId, pageable);
-        return transactions.map(TransactionHistoryDto::new);
+        return transactionRepository.findWalletHistory(walletId, ownerFirst("wallet.id", pageable));
     }
 
     /**
      * Get all transactions for a user with enhanced DTO
      */
     public List<TransactionHistoryDto> getUserTransactions(Long userId) {
-        List<Transaction> transactions = transactionRepository.findUserTransactions(userId);
-        return transactions.stream()
-                .map(TransactionHistoryDto::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findUserHistory(userId);
     }
 
     /**
      * Get all transactions for a user with pagination and enhanced DTO
      */
     public Page<TransactionHistoryDto> getUserTransactionsPaginated(Long userId, Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findUserTransactionsPaginated(userId, pageable);
-        return transactions.map(TransactionHistoryDto::new);
+        return transactionRepository.findUserHistory(userId, ownerFirst("userId", pageable));
     }
 
     /**
@@ -101,40 +139,116 @@ public class TransactionService {
     public Page<TransactionHistoryDto> getTransactionHistory(Long userId, Long walletId, String type, 
                                                            String status, LocalDateTime startDate, 
                                                            LocalDateTime endDate, Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findTransactionHistory(userId, walletId, type, status, startDate, endDate, pageable);
-        return transactions.map(TransactionHistoryDto::new);
+        return transactionRepository.findHistory(userId, walletId, parseType(type), status, startDate, endDate,
+                ownerFirst("userId", pageable));
+    }
+
+    /**
+     * A page of a user's transactions, newest first, read from an opaque cursor (null for the
+     * newest page) rather than an offset, so deep pages cost the same as the first.
+     */
+    public CursorPage<TransactionHistoryDto> getUserTransactionFeed(Long userId, String cursor, int size) {
+        return getTransactionHistoryFeed(userId, null, null, null, null, null, cursor, size);
+    }
+
+    /**
+     * A page of filtered transaction history read from a cursor; the filters are those of
+     * {@link #getTransactionHistory} and must be the same for every page of a feed.
+     */
+    public CursorPage<TransactionHistoryDto> getTransactionHistoryFeed(Long userId, Long walletId, String type,
+                                                                      String status, LocalDateTime startDate,
+                                                                      LocalDateTime endDate, String cursor, int size) {
+        TransactionType transactionType = parseType(type);
+        Cursor position = cursor != null ? Cursor.decode(cursor) : null;
+        List<TransactionHistoryDto> rows;
+        if (position == null) {
+            rows = transactionRepository.findHistoryFeed(userId, walletId, transactionType, status, startDate, endDate, size + 1);
+        } else if (position.older()) {
+            rows = transactionRepository.findHistoryFeedOlder(userId, walletId, transactionType, status, startDate, endDate,
+                    position.createdAt(), position.id(), size + 1);
+        } else {
+            rows = transactionRepository.findHistoryFeedNewer(userId, walletId, transactionType, status, startDate, endDate,
+                    position.createdAt(), position.id(), size + 1);
+        }
+        return CursorPage.of(rows, size, position, TransactionHistoryDto::getCreatedAt, TransactionHistoryDto::getId);
+    }
+
+    /**
+     * A page of a wallet's transactions, newest first, read from a cursor.
+     */
+    public CursorPage<TransactionHistoryDto> getWalletTransactionFeed(Long walletId, String cursor, int size) {
+        Cursor position = cursor != null ? Cursor.decode(cursor) : null;
+        List<TransactionHistoryDto> rows;
+        if (position == null) {
+            rows = transactionRepository.findWalletFeed(walletId, size + 1);
+        } else if (position.older()) {
+            rows = transactionRepository.findWalletFeedOlder(walletId, position.createdAt(), position.id(), size + 1);
+        } else {
+            rows = transactionRepository.findWalletFeedNewer(walletId, position.createdAt(), position.id(), size + 1);
+        }
+        return CursorPage.of(rows, size, position, TransactionHistoryDto::getCreatedAt, TransactionHistoryDto::getId);
+    }
+
+    /**
+     * How many transactions a history feed with these filters holds. Feeds don't count by
+     * themselves; this is for callers that ask for a total.
+     */
+    public long countTransactionHistory(Long userId, Long walletId, String type, String status,
+                                        LocalDateTime startDate, LocalDateTime endDate) {
+        return transactionRepository.countHistory(userId, walletId, parseType(type), status, startDate, endDate);
+    }
+
+    public long countWalletTransactions(Long walletId) {
+        return transactionRepository.countByWalletId(walletId);
+    }
+
+    private TransactionType parseType(String type) {
+        return type != null ? TransactionType.valueOf(type.toUpperCase()) : null;
     }
 
     /**
-     * Get transaction summary/statistics for a user
+     * The page's sort (newest first if none) behind the property the query filters on. That
+     * property is the same on every row, so the order is unchanged, but it makes the sort match
+     * the (owner, created_at) index.
      */
+    private Pageable ownerFirst(String ownerProperty, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by(Sort.Direction.DESC, "createdAt");
+        Sort.Direction direction = sort.iterator().next().getDirection();
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(direction, ownerProperty).and(sort));
+    }
+
+    /**
+     * Totals from the user's rollup rows, which are kept current as transactions are written;
+     * only the last-7-days count still reads transactions, over a week of the (user_id,
+     * created_at) index.
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getTransactionSummary(Long userId) {
+        long totalTransactions = 0;
+        BigDecimal totalDeposits = BigDecimal.ZERO;
+        BigDecimal totalWithdrawals = BigDecimal.ZERO;
+        Map<String, Long> byStatus = new HashMap<>();
+        for (TransactionRollup rollup : transactionRollupService.getRollups(userId)) {
+            totalTransactions += rollup.getTxCount();
+            if (rollup.getType() == TransactionType.DEPOSIT) {
+                totalDeposits = totalDeposits.add(rollup.getAmountSum());
+            } else if (rollup.getType() == TransactionType.WITHDRAWAL) {
+                totalWithdrawals = totalWithdrawals.add(rollup.getAmountSum());
+            }
+            byStatus.merge(rollup.getStatus(), rollup.getTxCount(), Long::sum);
+        }
+
         Map<String, Object> summary = new HashMap<>();
-        
-        // Total transactions
-        long totalTransactions = transactionRepository.countByUserId(userId);
         summary.put("totalTransactions", totalTransactions);
-        
-        // Total amount by type
-        BigDecimal totalDeposits = transactionRepository.sumAmountByUserIdAndType(userId, TransactionType.DEPOSIT);
-        BigDecimal totalWithdrawals = transactionRepository.sumAmountByUserIdAndType(userId, TransactionType.WITHDRAWAL);
-        summary.put("totalDeposits", totalDeposits != null ? totalDeposits : BigDecimal.ZERO);
-        summary.put("totalWithdrawals", totalWithdrawals != null ? totalWithdrawals : BigDecimal.ZERO);
-        
-        // Transactions by status
-        long completedTransactions = transactionRepository.countByUserIdAndStatus(userId, "COMPLETED");
-        long pendingTransactions = transactionRepository.countByUserIdAndStatus(userId, "PENDING");
-        long failedTransactions = transactionRepository.countByUserIdAndStatus(userId, "FAILED");
-        
-        summary.put("completedTransactions", completedTransactions);
-        summary.put("pendingTransactions", pendingTransactions);
-        summary.put("failedTransactions", failedTransactions);
-        
+        summary.put("totalDeposits", totalDeposits);
+        summary.put("totalWithdrawals", totalWithdrawals);
+        summary.put("completedTransactions", byStatus.getOrDefault("COMPLETED", 0L));
+        summary.put("pendingTransactions", byStatus.getOrDefault("PENDING", 0L));
+        summary.put("failedTransactions", byStatus.getOrDefault("FAILED", 0L));
+
         // Recent activity (last 7 days)
         LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-        long recentTransactions = transactionRepository.countByUserIdAndCreatedAtAfter(userId, weekAgo);
-        summary.put("recentTransactions", recentTransactions);
-        
+        summary.put("recentTransactions", transactionRepository.countByUserIdAndCreatedAtAfter(userId, weekAgo));
         return summary;
     }
 
@@ -145,100 +259,82 @@ public class TransactionService {
         return transactionRepository.findById(transactionId);
     }
 
+    /**
+     * The user's transaction recorded under a reference, e.g. a Paystack deposit that the
+     * webhook or /deposit/verify has already credited
+     */
+    public Optional<Transaction> findUserTransactionByReference(String reference, Long userId) {
+        return transactionRepository.findByReferenceAndUserId(reference, userId).stream().findFirst();
+    }
+
     /**
      * Get transactions by reference with enhanced DTO, scoped to the requesting user
      */
     public List<TransactionHistoryDto> getTransactionsByReference(String reference, Long userId) {
-        List<Transaction> transactions = transactionRepository.findByReference(reference);
-        return transactions.stream()
-                .filter(t -> t.getWallet().getUser().getId().equals(userId))
-                .map(TransactionHistoryDto::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findHistoryByReference(reference, userId);
     }
 
     /**
      * Get transactions by status with enhanced DTO, scoped to the requesting user
      */
     public List<TransactionHistoryDto> getTransactionsByStatus(String status, Long userId) {
-        List<Transaction> transactions = transactionRepository.findByStatus(status);
-        return transactions.stream()
-                .filter(t -> t.getWallet().getUser().getId().equals(userId))
-                .map(TransactionHistoryDto::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findHistoryByStatus(status, userId);
     }
 
     /**
      * Get transactions by type with enhanced DTO, scoped to the requesting user
      */
     public List<TransactionHistoryDto> getTransactionsByType(String type, Long userId) {
-        List<Transaction> transactions = transactionRepository.findByType(TransactionType.valueOf(type.toUpperCase()));
-        return transactions.stream()
-                .filter(t -> t.getWallet().getUser().getId().equals(userId))
-                .map(TransactionHistoryDto::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findHistoryByType(TransactionType.valueOf(type.toUpperCase()), userId);
     }
 
     /**
      * Get recent transactions with enhanced DTO
      */
     public List<TransactionHistoryDto> getRecentTransactions(Long userId, int limit) {
-        List<Transaction> transactions = transactionRepository.findRecentTransactionsByUserId(userId, limit);
-        return transactions.stream()
-                .map(TransactionHistoryDto::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findRecentHistory(userId, limit);
     }
 
     /**
      * Update transaction status
      */
+    @Transactional
     public Transaction updateTransactionStatus(Long transactionId, String status) {
-        Optional<Transaction> transactionOpt = transactionRepository.findById(transactionId);
+        Optional<Transaction> transactionOpt = transactionRepository.findByIdForUpdate(transactionId);
         if (transactionOpt.isPresent()) {
             Transaction transaction = transactionOpt.get();
+            String previousStatus = transaction.getStatus();
             transaction.setStatus(status);
             transaction.setUpdatedAt(LocalDateTime.now());
+            if (!status.equals(previousStatus)) {
+                transactionRollupService.statusChanged(transaction, previousStatus);
+            }
             return transactionRepository.save(transaction);
         }
         throw new RuntimeException("Transaction not found with ID: " + transactionId);
     }
 
     /**
-     * Export transaction history to CSV with enhanced information
+     * Writes the user's transaction history, newest first, to {@code out} as it is read, so memory
+     * use doesn't grow with the size of the history. Both dates are optional. The stream is
+     * flushed, and finished if gzipped, but left open. Returns the number of rows written.
      */
-    public String exportTransactionHistory(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Transaction> transactions;
-        
-        if (startDate != null && endDate != null) {
-            transactions = transactionRepository.findByUserIdAndCreatedAtBetweenOrderByCreatedAtDesc(userId, startDate, endDate);
-        } else {
-            transactions = transactionRepository.findUserTransactions(userId);
+    @Transactional(readOnly = true)
+    public long exportTransactionHistory(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                         ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        TransactionExportWriter writer = new TransactionExportWriter(compressed != null ? compressed : out, format);
+        try (Stream<TransactionHistoryDto> rows = transactionRepository.streamExport(userId, startDate, endDate)) {
+            Iterator<TransactionHistoryDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
         }
-        
-        StringBuilder csv = new StringBuilder();
-        csv.append("Transaction ID,Wallet ID,Type,Display Type,Amount,Currency,Description,Reference,Status,Recipient,Sender,Date,Time\n");
-        
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMM dd, yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        
-        for (Transaction transaction : transactions) {
-            TransactionHistoryDto dto = new TransactionHistoryDto(transaction);
-            csv.append(String.format("%d,%d,%s,%s,%s,%s,\"%s\",%s,%s,%s,%s,%s,%s\n",
-                transaction.getId(),
-                transaction.getWallet().getId(),
-                transaction.getType(),
-                dto.getDisplayType(),
-                transaction.getAmount(),
-                transaction.getCurrency(),
-                transaction.getDescription().replace("\"", "\"\""),
-                transaction.getReference(),
-                transaction.getStatus(),
-                dto.getRecipientName() != null ? dto.getRecipientName().replace("\"", "\"\"") : "",
-                dto.getSenderName() != null ? dto.getSenderName().replace("\"", "\"\"") : "",
-                dto.getFormattedDate(),
-                dto.getFormattedTime()
-            ));
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+            out.flush();
         }
-        
-        return csv.toString();
+        return writer.rows();
     }
-} 
\ No newline at end of file
+}
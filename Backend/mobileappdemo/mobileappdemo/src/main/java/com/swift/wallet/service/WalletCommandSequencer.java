@@ -0,0 +1,156 @@
+package com.swift.wallet.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer mailboxes for wallet mutations. Each user id hashes to one stripe; a stripe
+ * drains its commands one at a time in submission order, so one user's transfers, sends and
+ * withdrawals never race each other. Different stripes drain in parallel.
+ */
+@Component
+public class WalletCommandSequencer {
+
+    private final Stripe[] stripes;
+    private final ExecutorService drainers;
+
+    public WalletCommandSequencer(MeterRegistry meterRegistry,
+                                  @Value("${wallet.sequencer.stripes:64}") int stripeCount) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i, meterRegistry);
+        }
+        // One thread per stripe at most, so a stripe blocked on Paystack never starves another
+        AtomicInteger threadIds = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(stripeCount, stripeCount, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "wallet-sequencer-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.drainers = executor;
+    }
+
+    /**
+     * Queue the command on the user's mailbox and wait for it to run. Exceptions thrown by the
+     * command are rethrown as-is.
+     */
+    public <T> T execute(Long userId, Supplier<T> command) {
+        try {
+            return submit(userId, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void execute(Long userId, Runnable command) {
+        execute(userId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(Long userId, Supplier<T> command) {
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(userId), stripes.length)];
+        Command<T> queued = new Command<>(command);
+        stripe.enqueue(queued);
+        return queued.result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainers.shutdown();
+    }
+
+    private static final class Command<T> {
+        final Supplier<T> action;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+
+        Command(Supplier<T> action) {
+            this.action = action;
+        }
+
+        void run(Timer drainLatency) {
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = action.get();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            // Record before completing, so the caller never sees a result the metric doesn't cover
+            drainLatency.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    private final class Stripe {
+        private final Queue<Command<?>> mailbox = new ConcurrentLinkedQueue<>();
+        // ConcurrentLinkedQueue.size() is O(n), so the depth gauge reads this instead
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Timer drainLatency;
+
+        Stripe(int index, MeterRegistry meterRegistry) {
+            String stripe = String.valueOf(index);
+            Gauge.builder("wallet.sequencer.queue.depth", depth, AtomicInteger::get)
+                    .description("Wallet commands waiting in the stripe's mailbox")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+            this.drainLatency = Timer.builder("wallet.sequencer.drain.latency")
+                    .description("Time from enqueue until a wallet command has finished running")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+        }
+
+        void enqueue(Command<?> command) {
+            mailbox.offer(command);
+            depth.incrementAndGet();
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                drainers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            Command<?> command;
+            while ((command = mailbox.poll()) != null) {
+                depth.decrementAndGet();
+                command.run(drainLatency);
+            }
+            draining.set(false);
+            // A command offered after the last poll but before the flag cleared would be stranded
+            if (!mailbox.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.TransferOutcome;
+import com.swift.wallet.models.WalletHold;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Resolves holds that were never captured or released - a request that died between placing
+ * its hold and finishing its Paystack call, or a call whose outcome wasn't known. A hold with
+ * a Paystack reference is captured or released according to what Paystack says about that
+ * transfer; one without is simply released, so the money becomes spendable again.
+ */
+@Service
+public class WalletHoldReaper {
+    private static final Logger logger = LoggerFactory.getLogger(WalletHoldReaper.class);
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PaystackService paystackService;
+
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Value("${wallet.hold.reaper-batch-size:500}")
+    private int batchSize;
+
+    @Value("${wallet.hold.verify-retry-seconds:300}")
+    private long verifyRetrySeconds;
+
+    @Scheduled(fixedDelayString = "${wallet.hold.reaper-interval-ms:30000}",
+               initialDelayString = "${wallet.hold.reaper-interval-ms:30000}")
+    public void reap() {
+        int total = 0;
+        int released;
+        // One transaction per batch, so a big backlog never holds locks for long
+        do {
+            released = balanceUpdateRetrier.run(() -> walletService.releaseExpiredHolds(batchSize));
+            total += released;
+        } while (released == batchSize);
+        if (total > 0) {
+            logger.info("Released {} expired wallet holds", total);
+        }
+
+        // Extended holds drop out of the query, so one batch per run keeps Paystack calls bounded
+        List<WalletHold> unverified = walletService.findExpiredTransferHolds(batchSize);
+        for (WalletHold hold : unverified) {
+            resolve(hold);
+        }
+    }
+
+    private void resolve(WalletHold hold) {
+        TransferOutcome outcome;
+        try {
+            // Paystack references must be lowercase
+            outcome = paystackService.verifyTransfer(hold.getReference().toLowerCase()).outcome();
+        } catch (RuntimeException e) {
+            logger.warn("Could not verify transfer {} of hold {}: {}", hold.getReference(), hold.getId(), e.getMessage());
+            outcome = TransferOutcome.PENDING;
+        }
+        try {
+            switch (outcome) {
+                case PAID -> balanceUpdateRetrier.run(() -> walletService.captureHold(hold.getId(),
+                        hold.getTransactionType(), hold.getReason(), hold.getReference()));
+                case FAILED, NOT_FOUND -> balanceUpdateRetrier.run(() -> walletService.expireHold(hold.getId()));
+                case PENDING -> walletService.extendHold(hold.getId(), verifyRetrySeconds);
+            }
+            logger.info("Expired hold {} resolved as {} by its Paystack transfer {}", hold.getId(), outcome, hold.getReference());
+        } catch (RuntimeException e) {
+            logger.error("Could not resolve expired hold {} ({})", hold.getId(), outcome, e);
+        }
+    }
+}
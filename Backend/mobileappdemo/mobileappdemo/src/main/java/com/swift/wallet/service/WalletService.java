@@ -3,22 +3,33 @@ package com.swift.wallet.service;
 import com.swift.auth.models.User;
 import com.swift.auth.repository.UserRepository;
 import com.swift.notification.enums.NotificationType;
-import com.swift.notification.service.NotificationService;
+import com.swift.notification.service.OutboxService;
 import com.swift.wallet.dto.TransferRequest;
 import com.swift.wallet.dto.WalletDto;
 import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.HoldStatus;
+import com.swift.wallet.enums.LedgerAccountType;
 import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.JournalEntry;
 import com.swift.wallet.models.Transaction;
 import com.swift.wallet.models.Wallet;
+import com.swift.wallet.models.WalletHold;
+import com.swift.wallet.repository.WalletHoldRepository;
 import com.swift.wallet.repository.WalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -34,10 +45,25 @@ public class WalletService {
     private UserRepository userRepository;
 
     @Autowired
-    private ExchangeRateService exchangeRateService;
+    private FxQuoteService fxQuoteService;
 
     @Autowired
-    private NotificationService notificationService;
+    private LedgerService ledgerService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ReferenceGenerator referenceGenerator;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Value("${wallet.hold.ttl-seconds:900}")
+    private long holdTtlSeconds;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * Create wallets for a new user
@@ -72,7 +98,7 @@ public class WalletService {
         
         List<Wallet> wallets = walletRepository.findByUserId(userId);
         System.out.println("Found " + wallets.size() + " wallets in database");
-        
+
         List<WalletDto> walletDtos = wallets.stream()
                 .map(this::convertToDto)
                 .toList();
@@ -109,8 +135,8 @@ public class WalletService {
         System.out.println("Processing transfer request: " + request);
         
         // Find source and destination wallets
-        java.util.Optional<com.swift.wallet.models.Wallet> fromWalletOpt = walletRepository.findUserWalletByCurrency(request.getUserId(), request.getFromCurrency());
-        java.util.Optional<com.swift.wallet.models.Wallet> toWalletOpt = walletRepository.findUserWalletByCurrency(request.getUserId(), request.getToCurrency());
+        Optional<Wallet> fromWalletOpt = walletRepository.findUserWalletByCurrency(request.getUserId(), request.getFromCurrency());
+        Optional<Wallet> toWalletOpt = walletRepository.findUserWalletByCurrency(request.getUserId(), request.getToCurrency());
         
         if (fromWalletOpt.isEmpty()) {
             throw new RuntimeException("From wallet not found for currency: " + request.getFromCurrency());
@@ -119,16 +145,10 @@ public class WalletService {
             throw new RuntimeException("To wallet not found for currency: " + request.getToCurrency());
         }
         
-        com.swift.wallet.models.Wallet fromWallet = fromWalletOpt.get();
-        com.swift.wallet.models.Wallet toWallet = toWalletOpt.get();
-        
-        System.out.println("Found wallets - From: " + fromWallet.getCurrency() + " (Balance: " + fromWallet.getBalance() + 
-                         "), To: " + toWallet.getCurrency() + " (Balance: " + toWallet.getBalance() + ")");
+        Wallet fromWallet = fromWalletOpt.get();
+        Wallet toWallet = toWalletOpt.get();
         
-        // Check sufficient balance in source wallet
-        if (fromWallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new RuntimeException("Insufficient funds in " + fromWallet.getCurrency() + " wallet. Available: " + fromWallet.getBalance() + ", Required: " + request.getAmount());
-        }
+        System.out.println("Found wallets - From: " + fromWallet.getCurrency() + ", To: " + toWallet.getCurrency());
         
         return transferMoneyByWallets(fromWallet, toWallet, request);
     }
@@ -138,10 +158,7 @@ public class WalletService {
         if (!fromWallet.getUser().getId().equals(toWallet.getUser().getId())) {
             throw new RuntimeException("Can only transfer between your own wallets");
         }
-        // Check sufficient balance
-        if (fromWallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new RuntimeException("Insufficient balance");
-        }
+        // Sufficient funds are enforced by the conditional debit itself, not by a read here
         // Perform transfer
         if (fromWallet.getCurrency() == toWallet.getCurrency()) {
             // Same currency transfer
@@ -156,72 +173,100 @@ public class WalletService {
      * Same currency transfer
      */
     private boolean performSameCurrencyTransfer(Wallet fromWallet, Wallet toWallet, TransferRequest request) {
-        // Deduct from source wallet
-        fromWallet.setBalance(fromWallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(fromWallet);
-
-        // Add to destination wallet
-        toWallet.setBalance(toWallet.getBalance().add(request.getAmount()));
-        walletRepository.save(toWallet);
-
-        // Create transactions
-        String reference = "TRANSFER_" + System.currentTimeMillis();
-        Transaction outTransaction = transactionService.createTransaction(fromWallet, TransactionType.TRANSFER, request.getAmount().negate(),
-                         request.getFromCurrency(), "Transfer to " + toWallet.getCurrency(), reference + "_OUT");
-        transactionService.createTransaction(toWallet, TransactionType.TRANSFER, request.getAmount(),
-                         request.getToCurrency(), "Transfer from " + fromWallet.getCurrency(), reference + "_IN");
-
-        notificationService.createNotification(fromWallet.getUser(), NotificationType.TRANSFER, "Interwallet transfer",
+        moveFunds(fromWallet, request.getAmount(), toWallet, request.getAmount());
+        JournalEntry entry = new JournalEntry(TransactionType.TRANSFER, referenceGenerator.next("TRANSFER"), request.getDescription())
+                .addPosting(LedgerAccountType.WALLET, fromWallet, fromWallet.getCurrency(), request.getAmount().negate(),
+                        "Transfer to " + toWallet.getCurrency())
+                .addPosting(LedgerAccountType.WALLET, toWallet, toWallet.getCurrency(), request.getAmount(),
+                        "Transfer from " + fromWallet.getCurrency());
+        List<Transaction> transactions = ledgerService.post(entry);
+
+        outboxService.publish(fromWallet.getUser(), NotificationType.TRANSFER, "Interwallet transfer",
                 "Moved " + request.getAmount() + " " + request.getFromCurrency() + " to your " + request.getToCurrency() + " wallet",
-                outTransaction.getId());
+                transactions.get(0).getId());
 
         return true;
     }
 
     /**
-     * Cross-currency transfer
+     * Cross-currency transfer at the rate fixed by the request's quote, so no rate lookup happens
+     * inside the transaction. Both currency legs are balanced through the FX clearing account.
      */
     private boolean performCrossCurrencyTransfer(Wallet fromWallet, Wallet toWallet, TransferRequest request) {
-        // Get exchange rate
-        BigDecimal exchangeRate = exchangeRateService.getExchangeRate(request.getFromCurrency(), request.getToCurrency());
-        BigDecimal convertedAmount = request.getAmount().multiply(exchangeRate);
-
-        // Deduct from source wallet
-        fromWallet.setBalance(fromWallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(fromWallet);
-
-        // Add converted amount to destination wallet
-        toWallet.setBalance(toWallet.getBalance().add(convertedAmount));
-        walletRepository.save(toWallet);
-
-        // Create transactions with exchange rate info
-        String reference = "EXCHANGE_" + System.currentTimeMillis();
-        Transaction fromTransaction = transactionService.createTransaction(fromWallet, TransactionType.CURRENCY_EXCHANGE, 
-                                                       request.getAmount().negate(), request.getFromCurrency(),
-                                                       "Currency exchange to " + toWallet.getCurrency(), reference + "_OUT");
-        fromTransaction.setExchangeRate(exchangeRate);
-        fromTransaction.setConvertedAmount(convertedAmount);
-        fromTransaction.setConvertedCurrency(toWallet.getCurrency());
-
-        Transaction toTransaction = transactionService.createTransaction(toWallet, TransactionType.CURRENCY_EXCHANGE,
-                                                     convertedAmount, toWallet.getCurrency(),
-                                                     "Currency exchange from " + fromWallet.getCurrency(), reference + "_IN");
-        toTransaction.setExchangeRate(exchangeRate);
-        toTransaction.setConvertedAmount(request.getAmount());
-        toTransaction.setConvertedCurrency(request.getFromCurrency());
-
-        notificationService.createNotification(fromWallet.getUser(), NotificationType.CURRENCY_EXCHANGE, "Currency exchange",
+        FxQuoteService.FxQuote quote = fxQuoteService.redeem(request.getQuoteId(), fromWallet.getUser().getId(),
+                fromWallet.getCurrency(), toWallet.getCurrency());
+        BigDecimal exchangeRate = quote.rate();
+        BigDecimal convertedAmount = quote.convert(request.getAmount());
+        moveFunds(fromWallet, request.getAmount(), toWallet, convertedAmount);
+
+        JournalEntry entry = new JournalEntry(TransactionType.CURRENCY_EXCHANGE, referenceGenerator.next("EXCHANGE"), request.getDescription())
+                .addPosting(LedgerAccountType.WALLET, fromWallet, fromWallet.getCurrency(), request.getAmount().negate(),
+                        "Currency exchange to " + toWallet.getCurrency())
+                .addPosting(LedgerAccountType.FX_CLEARING, null, fromWallet.getCurrency(), request.getAmount(), null)
+                .addPosting(LedgerAccountType.FX_CLEARING, null, toWallet.getCurrency(), convertedAmount.negate(), null)
+                .addPosting(LedgerAccountType.WALLET, toWallet, toWallet.getCurrency(), convertedAmount,
+                        "Currency exchange from " + fromWallet.getCurrency());
+        entry.setExchangeRate(exchangeRate);
+        List<Transaction> transactions = ledgerService.post(entry);
+
+        outboxService.publish(fromWallet.getUser(), NotificationType.CURRENCY_EXCHANGE, "Currency exchange",
                 "Converted " + request.getAmount() + " " + request.getFromCurrency() + " to " + convertedAmount + " " + toWallet.getCurrency(),
-                fromTransaction.getId());
+                transactions.get(0).getId());
 
         return true;
     }
 
+    /**
+     * Debit one wallet and credit another. Rows are updated in wallet id order so two opposite
+     * transfers between the same pair of wallets can't deadlock; if the debit fails the whole
+     * transaction rolls back, including a credit that already ran.
+     */
+    private void moveFunds(Wallet fromWallet, BigDecimal debitAmount, Wallet toWallet, BigDecimal creditAmount) {
+        if (fromWallet.getId() <= toWallet.getId()) {
+            applyDebit(fromWallet, debitAmount);
+            applyCredit(toWallet, creditAmount);
+        } else {
+            applyCredit(toWallet, creditAmount);
+            applyDebit(fromWallet, debitAmount);
+        }
+    }
+
+    private void applyDebit(Wallet wallet, BigDecimal amount) {
+        if (walletRepository.debitIfSufficient(wallet.getId(), amount) == 0) {
+            throw insufficientBalance(wallet, amount);
+        }
+        syncWithRow(wallet);
+    }
+
+    private RuntimeException insufficientBalance(Wallet wallet, BigDecimal amount) {
+        BigDecimal available = walletRepository.findAvailableBalanceById(wallet.getId())
+                .orElseThrow(() -> new RuntimeException("Wallet not found: " + wallet.getId()));
+        return new RuntimeException("Insufficient balance in " + wallet.getCurrency() + " wallet. Available: " + available + ", Required: " + amount);
+    }
+
+    private void applyCredit(Wallet wallet, BigDecimal amount) {
+        if (walletRepository.credit(wallet.getId(), amount) == 0) {
+            throw new RuntimeException("Wallet not found: " + wallet.getId());
+        }
+        syncWithRow(wallet);
+    }
+
+    /**
+     * The bulk UPDATE bypasses the persistence context, so reload the managed wallet's balance
+     * and version - later reads in this session see the new balance, and a save of the entity
+     * can't trip its own optimistic lock.
+     */
+    private void syncWithRow(Wallet wallet) {
+        if (entityManager.contains(wallet)) {
+            entityManager.refresh(wallet);
+        }
+    }
+
     /**
      * Convert Wallet entity to DTO
      */
     private WalletDto convertToDto(Wallet wallet) {
-        return new WalletDto(
+        WalletDto dto = new WalletDto(
             wallet.getId(),
             wallet.getUser().getId(),
             wallet.getCurrency(),
@@ -230,35 +275,44 @@ public class WalletService {
             wallet.getCreatedAt(),
             wallet.getUpdatedAt()
         );
+        dto.setHeldAmount(wallet.getHeldAmount());
+        dto.setAvailableBalance(wallet.getAvailableBalance());
+        return dto;
     }
 
     /**
      * Allocate funds to a specific wallet
      */
-    public void allocateFundsToWallet(Long userId, CurrencyType currency, BigDecimal amount) {
-        allocateFundsToWallet(userId, currency, amount, "Fund allocation", "ALLOCATION_" + System.currentTimeMillis());
+    public Transaction allocateFundsToWallet(Long userId, CurrencyType currency, BigDecimal amount) {
+        return creditWallet(userId, currency, amount, "Fund allocation", referenceGenerator.next("ALLOCATION"), LedgerAccountType.FUNDING);
     }
 
     /**
      * Allocate funds to a specific wallet with a caller-supplied description/reference
      * (e.g. the real Paystack reference for a verified deposit).
      */
-    public void allocateFundsToWallet(Long userId, CurrencyType currency, BigDecimal amount, String description, String reference) {
+    public Transaction allocateFundsToWallet(Long userId, CurrencyType currency, BigDecimal amount, String description, String reference) {
+        return creditWallet(userId, currency, amount, description, reference, LedgerAccountType.PAYMENT_PROVIDER);
+    }
+
+    private Transaction creditWallet(Long userId, CurrencyType currency, BigDecimal amount, String description,
+                                     String reference, LedgerAccountType source) {
         System.out.println("Allocating " + amount + " " + currency + " to user " + userId);
 
         Wallet wallet = walletRepository.findUserWalletByCurrency(userId, currency)
                 .orElseThrow(() -> new RuntimeException("Wallet not found for user " + userId + " and currency " + currency));
 
-        BigDecimal oldBalance = wallet.getBalance();
-        wallet.setBalance(wallet.getBalance().add(amount));
-        walletRepository.save(wallet);
+        applyCredit(wallet, amount);
+        JournalEntry entry = new JournalEntry(TransactionType.DEPOSIT, reference, description)
+                .addPosting(source, null, currency, amount.negate(), null)
+                .addPosting(LedgerAccountType.WALLET, wallet, currency, amount, description);
+        Transaction transaction = ledgerService.post(entry).get(0);
 
-        System.out.println("Wallet updated - User: " + userId + ", Currency: " + currency +
-                         ", Old Balance: " + oldBalance + ", New Balance: " + wallet.getBalance());
+        System.out.println("Wallet credited - User: " + userId + ", Currency: " + currency + ", Amount: " + amount);
 
-        Transaction transaction = transactionService.createTransaction(wallet, TransactionType.DEPOSIT, amount, currency, description, reference);
-        notificationService.createNotification(wallet.getUser(), NotificationType.DEPOSIT, "Deposit successful",
+        outboxService.publish(wallet.getUser(), NotificationType.DEPOSIT, "Deposit successful",
                 "Your " + currency + " wallet was credited with " + amount, transaction.getId());
+        return transaction;
     }
 
     /**
@@ -269,8 +323,8 @@ public class WalletService {
     public void ensureSufficientBalance(Long userId, CurrencyType currency, BigDecimal amount) {
         Wallet wallet = walletRepository.findUserWalletByCurrency(userId, currency)
                 .orElseThrow(() -> new RuntimeException("Wallet not found for user " + userId + " and currency " + currency));
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient balance in " + currency + " wallet. Available: " + wallet.getBalance() + ", Required: " + amount);
+        if (wallet.getAvailableBalance().compareTo(amount) < 0) {
+            throw new RuntimeException("Insufficient balance in " + currency + " wallet. Available: " + wallet.getAvailableBalance() + ", Required: " + amount);
         }
     }
 
@@ -281,16 +335,171 @@ public class WalletService {
     public void debitWallet(Long userId, CurrencyType currency, BigDecimal amount, TransactionType type, String description, String reference) {
         Wallet wallet = walletRepository.findUserWalletByCurrency(userId, currency)
                 .orElseThrow(() -> new RuntimeException("Wallet not found for user " + userId + " and currency " + currency));
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient balance in " + currency + " wallet. Available: " + wallet.getBalance() + ", Required: " + amount);
-        }
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        walletRepository.save(wallet);
-        Transaction transaction = transactionService.createTransaction(wallet, type, amount.negate(), currency, description, reference);
+        applyDebit(wallet, amount);
+        recordPayout(wallet, amount, type, description, reference);
+    }
+
+    private void recordPayout(Wallet wallet, BigDecimal amount, TransactionType type, String description, String reference) {
+        CurrencyType currency = wallet.getCurrency();
+        JournalEntry entry = new JournalEntry(type, reference, description)
+                .addPosting(LedgerAccountType.WALLET, wallet, currency, amount.negate(), description)
+                .addPosting(LedgerAccountType.PAYMENT_PROVIDER, null, currency, amount, null);
+        Transaction transaction = ledgerService.post(entry).get(0);
 
         NotificationType notificationType = type == TransactionType.WITHDRAWAL ? NotificationType.WITHDRAWAL : NotificationType.SEND;
         String title = type == TransactionType.WITHDRAWAL ? "Withdrawal successful" : "Send successful";
-        notificationService.createNotification(wallet.getUser(), notificationType, title,
+        outboxService.publish(wallet.getUser(), notificationType, title,
                 "Your " + currency + " wallet was debited " + amount + " - " + description, transaction.getId());
     }
-}
\ No newline at end of file
+
+    /**
+     * Set money aside before an external payout call. The hold is taken atomically against the
+     * available balance, so two concurrent sends can't both be covered by the same funds.
+     * It expires after wallet.hold.ttl-seconds if never captured or released.
+     */
+    public WalletHold placeHold(Long userId, CurrencyType currency, BigDecimal amount, String reason) {
+        return placeHold(userId, currency, amount, reason, null, null);
+    }
+
+    /**
+     * Place a hold for a Paystack transfer sent with the given reference. If the hold expires,
+     * the reaper verifies that transfer and captures the hold as the given type if it paid.
+     */
+    public WalletHold placeHold(Long userId, CurrencyType currency, BigDecimal amount, String reason,
+                                TransactionType type, String reference) {
+        Wallet wallet = walletRepository.findUserWalletByCurrency(userId, currency)
+                .orElseThrow(() -> new RuntimeException("Wallet not found for user " + userId + " and currency " + currency));
+        if (walletRepository.holdIfAvailable(wallet.getId(), amount) == 0) {
+            throw insufficientBalance(wallet, amount);
+        }
+        syncWithRow(wallet);
+        return walletHoldRepository.save(new WalletHold(wallet.getId(), currency, amount, reason,
+                LocalDateTime.now().plusSeconds(holdTtlSeconds), type, reference));
+    }
+
+    /**
+     * The payout went through: debit the held money and record it. A hold the reaper already
+     * expired (the call outlived the TTL) falls back to a plain debit of the available balance.
+     */
+    public void captureHold(Long holdId, TransactionType type, String description, String reference) {
+        WalletHold hold = walletHoldRepository.findById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found: " + holdId));
+        Wallet wallet = walletRepository.findById(hold.getWalletId())
+                .orElseThrow(() -> new RuntimeException("Wallet not found: " + hold.getWalletId()));
+
+        if (walletHoldRepository.transition(holdId, HoldStatus.ACTIVE, HoldStatus.CAPTURED) == 1) {
+            if (walletRepository.captureHeld(wallet.getId(), hold.getAmount()) == 0) {
+                throw new RuntimeException("Held amount on wallet " + wallet.getId() + " is out of step with hold " + holdId);
+            }
+            syncWithRow(wallet);
+        } else if (walletHoldRepository.transition(holdId, HoldStatus.EXPIRED, HoldStatus.CAPTURED) == 1) {
+            applyDebit(wallet, hold.getAmount());
+        } else {
+            throw new RuntimeException("Hold " + holdId + " can no longer be captured");
+        }
+        recordPayout(wallet, hold.getAmount(), type, description, reference);
+    }
+
+    /**
+     * The payout didn't happen: give the held money back. A no-op if the hold is no longer active.
+     */
+    public void releaseHold(Long holdId) {
+        WalletHold hold = walletHoldRepository.findById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found: " + holdId));
+        if (walletHoldRepository.transition(holdId, HoldStatus.ACTIVE, HoldStatus.RELEASED) == 1) {
+            walletRepository.releaseHeld(hold.getWalletId(), hold.getAmount());
+        }
+    }
+
+    /**
+     * Paystack says an expired hold's transfer didn't pay: give the held money back.
+     */
+    public void expireHold(Long holdId) {
+        WalletHold hold = walletHoldRepository.findById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found: " + holdId));
+        if (walletHoldRepository.transition(holdId, HoldStatus.ACTIVE, HoldStatus.EXPIRED) == 1) {
+            walletRepository.releaseHeld(hold.getWalletId(), hold.getAmount());
+        }
+    }
+
+    /**
+     * Paystack doesn't know yet how an expired hold's transfer ended: keep the money held and
+     * check again after the given delay.
+     */
+    public void extendHold(Long holdId, long seconds) {
+        walletHoldRepository.extend(holdId, HoldStatus.ACTIVE, LocalDateTime.now().plusSeconds(seconds));
+    }
+
+    /**
+     * Up to limit overdue holds whose Paystack transfer has to be verified before they are
+     * captured or released, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<WalletHold> findExpiredTransferHolds(int limit) {
+        return walletHoldRepository.findReferencedByStatusExpiredBefore(HoldStatus.ACTIVE, LocalDateTime.now(),
+                PageRequest.of(0, limit));
+    }
+
+    /**
+     * Expire up to limit overdue holds that never had a Paystack transfer made for them, in one
+     * transaction, releasing their amounts with one update per wallet. Returns how many holds
+     * were expired.
+     */
+    public int releaseExpiredHolds(int limit) {
+        List<WalletHold> expired = walletHoldRepository.findByStatusExpiredBefore(HoldStatus.ACTIVE, LocalDateTime.now(),
+                PageRequest.of(0, limit));
+        // Wallet id order, so two reapers can't deadlock on each other's wallets
+        Map<Long, BigDecimal> releasedByWallet = new TreeMap<>();
+        int count = 0;
+        for (WalletHold hold : expired) {
+            if (walletHoldRepository.transition(hold.getId(), HoldStatus.ACTIVE, HoldStatus.EXPIRED) == 1) {
+                releasedByWallet.merge(hold.getWalletId(), hold.getAmount(), BigDecimal::add);
+                count++;
+            }
+        }
+        releasedByWallet.forEach(walletRepository::releaseHeld);
+        return count;
+    }
+
+    /**
+     * Reserve the total of a bulk payout in one debit. The money sits in PAYOUT_CLEARING until
+     * each item is either settled to Paystack or refunded.
+     */
+    public Transaction reservePayout(Long userId, CurrencyType currency, BigDecimal total, int itemCount, String reference) {
+        Wallet wallet = walletRepository.findUserWalletByCurrency(userId, currency)
+                .orElseThrow(() -> new RuntimeException("Wallet not found for user " + userId + " and currency " + currency));
+        applyDebit(wallet, total);
+        String description = "Bulk payout - " + itemCount + " recipients";
+        JournalEntry entry = new JournalEntry(TransactionType.PAYOUT, reference, description)
+                .addPosting(LedgerAccountType.WALLET, wallet, currency, total.negate(), description)
+                .addPosting(LedgerAccountType.PAYOUT_CLEARING, null, currency, total, null);
+        Transaction transaction = ledgerService.post(entry).get(0);
+
+        outboxService.publish(wallet.getUser(), NotificationType.SEND, "Bulk payout started",
+                "Your " + currency + " wallet was debited " + total + " for " + itemCount + " payouts", transaction.getId());
+        return transaction;
+    }
+
+    /**
+     * A payout item Paystack accepted: move its share of the reservation to the provider.
+     */
+    public void settlePayout(CurrencyType currency, BigDecimal amount, String reference, String description) {
+        JournalEntry entry = new JournalEntry(TransactionType.PAYOUT, reference, description)
+                .addPosting(LedgerAccountType.PAYOUT_CLEARING, null, currency, amount.negate(), null)
+                .addPosting(LedgerAccountType.PAYMENT_PROVIDER, null, currency, amount, null);
+        ledgerService.post(entry);
+    }
+
+    /**
+     * A payout item that failed: return its share of the reservation to the wallet.
+     */
+    public Transaction refundPayout(Long userId, CurrencyType currency, BigDecimal amount, String reference, String description) {
+        Wallet wallet = walletRepository.findUserWalletByCurrency(userId, currency)
+                .orElseThrow(() -> new RuntimeException("Wallet not found for user " + userId + " and currency " + currency));
+        applyCredit(wallet, amount);
+        JournalEntry entry = new JournalEntry(TransactionType.PAYOUT, reference, description)
+                .addPosting(LedgerAccountType.PAYOUT_CLEARING, null, currency, amount.negate(), null)
+                .addPosting(LedgerAccountType.WALLET, wallet, currency, amount, description);
+        return ledgerService.post(entry).get(0);
+    }
+}
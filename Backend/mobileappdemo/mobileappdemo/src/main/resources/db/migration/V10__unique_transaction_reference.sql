@@ -0,0 +1,21 @@
+-- Migration: V10__unique_transaction_reference.sql
+-- Transaction references now come from ReferenceGenerator and are unique, so enforce it.
+-- The index also serves reference lookups.
+--
+-- Millisecond-timestamp references from before this change can collide; suffix any duplicates
+-- with their row id first. NULL references are allowed to repeat.
+
+CREATE TEMPORARY TABLE duplicate_transaction_references AS
+SELECT reference FROM transactions
+WHERE reference IS NOT NULL
+GROUP BY reference
+HAVING COUNT(*) > 1;
+
+UPDATE transactions t
+JOIN duplicate_transaction_references d ON t.reference = d.reference
+SET t.reference = CONCAT(LEFT(t.reference, 79), '_', t.id);
+
+DROP TEMPORARY TABLE duplicate_transaction_references;
+
+ALTER TABLE transactions
+ADD CONSTRAINT uk_transactions_reference UNIQUE (reference);
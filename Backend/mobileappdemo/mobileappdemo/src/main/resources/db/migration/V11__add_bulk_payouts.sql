@@ -0,0 +1,50 @@
+-- Migration: V11__add_bulk_payouts.sql
+-- Bulk payouts: one batch row per request and one item row per recipient. The batch total is
+-- reserved into the new PAYOUT_CLEARING ledger account, then settled or refunded per item.
+
+CREATE TABLE payout_batches (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    currency VARCHAR(10) NOT NULL,
+    total_amount DECIMAL(19,2) NOT NULL,
+    item_count INT NOT NULL,
+    reference VARCHAR(100) NOT NULL,
+    description VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_payout_batches_reference UNIQUE (reference),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE payout_items (
+    id BIGINT PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    reference VARCHAR(100) NOT NULL,
+    recipient_code VARCHAR(100),
+    account_number VARCHAR(50),
+    bank_code VARCHAR(50),
+    name VARCHAR(255),
+    amount DECIMAL(19,2) NOT NULL,
+    reason VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    transfer_code VARCHAR(100),
+    failure_reason VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_payout_items_reference UNIQUE (reference),
+    FOREIGN KEY (batch_id) REFERENCES payout_batches(id) ON DELETE CASCADE
+);
+
+-- Per-batch status polling, and the sweep for items left PENDING
+CREATE INDEX idx_payout_items_batch_status ON payout_items(batch_id, status);
+CREATE INDEX idx_payout_items_status_updated ON payout_items(status, updated_at);
+
+CREATE TABLE payout_batches_seq (next_val BIGINT);
+INSERT INTO payout_batches_seq (next_val) VALUES (50);
+
+CREATE TABLE payout_items_seq (next_val BIGINT);
+INSERT INTO payout_items_seq (next_val) VALUES (50);
+
+ALTER TABLE journal_postings DROP CHECK chk_posting_account_valid;
+ALTER TABLE journal_postings
+ADD CONSTRAINT chk_posting_account_valid
+CHECK (account_type IN ('WALLET', 'PAYMENT_PROVIDER', 'FX_CLEARING', 'FUNDING', 'PAYOUT_CLEARING'));
@@ -0,0 +1,26 @@
+-- Migration: V12__add_wallet_holds.sql
+-- Holds: money set aside on a wallet while a Paystack payout is in flight. wallets.held_amount
+-- is the running total of a wallet's ACTIVE holds; available balance is balance - held_amount.
+
+ALTER TABLE wallets
+ADD COLUMN held_amount DECIMAL(19,2) NOT NULL DEFAULT 0.00 AFTER balance;
+
+CREATE TABLE wallet_holds (
+    id BIGINT PRIMARY KEY,
+    wallet_id BIGINT NOT NULL,
+    currency VARCHAR(10) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    reason VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    resolved_at TIMESTAMP NULL,
+    FOREIGN KEY (wallet_id) REFERENCES wallets(id) ON DELETE CASCADE,
+    CONSTRAINT chk_wallet_hold_amount_positive CHECK (amount > 0)
+);
+
+-- The reaper scans ACTIVE holds by expiry
+CREATE INDEX idx_wallet_holds_status_expires ON wallet_holds(status, expires_at);
+
+CREATE TABLE wallet_holds_seq (next_val BIGINT);
+INSERT INTO wallet_holds_seq (next_val) VALUES (50);
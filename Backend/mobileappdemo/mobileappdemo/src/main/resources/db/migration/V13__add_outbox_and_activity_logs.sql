@@ -0,0 +1,38 @@
+-- Migration: V13__add_outbox_and_activity_logs.sql
+-- Transactional outbox: domain events are inserted in the same transaction as the wallet or
+-- account change they describe, and relayed afterwards to notifications, activity_logs and
+-- email. published_at stays NULL until the relay has delivered the event.
+
+CREATE TABLE outbox_events (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(30) NOT NULL,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message VARCHAR(500) NOT NULL,
+    reference_id BIGINT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500) NULL
+);
+
+-- The relay scans unpublished events oldest first; cleanup deletes by published_at
+CREATE INDEX idx_outbox_events_pending ON outbox_events(published_at, id);
+
+CREATE TABLE outbox_events_seq (next_val BIGINT);
+INSERT INTO outbox_events_seq (next_val) VALUES (50);
+
+CREATE TABLE activity_logs (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    action VARCHAR(30) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    reference_id BIGINT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_activity_logs_user_created ON activity_logs(user_id, created_at);
+
+CREATE TABLE activity_logs_seq (next_val BIGINT);
+INSERT INTO activity_logs_seq (next_val) VALUES (50);
@@ -0,0 +1,19 @@
+-- Migration: V14__replace_otp_entry_with_otp_codes.sql
+-- OTPs now live in memory by default. otp_codes is only written with otp.store=database: one
+-- row per identifier holding the hash of its current code, replaced on every new code, so the
+-- table stays as large as the set of recently active users. otp_entry kept every code ever
+-- sent, in plain text, and is dropped; codes in it expire within minutes anyway.
+
+CREATE TABLE otp_codes (
+    identifier VARCHAR(255) PRIMARY KEY,
+    code_hash VARCHAR(64) NOT NULL,
+    issued_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    used BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+CREATE INDEX idx_otp_codes_expires_at ON otp_codes(expires_at);
+
+DROP TABLE otp_entry;
+DROP TABLE otp_entry_seq;
@@ -0,0 +1,20 @@
+-- Migration: V15__add_revoked_tokens.sql
+-- Login tokens revoked before they expire. A row with a token_hash revokes that one token
+-- (logout); a row without one revokes every token of the user issued before revoked_at
+-- (password change). Each instance holds these in memory and re-reads new rows by revoked_at,
+-- so the table is never read per request. Rows are deleted once expires_at has passed.
+
+CREATE TABLE revoked_tokens (
+    id BIGINT PRIMARY KEY,
+    token_hash VARCHAR(64) NULL,
+    user_id BIGINT NOT NULL,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_token_hash ON revoked_tokens(token_hash);
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+
+CREATE TABLE revoked_tokens_seq (next_val BIGINT);
+INSERT INTO revoked_tokens_seq (next_val) VALUES (50);
@@ -0,0 +1,13 @@
+-- Migration: V16__unique_exchange_rate_pair.sql
+-- exchange_rates now holds the latest snapshot, one row per currency pair, updated in place by
+-- the scheduled refresh and read back with findValidExchangeRate. Keep only the newest row of
+-- any pair that has several, then enforce one row per pair.
+
+DELETE older FROM exchange_rates older
+JOIN exchange_rates newer
+  ON older.from_currency = newer.from_currency
+ AND older.to_currency = newer.to_currency
+ AND (older.created_at < newer.created_at OR (older.created_at = newer.created_at AND older.id < newer.id));
+
+ALTER TABLE exchange_rates
+ADD CONSTRAINT uk_exchange_rates_pair UNIQUE (from_currency, to_currency);
@@ -0,0 +1,39 @@
+-- Migration: V17__add_rate_triggers.sql
+-- Rate triggers: a user's alert or automatic conversion once an exchange rate crosses a
+-- threshold. ACTIVE triggers are held in memory per currency pair and checked on every rate
+-- refresh; the row's status makes sure each one fires once across all instances.
+
+CREATE TABLE rate_triggers (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    from_currency VARCHAR(10) NOT NULL,
+    to_currency VARCHAR(10) NOT NULL,
+    direction VARCHAR(10) NOT NULL,
+    threshold DECIMAL(19,6) NOT NULL,
+    action VARCHAR(10) NOT NULL,
+    amount DECIMAL(19,2) NULL,
+    status VARCHAR(20) NOT NULL,
+    fired_rate DECIMAL(19,6) NULL,
+    failure_reason VARCHAR(255) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fired_at TIMESTAMP NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT chk_rate_trigger_threshold_positive CHECK (threshold > 0),
+    CONSTRAINT chk_rate_trigger_amount CHECK (action <> 'CONVERT' OR amount > 0)
+);
+
+-- Loading ACTIVE triggers at startup, picking up ones created on other instances, and listing a user's
+CREATE INDEX idx_rate_triggers_status_id ON rate_triggers(status, id);
+CREATE INDEX idx_rate_triggers_status_created ON rate_triggers(status, created_at);
+CREATE INDEX idx_rate_triggers_user_created ON rate_triggers(user_id, created_at);
+
+CREATE TABLE rate_triggers_seq (next_val BIGINT);
+INSERT INTO rate_triggers_seq (next_val) VALUES (50);
+
+-- Fired triggers notify the user
+ALTER TABLE notifications DROP CHECK chk_notification_type_valid;
+ALTER TABLE notifications
+ADD CONSTRAINT chk_notification_type_valid CHECK (type IN (
+    'DEPOSIT', 'WITHDRAWAL', 'TRANSFER', 'SEND', 'CURRENCY_EXCHANGE',
+    'SIGNUP', 'LOGIN', 'PASSWORD_CHANGE', 'SECURITY_ALERT', 'RATE_ALERT'
+));
@@ -0,0 +1,15 @@
+-- Migration: V18__add_transaction_user_id.sql
+-- Transaction history is read per user far more than it is written. Copy the wallet owner onto
+-- each transaction so a user's history is one index range in created_at order, with no join to
+-- wallets and no sort of the user's whole history for every page.
+
+ALTER TABLE transactions ADD COLUMN user_id BIGINT NULL;
+
+UPDATE transactions t
+JOIN wallets w ON t.wallet_id = w.id
+SET t.user_id = w.user_id;
+
+ALTER TABLE transactions MODIFY user_id BIGINT NOT NULL;
+
+CREATE INDEX idx_transactions_user_created ON transactions(user_id, created_at);
+CREATE INDEX idx_transactions_wallet_created ON transactions(wallet_id, created_at);
@@ -0,0 +1,10 @@
+-- Migration: V19__add_feed_keyset_indexes.sql
+-- Transaction and notification feeds page by cursor on (created_at, id) within an owner, so a
+-- page past a cursor should be one index range read in order. InnoDB ends every secondary index
+-- with the primary key, so V18's (user_id, created_at) and (wallet_id, created_at) already are
+-- (.., created_at, id) for transactions. Notifications were only indexed on user_id; index the
+-- feed key there, replacing the shorter index it extends.
+
+CREATE INDEX idx_notifications_user_created ON notifications(user_id, created_at);
+
+DROP INDEX idx_notifications_user_id ON notifications;
@@ -0,0 +1,33 @@
+-- Migration: V20__add_export_jobs.sql
+-- Background transaction exports. A job runs on a worker thread into a gzipped spool file and
+-- is downloaded from there until expires_at. dedup_key is set while the job may be handed to a
+-- repeat of the same request; it is unique so two instances can't both start that export, and
+-- cleared (NULL) once the job fails or is superseded.
+
+CREATE TABLE export_jobs (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    format VARCHAR(10) NOT NULL,
+    start_date TIMESTAMP NULL,
+    end_date TIMESTAMP NULL,
+    dedup_key VARCHAR(120) NULL,
+    status VARCHAR(20) NOT NULL,
+    row_count BIGINT NULL,
+    size_bytes BIGINT NULL,
+    failure_reason VARCHAR(255) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+    expires_at TIMESTAMP NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT uk_export_jobs_dedup_key UNIQUE (dedup_key)
+);
+
+-- The sweep's lookups: stalled PENDING jobs, overrunning RUNNING ones, and expired ones
+CREATE INDEX idx_export_jobs_status_created ON export_jobs(status, created_at);
+CREATE INDEX idx_export_jobs_status_expires ON export_jobs(status, expires_at);
+-- Counting a user's jobs in progress
+CREATE INDEX idx_export_jobs_user_status ON export_jobs(user_id, status);
+
+CREATE TABLE export_jobs_seq (next_val BIGINT);
+INSERT INTO export_jobs_seq (next_val) VALUES (50);
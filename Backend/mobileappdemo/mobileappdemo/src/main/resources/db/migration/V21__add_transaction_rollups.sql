@@ -0,0 +1,21 @@
+-- Migration: V21__add_transaction_rollups.sql
+-- Per-user transaction counts and amount sums by type, status and currency. The application
+-- adds to these rows in the same transaction as every transaction insert and status change,
+-- so the transaction summary reads them by primary key instead of aggregating transactions.
+
+CREATE TABLE transaction_rollups (
+    user_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    currency VARCHAR(10) NOT NULL,
+    tx_count BIGINT NOT NULL,
+    amount_sum DECIMAL(19,2) NOT NULL,
+    PRIMARY KEY (user_id, type, status, currency),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Existing history
+INSERT INTO transaction_rollups (user_id, type, status, currency, tx_count, amount_sum)
+SELECT user_id, type, COALESCE(status, ''), currency, COUNT(*), SUM(amount)
+FROM transactions
+GROUP BY user_id, type, COALESCE(status, ''), currency;
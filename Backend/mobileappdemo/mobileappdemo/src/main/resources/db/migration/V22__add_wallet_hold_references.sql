@@ -0,0 +1,10 @@
+-- Migration: V22__add_wallet_hold_references.sql
+-- Send/withdraw holds record the reference their Paystack transfer was sent with, and what the
+-- payout is recorded as, so the reaper can ask Paystack how an expired hold's transfer ended
+-- and capture or release it accordingly.
+
+ALTER TABLE wallet_holds
+ADD COLUMN reference VARCHAR(100) NULL AFTER reason,
+ADD COLUMN transaction_type VARCHAR(20) NULL AFTER reference;
+
+CREATE UNIQUE INDEX uk_wallet_holds_reference ON wallet_holds(reference);
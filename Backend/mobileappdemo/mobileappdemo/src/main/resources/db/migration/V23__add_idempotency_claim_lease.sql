@@ -0,0 +1,12 @@
+-- Migration: V23__add_idempotency_claim_lease.sql
+-- An Idempotency-Key claim whose instance died mid-request can be taken over once its lease has
+-- run out. claimed_at is when the current holder claimed it; version is bumped on takeover so
+-- the previous holder can no longer complete or release the claim.
+
+ALTER TABLE idempotency_keys
+ADD COLUMN claimed_at TIMESTAMP NULL AFTER created_at,
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER claimed_at;
+
+UPDATE idempotency_keys SET claimed_at = created_at;
+
+ALTER TABLE idempotency_keys MODIFY claimed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
@@ -0,0 +1,6 @@
+-- Migration: V24__revoked_tokens_millisecond_cutoff.sql
+-- A password change revokes every token of the user issued up to revoked_at. Tokens carry their
+-- issue time in milliseconds, so revoked_at keeps milliseconds too; whole seconds would revoke
+-- logins made just after the change, or keep ones made just before it, on other instances.
+
+ALTER TABLE revoked_tokens MODIFY revoked_at TIMESTAMP(3) NOT NULL;
@@ -0,0 +1,50 @@
+-- Migration: V6__add_ledger_journal.sql
+-- Double-entry journal behind wallet money movements. Journal rows are append-only;
+-- balances are compacted snapshots plus the journal tail.
+
+CREATE TABLE journal_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    reference VARCHAR(100) NOT NULL,
+    description VARCHAR(500),
+    exchange_rate DECIMAL(19,6),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE journal_postings (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entry_id BIGINT NOT NULL,
+    account_type VARCHAR(30) NOT NULL,
+    wallet_id BIGINT NULL,
+    currency VARCHAR(10) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    memo VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (entry_id) REFERENCES journal_entries(id),
+    FOREIGN KEY (wallet_id) REFERENCES wallets(id) ON DELETE CASCADE,
+    CONSTRAINT chk_posting_amount_nonzero CHECK (amount <> 0),
+    CONSTRAINT chk_posting_account_valid CHECK (account_type IN ('WALLET', 'PAYMENT_PROVIDER', 'FX_CLEARING', 'FUNDING'))
+);
+
+CREATE TABLE wallet_balance_snapshots (
+    wallet_id BIGINT PRIMARY KEY,
+    balance DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    last_posting_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (wallet_id) REFERENCES wallets(id) ON DELETE CASCADE
+);
+
+-- Balance reads sum postings after the snapshot for one wallet
+CREATE INDEX idx_journal_postings_wallet_id ON journal_postings(wallet_id, id);
+CREATE INDEX idx_journal_postings_created_at ON journal_postings(created_at);
+CREATE INDEX idx_journal_entries_reference ON journal_entries(reference);
+
+-- Transaction history rows are projections of wallet postings
+ALTER TABLE transactions
+ADD COLUMN journal_posting_id BIGINT NULL,
+ADD CONSTRAINT uk_transactions_journal_posting UNIQUE (journal_posting_id);
+
+-- Existing balances become the opening snapshot
+INSERT INTO wallet_balance_snapshots (wallet_id, balance, last_posting_id)
+SELECT id, balance, 0 FROM wallets;
@@ -0,0 +1,14 @@
+-- Migration: V7__add_wallet_balance_version.sql
+-- wallets.balance becomes the live running balance again, maintained by set-based
+-- conditional UPDATEs alongside the journal. The version column is bumped by every update.
+
+ALTER TABLE wallets
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Catch the column up with everything journaled since V6 (snapshot plus uncompacted tail)
+UPDATE wallets w
+JOIN wallet_balance_snapshots s ON s.wallet_id = w.id
+SET w.balance = s.balance + COALESCE((
+    SELECT SUM(p.amount) FROM journal_postings p
+    WHERE p.wallet_id = w.id AND p.id > s.last_posting_id
+), 0);
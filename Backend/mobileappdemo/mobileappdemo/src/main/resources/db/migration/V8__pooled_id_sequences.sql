@@ -0,0 +1,19 @@
+-- Migration: V8__pooled_id_sequences.sql
+-- Sequence tables for the pooled id generators on wallets, transactions, notifications and
+-- otp_entry. MySQL has no native sequences, so Hibernate emulates each one as a single-row
+-- table holding the upper bound of the next block (allocationSize = 50).
+--
+-- A pooled block hands out (next_val - 49) .. next_val, so seeding with MAX(id) + 50 makes
+-- the first block start right after the highest existing id.
+
+CREATE TABLE wallets_seq (next_val BIGINT);
+INSERT INTO wallets_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM wallets;
+
+CREATE TABLE transactions_seq (next_val BIGINT);
+INSERT INTO transactions_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM transactions;
+
+CREATE TABLE notifications_seq (next_val BIGINT);
+INSERT INTO notifications_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM notifications;
+
+CREATE TABLE otp_entry_seq (next_val BIGINT);
+INSERT INTO otp_entry_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM otp_entry;
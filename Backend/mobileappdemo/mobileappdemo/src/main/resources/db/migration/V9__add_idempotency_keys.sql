@@ -0,0 +1,23 @@
+-- Migration: V9__add_idempotency_keys.sql
+-- Idempotency-Key claims for the money-moving wallet endpoints. A row is inserted before the
+-- request runs; the unique index is what lets only one instance run a given key.
+
+CREATE TABLE idempotency_keys (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    endpoint VARCHAR(50) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INT NULL,
+    response_body VARCHAR(8000) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP NULL,
+    CONSTRAINT uk_idempotency_keys_user_key UNIQUE (user_id, idempotency_key),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Expired keys are purged by creation time
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys(created_at);
+
+CREATE TABLE idempotency_keys_seq (next_val BIGINT);
+INSERT INTO idempotency_keys_seq (next_val) VALUES (50);
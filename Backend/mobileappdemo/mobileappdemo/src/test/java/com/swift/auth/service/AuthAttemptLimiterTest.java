@@ -0,0 +1,66 @@
+package com.swift.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthAttemptLimiterTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T12:00:00Z"));
+    private final AuthAttemptLimiter limiter = new AuthAttemptLimiter(new SimpleMeterRegistry(), 10, 10, 3, 3, 1000, clock);
+
+    @Test
+    void testAccountIsThrottledAcrossAddressesAndRefills() {
+        for (int i = 0; i < 3; i++) {
+            limiter.checkLogin("10.0.0." + i, "User@Example.com");
+        }
+        AuthThrottledException e = assertThrows(AuthThrottledException.class,
+                () -> limiter.checkLogin("10.0.0.9", "user@example.com"));
+        assertEquals(20, e.getRetryAfterSeconds());
+        // Other accounts are unaffected
+        limiter.checkLogin("10.0.0.9", "other@example.com");
+
+        clock.now = clock.now.plusSeconds(20);
+        limiter.checkLogin("10.0.0.9", "user@example.com");
+    }
+
+    @Test
+    void testAddressIsThrottledAcrossAccountsAndSignups() {
+        for (int i = 0; i < 5; i++) {
+            limiter.checkLogin("10.0.0.1", "user" + i + "@example.com");
+            limiter.checkSignup("10.0.0.1");
+        }
+        assertThrows(AuthThrottledException.class, () -> limiter.checkSignup("10.0.0.1"));
+        assertThrows(AuthThrottledException.class, () -> limiter.checkLogin("10.0.0.1", "new@example.com"));
+        limiter.checkSignup("10.0.0.2");
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -40,7 +40,7 @@ public class AuthServiceTest {
         request.setLastName("User");
 
         // Perform signup
-        ResponseEntity<?> response = authService.signup(request);
+        ResponseEntity<?> response = authService.signup(request, "127.0.0.1");
 
         // Verify response
         assertNotNull(response);
@@ -70,7 +70,7 @@ public class AuthServiceTest {
         request1.setFirstName("User");
         request1.setLastName("One");
 
-        ResponseEntity<?> response1 = authService.signup(request1);
+        ResponseEntity<?> response1 = authService.signup(request1, "127.0.0.1");
         assertEquals(200, response1.getStatusCodeValue());
 
         // Try to create second user with same email
@@ -82,7 +82,7 @@ public class AuthServiceTest {
         request2.setFirstName("User");
         request2.setLastName("Two");
 
-        ResponseEntity<?> response2 = authService.signup(request2);
+        ResponseEntity<?> response2 = authService.signup(request2, "127.0.0.1");
         assertEquals(400, response2.getStatusCodeValue());
     }
 
@@ -97,7 +97,7 @@ public class AuthServiceTest {
         request1.setFirstName("User");
         request1.setLastName("One");
 
-        ResponseEntity<?> response1 = authService.signup(request1);
+        ResponseEntity<?> response1 = authService.signup(request1, "127.0.0.1");
         assertEquals(200, response1.getStatusCodeValue());
 
         // Try to create second user with same username
@@ -109,7 +109,7 @@ public class AuthServiceTest {
         request2.setFirstName("User");
         request2.setLastName("Two");
 
-        ResponseEntity<?> response2 = authService.signup(request2);
+        ResponseEntity<?> response2 = authService.signup(request2, "127.0.0.1");
         assertEquals(400, response2.getStatusCodeValue());
     }
 
@@ -123,7 +123,7 @@ public class AuthServiceTest {
         request.setFirstName("Test");
         request.setLastName("User");
 
-        ResponseEntity<?> response = authService.signup(request);
+        ResponseEntity<?> response = authService.signup(request, "127.0.0.1");
         assertEquals(400, response.getStatusCodeValue());
     }
 
@@ -137,7 +137,7 @@ public class AuthServiceTest {
         request.setFirstName("Test");
         request.setLastName("User");
 
-        ResponseEntity<?> response = authService.signup(request);
+        ResponseEntity<?> response = authService.signup(request, "127.0.0.1");
         assertEquals(400, response.getStatusCodeValue());
     }
 } 
\ No newline at end of file
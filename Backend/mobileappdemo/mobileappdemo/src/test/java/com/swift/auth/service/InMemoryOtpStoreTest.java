@@ -0,0 +1,85 @@
+package com.swift.auth.service;
+
+import com.swift.auth.service.OtpStore.VerifyResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOtpStoreTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T12:00:00Z"));
+    private final InMemoryOtpStore store = new InMemoryOtpStore(Duration.ofMinutes(10), Duration.ofSeconds(30), 3, 1000, clock);
+
+    @Test
+    void testCodeVerifiesOnce() {
+        String code = store.issue("user@example.com");
+
+        assertTrue(code.matches("\\d{6}"), code);
+        assertEquals(VerifyResult.VALID, store.verify("user@example.com", code));
+        assertEquals(VerifyResult.ALREADY_USED, store.verify("user@example.com", code));
+        assertEquals(VerifyResult.NOT_FOUND, store.verify("other@example.com", code));
+    }
+
+    @Test
+    void testWrongGuessesLockTheCode() {
+        String code = store.issue("user@example.com");
+        String wrong = code.equals("000000") ? "111111" : "000000";
+
+        assertEquals(VerifyResult.INVALID, store.verify("user@example.com", wrong));
+        assertEquals(VerifyResult.INVALID, store.verify("user@example.com", wrong));
+        assertEquals(VerifyResult.TOO_MANY_ATTEMPTS, store.verify("user@example.com", wrong));
+        // Locked: even the right code is refused now
+        assertEquals(VerifyResult.TOO_MANY_ATTEMPTS, store.verify("user@example.com", code));
+    }
+
+    @Test
+    void testCodeExpires() {
+        String code = store.issue("user@example.com");
+        clock.now = clock.now.plus(Duration.ofMinutes(11));
+
+        assertEquals(VerifyResult.EXPIRED, store.verify("user@example.com", code));
+    }
+
+    @Test
+    void testResendCooldownAndNewCodeReplacesOld() {
+        String first = store.issue("user@example.com");
+
+        OtpCooldownException e = assertThrows(OtpCooldownException.class, () -> store.issue("user@example.com"));
+        assertEquals(30, e.getRetryAfterSeconds());
+
+        clock.now = clock.now.plusSeconds(31);
+        String second = store.issue("user@example.com");
+        if (!first.equals(second)) {
+            assertEquals(VerifyResult.INVALID, store.verify("user@example.com", first));
+        }
+        assertEquals(VerifyResult.VALID, store.verify("user@example.com", second));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.swift.auth.service;
+
+import com.swift.auth.service.OtpStore.VerifyResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A login burst against the in-memory OTP store: USERS codes are issued, then THREADS threads
+ * verify them all at once, each user getting one wrong guess before the right code.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class OtpVerifyBenchmarkTest {
+
+    private static final int USERS = 50_000;
+    private static final int THREADS = 16;
+
+    @Test
+    void testVerifyThroughputDuringLoginBurst() throws Exception {
+        InMemoryOtpStore store = new InMemoryOtpStore(Duration.ofMinutes(10), Duration.ofSeconds(30), 5, USERS * 2L,
+                Clock.systemDefaultZone());
+        String[] codes = new String[USERS];
+        long issueStarted = System.nanoTime();
+        for (int i = 0; i < USERS; i++) {
+            codes[i] = store.issue("user" + i + "@example.com");
+        }
+        long issueNanos = System.nanoTime() - issueStarted;
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                int valid = 0;
+                for (int i = thread; i < USERS; i += THREADS) {
+                    String identifier = "user" + i + "@example.com";
+                    String wrong = codes[i].equals("000000") ? "111111" : "000000";
+                    assertEquals(VerifyResult.INVALID, store.verify(identifier, wrong));
+                    if (store.verify(identifier, codes[i]) == VerifyResult.VALID) {
+                        valid++;
+                    }
+                }
+                return valid;
+            }));
+        }
+        long verifyStarted = System.nanoTime();
+        start.countDown();
+        int valid = 0;
+        for (Future<Integer> result : results) {
+            valid += result.get(2, TimeUnit.MINUTES);
+        }
+        long verifyNanos = System.nanoTime() - verifyStarted;
+        pool.shutdown();
+
+        double verifiesPerSecond = USERS * 2 / (verifyNanos / 1_000_000_000.0);
+        System.out.printf("users=%d threads=%d issue=%dms verify=%dms throughput=%.0f verifies/s%n",
+                USERS, THREADS, TimeUnit.NANOSECONDS.toMillis(issueNanos), TimeUnit.NANOSECONDS.toMillis(verifyNanos),
+                verifiesPerSecond);
+
+        assertEquals(USERS, valid);
+        assertTrue(verifiesPerSecond > 10_000, "expected well over 10k verifies/s, got " + verifiesPerSecond);
+    }
+}
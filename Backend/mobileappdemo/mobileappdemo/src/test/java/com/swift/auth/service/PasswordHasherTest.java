@@ -0,0 +1,68 @@
+package com.swift.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @Test
+    void testLowerCostHashIsUpgradedOnMatch() {
+        String stored = new BCryptPasswordEncoder(4).encode("SecretPass123");
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(5), new SimpleMeterRegistry(), 1, 4, 5000);
+
+        PasswordHasher.Match match = hasher.matches("SecretPass123", stored);
+        assertTrue(match.matched());
+        assertTrue(match.upgradedHash().startsWith("$2a$05$"), match.upgradedHash());
+        assertTrue(hasher.matches("SecretPass123", match.upgradedHash()).matched());
+        assertNull(hasher.matches("SecretPass123", match.upgradedHash()).upgradedHash());
+
+        assertFalse(hasher.matches("WrongPass123", stored).matched());
+        hasher.shutdown();
+    }
+
+    @Test
+    void testSaturatedPoolRejectsImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(slow, registry, 1, 1, 10_000);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("second"));
+        while (registry.get("auth.password.hash.queue.depth").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        long before = System.nanoTime();
+        AuthThrottledException e = assertThrows(AuthThrottledException.class, () -> hasher.encode("third"));
+        assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(1), "rejection should not wait");
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("auth.attempts.rejected").tag("reason", "saturated").counter().count());
+
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+        hasher.shutdown();
+    }
+}
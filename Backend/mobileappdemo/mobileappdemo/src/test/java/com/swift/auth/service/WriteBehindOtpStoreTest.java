@@ -0,0 +1,85 @@
+package com.swift.auth.service;
+
+import com.swift.auth.models.OtpCode;
+import com.swift.auth.repository.OtpCodeRepository;
+import com.swift.auth.service.OtpStore.VerifyResult;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"otp.store=database", "otp.write-behind.flush-interval-ms=3600000"})
+public class WriteBehindOtpStoreTest {
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    @Test
+    public void testCodeIssuedHereVerifiesOnAnotherInstance() {
+        assertInstanceOf(WriteBehindOtpStore.class, otpStore);
+        String identifier = TestAccounts.uniqueEmail("writebehind");
+        String code = otpStore.issue(identifier);
+        assertTrue(otpCodeRepository.findById(identifier).isEmpty(), "nothing written before the flush");
+
+        ((WriteBehindOtpStore) otpStore).flush();
+
+        OtpCode row = otpCodeRepository.findById(identifier).orElseThrow();
+        assertNotEquals(code, row.getCodeHash());
+        assertFalse(row.isUsed());
+
+        WriteBehindOtpStore otherInstance = new WriteBehindOtpStore(600, 30, 5, 1000);
+        ReflectionTestUtils.setField(otherInstance, "otpCodeRepository", otpCodeRepository);
+        assertEquals(VerifyResult.VALID, otherInstance.verify(identifier, code));
+        otherInstance.flush();
+
+        assertTrue(otpCodeRepository.findById(identifier).orElseThrow().isUsed());
+    }
+
+    @Test
+    public void testInstancesShareUseNewCodesAndAttemptLimit() {
+        WriteBehindOtpStore first = otherInstance();
+        WriteBehindOtpStore second = otherInstance();
+        String identifier = TestAccounts.uniqueEmail("shared");
+
+        // Checked on the issuing instance before any flush: written first, then used up for everyone
+        String code = first.issue(identifier);
+        assertEquals(VerifyResult.VALID, first.verify(identifier, code));
+        assertEquals(VerifyResult.ALREADY_USED, second.verify(identifier, code));
+        assertEquals(VerifyResult.ALREADY_USED, first.verify(identifier, code));
+
+        // A new code from the other instance replaces the copy this one still holds
+        String newer = second.issue(identifier);
+        second.flush();
+        assertEquals(VerifyResult.VALID, first.verify(identifier, newer));
+
+        // Wrong guesses on either instance count against one limit
+        String third = first.issue(identifier);
+        first.flush();
+        assertEquals(VerifyResult.INVALID, first.verify(identifier, wrong(third)));
+        assertEquals(VerifyResult.INVALID, second.verify(identifier, wrong(third)));
+        assertEquals(VerifyResult.TOO_MANY_ATTEMPTS, first.verify(identifier, wrong(third)));
+        assertEquals(VerifyResult.TOO_MANY_ATTEMPTS, second.verify(identifier, third));
+    }
+
+    // No resend cooldown and a limit of three guesses
+    private WriteBehindOtpStore otherInstance() {
+        WriteBehindOtpStore instance = new WriteBehindOtpStore(600, 0, 3, 1000);
+        ReflectionTestUtils.setField(instance, "otpCodeRepository", otpCodeRepository);
+        return instance;
+    }
+
+    private static String wrong(String code) {
+        return code.equals("000000") ? "000001" : "000000";
+    }
+}
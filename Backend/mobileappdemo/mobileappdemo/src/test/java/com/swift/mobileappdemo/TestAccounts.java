@@ -0,0 +1,67 @@
+package com.swift.mobileappdemo;
+
+import com.swift.auth.models.User;
+import com.swift.auth.repository.UserRepository;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.WalletService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Users and wallets for tests that run against the application context. Names get a
+ * System.nanoTime() suffix, so tests sharing a context never collide on email or username.
+ */
+@Component
+public class TestAccounts {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    public static String uniqueEmail(String name) {
+        return name + System.nanoTime() + "@example.com";
+    }
+
+    /**
+     * A saved user with the password {@code <Name>Pass123}, stored as is.
+     */
+    public User user(String name) {
+        return user(name, Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Pass123");
+    }
+
+    /**
+     * A saved user with the password stored as given, e.g. already encoded.
+     */
+    public User user(String name, String password) {
+        User user = new User();
+        user.setEmailOrPhone(uniqueEmail(name));
+        user.setUsername(name + System.nanoTime());
+        user.setPassword(password);
+        return userRepository.save(user);
+    }
+
+    /**
+     * An empty wallet of the user; GHS is the primary one, as for real users.
+     */
+    public Wallet wallet(User user, CurrencyType currency) {
+        return walletRepository.save(new Wallet(user, currency, currency == CurrencyType.GHS));
+    }
+
+    /**
+     * A wallet of the user credited with the amount through the ledger.
+     */
+    public Wallet fundedWallet(User user, CurrencyType currency, BigDecimal amount) {
+        Wallet wallet = wallet(user, currency);
+        walletService.allocateFundsToWallet(user.getId(), currency, amount);
+        return wallet;
+    }
+}
@@ -0,0 +1,75 @@
+package com.swift.mobileappdemo.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private volatile boolean remoteUp = true;
+
+    private final SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", key -> {
+        calls.incrementAndGet();
+        if (!remoteUp) {
+            throw new IllegalStateException("remote down");
+        }
+        return key + "#" + calls.get();
+    }, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofSeconds(30), 100, registry, now::get, Runnable::run);
+
+    @Test
+    void testStaleValueIsServedWhileRefreshingAndKeptWhenRefreshFails() {
+        assertEquals("a#1", cache.get("a"));
+        assertEquals("a#1", cache.get("a"));
+
+        advance(Duration.ofMinutes(2));
+        remoteUp = false;
+        // Refresh fails: the last good value is still served
+        assertEquals("a#1", cache.get("a"));
+        assertEquals(2, calls.get());
+
+        remoteUp = true;
+        advance(Duration.ofMinutes(2));
+        cache.get("a");
+        assertEquals("a#3", cache.get("a"));
+
+        assertEquals(1.0, registry.get("cache.load.failures").tag("cache", "test").counter().count());
+        assertTrue(registry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count() >= 4);
+    }
+
+    @Test
+    void testFailureIsCachedBriefly() {
+        remoteUp = false;
+        assertThrows(IllegalStateException.class, () -> cache.get("b"));
+        assertThrows(IllegalStateException.class, () -> cache.get("b"));
+        assertEquals(1, calls.get());
+
+        remoteUp = true;
+        advance(Duration.ofSeconds(31));
+        assertEquals("b#2", cache.get("b"));
+    }
+
+    @Test
+    void testStaleValueExpiresIfRefreshKeepsFailing() {
+        assertEquals("c#1", cache.get("c"));
+        remoteUp = false;
+        for (int i = 0; i < 9; i++) {
+            advance(Duration.ofMinutes(1).plusSeconds(1));
+            assertEquals("c#1", cache.get("c"));
+        }
+        advance(Duration.ofMinutes(1));
+        assertThrows(IllegalStateException.class, () -> cache.get("c"));
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+    }
+}
@@ -0,0 +1,94 @@
+package com.swift.mobileappdemo.security;
+
+import com.swift.auth.models.User;
+import com.swift.auth.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Per-request cost of JwtAuthFilter for TOKENS distinct users: the first request of each token
+ * (signature check and parse) against repeat requests (cache and revocation filter only), with
+ * a share of the tokens logged out. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class JwtFilterBenchmarkTest {
+
+    private static final int TOKENS = 20_000;
+    private static final int REPEATS = 20;
+
+    @Test
+    void testCachedVerificationIsCheaperThanParsing() throws Exception {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        ReflectionTestUtils.setField(jwtService, "expirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxEntries", TOKENS * 2L);
+        jwtService.init();
+
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        TokenRevocationList revocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocationList, "revokedTokenRepository", repository);
+        ReflectionTestUtils.setField(revocationList, "expirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(revocationList, "expectedEntries", 100_000L);
+        ReflectionTestUtils.setField(revocationList, "falsePositiveRate", 0.01);
+        revocationList.init();
+
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, revocationList);
+
+        String[] tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setUsername("user" + i);
+            tokens[i] = jwtService.generateToken(user);
+        }
+        // Every tenth user has logged out
+        for (int i = 0; i < TOKENS; i += 10) {
+            revocationList.revoke(jwtService.verify(tokens[i]).orElseThrow());
+        }
+        ReflectionTestUtils.setField(jwtService, "verified", null);
+        jwtService.init();
+
+        long coldStarted = System.nanoTime();
+        int coldAuthenticated = runRequests(filter, tokens, 1);
+        long coldNanos = System.nanoTime() - coldStarted;
+
+        long warmStarted = System.nanoTime();
+        int warmAuthenticated = runRequests(filter, tokens, REPEATS);
+        long warmNanos = System.nanoTime() - warmStarted;
+
+        double coldMicros = coldNanos / 1000.0 / TOKENS;
+        double warmMicros = warmNanos / 1000.0 / ((long) TOKENS * REPEATS);
+        System.out.printf("tokens=%d first request=%.2fus/request repeat=%.2fus/request (%d ms, %d ms)%n",
+                TOKENS, coldMicros, warmMicros, TimeUnit.NANOSECONDS.toMillis(coldNanos), TimeUnit.NANOSECONDS.toMillis(warmNanos));
+
+        assertEquals(TOKENS - TOKENS / 10, coldAuthenticated);
+        assertEquals((TOKENS - TOKENS / 10) * REPEATS, warmAuthenticated);
+        assertTrue(warmMicros < coldMicros, "cached verification should beat parsing: " + warmMicros + " vs " + coldMicros);
+    }
+
+    private static int runRequests(JwtAuthFilter filter, String[] tokens, int repeats) throws Exception {
+        int authenticated = 0;
+        for (int r = 0; r < repeats; r++) {
+            for (String token : tokens) {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets");
+                request.addHeader("Authorization", "Bearer " + token);
+                filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                if (SecurityContextHolder.getContext().getAuthentication() != null) {
+                    authenticated++;
+                }
+                SecurityContextHolder.clearContext();
+            }
+        }
+        return authenticated;
+    }
+}
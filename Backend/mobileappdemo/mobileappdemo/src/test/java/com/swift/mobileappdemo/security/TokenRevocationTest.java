@@ -0,0 +1,126 @@
+package com.swift.mobileappdemo.security;
+
+import com.swift.auth.dto.ChangePasswordRequest;
+import com.swift.auth.models.User;
+import com.swift.auth.repository.RevokedTokenRepository;
+import com.swift.auth.service.AuthService;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.mobileappdemo.security.JwtService.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class TokenRevocationTest {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        user = testAccounts.user("revoke", passwordEncoder.encode("RevokePass123"));
+    }
+
+    @Test
+    public void testTokenIsVerifiedOnceAndRejectedWhenTampered() {
+        String token = jwtService.generateToken(user);
+
+        VerifiedToken first = jwtService.verify(token).orElseThrow();
+        assertEquals(user.getId(), first.userId());
+        assertSame(first, jwtService.verify(token).orElseThrow(), "second lookup comes from the cache");
+
+        // Change a character inside the signature; the last one partly encodes padding bits
+        int i = token.lastIndexOf('.') + 5;
+        String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+        assertTrue(jwtService.verify(tampered).isEmpty());
+        assertTrue(jwtService.verify("not-a-token").isEmpty());
+    }
+
+    @Test
+    public void testLogoutRevokesOnlyThatToken() {
+        String phone = jwtService.generateToken(user);
+        String laptop = jwtService.generateToken(user);
+
+        ResponseEntity<?> response = authService.logout(phone);
+        assertEquals(200, response.getStatusCode().value());
+
+        assertTrue(tokenRevocationList.isRevoked(jwtService.verify(phone).orElseThrow()));
+        assertFalse(tokenRevocationList.isRevoked(jwtService.verify(laptop).orElseThrow()));
+
+        // Another instance learns about it from the table
+        TokenRevocationList otherInstance = newInstance();
+        assertTrue(otherInstance.isRevoked(jwtService.verify(phone).orElseThrow()));
+        assertFalse(otherInstance.isRevoked(jwtService.verify(laptop).orElseThrow()));
+    }
+
+    @Test
+    public void testPasswordChangeRevokesEarlierTokens() {
+        String token = jwtService.generateToken(user);
+        TokenRevocationList otherInstance = newInstance();
+        assertFalse(otherInstance.isRevoked(jwtService.verify(token).orElseThrow()));
+
+        // Usually within the same second as the token, which iat alone can't tell apart
+        changePassword("RevokePass123", "NewRevokePass123");
+
+        assertTrue(tokenRevocationList.isRevoked(jwtService.verify(token).orElseThrow()));
+        otherInstance.sync();
+        assertTrue(otherInstance.isRevoked(jwtService.verify(token).orElseThrow()));
+    }
+
+    @Test
+    public void testTokenIssuedRightAfterPasswordChangeIsKept() throws InterruptedException {
+        TokenRevocationList otherInstance = newInstance();
+        changePassword("RevokePass123", "NewRevokePass123");
+        // A login in the very millisecond of the change counts as before it
+        Thread.sleep(1);
+        String token = jwtService.generateToken(user);
+
+        assertFalse(tokenRevocationList.isRevoked(jwtService.verify(token).orElseThrow()));
+        otherInstance.sync();
+        assertFalse(otherInstance.isRevoked(jwtService.verify(token).orElseThrow()));
+    }
+
+    private void changePassword(String current, String next) {
+        ChangePasswordRequest request = new ChangePasswordRequest();
+        request.setCurrentPassword(current);
+        request.setNewPassword(next);
+        request.setConfirmNewPassword(next);
+        assertEquals(200, authService.changePassword(user.getId(), request).getStatusCode().value());
+    }
+
+    private TokenRevocationList newInstance() {
+        TokenRevocationList instance = new TokenRevocationList();
+        ReflectionTestUtils.setField(instance, "revokedTokenRepository", revokedTokenRepository);
+        ReflectionTestUtils.setField(instance, "expirationMs", 604_800_000L);
+        ReflectionTestUtils.setField(instance, "expectedEntries", 1000L);
+        ReflectionTestUtils.setField(instance, "falsePositiveRate", 0.01);
+        instance.init();
+        return instance;
+    }
+}
@@ -0,0 +1,217 @@
+package com.swift.notification;
+
+import com.swift.notification.enums.MailPriority;
+import com.swift.notification.service.MailDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MailDispatcher against a minimal SMTP server running in the test JVM.
+ */
+public class MailDispatcherTest {
+
+    private SmtpStub smtp;
+    private MailDispatcher dispatcher;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (dispatcher != null) dispatcher.shutdown();
+        if (smtp != null) smtp.close();
+    }
+
+    @Test
+    public void testBatchesShareOneConnection() throws Exception {
+        smtp = new SmtpStub(0);
+        start(1, 20);
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(dispatcher.submit(message("Notice " + i), MailPriority.NOTICE));
+        }
+        await(() -> smtp.subjects.size() == 40);
+
+        assertTrue(smtp.connections.get() <= 4, "expected batched sends, got " + smtp.connections.get() + " connections");
+        await(() -> dispatcher.getQueueDepth() == 0);
+        assertEquals(40, meterRegistry.get("mail.dispatch.delivery.latency").tag("priority", "NOTICE").timer().count());
+    }
+
+    @Test
+    public void testOtpGoesAheadOfQueuedNotices() throws Exception {
+        smtp = new SmtpStub(0);
+        smtp.holdGreeting = new CountDownLatch(1);
+        start(1, 1);
+
+        dispatcher.submit(message("Notice 0"), MailPriority.NOTICE);
+        await(() -> smtp.connections.get() == 1);
+        // The only worker is now stuck on Notice 0; queue more behind it
+        for (int i = 1; i <= 3; i++) {
+            dispatcher.submit(message("Notice " + i), MailPriority.NOTICE);
+        }
+        dispatcher.submit(message("OTP"), MailPriority.OTP);
+        smtp.holdGreeting.countDown();
+
+        await(() -> smtp.subjects.size() == 5);
+        assertEquals(List.of("Notice 0", "OTP", "Notice 1", "Notice 2", "Notice 3"), List.copyOf(smtp.subjects));
+    }
+
+    @Test
+    public void testRefusedMessageIsRetried() throws Exception {
+        smtp = new SmtpStub(2);
+        start(1, 20);
+
+        dispatcher.submit(message("OTP"), MailPriority.OTP);
+
+        await(() -> smtp.subjects.size() == 1);
+        assertEquals(2, (int) meterRegistry.get("mail.dispatch.retried").counter().count());
+        await(() -> dispatcher.getQueueDepth() == 0);
+    }
+
+    @Test
+    public void testFullQueueRefusesNewMail() throws Exception {
+        smtp = new SmtpStub(0);
+        smtp.holdGreeting = new CountDownLatch(1);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new MailDispatcher(sender(), meterRegistry, 1, 2, 1, 3, 10);
+
+        assertTrue(dispatcher.submit(message("A"), MailPriority.NOTICE));
+        assertTrue(dispatcher.submit(message("B"), MailPriority.NOTICE));
+        assertFalse(dispatcher.submit(message("C"), MailPriority.NOTICE));
+        smtp.holdGreeting.countDown();
+
+        await(() -> smtp.subjects.size() == 2);
+        assertTrue(dispatcher.submit(message("D"), MailPriority.NOTICE));
+    }
+
+    private void start(int threads, int batchSize) {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new MailDispatcher(sender(), meterRegistry, threads, 1000, batchSize, 5, 10);
+    }
+
+    private JavaMailSenderImpl sender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(smtp.port());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.from", "noreply@swift.test");
+        properties.put("mail.smtp.timeout", "5000");
+        sender.setJavaMailProperties(properties);
+        return sender;
+    }
+
+    private SimpleMailMessage message(String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo("user@swift.test");
+        message.setSubject(subject);
+        message.setText("Body of " + subject);
+        return message;
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for mail");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Accepts everything except the first refuseFirst MAIL commands, which get a temporary 451.
+     * Records the subject of every message it accepts, in order.
+     */
+    private static final class SmtpStub {
+        final ServerSocket server;
+        final AtomicInteger connections = new AtomicInteger();
+        final ConcurrentLinkedQueue<String> subjects = new ConcurrentLinkedQueue<>();
+        final AtomicInteger refusalsLeft;
+        volatile CountDownLatch holdGreeting = new CountDownLatch(0);
+
+        SmtpStub(int refuseFirst) throws IOException {
+            this.refusalsLeft = new AtomicInteger(refuseFirst);
+            this.server = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        Thread session = new Thread(() -> serve(socket));
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                holdGreeting.await(10, TimeUnit.SECONDS);
+                reply(out, "220 stub ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 stub");
+                    } else if (command.startsWith("MAIL")) {
+                        reply(out, refusalsLeft.getAndDecrement() > 0 ? "451 try again later" : "250 OK");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 go ahead");
+                        String subject = null;
+                        while (!(line = in.readLine()).equals(".")) {
+                            if (subject == null && line.startsWith("Subject: ")) {
+                                subject = line.substring("Subject: ".length());
+                            }
+                        }
+                        subjects.add(subject);
+                        reply(out, "250 queued");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 bye");
+                        return;
+                    } else {
+                        // RCPT, RSET, NOOP
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // client went away
+            }
+        }
+
+        private void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.swift.notification;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.mobileappdemo.paging.CursorPage;
+import com.swift.notification.dto.NotificationDto;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.models.Notification;
+import com.swift.notification.repository.NotificationRepository;
+import com.swift.notification.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class NotificationFeedTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        user = testAccounts.user("feed");
+    }
+
+    @Test
+    public void testCursorPagesWalkTheFeedBothWays() {
+        // Seven notifications over three timestamps, so pages split rows with the same created_at
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        List<Notification> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Notification notification = new Notification();
+            notification.setUser(user);
+            notification.setType(NotificationType.DEPOSIT);
+            notification.setTitle("Deposit " + i);
+            notification.setMessage("Deposit " + i);
+            notification.setCreatedAt(base.plusSeconds(i / 3));
+            saved.add(notificationRepository.save(notification));
+        }
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(Notification::getCreatedAt).thenComparing(Notification::getId).reversed())
+                .map(Notification::getId).toList();
+
+        List<Long> forward = new ArrayList<>();
+        List<CursorPage<NotificationDto>> pages = new ArrayList<>();
+        CursorPage<NotificationDto> page = notificationService.getUserNotificationFeed(user.getId(), null, 3);
+        assertFalse(page.hasPrevious());
+        while (true) {
+            pages.add(page);
+            page.items().forEach(n -> forward.add(n.getId()));
+            if (!page.hasNext()) {
+                break;
+            }
+            page = notificationService.getUserNotificationFeed(user.getId(), page.nextCursor(), 3);
+        }
+        assertEquals(expected, forward);
+        assertEquals(3, pages.size());
+
+        // Back from the last page gives the same pages again
+        for (int p = pages.size() - 2; p >= 0; p--) {
+            page = notificationService.getUserNotificationFeed(user.getId(), page.previousCursor(), 3);
+            assertEquals(ids(pages.get(p)), ids(page));
+        }
+        assertFalse(page.hasPrevious());
+        assertTrue(page.hasNext());
+        assertEquals(7, notificationService.countUserNotifications(user.getId()));
+
+        assertThrows(IllegalArgumentException.class, () -> notificationService.getUserNotificationFeed(user.getId(), "not-a-cursor", 3));
+    }
+
+    private List<Long> ids(CursorPage<NotificationDto> page) {
+        return page.items().stream().map(NotificationDto::getId).toList();
+    }
+}
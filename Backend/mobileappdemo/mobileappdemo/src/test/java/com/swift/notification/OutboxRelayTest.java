@@ -0,0 +1,116 @@
+package com.swift.notification;
+
+import com.swift.auth.models.ActivityLog;
+import com.swift.auth.models.User;
+import com.swift.auth.repository.ActivityLogRepository;
+import com.swift.auth.service.ActivityLogService;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.models.Notification;
+import com.swift.notification.models.OutboxEvent;
+import com.swift.notification.repository.NotificationRepository;
+import com.swift.notification.repository.OutboxEventRepository;
+import com.swift.notification.service.OutboxService;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class OutboxRelayTest {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @MockitoSpyBean
+    private ActivityLogService activityLogService;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        user = testAccounts.user("outbox");
+    }
+
+    @Test
+    public void testDepositEventIsRelayedToNotificationsAndActivityLog() throws Exception {
+        walletRepository.save(new Wallet(user, CurrencyType.GHS, true));
+        walletService.allocateFundsToWallet(user.getId(), CurrencyType.GHS, new BigDecimal("25.00"));
+
+        await(() -> notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).size() == 1);
+
+        Notification notification = notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).get(0);
+        assertEquals(NotificationType.DEPOSIT, notification.getType());
+        assertNotNull(notification.getReferenceId());
+
+        List<ActivityLog> logs = activityLogRepository.findByUserIdOrderByCreatedAtDescIdDesc(user.getId(), PageRequest.of(0, 10));
+        assertEquals(1, logs.size());
+        assertEquals(notification.getReferenceId(), logs.get(0).getReferenceId());
+        assertTrue(outboxEventRepository.findAll().stream()
+                .filter(event -> event.getUserId().equals(user.getId()))
+                .allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    @Test
+    public void testFailingEventDoesNotHoldBackItsBatch() throws Exception {
+        doThrow(new RuntimeException("activity log unavailable")).when(activityLogService)
+                .handle(argThat(events -> events.stream().anyMatch(event -> "poison".equals(event.getTitle()))));
+
+        OutboxEvent first = outboxService.publish(user, NotificationType.LOGIN, "New login", "Signed in");
+        OutboxEvent poison = outboxService.publish(user, NotificationType.LOGIN, "poison", "Signed in again");
+        OutboxEvent last = outboxService.publish(user, NotificationType.SECURITY_ALERT, "Password changed", "Password changed");
+
+        await(() -> outboxEventRepository.findById(poison.getId()).orElseThrow().getAttempts() > 0
+                && outboxEventRepository.findById(last.getId()).orElseThrow().getPublishedAt() != null);
+
+        assertNotNull(outboxEventRepository.findById(first.getId()).orElseThrow().getPublishedAt());
+        OutboxEvent failed = outboxEventRepository.findById(poison.getId()).orElseThrow();
+        assertNull(failed.getPublishedAt());
+        assertEquals("activity log unavailable", failed.getLastError());
+        // Nothing from the failed event was half-written
+        assertEquals(2, notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).size());
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "outbox was not relayed");
+            Thread.sleep(20);
+        }
+    }
+}
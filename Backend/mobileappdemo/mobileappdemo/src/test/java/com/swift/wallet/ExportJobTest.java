@@ -0,0 +1,189 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.controller.ExportJobController;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.ExportJobStatus;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.service.ExportJobDispatcher;
+import com.swift.wallet.service.ExportSpool;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class ExportJobTest {
+
+    @Autowired
+    private ExportJobController exportJobController;
+
+    @Autowired
+    private ExportJobDispatcher exportJobDispatcher;
+
+    @Autowired
+    private ExportSpool exportSpool;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("exportjob");
+        userId = user.getId();
+        testAccounts.fundedWallet(user, CurrencyType.GHS, new BigDecimal("300.00"));
+        walletService.debitWallet(userId, CurrencyType.GHS, new BigDecimal("20.00"), TransactionType.WITHDRAWAL,
+                "Withdrawal to bank", "WD_" + System.nanoTime());
+    }
+
+    @Test
+    public void testRepeatRequestsShareOneJobAndDownloadsResume() throws Exception {
+        ResponseEntity<Map<String, Object>> first = exportJobController.requestExport("ndjson", null, null, userId);
+        assertEquals(HttpStatus.ACCEPTED, first.getStatusCode());
+        assertEquals(false, first.getBody().get("deduplicated"));
+        Long jobId = (Long) first.getBody().get("jobId");
+
+        ResponseEntity<Map<String, Object>> again = exportJobController.requestExport("NDJSON", null, null, userId);
+        assertEquals(jobId, again.getBody().get("jobId"));
+        assertEquals(true, again.getBody().get("deduplicated"));
+        // Another format is another export
+        assertNotEquals(jobId, exportJobController.requestExport("csv", null, null, userId).getBody().get("jobId"));
+
+        Map<String, Object> ready = awaitReady(jobId);
+        assertEquals(2L, ready.get("rowCount"));
+        assertEquals("/api/transactions/exports/" + jobId + "/download", ready.get("downloadUrl"));
+
+        ResponseEntity<StreamingResponseBody> whole = exportJobController.downloadExport(jobId, null, null, userId);
+        assertEquals(HttpStatus.OK, whole.getStatusCode());
+        assertEquals("bytes", whole.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        byte[] file = body(whole);
+        assertEquals(((Long) ready.get("sizeBytes")).longValue(), file.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(file))) {
+            String[] rows = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            assertEquals(2, rows.length);
+            assertTrue(rows[0].startsWith("{\"id\":"));
+        }
+
+        // Resuming after the first 10 bytes
+        String etag = whole.getHeaders().getETag();
+        ResponseEntity<StreamingResponseBody> rest = exportJobController.downloadExport(jobId, "bytes=10-", etag, userId);
+        assertEquals(HttpStatus.PARTIAL_CONTENT, rest.getStatusCode());
+        assertEquals("bytes 10-" + (file.length - 1) + "/" + file.length, rest.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(file.length - 10, rest.getHeaders().getContentLength());
+        assertArrayEquals(Arrays.copyOfRange(file, 10, file.length), body(rest));
+
+        ResponseEntity<StreamingResponseBody> middle = exportJobController.downloadExport(jobId, "bytes=3-7", null, userId);
+        assertArrayEquals(Arrays.copyOfRange(file, 3, 8), body(middle));
+
+        // A different file than the one the client started on: send it whole
+        ResponseEntity<StreamingResponseBody> changed = exportJobController.downloadExport(jobId, "bytes=10-", "\"other\"", userId);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertArrayEquals(file, body(changed));
+
+        ResponseEntity<StreamingResponseBody> beyond = exportJobController.downloadExport(jobId, "bytes=" + file.length + "-", null, userId);
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, beyond.getStatusCode());
+        assertEquals("bytes */" + file.length, beyond.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+
+        // Other users can't see the job
+        assertEquals(HttpStatus.NOT_FOUND, exportJobController.getExport(jobId, userId + 1000).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, exportJobController.downloadExport(jobId, null, null, userId + 1000).getStatusCode());
+    }
+
+    @Test
+    public void testExpiredJobsAreRemovedWithTheirFiles() throws Exception {
+        LocalDateTime endDate = LocalDateTime.now().plusMinutes(1);
+        Long jobId = (Long) exportJobController.requestExport("csv", null, endDate, userId).getBody().get("jobId");
+        awaitReady(jobId);
+        assertTrue(exportSpool.size(jobId) > 0);
+
+        jdbcTemplate.update("UPDATE export_jobs SET expires_at = ? WHERE id = ?", LocalDateTime.now().minusSeconds(1), jobId);
+        // Expired but not yet swept: a repeat request starts over
+        Long replacement = (Long) exportJobController.requestExport("csv", null, endDate, userId).getBody().get("jobId");
+        assertNotEquals(jobId, replacement);
+
+        exportJobDispatcher.sweep();
+        assertEquals(HttpStatus.NOT_FOUND, exportJobController.getExport(jobId, userId).getStatusCode());
+        assertEquals(-1, exportSpool.size(jobId));
+        assertEquals(HttpStatus.OK, exportJobController.getExport(replacement, userId).getStatusCode());
+    }
+
+    @Test
+    public void testMissingAndOrphanedFilesAreHandled() throws Exception {
+        Long jobId = (Long) exportJobController.requestExport("ndjson", null, null, userId).getBody().get("jobId");
+        awaitReady(jobId);
+
+        // The file lives on another instance: it can't be downloaded here, and isn't handed out again
+        exportSpool.delete(jobId);
+        assertEquals(HttpStatus.NOT_FOUND, exportJobController.downloadExport(jobId, null, null, userId).getStatusCode());
+        Long replacement = (Long) exportJobController.requestExport("ndjson", null, null, userId).getBody().get("jobId");
+        assertNotEquals(jobId, replacement);
+        awaitReady(replacement);
+
+        // Its job was swept by another instance: the file goes once it is older than the TTL
+        Path file = ((Path) ReflectionTestUtils.getField(exportSpool, "dir")).resolve(replacement + ".gz");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(25, ChronoUnit.HOURS)));
+        exportJobDispatcher.sweep();
+        assertEquals(-1, exportSpool.size(replacement));
+    }
+
+    @Test
+    public void testInvalidRequestsAreRejected() {
+        assertEquals(HttpStatus.BAD_REQUEST, exportJobController.requestExport("xml", null, null, userId).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, exportJobController.requestExport("csv", LocalDateTime.now(),
+                LocalDateTime.now().minusDays(1), userId).getStatusCode());
+    }
+
+    private Map<String, Object> awaitReady(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            Map<String, Object> view = exportJobController.getExport(jobId, userId).getBody();
+            assertNotEquals(ExportJobStatus.FAILED, view.get("status"), String.valueOf(view.get("failureReason")));
+            if (view.get("status") == ExportJobStatus.READY) {
+                return view;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "export job " + jobId + " still " + view.get("status"));
+            Thread.sleep(20);
+        }
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,151 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.mobileappdemo.paging.Cursor;
+import com.swift.mobileappdemo.paging.CursorPage;
+import com.swift.notification.dto.NotificationDto;
+import com.swift.notification.service.NotificationService;
+import com.swift.wallet.dto.TransactionHistoryDto;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Page 1 against page 10,000 of one heavy user's transaction and notification feeds: numbered
+ * pages (OFFSET plus COUNT) against cursor pages.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+public class FeedPaginationBenchmarkTest {
+
+    private static final int ROWS = 250_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int RUNS = 25;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("feedbench");
+        userId = user.getId();
+        Long walletId = testAccounts.wallet(user, CurrencyType.GHS).getId();
+        seed(walletId);
+    }
+
+    @Test
+    public void testDeepPagesCostTheSameAsTheFirst() {
+        PageRequest firstPage = PageRequest.of(0, PAGE_SIZE, Sort.by("createdAt").descending().and(Sort.by("id").descending()));
+        PageRequest deepPage = PageRequest.of(DEEP_PAGE - 1, PAGE_SIZE, firstPage.getSort());
+        String transactionCursor = cursorBefore("transactions", (DEEP_PAGE - 1) * PAGE_SIZE);
+        String notificationCursor = cursorBefore("notifications", (DEEP_PAGE - 1) * PAGE_SIZE);
+
+        // Both ways land on the same rows
+        assertEquals(transactionService.getUserTransactionsPaginated(userId, deepPage).getContent().stream()
+                        .map(TransactionHistoryDto::getId).toList(),
+                transactionService.getUserTransactionFeed(userId, transactionCursor, PAGE_SIZE).items().stream()
+                        .map(TransactionHistoryDto::getId).toList());
+
+        double offsetFirst = medianMs(() -> transactionService.getUserTransactionsPaginated(userId, firstPage).getContent());
+        double offsetDeep = medianMs(() -> transactionService.getUserTransactionsPaginated(userId, deepPage).getContent());
+        double cursorFirst = medianMs(() -> transactionService.getUserTransactionFeed(userId, null, PAGE_SIZE).items());
+        double cursorDeep = medianMs(() -> transactionService.getUserTransactionFeed(userId, transactionCursor, PAGE_SIZE).items());
+        double notificationsFirst = medianMs(() -> notificationService.getUserNotificationFeed(userId, null, PAGE_SIZE).items());
+        double notificationsDeep = medianMs(() -> notificationService.getUserNotificationFeed(userId, notificationCursor, PAGE_SIZE).items());
+
+        System.out.printf("rows=%d page size=%d transactions offset page 1=%.2f ms page %d=%.2f ms, cursor page 1=%.2f ms page %d=%.2f ms%n",
+                ROWS, PAGE_SIZE, offsetFirst, DEEP_PAGE, offsetDeep, cursorFirst, DEEP_PAGE, cursorDeep);
+        System.out.printf("notifications cursor page 1=%.2f ms page %d=%.2f ms%n", notificationsFirst, DEEP_PAGE, notificationsDeep);
+
+        // In-memory H2 skips OFFSET rows along the index almost for free, so the numbered pages are
+        // only printed; what must hold anywhere is that a cursor page costs the same at any depth
+        assertTrue(cursorDeep < cursorFirst * 3 + 1, "cursor page " + DEEP_PAGE + " took " + cursorDeep + " ms against " + cursorFirst);
+        assertTrue(notificationsDeep < notificationsFirst * 3 + 1, "notification page " + DEEP_PAGE + " took " + notificationsDeep + " ms against " + notificationsFirst);
+    }
+
+    // The cursor a client holds after reading the first `rows` rows of a feed
+    private String cursorBefore(String table, int rows) {
+        return jdbcTemplate.queryForObject("SELECT created_at, id FROM " + table + " WHERE user_id = ? " +
+                        "ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?",
+                (rs, n) -> Cursor.olderThan(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)).encode(), userId, rows - 1);
+    }
+
+    private double medianMs(Supplier<List<?>> page) {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(PAGE_SIZE, page.get().size());
+        }
+        double[] runs = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long started = System.nanoTime();
+            assertEquals(PAGE_SIZE, page.get().size());
+            runs[i] = (System.nanoTime() - started) / 1e6;
+        }
+        Arrays.sort(runs);
+        return runs[RUNS / 2];
+    }
+
+    // One user's transactions and notifications, two rows to each second so pages split ties
+    private void seed(Long walletId) {
+        long id = 2_000_000_000L;
+        LocalDateTime base = LocalDateTime.now().minusDays(30).withNano(0);
+        List<Object[]> transactions = new ArrayList<>();
+        List<Object[]> notifications = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++, id++) {
+            Timestamp at = Timestamp.valueOf(base.plusSeconds(i / 2));
+            transactions.add(new Object[]{id, walletId, userId, "DEPOSIT", "12.50", "GHS", "Deposit via Paystack",
+                    "FEED_" + id, "COMPLETED", at, at});
+            notifications.add(new Object[]{id, userId, "DEPOSIT", "Deposit", "You received GHS 12.50", false, at});
+            if (transactions.size() == 10_000) {
+                insert(transactions, notifications);
+            }
+        }
+        insert(transactions, notifications);
+        // The test schema comes from the entities; add the indexes the migrations give the real one
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_transactions_user_created ON transactions(user_id, created_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_notifications_user_created ON notifications(user_id, created_at)");
+    }
+
+    private void insert(List<Object[]> transactions, List<Object[]> notifications) {
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, wallet_id, user_id, type, amount, currency, description, " +
+                "reference, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", transactions);
+        jdbcTemplate.batchUpdate("INSERT INTO notifications (id, user_id, type, title, message, is_read, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", notifications);
+        transactions.clear();
+        notifications.clear();
+    }
+}
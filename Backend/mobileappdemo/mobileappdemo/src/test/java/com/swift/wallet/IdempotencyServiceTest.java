@@ -0,0 +1,209 @@
+package com.swift.wallet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swift.wallet.models.IdempotencyRecord;
+import com.swift.wallet.repository.IdempotencyRecordRepository;
+import com.swift.wallet.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    private final Map<String, Object> request = Map.of("amount", "50.00", "currency", "GHS");
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "retentionHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "claimLeaseSeconds", 300L);
+        ReflectionTestUtils.invokeMethod(idempotencyService, "init");
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(anyLong(), anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void testNoKeyAlwaysRuns() {
+        idempotencyService.execute(1L, null, "send", request, this::succeed);
+        idempotencyService.execute(1L, null, "send", request, this::succeed);
+
+        assertEquals(2, executions.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void testDuplicateReplaysStoredResponseWithoutRunning() {
+        ResponseEntity<Map<String, Object>> first = idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+        ResponseEntity<Map<String, Object>> second = idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), second.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(idempotencyRecordRepository).save(argThat(IdempotencyRecord::isCompleted));
+    }
+
+    @Test
+    void testConcurrentDuplicateWaitsForFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<Map<String, Object>>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(1L, "key-1", "send", request, () -> {
+                    started.countDown();
+                    await(release);
+                    return succeed();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<ResponseEntity<Map<String, Object>>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(1L, "key-1", "send", request, this::succeed));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone(), "duplicate should be waiting on the first execution");
+
+        release.countDown();
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(first.get().getBody(), duplicate.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+        ResponseEntity<Map<String, Object>> reused = idempotencyService.execute(1L, "key-1", "send",
+                Map.of("amount", "999.00", "currency", "GHS"), this::succeed);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testFailedResponseReleasesKey() {
+        ResponseEntity<Map<String, Object>> failed = idempotencyService.execute(1L, "key-1", "send", request, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.badRequest().body(new HashMap<>(Map.of("success", false, "message", "Insufficient balance")));
+        });
+        idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+
+        assertEquals(HttpStatus.BAD_REQUEST, failed.getStatusCode());
+        assertEquals(2, executions.get());
+        verify(idempotencyRecordRepository).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testResponseStoredByAnotherInstanceIsReplayed() throws Exception {
+        IdempotencyRecord stored = new IdempotencyRecord(1L, "key-1", "send", "ignored");
+        ReflectionTestUtils.setField(stored, "requestHash", hashOf("send", request));
+        stored.complete(200, "{\"success\":true,\"reference\":\"SEND_1\"}");
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(stored));
+
+        ResponseEntity<Map<String, Object>> response = idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+
+        assertEquals(0, executions.get());
+        assertEquals("SEND_1", response.getBody().get("reference"));
+        assertEquals("true", response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testFailureAfterMoneyMovedKeepsKey() {
+        ResponseEntity<Map<String, Object>> failed = idempotencyService.execute(1L, "key-1", "send", request, () -> {
+            executions.incrementAndGet();
+            idempotencyService.markIrreversible();
+            return ResponseEntity.badRequest().body(new HashMap<>(Map.of("success", false, "message", "Capture failed")));
+        });
+        ResponseEntity<Map<String, Object>> retried = idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+
+        assertEquals(HttpStatus.BAD_REQUEST, failed.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, retried.getStatusCode());
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, never()).delete(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).save(argThat(IdempotencyRecord::isCompleted));
+    }
+
+    @Test
+    void testOversizedResponseIsStoredCutDown() {
+        idempotencyService.execute(1L, "key-1", "send", request, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(new HashMap<>(Map.of("success", true, "reference", "SEND_1",
+                    "paystackResponse", Map.of("data", "x".repeat(10_000)))));
+        });
+
+        verify(idempotencyRecordRepository, never()).delete(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).save(argThat(record -> record.isCompleted()
+                && record.getResponseBody().length() <= 8000
+                && record.getResponseBody().contains("\"reference\":\"SEND_1\"")
+                && record.getResponseBody().contains("\"truncated\":true")));
+    }
+
+    @Test
+    void testStaleClaimIsTakenOverAndFreshOneIsNot() throws Exception {
+        IdempotencyRecord fresh = new IdempotencyRecord(1L, "key-1", "send", hashOf("send", request));
+        ReflectionTestUtils.setField(fresh, "id", 7L);
+        ReflectionTestUtils.setField(fresh, "claimedAt", LocalDateTime.now().minusSeconds(10));
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(fresh));
+
+        ResponseEntity<Map<String, Object>> busy = idempotencyService.execute(1L, "key-1", "send", request, this::succeed);
+        assertEquals(HttpStatus.CONFLICT, busy.getStatusCode());
+
+        IdempotencyRecord stale = new IdempotencyRecord(1L, "key-2", "send", hashOf("send", request));
+        ReflectionTestUtils.setField(stale, "id", 8L);
+        ReflectionTestUtils.setField(stale, "claimedAt", LocalDateTime.now().minusSeconds(600));
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1L, "key-2")).thenReturn(Optional.of(stale));
+        when(idempotencyRecordRepository.takeOver(eq(8L), eq(0L), any(), any())).thenReturn(1);
+        when(idempotencyRecordRepository.findById(8L)).thenReturn(Optional.of(stale));
+
+        ResponseEntity<Map<String, Object>> resumed = idempotencyService.execute(1L, "key-2", "send", request, this::succeed);
+        assertEquals(HttpStatus.OK, resumed.getStatusCode());
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, never()).takeOver(eq(7L), anyLong(), any(), any());
+    }
+
+    private ResponseEntity<Map<String, Object>> succeed() {
+        int n = executions.incrementAndGet();
+        return ResponseEntity.ok(new HashMap<>(Map.of("success", true, "reference", "SEND_" + n)));
+    }
+
+    private String hashOf(String endpoint, Object body) {
+        return ReflectionTestUtils.invokeMethod(idempotencyService, "hash", endpoint, body);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.swift.wallet;
+
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.LedgerAccountType;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.JournalEntry;
+import com.swift.wallet.models.Transaction;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.service.LedgerCompactionService;
+import com.swift.wallet.service.LedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "ledger.compaction.settle-seconds=-5")
+@Transactional
+public class LedgerServiceTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerCompactionService compactionService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private Wallet ghsWallet;
+
+    @BeforeEach
+    public void setUp() {
+        ghsWallet = testAccounts.wallet(testAccounts.user("ledger"), CurrencyType.GHS);
+    }
+
+    @Test
+    public void testPostProjectsTransactionAndBalance() {
+        List<Transaction> transactions = ledgerService.post(deposit("DEP_1", "150.00"));
+
+        assertEquals(1, transactions.size());
+        assertEquals("DEP_1", transactions.get(0).getReference());
+        assertNotNull(transactions.get(0).getJournalPostingId());
+        assertEquals(0, ledgerService.getBalance(ghsWallet.getId()).compareTo(new BigDecimal("150.00")));
+    }
+
+    @Test
+    public void testUnbalancedEntryIsRejected() {
+        JournalEntry entry = new JournalEntry(TransactionType.DEPOSIT, "DEP_BAD", "Unbalanced")
+                .addPosting(LedgerAccountType.PAYMENT_PROVIDER, null, CurrencyType.GHS, new BigDecimal("-10.00"), null)
+                .addPosting(LedgerAccountType.WALLET, ghsWallet, CurrencyType.GHS, new BigDecimal("9.00"), "Unbalanced");
+
+        assertThrows(RuntimeException.class, () -> ledgerService.post(entry));
+    }
+
+    @Test
+    public void testBalanceIsSnapshotPlusTail() {
+        ledgerService.post(deposit("DEP_1", "100.00"));
+        ledgerService.post(deposit("DEP_2", "50.00"));
+        compactionService.compact();
+        ledgerService.post(deposit("DEP_3", "25.00"));
+
+        assertEquals(0, ledgerService.getBalance(ghsWallet.getId()).compareTo(new BigDecimal("175.00")));
+        // Compacting again must not fold the same postings twice
+        compactionService.compact();
+        assertEquals(0, ledgerService.getBalance(ghsWallet.getId()).compareTo(new BigDecimal("175.00")));
+    }
+
+    private JournalEntry deposit(String reference, String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        return new JournalEntry(TransactionType.DEPOSIT, reference, "Deposit")
+                .addPosting(LedgerAccountType.PAYMENT_PROVIDER, null, CurrencyType.GHS, value.negate(), null)
+                .addPosting(LedgerAccountType.WALLET, ghsWallet, CurrencyType.GHS, value, "Deposit");
+    }
+}
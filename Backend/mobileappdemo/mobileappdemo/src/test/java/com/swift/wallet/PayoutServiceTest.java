@@ -0,0 +1,218 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.dto.BulkPayoutRequest;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.PayoutStatus;
+import com.swift.wallet.enums.TransferOutcome;
+import com.swift.wallet.models.PayoutBatch;
+import com.swift.wallet.models.PayoutItem;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.repository.PayoutItemRepository;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.LedgerService;
+import com.swift.wallet.service.PayoutDispatcher;
+import com.swift.wallet.service.PayoutService;
+import com.swift.wallet.service.PaystackRejectedException;
+import com.swift.wallet.service.PaystackService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "payout.dispatch.verify-after-ms=0")
+public class PayoutServiceTest {
+
+    @Autowired
+    private PayoutService payoutService;
+
+    @Autowired
+    private PayoutDispatcher payoutDispatcher;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private PayoutItemRepository payoutItemRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @MockitoBean
+    private PaystackService paystackService;
+
+    private Long userId;
+    private Wallet wallet;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("payout");
+        userId = user.getId();
+        wallet = testAccounts.fundedWallet(user, CurrencyType.GHS, new BigDecimal("100.00"));
+
+        when(paystackService.initiateTransfer(anyString(), any(), any(), anyString()))
+                .thenReturn(Map.of("status", true, "data", Map.of("transfer_code", "TRF_ok")));
+        when(paystackService.initiateTransfer(eq("RCP_bad"), any(), any(), anyString()))
+                .thenThrow(new PaystackRejectedException("Paystack rejected the transfer: recipient inactive"));
+        when(paystackService.initiateTransfer(eq("RCP_timeout"), any(), any(), anyString()))
+                .thenThrow(new RuntimeException("Failed to initiate Paystack transfer: Read timed out"));
+    }
+
+    @Test
+    public void testFailedItemsAreRefundedAndSucceededItemsSettled() throws Exception {
+        BulkPayoutRequest request = request(
+                new BulkPayoutRequest.Item("RCP_a", new BigDecimal("30.00"), "Salary"),
+                new BulkPayoutRequest.Item("RCP_bad", new BigDecimal("20.00"), "Salary"),
+                new BulkPayoutRequest.Item("RCP_b", new BigDecimal("10.00"), "Salary"));
+
+        PayoutBatch batch = payoutService.createBatch(userId, request);
+        assertEquals(0, new BigDecimal("40.00").compareTo(balance()), "whole batch is reserved up front");
+
+        payoutDispatcher.dispatch(batch.getItems().stream().map(PayoutItem::getId).toList());
+        Map<String, Object> status = awaitBatch(batch.getId());
+
+        assertEquals("PARTIALLY_FAILED", status.get("status"));
+        List<PayoutItem> items = payoutItemRepository.findByBatchIdOrderById(batch.getId());
+        assertEquals(List.of(PayoutStatus.SUCCEEDED, PayoutStatus.FAILED, PayoutStatus.SUCCEEDED),
+                items.stream().map(PayoutItem::getStatus).toList());
+        assertEquals("TRF_ok", items.get(0).getTransferCode());
+        assertTrue(items.get(1).getFailureReason().contains("recipient inactive"));
+
+        assertEquals(0, new BigDecimal("60.00").compareTo(balance()), "failed item is refunded");
+        assertEquals(0, ledgerService.getBalance(wallet.getId()).compareTo(balance()));
+        // Paystack gets our item reference, so a retried call can't pay twice
+        verify(paystackService).initiateTransfer(eq("RCP_a"), any(), eq("Salary"), eq(items.get(0).getReference().toLowerCase()));
+    }
+
+    @Test
+    public void testBatchOverBalanceIsRejectedWithoutStoringAnything() {
+        long itemsBefore = payoutItemRepository.count();
+        BulkPayoutRequest request = request(
+                new BulkPayoutRequest.Item("RCP_a", new BigDecimal("80.00"), "Salary"),
+                new BulkPayoutRequest.Item("RCP_b", new BigDecimal("30.00"), "Salary"));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> payoutService.createBatch(userId, request));
+
+        assertTrue(e.getMessage().startsWith("Insufficient balance"));
+        assertEquals(0, new BigDecimal("100.00").compareTo(balance()));
+        assertEquals(itemsBefore, payoutItemRepository.count());
+    }
+
+    @Test
+    public void testItemIsPaidOnlyOnceWhenDispatchedTwice() throws Exception {
+        PayoutBatch batch = payoutService.createBatch(userId, request(
+                new BulkPayoutRequest.Item("RCP_a", new BigDecimal("25.00"), "Salary")));
+        List<Long> itemIds = batch.getItems().stream().map(PayoutItem::getId).toList();
+
+        payoutDispatcher.dispatch(itemIds);
+        payoutDispatcher.dispatch(itemIds);
+        assertEquals("COMPLETED", awaitBatch(batch.getId()).get("status"));
+
+        verify(paystackService, times(1)).initiateTransfer(eq("RCP_a"), any(), any(), anyString());
+        assertEquals(0, new BigDecimal("75.00").compareTo(balance()));
+    }
+
+    @Test
+    public void testUnknownOutcomeIsVerifiedInsteadOfRefunded() throws Exception {
+        PayoutBatch batch = payoutService.createBatch(userId, request(
+                new BulkPayoutRequest.Item("RCP_timeout", new BigDecimal("30.00"), "Salary"),
+                new BulkPayoutRequest.Item("RCP_timeout", new BigDecimal("20.00"), "Salary")));
+        List<PayoutItem> items = payoutItemRepository.findByBatchIdOrderById(batch.getId());
+
+        payoutDispatcher.dispatch(items.stream().map(PayoutItem::getId).toList());
+        verify(paystackService, timeout(5_000).times(2)).initiateTransfer(eq("RCP_timeout"), any(), any(), anyString());
+
+        // The timed-out calls may have paid, so nobody is refunded yet
+        assertEquals("PROCESSING", payoutService.getBatchStatus(userId, batch.getId(), null).orElseThrow().get("status"));
+        assertEquals(0, new BigDecimal("50.00").compareTo(balance()));
+
+        when(paystackService.verifyTransfer(items.get(0).getReference().toLowerCase()))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.PAID, "TRF_late"));
+        when(paystackService.verifyTransfer(items.get(1).getReference().toLowerCase()))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.FAILED, null));
+        Thread.sleep(5);
+        payoutDispatcher.sweep();
+
+        assertEquals("PARTIALLY_FAILED", awaitBatch(batch.getId()).get("status"));
+        items = payoutItemRepository.findByBatchIdOrderById(batch.getId());
+        assertEquals(PayoutStatus.SUCCEEDED, items.get(0).getStatus());
+        assertEquals("TRF_late", items.get(0).getTransferCode());
+        assertEquals(PayoutStatus.FAILED, items.get(1).getStatus());
+        assertEquals(0, new BigDecimal("70.00").compareTo(balance()), "only the item Paystack reported failed is refunded");
+        assertEquals(0, ledgerService.getBalance(wallet.getId()).compareTo(balance()));
+    }
+
+    @Test
+    public void testResendRefusedAsDuplicateIsVerifiedAgainNotRefunded() throws Exception {
+        PayoutBatch batch = payoutService.createBatch(userId, request(
+                new BulkPayoutRequest.Item("RCP_dup", new BigDecimal("30.00"), "Salary")));
+        PayoutItem item = payoutItemRepository.findByBatchIdOrderById(batch.getId()).get(0);
+        String reference = item.getReference().toLowerCase();
+        when(paystackService.initiateTransfer(eq("RCP_dup"), any(), any(), anyString()))
+                .thenThrow(new RuntimeException("Failed to initiate Paystack transfer: Read timed out"))
+                .thenThrow(new RuntimeException("Paystack already has a transfer with reference " + reference));
+
+        payoutDispatcher.dispatch(List.of(item.getId()));
+        verify(paystackService, timeout(5_000).times(1)).initiateTransfer(eq("RCP_dup"), any(), any(), anyString());
+
+        // Paystack hadn't indexed the first transfer yet when asked, so it is sent again and refused
+        when(paystackService.verifyTransfer(reference))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.NOT_FOUND, null))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.PAID, "TRF_first"));
+        Thread.sleep(5);
+        payoutDispatcher.sweep();
+        verify(paystackService, timeout(5_000).times(2)).initiateTransfer(eq("RCP_dup"), any(), any(), anyString());
+        Thread.sleep(100);
+        assertEquals(PayoutStatus.PROCESSING, payoutItemRepository.findById(item.getId()).orElseThrow().getStatus());
+        assertEquals(0, new BigDecimal("70.00").compareTo(balance()), "the refused resend must not refund the sender");
+
+        Thread.sleep(5);
+        payoutDispatcher.sweep();
+        assertEquals("COMPLETED", awaitBatch(batch.getId()).get("status"));
+        assertEquals("TRF_first", payoutItemRepository.findById(item.getId()).orElseThrow().getTransferCode());
+        assertEquals(0, new BigDecimal("70.00").compareTo(balance()));
+    }
+
+    private BulkPayoutRequest request(BulkPayoutRequest.Item... items) {
+        BulkPayoutRequest request = new BulkPayoutRequest();
+        request.setCurrency(CurrencyType.GHS);
+        request.setDescription("Payroll");
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private Map<String, Object> awaitBatch(Long batchId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> status = payoutService.getBatchStatus(userId, batchId, null).orElseThrow();
+            if (!"PROCESSING".equals(status.get("status"))) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        fail("Payout batch " + batchId + " did not finish");
+        return null;
+    }
+
+    private BigDecimal balance() {
+        return walletRepository.findBalanceById(wallet.getId()).orElseThrow();
+    }
+}
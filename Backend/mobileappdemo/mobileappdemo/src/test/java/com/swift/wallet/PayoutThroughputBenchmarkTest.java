@@ -0,0 +1,115 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.dto.BulkPayoutRequest;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.models.PayoutBatch;
+import com.swift.wallet.models.PayoutItem;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.LedgerService;
+import com.swift.wallet.service.PayoutDispatcher;
+import com.swift.wallet.service.PayoutService;
+import com.swift.wallet.service.PaystackService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bulk payouts against a Paystack stub that takes STUB_LATENCY_MS per transfer, the way the
+ * real API would. Three full batches are paid out and the rate is reported per minute.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+public class PayoutThroughputBenchmarkTest {
+
+    private static final int BATCHES = 3;
+    private static final int ITEMS_PER_BATCH = 1000;
+    private static final long STUB_LATENCY_MS = 50;
+    private static final BigDecimal ITEM_AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private PayoutService payoutService;
+
+    @Autowired
+    private PayoutDispatcher payoutDispatcher;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @MockitoBean
+    private PaystackService paystackService;
+
+    @Test
+    public void testPayoutThroughput() throws Exception {
+        when(paystackService.initiateTransfer(anyString(), any(), any(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(STUB_LATENCY_MS);
+            return Map.of("status", true, "data", Map.of("transfer_code", "TRF_" + invocation.getArgument(3)));
+        });
+
+        User user = testAccounts.user("payoutbench");
+        Wallet wallet = testAccounts.fundedWallet(user, CurrencyType.GHS, ITEM_AMOUNT.multiply(BigDecimal.valueOf(BATCHES * ITEMS_PER_BATCH)));
+        Long userId = user.getId();
+
+        long started = System.nanoTime();
+        List<PayoutBatch> batches = new ArrayList<>();
+        for (int b = 0; b < BATCHES; b++) {
+            BulkPayoutRequest request = new BulkPayoutRequest();
+            List<BulkPayoutRequest.Item> items = new ArrayList<>();
+            for (int i = 0; i < ITEMS_PER_BATCH; i++) {
+                items.add(new BulkPayoutRequest.Item("RCP_" + b + "_" + i, ITEM_AMOUNT, "Payroll"));
+            }
+            request.setItems(items);
+            PayoutBatch batch = payoutService.createBatch(userId, request);
+            payoutDispatcher.dispatch(batch.getItems().stream().map(PayoutItem::getId).toList());
+            batches.add(batch);
+        }
+        long reservedNanos = System.nanoTime() - started;
+
+        for (PayoutBatch batch : batches) {
+            long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5);
+            while (!"COMPLETED".equals(payoutService.getBatchStatus(userId, batch.getId(), null).orElseThrow().get("status"))) {
+                assertTrue(System.currentTimeMillis() < deadline, "batch " + batch.getId() + " did not complete");
+                Thread.sleep(50);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        int total = BATCHES * ITEMS_PER_BATCH;
+        double perMinute = total / (elapsedNanos / 60_000_000_000.0);
+        System.out.printf("payouts=%d stubLatency=%dms reserve+store=%dms total=%dms throughput=%.0f payouts/min%n",
+                total, STUB_LATENCY_MS, TimeUnit.NANOSECONDS.toMillis(reservedNanos),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), perMinute);
+
+        verify(paystackService, times(total)).initiateTransfer(anyString(), any(), any(), anyString());
+        BigDecimal balance = walletRepository.findBalanceById(wallet.getId()).orElseThrow();
+        assertEquals(0, balance.signum());
+        assertEquals(0, ledgerService.getBalance(wallet.getId()).compareTo(balance));
+        assertTrue(perMinute > 1000, "expected thousands of payouts per minute, got " + perMinute);
+    }
+}
@@ -0,0 +1,174 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.notification.enums.NotificationType;
+import com.swift.notification.repository.NotificationRepository;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerAction;
+import com.swift.wallet.enums.RateTriggerDirection;
+import com.swift.wallet.enums.RateTriggerStatus;
+import com.swift.wallet.models.RateTrigger;
+import com.swift.wallet.repository.RateTriggerRepository;
+import com.swift.wallet.service.ExchangeRateService;
+import com.swift.wallet.service.RateTriggerEngine;
+import com.swift.wallet.service.RateTriggerService;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Triggers fired by a rate refresh against a real database. The rates come from a mock, and
+ * each test publishes the refresh event itself.
+ */
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class RateTriggerTest {
+
+    @MockitoBean
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private RateTriggerService rateTriggerService;
+
+    @Autowired
+    private RateTriggerEngine rateTriggerEngine;
+
+    @Autowired
+    private RateTriggerRepository rateTriggerRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("trigger");
+        userId = user.getId();
+        testAccounts.fundedWallet(user, CurrencyType.GHS, new BigDecimal("1000.00"));
+        testAccounts.wallet(user, CurrencyType.USD);
+        when(exchangeRateService.getExchangeRate(any(), any())).thenReturn(new BigDecimal("1.000000"));
+    }
+
+    @Test
+    public void testConversionFiresOnceRateRisesToThreshold() throws InterruptedException {
+        RateTrigger trigger = create(RateTriggerDirection.ABOVE, "0.090000", RateTriggerAction.CONVERT, "500.00");
+
+        refresh("0.085000");
+        Thread.sleep(200);
+        assertEquals(RateTriggerStatus.ACTIVE, status(trigger));
+
+        refresh("0.090000");
+        await(() -> status(trigger) == RateTriggerStatus.FIRED);
+        assertEquals(0, new BigDecimal("500.00").compareTo(balance(CurrencyType.GHS)));
+        assertEquals(0, new BigDecimal("45.00").compareTo(balance(CurrencyType.USD)));
+        assertEquals(0, new BigDecimal("0.090000").compareTo(rateTriggerRepository.findById(trigger.getId()).orElseThrow().getFiredRate()));
+        await(() -> hasNotification(NotificationType.CURRENCY_EXCHANGE));
+
+        // Fired triggers are disarmed: a later crossing converts nothing more
+        refresh("0.095000");
+        Thread.sleep(200);
+        assertEquals(0, new BigDecimal("500.00").compareTo(balance(CurrencyType.GHS)));
+    }
+
+    @Test
+    public void testAlertFiresWhenRateFallsBelowThreshold() throws InterruptedException {
+        RateTrigger trigger = create(RateTriggerDirection.BELOW, "0.080000", RateTriggerAction.ALERT, null);
+
+        refresh("0.079500");
+        await(() -> status(trigger) == RateTriggerStatus.FIRED);
+        await(() -> hasNotification(NotificationType.RATE_ALERT));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(CurrencyType.GHS)));
+    }
+
+    @Test
+    public void testConversionWithoutFundsFailsAndNotifies() throws InterruptedException {
+        RateTrigger trigger = create(RateTriggerDirection.ABOVE, "0.090000", RateTriggerAction.CONVERT, "5000.00");
+
+        refresh("0.091000");
+        await(() -> status(trigger) == RateTriggerStatus.FAILED);
+        assertTrue(rateTriggerRepository.findById(trigger.getId()).orElseThrow().getFailureReason().contains("Insufficient balance"));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(CurrencyType.GHS)));
+        await(() -> hasNotification(NotificationType.RATE_ALERT));
+    }
+
+    @Test
+    public void testCancelledTriggerDoesNotFire() throws InterruptedException {
+        RateTrigger trigger = create(RateTriggerDirection.ABOVE, "0.090000", RateTriggerAction.CONVERT, "500.00");
+        assertTrue(rateTriggerService.cancel(userId, trigger.getId()));
+        rateTriggerEngine.disarm(trigger.getId());
+        assertFalse(rateTriggerService.cancel(userId, trigger.getId()));
+
+        refresh("0.100000");
+        Thread.sleep(200);
+        assertEquals(RateTriggerStatus.CANCELLED, status(trigger));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(CurrencyType.GHS)));
+    }
+
+    @Test
+    public void testTriggerValidation() {
+        assertThrows(RuntimeException.class, () -> rateTriggerService.create(userId, CurrencyType.GHS, CurrencyType.GHS,
+                RateTriggerDirection.ABOVE, BigDecimal.ONE, RateTriggerAction.ALERT, null));
+        assertThrows(RuntimeException.class, () -> rateTriggerService.create(userId, CurrencyType.GHS, CurrencyType.USD,
+                RateTriggerDirection.ABOVE, BigDecimal.ZERO, RateTriggerAction.ALERT, null));
+        assertThrows(RuntimeException.class, () -> rateTriggerService.create(userId, CurrencyType.GHS, CurrencyType.USD,
+                RateTriggerDirection.ABOVE, BigDecimal.ONE, RateTriggerAction.CONVERT, null));
+        assertThrows(RuntimeException.class, () -> rateTriggerService.create(userId, CurrencyType.GHS, CurrencyType.USD,
+                RateTriggerDirection.ABOVE, new BigDecimal("0.0000001"), RateTriggerAction.ALERT, null));
+        assertThrows(RuntimeException.class, () -> rateTriggerService.create(userId, CurrencyType.GHS, CurrencyType.USD,
+                RateTriggerDirection.ABOVE, new BigDecimal("9300000000000"), RateTriggerAction.ALERT, null));
+        assertEquals(0, rateTriggerService.list(userId, 10).size(), "rejected triggers are not stored");
+    }
+
+    private RateTrigger create(RateTriggerDirection direction, String threshold, RateTriggerAction action, String amount) {
+        RateTrigger trigger = rateTriggerService.create(userId, CurrencyType.GHS, CurrencyType.USD, direction,
+                new BigDecimal(threshold), action, amount != null ? new BigDecimal(amount) : null);
+        rateTriggerEngine.arm(trigger);
+        return trigger;
+    }
+
+    private void refresh(String ghsToUsd) {
+        when(exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD)).thenReturn(new BigDecimal(ghsToUsd));
+        rateTriggerEngine.onRatesRefreshed(new ExchangeRateService.RatesRefreshed(Instant.now()));
+    }
+
+    private RateTriggerStatus status(RateTrigger trigger) {
+        return rateTriggerRepository.findById(trigger.getId()).orElseThrow().getStatus();
+    }
+
+    private BigDecimal balance(CurrencyType currency) {
+        return walletService.getUserWalletByCurrency(userId, currency).orElseThrow().getBalance();
+    }
+
+    private boolean hasNotification(NotificationType type) {
+        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId).stream().anyMatch(n -> n.getType() == type);
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the trigger");
+            Thread.sleep(10);
+        }
+    }
+}
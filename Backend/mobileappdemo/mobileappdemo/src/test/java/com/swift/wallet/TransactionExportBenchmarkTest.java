@@ -0,0 +1,136 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.ExportFormat;
+import com.swift.wallet.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * One user's ten million transactions exported as CSV, with the heap sampled after a GC every
+ * 64 MiB of output. The database is an H2 file so the rows themselves aren't on the heap.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-bench-${random.uuid};MODE=MySQL;LAZY_QUERY_EXECUTION=TRUE",
+        "spring.jpa.show-sql=false"
+})
+public class TransactionExportBenchmarkTest {
+
+    private static final int ROWS = 10_000_000;
+    private static final long SAMPLE_EVERY_BYTES = 64L * 1024 * 1024;
+    private static final String[] DESCRIPTIONS = {"Deposit via Paystack", "Sent to Kofi - rent", "Withdrawal to bank", "Received from Ama"};
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    public void testExportHeapStaysFlat() throws Exception {
+        User user = testAccounts.user("export");
+        Long walletId = testAccounts.wallet(user, CurrencyType.GHS).getId();
+        seed(user.getId(), walletId);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = usedAfterGc(memory);
+        HeapSamplingStream out = new HeapSamplingStream(memory);
+
+        long started = System.nanoTime();
+        long rows = transactionService.exportTransactionHistory(user.getId(), null, null, ExportFormat.CSV, false, out);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long growth = out.maxUsed - baseline;
+        System.out.printf("rows=%d bytes=%d %.1f s (%.0f rows/s) heap baseline=%d MiB max sampled=%d MiB over %d samples%n",
+                rows, out.bytes, seconds, rows / seconds, baseline >> 20, out.maxUsed >> 20, out.samples);
+        assertEquals(ROWS, rows);
+        assertTrue(out.samples >= 10, "only " + out.samples + " heap samples");
+        // The export itself (~1 GiB of CSV) would not fit; a few buffers and fetched rows do
+        assertTrue(growth < 64L * 1024 * 1024, "heap grew by " + (growth >> 20) + " MiB during the export");
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Discards the export, sampling the heap as it goes
+    private static final class HeapSamplingStream extends OutputStream {
+        private final MemoryMXBean memory;
+        private long bytes;
+        private long nextSample = SAMPLE_EVERY_BYTES;
+        private long maxUsed;
+        private int samples;
+
+        HeapSamplingStream(MemoryMXBean memory) {
+            this.memory = memory;
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int len) {
+            bytes += len;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_EVERY_BYTES;
+                maxUsed = Math.max(maxUsed, usedAfterGc(memory));
+                samples++;
+            }
+        }
+    }
+
+    private void seed(Long userId, Long walletId) {
+        long id = 3_000_000_000L;
+        LocalDateTime base = LocalDateTime.now().minusYears(5).withNano(0);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++, id++) {
+            Timestamp at = Timestamp.valueOf(base.plusSeconds(i * 15L));
+            batch.add(new Object[]{id, walletId, userId, i % 2 == 0 ? "DEPOSIT" : "TRANSFER", "12.50", "GHS",
+                    DESCRIPTIONS[i % DESCRIPTIONS.length], "EXP_" + id, "COMPLETED", at, at});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        // The test schema comes from the entities; add the index the migrations give the real one
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_transactions_user_created ON transactions(user_id, created_at)");
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, wallet_id, user_id, type, amount, currency, description, " +
+                "reference, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
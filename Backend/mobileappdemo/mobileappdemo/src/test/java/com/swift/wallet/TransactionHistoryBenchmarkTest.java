@@ -0,0 +1,145 @@
+package com.swift.wallet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.dto.TransactionHistoryDto;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.repository.TransactionRepository;
+import com.swift.wallet.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * History pages served and serialized per second over a million transactions: rows built from
+ * loaded Transaction entities (with their wallet and user) against rows selected straight into
+ * TransactionHistoryDto.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+public class TransactionHistoryBenchmarkTest {
+
+    private static final int USERS = 100;
+    private static final int TRANSACTIONS_PER_USER = 10_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int PAGES_PER_USER = 10;
+    private static final String[] DESCRIPTIONS = {"Deposit via Paystack", "Transfer to GHS", "Withdrawal to bank", "Received from Ama"};
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    public void testProjectedHistoryThroughput() throws Exception {
+        List<Long> userIds = seed();
+
+        Function<Long, Page<TransactionHistoryDto>> entityPages = userId -> transactionRepository
+                .findUserTransactionsPaginated(userId, page(0)).map(TransactionHistoryDto::new);
+        Function<Long, Page<TransactionHistoryDto>> projectedPages = userId -> transactionService
+                .getUserTransactionsPaginated(userId, page(0));
+        // Warm both paths
+        measure(userIds.subList(0, 10), entityPages, false);
+        measure(userIds.subList(0, 10), projectedPages, true);
+
+        double entityRows = measure(userIds, entityPages, false);
+        double projectedRows = measure(userIds, projectedPages, true);
+
+        System.out.printf("transactions=%d page=%d entity rows=%.0f rows/s projected rows=%.0f rows/s (%.1fx)%n",
+                USERS * TRANSACTIONS_PER_USER, PAGE_SIZE, entityRows, projectedRows, projectedRows / entityRows);
+        assertTrue(projectedRows > entityRows * 3, "expected 3x the entity path, got " + projectedRows / entityRows + "x");
+    }
+
+    // Rows per second over PAGES_PER_USER pages of each user's history, serialized as the controller would
+    private double measure(List<Long> userIds, Function<Long, Page<TransactionHistoryDto>> firstPage, boolean projected)
+            throws Exception {
+        long rows = 0;
+        long bytes = 0;
+        long started = System.nanoTime();
+        for (Long userId : userIds) {
+            for (int p = 0; p < PAGES_PER_USER; p++) {
+                Page<TransactionHistoryDto> page = p == 0 ? firstPage.apply(userId) : projected
+                        ? transactionService.getUserTransactionsPaginated(userId, page(p))
+                        : transactionRepository.findUserTransactionsPaginated(userId, page(p)).map(TransactionHistoryDto::new);
+                bytes += objectMapper.writeValueAsBytes(page.getContent()).length;
+                rows += page.getContent().size();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertEquals((long) userIds.size() * PAGES_PER_USER * PAGE_SIZE, rows);
+        assertTrue(bytes > 0);
+        return rows / seconds;
+    }
+
+    private Pageable page(int number) {
+        return PageRequest.of(number, PAGE_SIZE, Sort.by("createdAt").descending());
+    }
+
+    // Users with one GHS wallet each, and their transactions inserted straight over JDBC
+    private List<Long> seed() {
+        List<Long> userIds = new ArrayList<>();
+        List<Long> walletIds = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = testAccounts.user("bench" + u + "_");
+            userIds.add(user.getId());
+            walletIds.add(testAccounts.wallet(user, CurrencyType.GHS).getId());
+        }
+        // Well clear of the ids the sequence hands out
+        long id = 1_000_000_000L;
+        LocalDateTime base = LocalDateTime.now().minusDays(365);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS_PER_USER; i++) {
+            for (int u = 0; u < USERS; u++) {
+                Timestamp at = Timestamp.valueOf(base.plusSeconds(i * 60L + u));
+                batch.add(new Object[]{id, walletIds.get(u), userIds.get(u), i % 2 == 0 ? "DEPOSIT" : "TRANSFER", "12.50", "GHS",
+                        DESCRIPTIONS[i % DESCRIPTIONS.length], "BENCH_" + id, "COMPLETED", at, at});
+                id++;
+                if (batch.size() == 10_000) {
+                    insert(batch);
+                }
+            }
+        }
+        insert(batch);
+        // The test schema comes from the entities; add the indexes the migrations give the real one
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_transactions_user_created ON transactions(user_id, created_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_transactions_wallet_created ON transactions(wallet_id, created_at)");
+        return userIds;
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, wallet_id, user_id, type, amount, currency, description, " +
+                "reference, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
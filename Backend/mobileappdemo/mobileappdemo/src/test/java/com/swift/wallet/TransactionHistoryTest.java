@@ -0,0 +1,185 @@
+package com.swift.wallet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.mobileappdemo.paging.CursorPage;
+import com.swift.wallet.dto.TransactionHistoryDto;
+import com.swift.wallet.dto.TransferRequest;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.ExportFormat;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.Transaction;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.repository.TransactionRepository;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.TransactionService;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The history queries select columns straight into TransactionHistoryDto; the rows they return
+ * must serialize exactly as rows built from the loaded entities did.
+ */
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class TransactionHistoryTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private Long userId;
+    private Wallet ghsWallet;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("history");
+        userId = user.getId();
+        ghsWallet = testAccounts.fundedWallet(user, CurrencyType.GHS, new BigDecimal("300.00"));
+        testAccounts.wallet(user, CurrencyType.USD);
+        walletService.debitWallet(userId, CurrencyType.GHS, new BigDecimal("20.00"), TransactionType.WITHDRAWAL,
+                "Withdrawal to bank", "WD_" + System.nanoTime());
+        TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.GHS, new BigDecimal("5.00"), "Self transfer");
+        request.setUserId(userId);
+        walletService.transferMoney(request);
+    }
+
+    @Test
+    public void testProjectedRowsSerializeLikeEntityRows() throws Exception {
+        List<TransactionHistoryDto> projected = transactionService.getUserTransactions(userId);
+        List<TransactionHistoryDto> fromEntities = transactionRepository.findUserTransactions(userId).stream()
+                .map(TransactionHistoryDto::new).toList();
+
+        assertEquals(4, projected.size());
+        assertEquals(objectMapper.writeValueAsString(fromEntities), objectMapper.writeValueAsString(projected));
+
+        TransactionHistoryDto withdrawal = projected.stream()
+                .filter(dto -> "WITHDRAWAL".equals(dto.getTransactionType())).findFirst().orElseThrow();
+        assertEquals("GHS Wallet", withdrawal.getWalletName());
+        assertEquals("₵", withdrawal.getCurrencySymbol());
+        assertFalse(withdrawal.isIncoming());
+        assertNotNull(withdrawal.getFormattedDate());
+        assertTrue(withdrawal.getFormattedTime().matches("\\d{2}:\\d{2}"));
+    }
+
+    @Test
+    public void testPagedAndFilteredHistory() {
+        Page<TransactionHistoryDto> page = transactionService.getWalletTransactionsPaginated(ghsWallet.getId(),
+                PageRequest.of(0, 2, Sort.by("createdAt").descending()));
+        assertEquals(4, page.getTotalElements());
+        assertEquals(2, page.getContent().size());
+
+        Page<TransactionHistoryDto> withdrawals = transactionService.getTransactionHistory(userId, null, "withdrawal", null,
+                null, null, PageRequest.of(0, 10, Sort.by("createdAt").descending()));
+        assertEquals(1, withdrawals.getTotalElements());
+        assertEquals(0, new BigDecimal("-20.00").compareTo(withdrawals.getContent().get(0).getAmount()));
+
+        assertEquals(2, transactionService.getTransactionsByType("TRANSFER", userId).size());
+        assertEquals(4, transactionService.getTransactionsByStatus("COMPLETED", userId).size());
+        assertTrue(transactionService.getTransactionsByStatus("COMPLETED", userId + 1000).isEmpty());
+        assertEquals(3, transactionService.getRecentTransactions(userId, 3).size());
+    }
+
+    @Test
+    public void testCursorFeeds() {
+        List<Long> expected = transactionService.getUserTransactions(userId).stream()
+                .sorted(Comparator.comparing(TransactionHistoryDto::getCreatedAt).thenComparing(TransactionHistoryDto::getId).reversed())
+                .map(TransactionHistoryDto::getId).toList();
+
+        CursorPage<TransactionHistoryDto> first = transactionService.getUserTransactionFeed(userId, null, 3);
+        assertEquals(expected.subList(0, 3), ids(first));
+        assertFalse(first.hasPrevious());
+        CursorPage<TransactionHistoryDto> second = transactionService.getUserTransactionFeed(userId, first.nextCursor(), 3);
+        assertEquals(expected.subList(3, 4), ids(second));
+        assertFalse(second.hasNext());
+        CursorPage<TransactionHistoryDto> back = transactionService.getUserTransactionFeed(userId, second.previousCursor(), 3);
+        assertEquals(ids(first), ids(back));
+        assertFalse(back.hasPrevious());
+
+        assertEquals(4, transactionService.getWalletTransactionFeed(ghsWallet.getId(), null, 10).items().size());
+        CursorPage<TransactionHistoryDto> withdrawals = transactionService.getTransactionHistoryFeed(userId, null, "withdrawal",
+                null, null, null, null, 10);
+        assertEquals(1, withdrawals.items().size());
+        assertFalse(withdrawals.hasNext());
+        assertEquals(1, transactionService.countTransactionHistory(userId, null, "withdrawal", null, null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getUserTransactionFeed(userId, "not-a-cursor", 3));
+    }
+
+    @Test
+    public void testStreamedExports() throws Exception {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(4, transactionService.exportTransactionHistory(userId, null, null, ExportFormat.CSV, false, csv));
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("Transaction ID,Wallet ID,"));
+        assertTrue(lines[1].startsWith(transactionService.getUserTransactions(userId).get(0).getId() + ","));
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        assertEquals(4, transactionService.exportTransactionHistory(userId, null, null, ExportFormat.NDJSON, true, gzipped));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.toByteArray()))) {
+            String[] rows = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            assertEquals(4, rows.length);
+            for (String row : rows) {
+                assertEquals(ghsWallet.getId().longValue(), objectMapper.readTree(row).get("walletId").asLong());
+            }
+        }
+
+        ByteArrayOutputStream none = new ByteArrayOutputStream();
+        assertEquals(0, transactionService.exportTransactionHistory(userId, LocalDateTime.now().plusDays(1), null,
+                ExportFormat.CSV, false, none));
+        assertEquals(1, none.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    public void testDepositReferenceIsCreditedOnce() {
+        String reference = "DEP_" + System.nanoTime();
+        Transaction first = walletService.allocateFundsToWallet(userId, CurrencyType.GHS, new BigDecimal("40.00"),
+                "Deposit via Paystack - " + reference, reference);
+
+        // The webhook and /deposit/verify both credit a deposit; the second one finds the first's transaction
+        assertThrows(DataIntegrityViolationException.class, () -> walletService.allocateFundsToWallet(userId,
+                CurrencyType.GHS, new BigDecimal("40.00"), "Deposit via Paystack - " + reference, reference));
+        assertEquals(first.getId(), transactionService.findUserTransactionByReference(reference, userId).orElseThrow().getId());
+        assertEquals(0, new BigDecimal("320.00").compareTo(walletRepository.findBalanceById(ghsWallet.getId()).orElseThrow()));
+    }
+
+    private List<Long> ids(CursorPage<TransactionHistoryDto> page) {
+        return page.items().stream().map(TransactionHistoryDto::getId).toList();
+    }
+}
@@ -0,0 +1,154 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.dto.TransferRequest;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.Transaction;
+import com.swift.wallet.repository.TransactionRepository;
+import com.swift.wallet.service.TransactionRollupRebuilder;
+import com.swift.wallet.service.TransactionService;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The summary now comes from rollup rows; it must match what aggregating the transactions
+ * table gives, however the transactions were written.
+ */
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class TransactionRollupTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRollupRebuilder transactionRollupRebuilder;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("rollup");
+        userId = user.getId();
+        testAccounts.fundedWallet(user, CurrencyType.GHS, new BigDecimal("300.00"));
+        testAccounts.fundedWallet(user, CurrencyType.USD, new BigDecimal("40.00"));
+        walletService.debitWallet(userId, CurrencyType.GHS, new BigDecimal("20.00"), TransactionType.WITHDRAWAL,
+                "Withdrawal to bank", "WD_" + System.nanoTime());
+        // Both legs land in the same rollup row within one database transaction
+        TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.GHS, new BigDecimal("5.00"), "Self transfer");
+        request.setUserId(userId);
+        walletService.transferMoney(request);
+    }
+
+    @Test
+    public void testSummaryMatchesTheTransactions() {
+        Map<String, Object> summary = transactionService.getTransactionSummary(userId);
+        assertEquals(aggregatedSummary(), summary);
+        assertEquals(5L, summary.get("totalTransactions"));
+        assertEquals(0, new BigDecimal("340.00").compareTo((BigDecimal) summary.get("totalDeposits")));
+
+        // A failed wallet operation leaves the rollups alone
+        assertThrows(RuntimeException.class, () -> walletService.debitWallet(userId, CurrencyType.USD, new BigDecimal("1000.00"),
+                TransactionType.WITHDRAWAL, "Too much", "WD_" + System.nanoTime()));
+        assertEquals(summary, transactionService.getTransactionSummary(userId));
+    }
+
+    @Test
+    public void testStatusChangesMoveCounts() {
+        Long withdrawalId = transactionRepository.findUserTransactions(userId).stream()
+                .filter(t -> t.getType() == TransactionType.WITHDRAWAL).findFirst().orElseThrow().getId();
+
+        transactionService.updateTransactionStatus(withdrawalId, "FAILED");
+        transactionService.updateTransactionStatus(withdrawalId, "FAILED");
+        Map<String, Object> summary = transactionService.getTransactionSummary(userId);
+        assertEquals(aggregatedSummary(), summary);
+        assertEquals(1L, summary.get("failedTransactions"));
+        assertEquals(4L, summary.get("completedTransactions"));
+
+        transactionService.updateTransactionStatus(withdrawalId, "PENDING");
+        summary = transactionService.getTransactionSummary(userId);
+        assertEquals(aggregatedSummary(), summary);
+        assertEquals(0L, summary.get("failedTransactions"));
+        assertEquals(1L, summary.get("pendingTransactions"));
+    }
+
+    @Test
+    public void testConcurrentDepositsAreAllCounted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Transaction>> deposits = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                deposits.add(executor.submit(() -> walletService.allocateFundsToWallet(userId, CurrencyType.GHS, new BigDecimal("1.25"))));
+            }
+            for (Future<Transaction> deposit : deposits) {
+                deposit.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Map<String, Object> summary = transactionService.getTransactionSummary(userId);
+        assertEquals(aggregatedSummary(), summary);
+        assertEquals(45L, summary.get("totalTransactions"));
+    }
+
+    @Test
+    public void testRebuildRecomputesFromScratch() {
+        Map<String, Object> expected = aggregatedSummary();
+        // Rows written around the application: lost, wrong and stray rollups
+        jdbcTemplate.update("DELETE FROM transaction_rollups WHERE user_id = ? AND type = 'DEPOSIT'", userId);
+        jdbcTemplate.update("UPDATE transaction_rollups SET tx_count = 99 WHERE user_id = ?", userId);
+        jdbcTemplate.update("INSERT INTO transaction_rollups (user_id, type, status, currency, tx_count, amount_sum) " +
+                "VALUES (?, 'PAYMENT', 'COMPLETED', 'EUR', 3, 7.00)", userId);
+        assertNotEquals(expected, transactionService.getTransactionSummary(userId));
+
+        assertTrue(transactionRollupRebuilder.rebuildAll() >= 1);
+        assertEquals(expected, transactionService.getTransactionSummary(userId));
+    }
+
+    // The summary as the seven aggregate queries computed it
+    private Map<String, Object> aggregatedSummary() {
+        BigDecimal deposits = transactionRepository.sumAmountByUserIdAndType(userId, TransactionType.DEPOSIT);
+        BigDecimal withdrawals = transactionRepository.sumAmountByUserIdAndType(userId, TransactionType.WITHDRAWAL);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalTransactions", transactionRepository.countByUserId(userId));
+        summary.put("totalDeposits", deposits != null ? deposits : BigDecimal.ZERO);
+        summary.put("totalWithdrawals", withdrawals != null ? withdrawals : BigDecimal.ZERO);
+        summary.put("completedTransactions", transactionRepository.countByUserIdAndStatus(userId, "COMPLETED"));
+        summary.put("pendingTransactions", transactionRepository.countByUserIdAndStatus(userId, "PENDING"));
+        summary.put("failedTransactions", transactionRepository.countByUserIdAndStatus(userId, "FAILED"));
+        summary.put("recentTransactions", transactionRepository.countByUserIdAndCreatedAtAfter(userId, LocalDateTime.now().minusDays(7)));
+        return summary;
+    }
+}
@@ -0,0 +1,93 @@
+package com.swift.wallet;
+
+import com.swift.wallet.service.WalletCommandSequencer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletCommandSequencerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WalletCommandSequencer sequencer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sequencer = new WalletCommandSequencer(meterRegistry, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequencer.shutdown();
+    }
+
+    @Test
+    void testCommandsForOneUserRunInSubmissionOrderOneAtATime() {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int n = i;
+            futures.add(sequencer.submit(7L, () -> {
+                assertEquals(1, running.incrementAndGet(), "two commands for one user ran at once");
+                order.add(n);
+                running.decrementAndGet();
+                return n;
+            }));
+        }
+
+        futures.forEach(CompletableFuture::join);
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void testDifferentStripesRunInParallel() throws Exception {
+        // User 1's command can only finish once user 2's has run, so this deadlocks if stripes are serialized
+        CountDownLatch otherUserRan = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocked = sequencer.submit(1L, () -> {
+            try {
+                return otherUserRan.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sequencer.execute(2L, otherUserRan::countDown);
+
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecuteRethrowsCommandException() {
+        RuntimeException e = assertThrows(RuntimeException.class, () ->
+                sequencer.execute(3L, () -> {
+                    throw new RuntimeException("Insufficient balance in GHS wallet");
+                }));
+        assertEquals("Insufficient balance in GHS wallet", e.getMessage());
+
+        // The mailbox keeps draining after a failed command
+        assertEquals("ok", sequencer.execute(3L, () -> "ok"));
+    }
+
+    @Test
+    void testStripeMetricsAreRecorded() {
+        sequencer.execute(5L, () -> "done");
+
+        String stripe = String.valueOf(Math.floorMod(Long.hashCode(5L), 4));
+        assertEquals(1, meterRegistry.get("wallet.sequencer.drain.latency").tag("stripe", stripe).timer().count());
+        assertEquals(0, meterRegistry.get("wallet.sequencer.queue.depth").tag("stripe", stripe).gauge().value());
+        assertEquals(4, meterRegistry.get("wallet.sequencer.queue.depth").gauges().size());
+    }
+}
@@ -0,0 +1,112 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.BalanceUpdateRetrier;
+import com.swift.wallet.service.LedgerService;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many writers debiting one wallet at once. Twice as many debits as the wallet can cover are
+ * attempted, so exactly half must succeed and the balance must land on zero - never below.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+public class WalletContentionBenchmarkTest {
+
+    private static final int FUNDED_DEBITS = 200;
+    private static final BigDecimal DEBIT = new BigDecimal("1.00");
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceUpdateRetrier balanceUpdateRetrier;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @ParameterizedTest(name = "{0} concurrent writers")
+    @ValueSource(ints = {1, 8, 64, 256})
+    public void testConcurrentDebitsNeverOverdraw(int writers) throws Exception {
+        User user = testAccounts.user("bench" + writers + "_");
+        Wallet wallet = testAccounts.fundedWallet(user, CurrencyType.GHS, DEBIT.multiply(BigDecimal.valueOf(FUNDED_DEBITS)));
+        Long userId = user.getId();
+
+        int attempts = FUNDED_DEBITS * 2;
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = next.getAndIncrement(); i < attempts; i = next.getAndIncrement()) {
+                    String reference = "BENCH_" + writers + "_" + i;
+                    try {
+                        balanceUpdateRetrier.run(() -> walletService.debitWallet(userId, CurrencyType.GHS, DEBIT,
+                                TransactionType.WITHDRAWAL, "Benchmark debit", reference));
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (!e.getMessage().startsWith("Insufficient balance")) {
+                            throw e;
+                        }
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        pool.shutdown();
+
+        BigDecimal balance = walletRepository.findBalanceById(wallet.getId()).orElseThrow();
+        System.out.printf("writers=%d attempts=%d succeeded=%d rejected=%d elapsed=%dms throughput=%.0f ops/s%n",
+                writers, attempts, succeeded.get(), rejected.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                attempts / (elapsedNanos / 1_000_000_000.0));
+
+        assertEquals(FUNDED_DEBITS, succeeded.get());
+        assertEquals(attempts - FUNDED_DEBITS, rejected.get());
+        assertEquals(0, balance.signum());
+        assertEquals(0, ledgerService.getBalance(wallet.getId()).compareTo(balance));
+    }
+}
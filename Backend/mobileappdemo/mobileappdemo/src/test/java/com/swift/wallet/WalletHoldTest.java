@@ -0,0 +1,167 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.dto.WalletDto;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.HoldStatus;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.enums.TransferOutcome;
+import com.swift.wallet.models.Wallet;
+import com.swift.wallet.models.WalletHold;
+import com.swift.wallet.repository.WalletHoldRepository;
+import com.swift.wallet.repository.WalletRepository;
+import com.swift.wallet.service.LedgerService;
+import com.swift.wallet.service.PaystackService;
+import com.swift.wallet.service.WalletHoldReaper;
+import com.swift.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Holds against a real database. Holds are given a zero TTL so the reaper can expire them
+ * on demand; nothing else looks at the expiry time. Paystack is mocked for the transfer checks.
+ */
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "wallet.hold.ttl-seconds=0")
+public class WalletHoldTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletHoldReaper walletHoldReaper;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @MockitoBean
+    private PaystackService paystackService;
+
+    private Long userId;
+    private Wallet wallet;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("hold");
+        userId = user.getId();
+        wallet = testAccounts.fundedWallet(user, CurrencyType.GHS, new BigDecimal("100.00"));
+    }
+
+    @Test
+    public void testHoldReducesAvailableBalanceOnly() {
+        walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("70.00"), "Send");
+
+        WalletDto dto = walletService.getUserWalletByCurrency(userId, CurrencyType.GHS).orElseThrow();
+        assertEquals(0, new BigDecimal("100.00").compareTo(dto.getBalance()));
+        assertEquals(0, new BigDecimal("70.00").compareTo(dto.getHeldAmount()));
+        assertEquals(0, new BigDecimal("30.00").compareTo(dto.getAvailableBalance()));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("40.00"), "Send"));
+        assertTrue(e.getMessage().contains("Available: 30.00"), e.getMessage());
+        // Plain debits can't spend held money either
+        assertThrows(RuntimeException.class, () -> walletService.debitWallet(userId, CurrencyType.GHS,
+                new BigDecimal("40.00"), TransactionType.WITHDRAWAL, "Withdrawal", "HOLD_TEST_" + System.nanoTime()));
+    }
+
+    @Test
+    public void testCaptureDebitsHeldAmount() {
+        WalletHold hold = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("60.00"), "Send");
+
+        walletService.captureHold(hold.getId(), TransactionType.TRANSFER, "Send", "HOLD_CAPTURE_" + hold.getId());
+
+        Wallet reloaded = walletRepository.findById(wallet.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("40.00").compareTo(reloaded.getBalance()));
+        assertEquals(0, reloaded.getHeldAmount().signum());
+        assertEquals(HoldStatus.CAPTURED, walletHoldRepository.findById(hold.getId()).orElseThrow().getStatus());
+        assertEquals(0, ledgerService.getBalance(wallet.getId()).compareTo(reloaded.getBalance()));
+        assertThrows(RuntimeException.class,
+                () -> walletService.captureHold(hold.getId(), TransactionType.TRANSFER, "Send", "HOLD_AGAIN_" + hold.getId()));
+    }
+
+    @Test
+    public void testReleaseReturnsHeldAmount() {
+        WalletHold hold = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("60.00"), "Send");
+
+        walletService.releaseHold(hold.getId());
+        walletService.releaseHold(hold.getId());
+
+        Wallet reloaded = walletRepository.findById(wallet.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("100.00").compareTo(reloaded.getBalance()));
+        assertEquals(0, reloaded.getHeldAmount().signum());
+        assertEquals(HoldStatus.RELEASED, walletHoldRepository.findById(hold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testReaperExpiresHoldsAndLateCaptureFallsBackToDebit() throws Exception {
+        WalletHold first = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("30.00"), "Send");
+        WalletHold second = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("20.00"), "Send");
+        Thread.sleep(5);
+
+        walletHoldReaper.reap();
+
+        Wallet reloaded = walletRepository.findById(wallet.getId()).orElseThrow();
+        assertEquals(0, reloaded.getHeldAmount().signum());
+        assertEquals(HoldStatus.EXPIRED, walletHoldRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(HoldStatus.EXPIRED, walletHoldRepository.findById(second.getId()).orElseThrow().getStatus());
+
+        // Paystack answered after the hold expired: the payout still gets debited
+        walletService.captureHold(first.getId(), TransactionType.TRANSFER, "Send", "HOLD_LATE_" + first.getId());
+        assertEquals(0, new BigDecimal("70.00").compareTo(walletRepository.findBalanceById(wallet.getId()).orElseThrow()));
+        assertEquals(HoldStatus.CAPTURED, walletHoldRepository.findById(first.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testReaperResolvesTransferHoldsByWhatPaystackSays() throws Exception {
+        WalletHold paid = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("30.00"), "Send",
+                TransactionType.TRANSFER, "SEND_PAID" + System.nanoTime());
+        WalletHold failed = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("20.00"), "Send",
+                TransactionType.TRANSFER, "SEND_FAILED" + System.nanoTime());
+        WalletHold pending = walletService.placeHold(userId, CurrencyType.GHS, new BigDecimal("10.00"), "Withdrawal",
+                TransactionType.WITHDRAWAL, "WITHDRAW_PENDING" + System.nanoTime());
+        when(paystackService.verifyTransfer(paid.getReference().toLowerCase()))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.PAID, "TRF_paid"));
+        when(paystackService.verifyTransfer(failed.getReference().toLowerCase()))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.FAILED, null));
+        when(paystackService.verifyTransfer(pending.getReference().toLowerCase()))
+                .thenReturn(new PaystackService.TransferCheck(TransferOutcome.PENDING, null));
+        Thread.sleep(5);
+
+        walletHoldReaper.reap();
+
+        assertEquals(HoldStatus.CAPTURED, walletHoldRepository.findById(paid.getId()).orElseThrow().getStatus());
+        assertEquals(HoldStatus.EXPIRED, walletHoldRepository.findById(failed.getId()).orElseThrow().getStatus());
+        // Paystack doesn't know yet, so the money stays held rather than being handed back
+        WalletHold stillHeld = walletHoldRepository.findById(pending.getId()).orElseThrow();
+        assertEquals(HoldStatus.ACTIVE, stillHeld.getStatus());
+        assertTrue(stillHeld.getExpiresAt().isAfter(LocalDateTime.now()));
+
+        Wallet reloaded = walletRepository.findById(wallet.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("70.00").compareTo(reloaded.getBalance()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(reloaded.getHeldAmount()));
+        assertEquals(0, ledgerService.getBalance(wallet.getId()).compareTo(reloaded.getBalance()));
+    }
+}
@@ -2,7 +2,7 @@ package com.swift.wallet;
 
 import com.swift.auth.models.User;
 import com.swift.auth.repository.UserRepository;
-import com.swift.notification.service.NotificationService;
+import com.swift.notification.service.OutboxService;
 import com.swift.wallet.dto.TransferRequest;
 import com.swift.wallet.dto.WalletDto;
 import com.swift.wallet.enums.CurrencyType;
@@ -10,21 +10,31 @@ import com.swift.wallet.enums.TransactionType;
 import com.swift.wallet.models.Transaction;
 import com.swift.wallet.models.Wallet;
 import com.swift.wallet.repository.WalletRepository;
-import com.swift.wallet.service.ExchangeRateService;
+import com.swift.wallet.enums.LedgerAccountType;
+import com.swift.wallet.models.JournalEntry;
+import com.swift.wallet.models.JournalPosting;
+import com.swift.wallet.service.FxQuoteService;
+import com.swift.wallet.service.LedgerService;
+import com.swift.wallet.service.ReferenceGenerator;
 import com.swift.wallet.service.TransactionService;
 import com.swift.wallet.service.WalletService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.quality.Strictness;
 import org.mockito.junit.jupiter.MockitoSettings;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,10 +55,19 @@ class WalletServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private ExchangeRateService exchangeRateService;
+    private FxQuoteService fxQuoteService;
 
     @Mock
-    private NotificationService notificationService;
+    private OutboxService outboxService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ReferenceGenerator referenceGenerator = new ReferenceGenerator(0);
 
     @InjectMocks
     private WalletService walletService;
@@ -76,6 +95,15 @@ class WalletServiceTest {
         eurWallet = new Wallet(testUser, CurrencyType.EUR, false);
         eurWallet.setId(3L);
         eurWallet.setBalance(BigDecimal.valueOf(400.00));
+
+        // Conditional debit succeeds only if the stubbed row balance covers the amount
+        Map<Long, Wallet> walletsById = Map.of(1L, ghsWallet, 2L, usdWallet, 3L, eurWallet);
+        when(walletRepository.debitIfSufficient(anyLong(), any(BigDecimal.class))).thenAnswer(inv ->
+                walletsById.get(inv.<Long>getArgument(0)).getBalance().compareTo(inv.getArgument(1)) >= 0 ? 1 : 0);
+        when(walletRepository.credit(anyLong(), any(BigDecimal.class))).thenReturn(1);
+        when(walletRepository.findAvailableBalanceById(anyLong())).thenAnswer(inv ->
+                Optional.of(walletsById.get(inv.<Long>getArgument(0)).getAvailableBalance()));
+        when(ledgerService.post(any(JournalEntry.class))).thenReturn(List.of(new Transaction(), new Transaction()));
     }
 
     @Test
@@ -142,21 +170,23 @@ class WalletServiceTest {
     @Test
     void testTransferMoneySameCurrency() {
         // Arrange: fromCurrency == toCurrency resolves to the SAME wallet for this user,
-        // so the net balance change should be zero while still recording two transactions.
+        // so the journal entry nets to zero on that wallet while still having two legs.
         TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.GHS, BigDecimal.valueOf(100.00), "Self transfer");
         request.setUserId(1L);
         when(walletRepository.findUserWalletByCurrency(1L, CurrencyType.GHS)).thenReturn(Optional.of(ghsWallet));
-        when(transactionService.createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                any(BigDecimal.class), any(CurrencyType.class),
-                                                anyString(), anyString())).thenReturn(new Transaction());
         // Act
         boolean result = walletService.transferMoney(request);
         // Assert
         assertTrue(result);
-        verify(walletRepository, times(2)).save(any(com.swift.wallet.models.Wallet.class));
-        verify(transactionService, times(2)).createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                              any(BigDecimal.class), any(CurrencyType.class),
-                                                              anyString(), anyString());
+        JournalEntry entry = capturePostedEntry();
+        assertEquals(TransactionType.TRANSFER, entry.getType());
+        assertEquals(2, entry.getPostings().size());
+        assertPosting(entry.getPostings().get(0), LedgerAccountType.WALLET, ghsWallet, CurrencyType.GHS, "-100.00");
+        assertPosting(entry.getPostings().get(1), LedgerAccountType.WALLET, ghsWallet, CurrencyType.GHS, "100.00");
+        // Balances move through the set-based conditional updates, never an entity save
+        verify(walletRepository).debitIfSufficient(1L, BigDecimal.valueOf(100.00));
+        verify(walletRepository).credit(1L, BigDecimal.valueOf(100.00));
+        verify(walletRepository, never()).save(any(com.swift.wallet.models.Wallet.class));
         assertEquals(BigDecimal.valueOf(1000.00), ghsWallet.getBalance());
     }
 
@@ -165,25 +195,47 @@ class WalletServiceTest {
         // Arrange: transfer between this user's own GHS and USD wallets (set up in setUp()).
         TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.USD, BigDecimal.valueOf(100.00), "Cross currency transfer");
         request.setUserId(1L);
+        request.setQuoteId("quote-1");
         when(walletRepository.findUserWalletByCurrency(1L, CurrencyType.GHS)).thenReturn(Optional.of(ghsWallet));
         when(walletRepository.findUserWalletByCurrency(1L, CurrencyType.USD)).thenReturn(Optional.of(usdWallet));
-        when(exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD))
-                .thenReturn(BigDecimal.valueOf(0.12)); // 1 GHS = 0.12 USD
-        when(transactionService.createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                any(BigDecimal.class), any(CurrencyType.class),
-                                                anyString(), anyString())).thenReturn(new Transaction());
+        when(fxQuoteService.redeem("quote-1", 1L, CurrencyType.GHS, CurrencyType.USD))
+                .thenReturn(new FxQuoteService.FxQuote("quote-1", 1L, CurrencyType.GHS, CurrencyType.USD,
+                        BigDecimal.valueOf(0.12), Instant.now().plusSeconds(30))); // 1 GHS = 0.12 USD
         // Act
         boolean result = walletService.transferMoney(request);
         // Assert
         assertTrue(result);
-        verify(walletRepository, times(2)).save(any(com.swift.wallet.models.Wallet.class));
-        verify(transactionService, times(2)).createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                              any(BigDecimal.class), any(CurrencyType.class),
-                                                              anyString(), anyString());
-        verify(exchangeRateService).getExchangeRate(CurrencyType.GHS, CurrencyType.USD);
-        // Verify balances were updated correctly
-        assertEquals(BigDecimal.valueOf(900.00), ghsWallet.getBalance());
-        assertEquals(0, usdWallet.getBalance().compareTo(BigDecimal.valueOf(512.00)));
+        verify(fxQuoteService).redeem("quote-1", 1L, CurrencyType.GHS, CurrencyType.USD);
+        verify(walletRepository, never()).save(any(com.swift.wallet.models.Wallet.class));
+        verify(walletRepository).debitIfSufficient(1L, BigDecimal.valueOf(100.00));
+        verify(walletRepository).credit(eq(2L), argThat(amount -> amount.compareTo(new BigDecimal("12.00")) == 0));
+        // Each currency leg balances through FX clearing
+        JournalEntry entry = capturePostedEntry();
+        assertEquals(TransactionType.CURRENCY_EXCHANGE, entry.getType());
+        assertEquals(0, entry.getExchangeRate().compareTo(BigDecimal.valueOf(0.12)));
+        assertEquals(4, entry.getPostings().size());
+        assertPosting(entry.getPostings().get(0), LedgerAccountType.WALLET, ghsWallet, CurrencyType.GHS, "-100.00");
+        assertPosting(entry.getPostings().get(1), LedgerAccountType.FX_CLEARING, null, CurrencyType.GHS, "100.00");
+        assertPosting(entry.getPostings().get(2), LedgerAccountType.FX_CLEARING, null, CurrencyType.USD, "-12.00");
+        assertPosting(entry.getPostings().get(3), LedgerAccountType.WALLET, usdWallet, CurrencyType.USD, "12.00");
+    }
+
+    @Test
+    void testTransferMoneyCrossCurrencyWithExpiredQuote() {
+        TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.USD, BigDecimal.valueOf(100.00), "Stale quote");
+        request.setUserId(1L);
+        request.setQuoteId("quote-1");
+        when(walletRepository.findUserWalletByCurrency(1L, CurrencyType.GHS)).thenReturn(Optional.of(ghsWallet));
+        when(walletRepository.findUserWalletByCurrency(1L, CurrencyType.USD)).thenReturn(Optional.of(usdWallet));
+        when(fxQuoteService.redeem("quote-1", 1L, CurrencyType.GHS, CurrencyType.USD))
+                .thenThrow(new RuntimeException("Exchange rate quote has expired, please request a new quote"));
+
+        assertThrows(RuntimeException.class, () -> walletService.transferMoney(request));
+
+        // Rejected before any balance moves
+        verify(walletRepository, never()).debitIfSufficient(anyLong(), any(BigDecimal.class));
+        verify(walletRepository, never()).credit(anyLong(), any(BigDecimal.class));
+        verify(ledgerService, never()).post(any(JournalEntry.class));
     }
 
     @Test
@@ -200,9 +252,7 @@ class WalletServiceTest {
         });
 
         verify(walletRepository, never()).save(any(com.swift.wallet.models.Wallet.class));
-        verify(transactionService, never()).createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                             any(BigDecimal.class), any(CurrencyType.class),
-                                                             anyString(), anyString());
+        verify(ledgerService, never()).post(any(JournalEntry.class));
     }
 
     @Test
@@ -218,9 +268,7 @@ class WalletServiceTest {
         });
 
         verify(walletRepository, never()).save(any(com.swift.wallet.models.Wallet.class));
-        verify(transactionService, never()).createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                             any(BigDecimal.class), any(CurrencyType.class),
-                                                             anyString(), anyString());
+        verify(ledgerService, never()).post(any(JournalEntry.class));
     }
 
     @Test
@@ -244,8 +292,35 @@ class WalletServiceTest {
         });
 
         verify(walletRepository, never()).save(any(com.swift.wallet.models.Wallet.class));
-        verify(transactionService, never()).createTransaction(any(com.swift.wallet.models.Wallet.class), any(TransactionType.class),
-                                                             any(BigDecimal.class), any(CurrencyType.class),
-                                                             anyString(), anyString());
+        verify(ledgerService, never()).post(any(JournalEntry.class));
+    }
+
+    @Test
+    void testDebitWalletLosesRaceToConcurrentDebit() {
+        // Arrange: the loaded entity still shows 1000, but a concurrent debit has drained the row,
+        // so the conditional update matches nothing
+        when(walletRepository.findUserWalletByCurrency(1L, CurrencyType.GHS)).thenReturn(Optional.of(ghsWallet));
+        when(walletRepository.debitIfSufficient(1L, BigDecimal.valueOf(600.00))).thenReturn(0);
+        when(walletRepository.findAvailableBalanceById(1L)).thenReturn(Optional.of(BigDecimal.valueOf(400.00)));
+
+        // Act & Assert
+        RuntimeException e = assertThrows(RuntimeException.class, () ->
+                walletService.debitWallet(1L, CurrencyType.GHS, BigDecimal.valueOf(600.00), TransactionType.WITHDRAWAL, "Withdrawal", "REF"));
+        assertTrue(e.getMessage().contains("Available: 400.0"));
+        verify(ledgerService, never()).post(any(JournalEntry.class));
+    }
+
+    private JournalEntry capturePostedEntry() {
+        ArgumentCaptor<JournalEntry> captor = ArgumentCaptor.forClass(JournalEntry.class);
+        verify(ledgerService).post(captor.capture());
+        return captor.getValue();
+    }
+
+    private void assertPosting(JournalPosting posting, LedgerAccountType accountType, Wallet wallet,
+                               CurrencyType currency, String amount) {
+        assertEquals(accountType, posting.getAccountType());
+        assertSame(wallet, posting.getWallet());
+        assertEquals(currency, posting.getCurrency());
+        assertEquals(0, posting.getAmount().compareTo(new BigDecimal(amount)));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.swift.wallet;
+
+import com.swift.auth.models.User;
+import com.swift.mobileappdemo.MobileappdemoApplication;
+import com.swift.mobileappdemo.TestAccounts;
+import com.swift.wallet.dto.TransferRequest;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.TransactionType;
+import com.swift.wallet.service.ExchangeRateService;
+import com.swift.wallet.service.FxQuoteService;
+import com.swift.wallet.service.WalletService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * JDBC statements and latency per wallet operation, for the same scenarios WalletServiceTest
+ * covers with mocks. Prepared statements are counted by Hibernate statistics; a JDBC batch
+ * reuses one prepared statement, so batched inserts show up as fewer statements.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = MobileappdemoApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "fx.quote.ttl-seconds=3600",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+public class WalletStatementCountBenchmarkTest {
+
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FxQuoteService fxQuoteService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @MockitoBean
+    private ExchangeRateService exchangeRateService;
+
+    private Long userId;
+    private String quoteId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = testAccounts.user("statements");
+        userId = user.getId();
+        walletService.createUserWallets(user);
+        walletService.allocateFundsToWallet(userId, CurrencyType.GHS, new BigDecimal("1000000.00"));
+        when(exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD)).thenReturn(new BigDecimal("0.12"));
+        quoteId = fxQuoteService.quote(userId, CurrencyType.GHS, CurrencyType.USD).id();
+    }
+
+    @Test
+    public void testSameCurrencyTransfer() {
+        measure("same-currency transfer", () -> {
+            TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.GHS, new BigDecimal("1.00"), "Self transfer");
+            request.setUserId(userId);
+            walletService.transferMoney(request);
+        });
+    }
+
+    @Test
+    public void testCrossCurrencyTransfer() {
+        measure("cross-currency transfer", () -> {
+            TransferRequest request = new TransferRequest(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("1.00"), "Cross currency transfer");
+            request.setUserId(userId);
+            request.setQuoteId(quoteId);
+            walletService.transferMoney(request);
+        });
+    }
+
+    @Test
+    public void testDebit() {
+        measure("withdrawal debit", () -> walletService.debitWallet(userId, CurrencyType.GHS, new BigDecimal("1.00"),
+                TransactionType.WITHDRAWAL, "Withdrawal", "WITHDRAW_" + System.nanoTime()));
+    }
+
+    private void measure(String scenario, Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        System.out.printf("%s: %.2f statements/op, %.2f entity inserts/op, %.1f us/op%n", scenario,
+                statistics.getPrepareStatementCount() / (double) ITERATIONS,
+                statistics.getEntityInsertCount() / (double) ITERATIONS,
+                elapsedNanos / 1000.0 / ITERATIONS);
+    }
+}
@@ -0,0 +1,188 @@
+package com.swift.wallet.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swift.mobileappdemo.cache.SingleFlightCaches;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.models.ExchangeRate;
+import com.swift.wallet.repository.ExchangeRateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExchangeRateServiceTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private RateHistory rateHistory;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Spy
+    private SingleFlightCaches singleFlightCaches = new SingleFlightCaches(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private ExchangeRateService exchangeRateService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(exchangeRateService, "rateAggregator", new RateAggregator(
+                List.of(new HttpRateProvider("primary", restTemplate, "http://rates/key/latest/{base}")),
+                new SimpleMeterRegistry(), 2, 2, 5000, 90, 500, 50));
+        ReflectionTestUtils.setField(exchangeRateService, "baseCurrency", CurrencyType.USD);
+        ReflectionTestUtils.setField(exchangeRateService, "refreshIntervalMs", 600_000L);
+        ReflectionTestUtils.setField(exchangeRateService, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(exchangeRateService, "failureTtlSeconds", 30L);
+        exchangeRateService.init();
+        when(exchangeRateRepository.findValidExchangeRate(any(), any(), any())).thenReturn(Optional.empty());
+        when(exchangeRateRepository.findByFromCurrencyAndToCurrency(any(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testColdMissFetchesOneTableAndDerivesEveryPair() {
+        ExchangeRateService.ExchangeRateResponse response = new ExchangeRateService.ExchangeRateResponse();
+        response.setRates(Map.of("USD", BigDecimal.ONE, "GHS", new BigDecimal("12.00"),
+                "EUR", new BigDecimal("0.90"), "GBP", new BigDecimal("0.75")));
+        when(restTemplate.getForObject("http://rates/key/latest/USD", ExchangeRateService.ExchangeRateResponse.class))
+                .thenReturn(response);
+
+        assertEquals(new BigDecimal("1.200000"), exchangeRateService.getExchangeRate(CurrencyType.GBP, CurrencyType.EUR));
+        assertEquals(new BigDecimal("0.083333"), exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD));
+        assertEquals(new BigDecimal("16.000000"), exchangeRateService.getExchangeRate(CurrencyType.GBP, CurrencyType.GHS));
+        assertEquals(BigDecimal.ONE, exchangeRateService.getExchangeRate(CurrencyType.EUR, CurrencyType.EUR));
+
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class));
+        ArgumentCaptor<List<ExchangeRate>> saved = ArgumentCaptor.forClass(List.class);
+        verify(exchangeRateRepository).saveAll(saved.capture());
+        assertEquals(12, saved.getValue().size());
+        assertTrue(saved.getValue().stream().allMatch(r -> r.getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(29))));
+        verify(rateHistory).append(anyLong(), any(RateMatrix.class));
+    }
+
+    @Test
+    void testRatesBodyIsSerializedOncePerRefresh() throws Exception {
+        ExchangeRateService.ExchangeRateResponse response = new ExchangeRateService.ExchangeRateResponse();
+        response.setRates(Map.of("USD", BigDecimal.ONE, "GHS", new BigDecimal("12.00"),
+                "EUR", new BigDecimal("0.90"), "GBP", new BigDecimal("0.75")));
+        when(restTemplate.getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class))).thenReturn(response);
+        assertTrue(exchangeRateService.refreshRates());
+
+        byte[] body = exchangeRateService.getRatesJson();
+        assertSame(body, exchangeRateService.getRatesJson());
+        JsonNode json = new ObjectMapper().readTree(body);
+        assertTrue(json.get("success").asBoolean());
+        assertEquals(12, json.get("rates").size());
+        assertEquals("GHS", json.get("rates").get(0).get("fromCurrency").asText());
+        assertEquals("USD", json.get("rates").get(0).get("toCurrency").asText());
+        assertEquals(new BigDecimal("0.083333"), json.get("rates").get(0).get("rate").decimalValue());
+
+        exchangeRateService.clearCache();
+        assertNotSame(body, exchangeRateService.getRatesJson());
+    }
+
+    @Test
+    void testWarmStartServesStoredRatesWithoutCallingTheApi() {
+        ExchangeRate stored = new ExchangeRate(CurrencyType.USD, CurrencyType.GHS, new BigDecimal("12.050000"));
+        stored.setExpiresAt(LocalDateTime.now().plusMinutes(20));
+        ExchangeRate other = new ExchangeRate(CurrencyType.EUR, CurrencyType.GBP, new BigDecimal("0.850000"));
+        other.setExpiresAt(LocalDateTime.now().plusMinutes(20));
+        when(exchangeRateRepository.findValidExchangeRate(any(), any(), any())).thenReturn(Optional.of(other));
+        when(exchangeRateRepository.findValidExchangeRate(eq(CurrencyType.USD), eq(CurrencyType.GHS), any()))
+                .thenReturn(Optional.of(stored));
+
+        exchangeRateService.warmStart();
+        ExchangeRate recent = new ExchangeRate(CurrencyType.USD, CurrencyType.GHS, new BigDecimal("12.050000"));
+        recent.setCreatedAt(LocalDateTime.now().minusMinutes(1));
+        when(exchangeRateRepository.findTopByOrderByCreatedAtDesc()).thenReturn(Optional.of(recent));
+        exchangeRateService.scheduledRefresh();
+
+        assertEquals(new BigDecimal("12.050000"), exchangeRateService.getExchangeRate(CurrencyType.USD, CurrencyType.GHS));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testFailedFetchFallsBackAndIsNotRetriedImmediately() {
+        when(restTemplate.getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class)))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        assertEquals(new BigDecimal("0.12"), exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD));
+        assertEquals(new BigDecimal("8.33"), exchangeRateService.getExchangeRate(CurrencyType.USD, CurrencyType.GHS));
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class));
+        verify(exchangeRateRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testFailedFetchPrefersLastRecordedRate() {
+        when(restTemplate.getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class)))
+                .thenThrow(new RuntimeException("connection refused"));
+        when(rateHistory.rateAt(eq(CurrencyType.GHS), eq(CurrencyType.USD), any())).thenReturn(Optional.of(
+                new RateHistory.RatePoint(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("0.081000"), Instant.now().minusSeconds(3600))));
+
+        assertEquals(new BigDecimal("0.081000"), exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD));
+    }
+
+    @Test
+    void testConcurrentColdMissesShareOneFetch() throws Exception {
+        ExchangeRateService.ExchangeRateResponse response = new ExchangeRateService.ExchangeRateResponse();
+        response.setRates(Map.of("USD", BigDecimal.ONE, "GHS", new BigDecimal("12.00"),
+                "EUR", new BigDecimal("0.90"), "GBP", new BigDecimal("0.75")));
+        when(restTemplate.getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return response;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BigDecimal>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return exchangeRateService.getExchangeRate(CurrencyType.GBP, CurrencyType.EUR);
+            }));
+        }
+        start.countDown();
+        for (Future<BigDecimal> result : results) {
+            assertEquals(new BigDecimal("1.200000"), result.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(ExchangeRateService.ExchangeRateResponse.class));
+    }
+}
@@ -0,0 +1,93 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FxQuoteServiceTest {
+
+    private final ExchangeRateService exchangeRateService = mock(ExchangeRateService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T12:00:00Z"));
+    private FxQuoteService fxQuoteService;
+
+    @BeforeEach
+    void setUp() {
+        fxQuoteService = new FxQuoteService(exchangeRateService, registry, 30, 1000, clock);
+        when(exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD)).thenReturn(new BigDecimal("0.083333"));
+    }
+
+    @Test
+    void testQuotedRateHoldsAfterTheMarketMoves() {
+        FxQuoteService.FxQuote quote = fxQuoteService.quote(1L, CurrencyType.GHS, CurrencyType.USD);
+        when(exchangeRateService.getExchangeRate(CurrencyType.GHS, CurrencyType.USD)).thenReturn(new BigDecimal("0.090000"));
+        clock.advance(Duration.ofSeconds(29));
+
+        FxQuoteService.FxQuote redeemed = fxQuoteService.redeem(quote.id(), 1L, CurrencyType.GHS, CurrencyType.USD);
+
+        assertEquals(new BigDecimal("0.083333"), redeemed.rate());
+        assertEquals(new BigDecimal("8.33"), redeemed.convert(new BigDecimal("100.00")));
+        verify(exchangeRateService, times(1)).getExchangeRate(CurrencyType.GHS, CurrencyType.USD);
+        assertEquals(1.0, registry.get("fx.quotes.redeemed").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testExpiredQuoteIsRejected() {
+        FxQuoteService.FxQuote quote = fxQuoteService.quote(1L, CurrencyType.GHS, CurrencyType.USD);
+        clock.advance(Duration.ofSeconds(30));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> fxQuoteService.redeem(quote.id(), 1L, CurrencyType.GHS, CurrencyType.USD));
+        assertTrue(e.getMessage().contains("expired"));
+        assertEquals(1.0, registry.get("fx.quotes.redeemed").tag("result", "expired").counter().count());
+    }
+
+    @Test
+    void testQuoteOnlyFitsItsOwnUserAndPair() {
+        FxQuoteService.FxQuote quote = fxQuoteService.quote(1L, CurrencyType.GHS, CurrencyType.USD);
+
+        assertThrows(RuntimeException.class, () -> fxQuoteService.redeem(quote.id(), 2L, CurrencyType.GHS, CurrencyType.USD));
+        assertThrows(RuntimeException.class, () -> fxQuoteService.redeem(quote.id(), 1L, CurrencyType.USD, CurrencyType.GHS));
+        assertThrows(RuntimeException.class, () -> fxQuoteService.redeem("unknown", 1L, CurrencyType.GHS, CurrencyType.USD));
+        assertThrows(RuntimeException.class, () -> fxQuoteService.redeem(null, 1L, CurrencyType.GHS, CurrencyType.USD));
+        assertEquals(4.0, registry.get("fx.quotes.redeemed").tag("result", "missing").counter().count());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
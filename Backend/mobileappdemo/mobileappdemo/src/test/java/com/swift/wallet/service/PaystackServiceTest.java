@@ -0,0 +1,61 @@
+package com.swift.wallet.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseActions;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+class PaystackServiceTest {
+
+    private PaystackService paystackService;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        paystackService = new PaystackService();
+        ReflectionTestUtils.setField(paystackService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(paystackService, "apiUrl", "https://paystack.test");
+        ReflectionTestUtils.setField(paystackService, "secretKey", "sk_test");
+    }
+
+    @Test
+    void testRefusedTransferIsARejection() {
+        expectTransfer().andRespond(withStatus(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON)
+                .body("{\"status\":false,\"message\":\"Your balance is not enough to fulfil this request\"}"));
+
+        assertThrows(PaystackRejectedException.class,
+                () -> paystackService.initiateTransfer("RCP_a", new BigDecimal("10.00"), "Salary", "ref-1"));
+        server.verify();
+    }
+
+    @Test
+    void testDuplicateReferenceIsNotARejection() {
+        // The earlier transfer under this reference exists, so the sender must not be refunded
+        expectTransfer().andRespond(withStatus(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON)
+                .body("{\"status\":false,\"message\":\"Duplicate Transfer Reference\"}"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> paystackService.initiateTransfer("RCP_a", new BigDecimal("10.00"), "Salary", "ref-1"));
+        assertFalse(e instanceof PaystackRejectedException);
+        server.verify();
+    }
+
+    private ResponseActions expectTransfer() {
+        return server.expect(requestTo("https://paystack.test/transfer"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.reference").value("ref-1"));
+    }
+}
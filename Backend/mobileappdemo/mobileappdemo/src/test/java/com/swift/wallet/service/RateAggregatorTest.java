@@ -0,0 +1,133 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateAggregatorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testSlowSourceIsHedgedAndFirstAnswerWins() {
+        StubProvider slow = new StubProvider("slow", 3000, "12.00");
+        StubProvider fast = new StubProvider("fast", 10, "12.30");
+        RateAggregator aggregator = new RateAggregator(List.of(slow, fast), registry, 1, 2, 5000, 90, 100, 10);
+
+        long start = System.nanoTime();
+        Map<CurrencyType, BigDecimal> table = aggregator.fetchTable(CurrencyType.USD);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(new BigDecimal("12.30"), table.get(CurrencyType.GHS));
+        assertEquals(BigDecimal.ONE, table.get(CurrencyType.USD));
+        assertTrue(elapsedMs < 1000, "answered in " + elapsedMs + " ms");
+        assertEquals(1, slow.calls.get());
+        assertEquals(1.0, registry.get("exchange.rate.hedges").counter().count());
+    }
+
+    @Test
+    void testMedianDropsOutlyingSource() {
+        StubProvider a = new StubProvider("a", 5, "12.00");
+        StubProvider b = new StubProvider("b", 5, "12.10");
+        StubProvider wrong = new StubProvider("wrong", 5, "15.00");
+        RateAggregator aggregator = new RateAggregator(List.of(a, b, wrong), registry, 3, 2, 5000, 90, 500, 10);
+
+        Map<CurrencyType, BigDecimal> table = aggregator.fetchTable(CurrencyType.USD);
+
+        assertEquals(0, new BigDecimal("12.05").compareTo(table.get(CurrencyType.GHS)));
+        assertEquals(0, new BigDecimal("0.90").compareTo(table.get(CurrencyType.EUR)));
+        RateAggregator.SourceStats wrongStats = aggregator.scoreboard().get(2);
+        assertEquals("wrong", wrongStats.source());
+        assertEquals(1, wrongStats.outliers());
+        assertEquals(0, aggregator.scoreboard().get(0).outliers());
+        assertEquals(1.0, registry.get("exchange.rate.source.outliers").tag("source", "wrong").counter().count());
+    }
+
+    @Test
+    void testFailedSourceIsReplacedAtOnceAndRankedLast() {
+        StubProvider broken = new StubProvider("broken", 0, null);
+        StubProvider backup = new StubProvider("backup", 10, "12.30");
+        // A hedge delay far longer than the test: only the failure can bring in the backup
+        RateAggregator aggregator = new RateAggregator(List.of(broken, backup), registry, 1, 2, 5000, 90, 5000, 5000);
+
+        long start = System.nanoTime();
+        assertEquals(new BigDecimal("12.30"), aggregator.fetchTable(CurrencyType.USD).get(CurrencyType.GHS));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1000);
+        assertEquals(0.0, registry.get("exchange.rate.hedges").counter().count());
+        assertEquals(1, aggregator.scoreboard().get(0).errors());
+
+        // The scoreboard now puts the backup first
+        aggregator.fetchTable(CurrencyType.USD);
+        assertEquals(1, broken.calls.get());
+        assertEquals(2, backup.calls.get());
+    }
+
+    @Test
+    void testNoAnswerFails() {
+        RateAggregator aggregator = new RateAggregator(List.of(new StubProvider("a", 0, null), new StubProvider("b", 0, null)),
+                registry, 2, 2, 1000, 90, 100, 10);
+
+        assertThrows(RuntimeException.class, () -> aggregator.fetchTable(CurrencyType.USD));
+        assertEquals(2, aggregator.scoreboard().stream().mapToLong(RateAggregator.SourceStats::errors).sum());
+    }
+
+    @Test
+    void testTimeoutReturnsWhatHasAnswered() {
+        StubProvider quick = new StubProvider("quick", 5, "12.00");
+        StubProvider stuck = new StubProvider("stuck", 10_000, "12.50");
+        RateAggregator aggregator = new RateAggregator(List.of(quick, stuck), registry, 2, 2, 300, 90, 100, 10);
+
+        long start = System.nanoTime();
+        assertEquals(new BigDecimal("12.00"), aggregator.fetchTable(CurrencyType.USD).get(CurrencyType.GHS));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 2000);
+    }
+
+    /**
+     * Answers after a fixed delay with USD/GHS at the given rate, or fails if the rate is null.
+     */
+    private static class StubProvider implements RateProvider {
+        private final String name;
+        private final long latencyMs;
+        private final String ghs;
+        final AtomicInteger calls = new AtomicInteger();
+
+        StubProvider(String name, long latencyMs, String ghs) {
+            this.name = name;
+            this.latencyMs = latencyMs;
+            this.ghs = ghs;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Map<CurrencyType, BigDecimal> fetchTable(CurrencyType base) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("cancelled");
+            }
+            if (ghs == null) {
+                throw new RuntimeException(name + " is down");
+            }
+            Map<CurrencyType, BigDecimal> table = new EnumMap<>(CurrencyType.class);
+            table.put(CurrencyType.USD, BigDecimal.ONE);
+            table.put(CurrencyType.GHS, new BigDecimal(ghs));
+            table.put(CurrencyType.EUR, new BigDecimal("0.90"));
+            table.put(CurrencyType.GBP, new BigDecimal("0.75"));
+            return table;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CandleResolution;
+import com.swift.wallet.enums.CurrencyType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateHistoryTest {
+
+    // Recent, since candles older than their retention are dropped when the history is opened
+    private static final Instant T0 = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(1, ChronoUnit.DAYS).plus(14, ChronoUnit.HOURS);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testPointInTimeLookupAcrossSegments() throws Exception {
+        RateHistory history = open();
+        // Three records per segment, so seven snapshots span three files
+        for (int i = 0; i < 7; i++) {
+            history.append(T0.plusSeconds(600L * i).toEpochMilli(), matrix("12." + i, T0.plusSeconds(600L * i + 1800)));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(3, files.count());
+        }
+
+        assertTrue(history.rateAt(CurrencyType.USD, CurrencyType.GHS, T0.minusMillis(1)).isEmpty());
+        RateHistory.RatePoint at1402 = history.rateAt(CurrencyType.USD, CurrencyType.GHS, T0.plusSeconds(120)).orElseThrow();
+        assertEquals(new BigDecimal("12.000000"), at1402.rate());
+        assertEquals(T0, at1402.observedAt());
+        // Exactly on a snapshot, and inside the last segment
+        assertEquals(new BigDecimal("12.300000"), history.rateAt(CurrencyType.USD, CurrencyType.GHS, T0.plusSeconds(1800)).orElseThrow().rate());
+        assertEquals(new BigDecimal("12.600000"), history.rateAt(CurrencyType.USD, CurrencyType.GHS, T0.plusSeconds(86_400)).orElseThrow().rate());
+        assertEquals(new BigDecimal("0.083333"), history.rateAt(CurrencyType.GHS, CurrencyType.USD, T0).orElseThrow().rate());
+    }
+
+    @Test
+    void testCandlesAreBuiltIncrementallyAndRebuiltAfterRestart() throws Exception {
+        RateHistory history = open();
+        String[] rates = {"12.10", "12.40", "11.90", "12.20", "12.50"};
+        for (int i = 0; i < rates.length; i++) {
+            history.append(T0.plusSeconds(600L * i).toEpochMilli(), matrix(rates[i], T0.plusSeconds(600L * i + 1800)));
+        }
+        // 14:00-14:40 in one hour bucket, then 14:40 in its own minute bucket
+        assertCandles(history.candles(CurrencyType.USD, CurrencyType.GHS, CandleResolution.ONE_HOUR, T0, T0.plusSeconds(3600)));
+        List<RateHistory.Candle> minutes = history.candles(CurrencyType.USD, CurrencyType.GHS, CandleResolution.ONE_MINUTE,
+                T0.plusSeconds(2400), T0.plusSeconds(2460));
+        assertEquals(1, minutes.size());
+        assertEquals(new BigDecimal("12.500000"), minutes.get(0).open());
+
+        history.flush();
+        RateHistory reopened = open();
+        assertCandles(reopened.candles(CurrencyType.USD, CurrencyType.GHS, CandleResolution.ONE_HOUR, T0, T0.plusSeconds(3600)));
+        assertEquals(new BigDecimal("11.900000"),
+                reopened.rateAt(CurrencyType.USD, CurrencyType.GHS, T0.plusSeconds(1500)).orElseThrow().rate());
+        // Appends continue after the last recorded snapshot; older ones are ignored
+        reopened.append(T0.toEpochMilli(), matrix("1.00", T0.plusSeconds(1800)));
+        reopened.append(T0.plusSeconds(3000).toEpochMilli(), matrix("13.00", T0.plusSeconds(4800)));
+        assertEquals(new BigDecimal("13.000000"),
+                reopened.rateAt(CurrencyType.USD, CurrencyType.GHS, T0.plusSeconds(3000)).orElseThrow().rate());
+        assertEquals(6, reopened.candles(CurrencyType.USD, CurrencyType.GHS, CandleResolution.ONE_DAY,
+                T0, T0.plusSeconds(86_400)).get(0).samples());
+    }
+
+    private void assertCandles(List<RateHistory.Candle> hours) {
+        assertEquals(1, hours.size());
+        RateHistory.Candle hour = hours.get(0);
+        assertEquals(T0, hour.start());
+        assertEquals(new BigDecimal("12.100000"), hour.open());
+        assertEquals(new BigDecimal("12.500000"), hour.high());
+        assertEquals(new BigDecimal("11.900000"), hour.low());
+        assertEquals(new BigDecimal("12.500000"), hour.close());
+        assertEquals(5, hour.samples());
+    }
+
+    private RateHistory open() throws Exception {
+        RateHistory history = new RateHistory();
+        ReflectionTestUtils.setField(history, "directory", dir.toString());
+        ReflectionTestUtils.setField(history, "segmentRecords", 3);
+        history.init();
+        return history;
+    }
+
+    // USD/GHS at the given rate, GHS/USD at its inverse, other pairs left out
+    private static RateMatrix matrix(String usdGhs, Instant expiresAt) {
+        BigDecimal rate = new BigDecimal(usdGhs);
+        return RateMatrix.builder()
+                .put(CurrencyType.USD, CurrencyType.GHS, rate, expiresAt.toEpochMilli())
+                .put(CurrencyType.GHS, CurrencyType.USD, BigDecimal.ONE.divide(new BigDecimal("12.00"), 6, java.math.RoundingMode.HALF_EVEN),
+                        expiresAt.toEpochMilli())
+                .build();
+    }
+}
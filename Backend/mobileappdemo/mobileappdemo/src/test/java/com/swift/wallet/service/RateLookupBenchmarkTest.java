@@ -0,0 +1,85 @@
+package com.swift.wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swift.wallet.enums.CurrencyType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rate lookups as getExchangeRate used to do them (string key into a Caffeine cache) against
+ * the ordinal-indexed RateMatrix behind an AtomicReference, over every pair, in ROUNDS rounds
+ * after a warm-up. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class RateLookupBenchmarkTest {
+
+    private static final int ROUNDS = 2_000_000;
+    private static final CurrencyType[] CURRENCIES = CurrencyType.values();
+
+    @Test
+    void testMatrixLookupBeatsStringKeyedCache() {
+        Cache<String, BigDecimal> cache = Caffeine.newBuilder().expireAfterWrite(30, TimeUnit.MINUTES).maximumSize(100).build();
+        RateMatrix.Builder builder = RateMatrix.builder();
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30);
+        for (CurrencyType from : CURRENCIES) {
+            for (CurrencyType to : CURRENCIES) {
+                BigDecimal rate = BigDecimal.valueOf(from.ordinal() + 1, 1).add(BigDecimal.valueOf(to.ordinal()));
+                cache.put(from.name() + "_TO_" + to.name(), rate);
+                builder.put(from, to, rate, expiresAt);
+            }
+        }
+        AtomicReference<RateMatrix> matrix = new AtomicReference<>(builder.build());
+
+        long checksum = 0;
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            checksum += viaCache(cache, ROUNDS / 10) + viaMatrix(matrix, ROUNDS / 10);
+        }
+
+        long cacheStarted = System.nanoTime();
+        long cacheSum = viaCache(cache, ROUNDS);
+        long cacheNanos = System.nanoTime() - cacheStarted;
+
+        long matrixStarted = System.nanoTime();
+        long matrixSum = viaMatrix(matrix, ROUNDS);
+        long matrixNanos = System.nanoTime() - matrixStarted;
+
+        long lookups = (long) ROUNDS * CURRENCIES.length * CURRENCIES.length;
+        System.out.printf("lookups=%d string-key cache=%.1fns/lookup matrix=%.1fns/lookup (checksum %d)%n",
+                lookups, (double) cacheNanos / lookups, (double) matrixNanos / lookups, checksum);
+
+        assertEquals(cacheSum, matrixSum);
+        assertTrue(matrixNanos < cacheNanos, "matrix " + matrixNanos + "ns vs cache " + cacheNanos + "ns");
+    }
+
+    private static long viaCache(Cache<String, BigDecimal> cache, int rounds) {
+        long sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (CurrencyType from : CURRENCIES) {
+                for (CurrencyType to : CURRENCIES) {
+                    sum += cache.getIfPresent(from.name() + "_TO_" + to.name()).scale();
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long viaMatrix(AtomicReference<RateMatrix> matrix, int rounds) {
+        long sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            long now = System.currentTimeMillis();
+            for (CurrencyType from : CURRENCIES) {
+                for (CurrencyType to : CURRENCIES) {
+                    sum += matrix.get().rate(from, to, now).scale();
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,72 @@
+package com.swift.wallet.service;
+
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.RateTriggerDirection;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateTriggerIndexTest {
+
+    private final RateTriggerIndex index = new RateTriggerIndex();
+
+    @Test
+    void testOnlyCrossedTriggersOfThePairAreTaken() {
+        index.add(1, CurrencyType.GHS, CurrencyType.USD, RateTriggerDirection.ABOVE, new BigDecimal("0.090"));
+        index.add(2, CurrencyType.GHS, CurrencyType.USD, RateTriggerDirection.ABOVE, new BigDecimal("0.095"));
+        index.add(3, CurrencyType.GHS, CurrencyType.USD, RateTriggerDirection.BELOW, new BigDecimal("0.080"));
+        index.add(4, CurrencyType.GHS, CurrencyType.USD, RateTriggerDirection.BELOW, new BigDecimal("0.089"));
+        index.add(5, CurrencyType.USD, CurrencyType.GHS, RateTriggerDirection.ABOVE, new BigDecimal("0.010"));
+
+        assertEquals(List.of(1L), ids(index.takeCrossed(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("0.09"))));
+        assertEquals(List.of(), ids(index.takeCrossed(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("0.09"))));
+        // A rate equal to a BELOW threshold crosses it too
+        assertEquals(List.of(4L), ids(index.takeCrossed(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("0.089"))));
+        assertTrue(index.contains(5));
+        assertFalse(index.contains(4));
+    }
+
+    @Test
+    void testRemovedAndReplacedTriggers() {
+        index.add(1, CurrencyType.GBP, CurrencyType.EUR, RateTriggerDirection.BELOW, new BigDecimal("1.10"));
+        index.add(2, CurrencyType.GBP, CurrencyType.EUR, RateTriggerDirection.BELOW, new BigDecimal("1.10"));
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        // Re-arming with a new threshold moves the trigger
+        index.add(2, CurrencyType.GBP, CurrencyType.EUR, RateTriggerDirection.BELOW, new BigDecimal("1.00"));
+        assertEquals(1, index.size());
+
+        assertEquals(List.of(), ids(index.takeCrossed(CurrencyType.GBP, CurrencyType.EUR, new BigDecimal("1.05"))));
+        assertEquals(List.of(2L), ids(index.takeCrossed(CurrencyType.GBP, CurrencyType.EUR, new BigDecimal("0.99"))));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testLargeBookFiresOnlyTheCrossedSlice() {
+        int armed = 300_000;
+        for (int i = 0; i < armed; i++) {
+            // Thresholds 0.080000 to 0.109999, ten triggers per step, alternating direction
+            RateTriggerDirection direction = i % 2 == 0 ? RateTriggerDirection.ABOVE : RateTriggerDirection.BELOW;
+            index.add(i, CurrencyType.GHS, CurrencyType.USD, direction, BigDecimal.valueOf(80_000 + i / 10, 6));
+        }
+        assertEquals(armed, index.size());
+
+        long start = System.nanoTime();
+        List<RateTriggerIndex.Armed> crossed = index.takeCrossed(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("0.080009"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // ABOVE at or below 0.080009: i < 100 and even; BELOW at or above it: i >= 90 and odd
+        long expected = 50 + (armed - 90) / 2;
+        assertEquals(expected, crossed.size());
+        assertEquals(armed - expected, index.size());
+        assertTrue(index.takeCrossed(CurrencyType.GHS, CurrencyType.USD, new BigDecimal("0.080009")).isEmpty());
+        assertTrue(elapsedMs < 5_000, "took " + elapsedMs + " ms");
+    }
+
+    private List<Long> ids(List<RateTriggerIndex.Armed> crossed) {
+        return crossed.stream().map(RateTriggerIndex.Armed::id).toList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.swift.wallet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceGeneratorTest {
+
+    private static final Clock FIXED = Clock.fixed(Instant.parse("2025-06-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void testReferenceFormat() {
+        String reference = new ReferenceGenerator(7, FIXED).next("SEND");
+
+        assertTrue(reference.matches("SEND_[0-9A-HJKMNP-TV-Z]{13}"), reference);
+    }
+
+    @Test
+    void testReferencesIncreaseWithinOneMillisecondAndPastSequenceOverflow() {
+        ReferenceGenerator generator = new ReferenceGenerator(7, FIXED);
+        String previous = generator.next("TRANSFER");
+        // Several times the 4096-per-millisecond sequence on a frozen clock
+        for (int i = 0; i < 20_000; i++) {
+            String next = generator.next("TRANSFER");
+            assertTrue(next.compareTo(previous) > 0, previous + " then " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testClockSteppingBackDoesNotRepeatIds() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-01T12:00:00Z"));
+        ReferenceGenerator generator = new ReferenceGenerator(1, clock);
+        long before = generator.nextId();
+        clock.now = clock.now.minusSeconds(5);
+
+        assertTrue(generator.nextId() > before);
+    }
+
+    @Test
+    void testDifferentNodesNeverCollide() {
+        ReferenceGenerator node1 = new ReferenceGenerator(1, FIXED);
+        ReferenceGenerator node2 = new ReferenceGenerator(2, FIXED);
+        Set<String> references = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(references.add(node1.next("DEP")));
+            assertTrue(references.add(node2.next("DEP")));
+        }
+    }
+
+    @Test
+    void testConcurrentCallersGetUniqueReferences() throws Exception {
+        ReferenceGenerator generator = new ReferenceGenerator(3, Clock.systemUTC());
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    references.add(generator.next("WITHDRAW"));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, references.size());
+    }
+
+    @Test
+    void testNodeIdOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceGenerator(ReferenceGenerator.MAX_NODE_ID + 1, FIXED));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
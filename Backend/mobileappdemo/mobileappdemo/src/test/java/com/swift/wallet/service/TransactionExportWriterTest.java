@@ -0,0 +1,96 @@
+package com.swift.wallet.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swift.wallet.dto.TransactionHistoryDto;
+import com.swift.wallet.enums.CurrencyType;
+import com.swift.wallet.enums.ExportFormat;
+import com.swift.wallet.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionExportWriterTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2026, 3, 7, 9, 5, 42, 123_456_000);
+
+    @Test
+    void testCsvRowsMatchTheFormattedLayout() throws Exception {
+        TransactionHistoryDto deposit = row(41L, TransactionType.DEPOSIT, "250.00", "Deposit via Paystack", "DEP_1");
+        TransactionHistoryDto sent = row(42L, TransactionType.TRANSFER, "-12.50", "Sent to Ama - \"rent\"", "TRF_1");
+
+        String csv = export(ExportFormat.CSV, deposit, sent);
+
+        // The layout the String.format export produced, for rows that need no extra quoting
+        String expected = TransactionExportWriter.CSV_HEADER +
+                String.format("%d,%d,%s,%s,%s,%s,\"%s\",%s,%s,%s,%s,%s,%s\n", 41L, 7L, "DEPOSIT", deposit.getDisplayType(),
+                        "250.00", "GHS", "Deposit via Paystack", "DEP_1", "COMPLETED", "", "External",
+                        AT.format(DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH)), "09:05") +
+                String.format("%d,%d,%s,%s,%s,%s,\"%s\",%s,%s,%s,%s,%s,%s\n", 42L, 7L, "TRANSFER", "Sent",
+                        "-12.50", "GHS", "Sent to Ama - \"\"rent\"\"", "TRF_1", "COMPLETED", "\"Ama - \"\"rent\"\"\"", "",
+                        "Mar 07, 2026", "09:05");
+        assertEquals(expected, csv);
+    }
+
+    @Test
+    void testNdjsonRowsParseBack() throws Exception {
+        TransactionHistoryDto row = row(43L, TransactionType.WITHDRAWAL, "-20.00", "Withdrawal to bank ₵ 😀\n\t\\ \u0001", null);
+
+        String ndjson = export(ExportFormat.NDJSON, row, row);
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode json = new ObjectMapper().readTree(lines[0]);
+        assertEquals(43L, json.get("id").asLong());
+        assertEquals(7L, json.get("walletId").asLong());
+        assertEquals("WITHDRAWAL", json.get("transactionType").asText());
+        assertEquals(0, new BigDecimal("-20.00").compareTo(json.get("amount").decimalValue()));
+        assertEquals("Withdrawal to bank ₵ 😀\n\t\\ \u0001", json.get("description").asText());
+        assertTrue(json.get("reference").isNull());
+        assertEquals(row.getRecipientName(), json.get("recipientName").asText());
+        assertEquals(AT.toString(), json.get("createdAt").asText());
+    }
+
+    @Test
+    void testRowsSpanningBufferFlushesStayIntact() throws Exception {
+        // Multi-byte text straddles the 64 KiB buffer boundary many times over
+        TransactionHistoryDto[] rows = new TransactionHistoryDto[5_000];
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row((long) i, TransactionType.DEPOSIT, "1.00", "Dépôt €" + "ü".repeat(i % 17), "REF" + i);
+            expected.append(new ObjectMapper().writeValueAsString(rows[i].getDescription())).append('\n');
+        }
+
+        String ndjson = export(ExportFormat.NDJSON, rows);
+
+        StringBuilder descriptions = new StringBuilder();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : ndjson.split("\n")) {
+            descriptions.append(mapper.writeValueAsString(mapper.readTree(line).get("description").asText())).append('\n');
+        }
+        assertEquals(expected.toString(), descriptions.toString());
+    }
+
+    private String export(ExportFormat format, TransactionHistoryDto... rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionExportWriter writer = new TransactionExportWriter(out, format);
+        for (TransactionHistoryDto row : rows) {
+            writer.write(row);
+        }
+        writer.flush();
+        assertEquals(rows.length, writer.rows());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private TransactionHistoryDto row(Long id, TransactionType type, String amount, String description, String reference) {
+        return new TransactionHistoryDto(id, 7L, type, new BigDecimal(amount), CurrencyType.GHS, description, reference,
+                "COMPLETED", AT);
+    }
+}